@@ -0,0 +1,18 @@
+<#--
+	External parameters: stepData, containerId
+	Step is wrapped into element with ID, so that real-time report page can replace it when the step is changed
+-->
+
+<#import "step.ftl" as stepTemplate>
+
+<div class="realtimeStep" id="${containerId}_step">
+<@stepTemplate.printStep
+	step = stepData.step
+	status = stepData.stepStatus
+	containerId = containerId
+	pathToActionsFile = stepData.pathToActionsFile!""
+	expanded = stepData.statusExpanded
+	stepName = stepData.stepName
+	async = stepData.async
+/>
+</div>
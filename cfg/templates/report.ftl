@@ -76,6 +76,9 @@
 				<br><label for="ExpandAll"><input type="checkbox" id="ExpandAll" onclick="toggleExpandAll(this.checked)" unchecked>Expand all</label>
 			</form>
 			<#list stepsData as stepData>
+				<#if stepData.renderedHtml??>
+				${stepData.renderedHtml}
+				<#else>
 				<@stepTemplate.printStep
 					step = stepData.step
 					status = stepData.stepStatus
@@ -85,6 +88,7 @@
 					stepName = stepData.stepName
 					async = stepData.async
 				/>
+				</#if>
 			</#list>
 		</div>
 	</body>
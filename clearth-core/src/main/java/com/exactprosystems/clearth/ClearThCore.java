@@ -61,6 +61,7 @@ public abstract class ClearThCore
 	
 	protected String root, approot, logsDir;
 	protected boolean logsOverride, rootOverride;
+	protected long actionReportsFlushInterval;
 	protected UsersManager usersManager;
 	protected ValueGenerators valueGenerators;
 	protected SchedulerFactory schedulerFactory;
@@ -233,6 +234,7 @@ public abstract class ClearThCore
 		this.configFiles = configFiles;
 		initSystemProperties();
 		initPaths(depConfig);
+		initActionReports(depConfig);
 		initLogging();
 		
 		Thread.setDefaultUncaughtExceptionHandler(createUncaughtExceptionHandler());
@@ -311,6 +313,11 @@ public abstract class ClearThCore
 		rootOverride = depConfig.isRootOverride();
 	}
 	
+	protected void initActionReports(DeploymentConfig depConfig)
+	{
+		actionReportsFlushInterval = depConfig.getActionReportsFlushInterval();
+	}
+	
 	protected void initLogging()
 	{
 		PropertyConfigurator.configureAndWatch(getRootRelative(configFiles.getLogCfgFileName()));
@@ -635,6 +642,14 @@ public abstract class ClearThCore
 		return logsOverride;
 	}
 	
+	/**
+	 * @return interval in milliseconds to flush action reports files being written, see {@link com.exactprosystems.clearth.automation.report.ActionReportWriter#setFlushInterval(long)}
+	 */
+	public long getActionReportsFlushInterval()
+	{
+		return actionReportsFlushInterval;
+	}
+	
 	public String getConnectionsPath()
 	{
 		return getRootRelative(configFiles.getConnectionsDir());
@@ -24,6 +24,8 @@ import java.net.URL;
 import java.net.URLDecoder;
 import java.text.SimpleDateFormat;
 
+import com.exactprosystems.clearth.automation.report.ActionReportWriter;
+
 /**
  * Created by alexey.karpukhin on 8/24/16.
  */
@@ -43,6 +45,8 @@ public abstract class DeploymentConfig {
 	protected boolean rootOverride;
 	protected String configFileName;
 
+	protected long actionReportsFlushInterval = ActionReportWriter.DEFAULT_FLUSH_INTERVAL;
+
 
 	public String getLogsDir() {
 		return logsDir;
@@ -64,6 +68,13 @@ public abstract class DeploymentConfig {
 	public String getConfigFileName(){
 		return configFileName;
 	}
+	
+	/**
+	 * @return interval in milliseconds to flush action reports files being written. Zero or negative value makes reports flushed after each action
+	 */
+	public long getActionReportsFlushInterval() {
+		return actionReportsFlushInterval;
+	}
 
 
 	protected void configureAppRoot() {
@@ -104,6 +115,11 @@ public abstract class DeploymentConfig {
 		logsDir = configFiles.getLogsDir();
 	}
 	
+	protected void configureActionReports()
+	{
+		actionReportsFlushInterval = ActionReportWriter.DEFAULT_FLUSH_INTERVAL;
+	}
+	
 	private boolean trySelectRoot(File folder) throws IOException {
 		root = folder.getCanonicalPath();
 		if (root.charAt(root.length() - 1) != File.separatorChar) {
@@ -133,6 +149,7 @@ public abstract class DeploymentConfig {
 		}
 		
 		configureLogsDir();
+		configureActionReports();
 
 		additionalInit();
 	}
@@ -76,6 +76,7 @@ public class ActionExecutor implements Closeable
 	public void close() throws IOException
 	{
 		Utils.closeResource(asyncManager);
+		reportWriter.close();
 	}
 	
 	
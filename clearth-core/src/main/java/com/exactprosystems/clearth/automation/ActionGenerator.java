@@ -24,6 +24,7 @@ import com.exactprosystems.clearth.automation.exceptions.AutomationException;
 import com.exactprosystems.clearth.automation.generator.ActionReader;
 import com.exactprosystems.clearth.automation.generator.CsvActionReader;
 import com.exactprosystems.clearth.automation.generator.XlsActionReader;
+import com.exactprosystems.clearth.automation.generator.XlsxActionReader;
 import com.exactprosystems.clearth.utils.*;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsUtils;
 
@@ -640,8 +641,10 @@ public abstract class ActionGenerator
 		ActionReader reader;
 		if (fileExtension.equals("csv"))
 			reader = new CsvActionReader(fileName, trim);
-		else if ((fileExtension.equals("xls")) || (fileExtension.equals("xlsx")))
+		else if (fileExtension.equals("xls"))
 			reader = new XlsActionReader(fileName, trim);
+		else if (fileExtension.equals("xlsx"))
+			reader = new XlsxActionReader(fileName, trim);
 		else
 		{
 			matrix.addGeneratorMessage(ActionGeneratorMessageType.ERROR, ActionGeneratorMessageKind.UNSUPPORTED_FILE_EXTENSION,
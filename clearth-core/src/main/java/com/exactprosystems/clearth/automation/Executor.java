@@ -29,6 +29,10 @@ import com.exactprosystems.clearth.automation.report.results.DefaultResult;
 import com.exactprosystems.clearth.automation.steps.AskForContinue;
 import com.exactprosystems.clearth.automation.steps.Default;
 import com.exactprosystems.clearth.automation.steps.Sleep;
+import com.exactprosystems.clearth.connectivity.ConnectionException;
+import com.exactprosystems.clearth.connectivity.MQConnection;
+import com.exactprosystems.clearth.connectivity.connections.ClearThConnection;
+import com.exactprosystems.clearth.connectivity.connections.ClearThConnectionStorage;
 import com.exactprosystems.clearth.utils.ExceptionUtils;
 import com.exactprosystems.clearth.utils.ObjectWrapper;
 import com.exactprosystems.clearth.utils.Utils;
@@ -259,6 +263,8 @@ public abstract class Executor extends Thread
 						
 						//Need to "execute actions" even if step is not executable, because actions may need to set some parameters referenced by further actions
 						step.executeActions(actionExecutor, actionsReportsDir, replay, suspension);
+						//Messages sent asynchronously by step actions should reach their destinations before the step is considered finished
+						Throwable sendingError = checkAsyncSending(step);
 						
 						if (interrupted.get())
 						{
@@ -305,6 +311,13 @@ public abstract class Executor extends Thread
 										}
 						}
 						
+						if (sendingError != null)
+						{
+							step.setSuccessful(false);
+							step.setStatusComment(sendingError.getMessage());
+							step.setError(sendingError);
+						}
+						
 						if ((stepResult!=null) && (stepResult.getError()!=null) && (stepResult.getError() instanceof InterruptedException))
 							interrupted.set(true);
 						else if (step.isAskForContinue()|| step.isAskIfFailed() && step.getExecutionProgress().getSuccessful() < step.getExecutionProgress().getDone())
@@ -422,6 +435,42 @@ public abstract class Executor extends Thread
 		executedMatricesPath = Paths.get(scheduler.scriptsDir, EXECUTED_MATRICES_DIR);
 	}
 
+	/**
+	 * Waits for messages sent asynchronously through MQ connections to be sent, reporting failures in execution status
+	 * @param step whose actions sent messages
+	 * @return error occurred while sending messages or null if all messages were sent
+	 */
+	protected Throwable checkAsyncSending(Step step)
+	{
+		ClearThConnectionStorage storage = ClearThCore.connectionStorage();
+		if (storage == null)
+			return null;
+		
+		Throwable result = null;
+		for (ClearThConnection<?, ?> con : storage.getConnections(c -> c instanceof MQConnection && ((MQConnection)c).getPipelinedSender() != null))
+		{
+			try
+			{
+				((MQConnection)con).checkSending(MQConnection.SEND_FLUSH_TIMEOUT);
+			}
+			catch (ConnectionException e)
+			{
+				getLogger().error("Messages sent asynchronously by actions of step '"+step.getName()+"' were not sent", e);
+				status.add(format("Step '%s': %s", step.getName(), e.getMessage()));
+				if (result == null)
+					result = e;
+				else
+					result.addSuppressed(e);
+			}
+			catch (InterruptedException e)
+			{
+				getLogger().warn("Wait for messages sent asynchronously by actions of step '"+step.getName()+"' interrupted", e);
+				break;
+			}
+		}
+		return result;
+	}
+	
 	protected void stepFinished(Step step)
 	{
 		step.clearContexts();
@@ -506,7 +555,9 @@ public abstract class Executor extends Thread
 	
 	protected ActionReportWriter createReportWriter()
 	{
-		return new ActionReportWriter();
+		ActionReportWriter result = new ActionReportWriter();
+		result.setFlushInterval(ClearThCore.getInstance().getActionReportsFlushInterval());
+		return result;
 	}
 	
 	protected ActionExecutor createActionExecutor()
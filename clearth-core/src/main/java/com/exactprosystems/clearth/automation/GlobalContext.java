@@ -18,11 +18,13 @@
 
 package com.exactprosystems.clearth.automation;
 
+import java.io.Closeable;
 import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.exactprosystems.clearth.automation.exceptions.ResultException;
+import com.exactprosystems.clearth.utils.Utils;
 
 public class GlobalContext
 {
@@ -36,6 +38,7 @@ public class GlobalContext
 	private final String startedByUser;
 	private final List<String> attemtedConnections;
 	private final Set<Statement> statements;
+	private final Set<Closeable> stepResources;
 	
 	private Date started, finished;
 	
@@ -57,6 +60,7 @@ public class GlobalContext
 		this.startedByUser = startedByUser;
 		this.attemtedConnections = new ArrayList<String>(0);
 		this.statements = ConcurrentHashMap.newKeySet();
+		this.stepResources = ConcurrentHashMap.newKeySet();
 		
 		this.started = null;
 		this.finished = null;
@@ -138,6 +142,26 @@ public class GlobalContext
 		statements.remove(statement);
 	}
 	
+	/**
+	 * Registers resource opened by action to be closed when current step ends or when execution ends
+	 */
+	public void registerStepResource(Closeable resource)
+	{
+		stepResources.add(resource);
+	}
+	
+	public void closeStepResources()
+	{
+		Iterator<Closeable> it = stepResources.iterator();
+		while (it.hasNext())
+		{
+			//Removing before closing, so that resource registered again while being closed isn't lost
+			Closeable resource = it.next();
+			it.remove();
+			Utils.closeResource(resource);
+		}
+	}
+	
 	
 	public Date getStarted()
 	{
@@ -161,6 +185,7 @@ public class GlobalContext
 
 	public void clearContext()
 	{
+		closeStepResources();
 		loadedContext.clear();
 		attemtedConnections.clear();
 		holidays.clear();
@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.exactprosystems.clearth.automation.ActionExecutor.isAsyncAction;
@@ -52,6 +53,7 @@ public abstract class Step
 	protected String statusComment = null;
 	protected Throwable error = null;
 	protected Result result = null;
+	protected final AtomicLong resultsVersion = new AtomicLong(0);
 
 	protected StartAtType startAtType = StartAtType.DEFAULT;
 	protected boolean waitNextDay = false;
@@ -353,6 +355,7 @@ public abstract class Step
 	public void setError(Throwable error)
 	{
 		this.error = error;
+		resultsVersion.incrementAndGet();
 		if(error != null)
 		{
 			if (isSuccessful())
@@ -366,6 +369,15 @@ public abstract class Step
 
 	public void setResult(Result result) {
 		this.result = result;
+		resultsVersion.incrementAndGet();
+	}
+	
+	/**
+	 * @return number that changes every time error or result of step is set, e.g. to find out if report of step should be updated
+	 */
+	public long getResultsVersion()
+	{
+		return resultsVersion.get();
 	}
 
 
@@ -552,6 +564,7 @@ public abstract class Step
 		finally
 		{
 			afterActions(globalContext, stepContexts);
+			globalContext.closeStepResources();
 		}
 	}
 
@@ -19,12 +19,16 @@
 package com.exactprosystems.clearth.automation.actions;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
 import org.apache.commons.exec.*;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 
 import com.exactprosystems.clearth.ClearThCore;
@@ -37,8 +41,10 @@ import com.exactprosystems.clearth.automation.report.Result;
 import com.exactprosystems.clearth.automation.report.results.DefaultResult;
 import com.exactprosystems.clearth.utils.Utils;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsUtils;
+import com.exactprosystems.clearth.utils.scripts.ScriptOutputSettings;
 import com.exactprosystems.clearth.utils.scripts.ScriptResult;
 import com.exactprosystems.clearth.utils.scripts.ScriptUtils;
+import com.exactprosystems.clearth.utils.scripts.StreamedScriptResult;
 
 public class ExecuteScript extends Action {
 	
@@ -51,7 +57,9 @@ public class ExecuteScript extends Action {
 			SUCCESS_RESULT_CODES = "SuccessResultCodes",
 			SCRIPT_TEXT_PARAM = "ScriptText",
 			EXECUTABLE_NAME_PARAM = "ExecutableName",
-			SHELL_OPTION_PARAM = "ShellOption";
+			SHELL_OPTION_PARAM = "ShellOption",
+			OUTPUT_LIMIT = "OutputLimit",
+			OUTPUT_FILE = "OutputFile";
 	protected String executableName, shellOption;
 
 	@Override
@@ -113,12 +121,19 @@ public class ExecuteScript extends Action {
 	}
 	
 	
+	/**
+	 * Executes script. If output limit is set, returned result is {@link StreamedScriptResult} that keeps only head and tail of output in memory
+	 */
 	protected ScriptResult doExecuteScript(String command)
 	{
+		int outputLimit = getOutputLimit();
 		ScriptResult res;
 		try
 		{
-			res = ScriptUtils.executeScript(command, null);
+			if (outputLimit > 0)
+				res = ScriptUtils.executeScriptStreaming(command, null, null, createOutputSettings(command, outputLimit));
+			else
+				res = ScriptUtils.executeScript(command, null);
 		}
 		catch (ExecuteException e)
 		{
@@ -134,6 +149,21 @@ public class ExecuteScript extends Action {
 		return res;
 	}
 	
+	protected ScriptResult executeWithShell(String command)
+	{
+		int outputLimit = getOutputLimit();
+		try
+		{
+			if (outputLimit > 0)
+				return ScriptUtils.executeScriptStreaming(command, executableName, shellOption, null, null, createOutputSettings(command, outputLimit));
+			return ScriptUtils.executeScript(command, executableName, shellOption, null, null);
+		}
+		catch (IOException e)
+		{
+			throw ResultException.failed(String.format("Script '%s' was not launched", command), e);
+		}
+	}
+	
 	protected void processScriptResult(ScriptResult res)
 	{
 		String resultString, outStr = res.outStr;
@@ -179,26 +209,65 @@ public class ExecuteScript extends Action {
 		return result;
 	}
 	
+	/**
+	 * @return number of bytes of script output to keep in memory, 0 if output is not limited
+	 */
+	protected int getOutputLimit() throws ResultException
+	{
+		return InputParamsUtils.getIntOrDefault(getInputParams(), OUTPUT_LIMIT, 0);
+	}
+	
+	protected ScriptOutputSettings createOutputSettings(final String command, int outputLimit)
+	{
+		ScriptOutputSettings settings = new ScriptOutputSettings();
+		settings.setHeadSize(outputLimit / 2);
+		settings.setTailSize(outputLimit - outputLimit / 2);
+		settings.setSpillDir(new File(ClearThCore.tempPath()));
+		if (logger.isTraceEnabled())
+			settings.setListener((line, error) -> logger.trace("Script '{}' {}: {}", command, error ? "error" : "output", line));
+		return settings;
+	}
+	
+	/**
+	 * Writes full output of script to file specified by {@link #OUTPUT_FILE} parameter, if any. 
+	 * The file belongs to matrix, while temporary files with output are removed after action execution
+	 */
+	protected void saveFullOutput(ScriptResult res) throws ResultException
+	{
+		String outputFileName = InputParamsUtils.getStringOrDefault(getInputParams(), OUTPUT_FILE, null);
+		if (StringUtils.isEmpty(outputFileName))
+			return;
+		
+		File outputFile = new File(ClearThCore.rootRelative(outputFileName));
+		try
+		{
+			File spilled = res instanceof StreamedScriptResult ? ((StreamedScriptResult)res).getOutputFile() : null;
+			if (spilled != null)
+				Files.move(spilled.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			else
+				FileUtils.writeStringToFile(outputFile, res.outStr, Charset.defaultCharset());
+		}
+		catch (IOException e)
+		{
+			throw ResultException.failed("Could not write script output to file '"+outputFile.getAbsolutePath()+"'", e);
+		}
+		addOutputParam(OUTPUT_FILE, outputFile.getAbsolutePath());
+	}
+	
 	protected Result executeScriptSync(String command)
 	{
-		ScriptResult res;
-		if (executableName == null)
+		ScriptResult res = executableName == null ? doExecuteScript(command) : executeWithShell(command);
+		try
 		{
-			res = doExecuteScript(command);
+			processScriptResult(res);
+			saveFullOutput(res);
+			return buildActionResult(res);
 		}
-		else 
+		finally
 		{
-			try
-			{
-				res = ScriptUtils.executeScript(command, executableName, shellOption, null, null);
-			}
-			catch (IOException e)
-			{
-				throw ResultException.failed(String.format("Script '%s' was not launched", command), e);
-			}
+			if (res instanceof StreamedScriptResult)
+				((StreamedScriptResult)res).close();
 		}
-		processScriptResult(res);
-		return buildActionResult(res);
 	}
 	
 	protected Result executeScriptAsync(final String command)
@@ -209,13 +278,22 @@ public class ExecuteScript extends Action {
 		                                   command, getIdInMatrix(), getMatrix().getName());
 		try
 		{
+			//Output of asynchronous script is only logged on completion, spilling it to file makes no sense
+			int outputLimit = getOutputLimit();
+			ScriptOutputSettings settings = null;
+			if (outputLimit > 0)
+			{
+				settings = createOutputSettings(command, outputLimit);
+				settings.setSpillEnabled(false);
+			}
+			
 			if (executableName != null)
 			{
-				ScriptUtils.executeScriptAsync(command, executableName, shellOption, null, messageComplete, messageFail);
+				ScriptUtils.executeScriptAsync(command, executableName, shellOption, null, messageComplete, messageFail, settings);
 			}
 			else
 			{
-				ScriptUtils.executeScriptAsync(command, null, messageComplete, messageFail);
+				ScriptUtils.executeScriptAsync(command, null, null, messageComplete, messageFail, settings);
 			}
 		}
 		catch (IOException e)
@@ -18,21 +18,24 @@
 
 package com.exactprosystems.clearth.automation.actions;
 
-import com.csvreader.CsvReader;
 import com.exactprosystems.clearth.automation.Action;
 import com.exactprosystems.clearth.automation.GlobalContext;
 import com.exactprosystems.clearth.automation.MatrixContext;
 import com.exactprosystems.clearth.automation.StepContext;
+import com.exactprosystems.clearth.automation.actions.csv.CsvAppenders;
+import com.exactprosystems.clearth.automation.actions.csv.CsvFilesCache;
+import com.exactprosystems.clearth.automation.actions.csv.CsvFilesCache.CsvFile;
 import com.exactprosystems.clearth.automation.exceptions.ResultException;
 import com.exactprosystems.clearth.automation.report.Result;
 import com.exactprosystems.clearth.automation.report.results.DefaultResult;
-import com.exactprosystems.clearth.utils.Utils;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
 import org.apache.commons.lang.StringUtils;
 
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 import static com.exactprosystems.clearth.ClearThCore.rootRelative;
 
@@ -55,6 +58,14 @@ public class GetCsvLine extends Action
 		return params;
 	}
 
+	protected CsvFile getCsvFile(String fileName, GlobalContext globalContext) throws IOException
+	{
+		File file = new File(rootRelative(fileName));
+		//File may be written by previous actions and have data not flushed yet
+		CsvAppenders.get(globalContext).flush(file);
+		return CsvFilesCache.get(globalContext).getFile(file);
+	}
+
 	@Override
 	protected Result run(StepContext stepContext, MatrixContext matrixContext, GlobalContext globalContext) throws ResultException
 	{
@@ -65,46 +76,33 @@ public class GetCsvLine extends Action
 		int foundLinesCount = 0;
 		LinkedHashMap<String, String> foundLine = new LinkedHashMap<String, String>();
 
-		CsvReader reader = null;
 		try
 		{
-			reader = new CsvReader(new FileReader(rootRelative(fileName)));
-			reader.setSkipEmptyRecords(false);
-			reader.setTrimWhitespace(true);
-
-			reader.readHeaders();
-			String[] header = reader.getHeaders(),
-					headerForMatrix = removeInvalidSymbols(header);
-
-			while (reader.readRecord())
+			CsvFile file = getCsvFile(fileName, globalContext);
+			String[] headerForMatrix = removeInvalidSymbols(file.getHeader());
+			
+			//Columns with values specified in action parameters are keys to find line by
+			List<Integer> keyColumns = new ArrayList<Integer>();
+			List<String> keyValues = new ArrayList<String>();
+			for (int i = 0; i < headerForMatrix.length; i++)
 			{
-				boolean isFound = false;
-				LinkedHashMap<String, String> currentRecord = new LinkedHashMap<String, String>();
-
-				for (int i = 0; i < header.length; i++)
+				String keyValue = paramsHandler.getString(headerForMatrix[i]);
+				if (StringUtils.isNotBlank(keyValue))
 				{
-					String paramValue = reader.get(header[i]),
-							headerParamForOutput = headerForMatrix[i],
-							keyValue = paramsHandler.getString(headerParamForOutput);
-					currentRecord.put(headerParamForOutput, paramValue);
-
-					if (StringUtils.isNotBlank(keyValue))
-					{
-						if (keyValue.equalsIgnoreCase(paramValue))
-							isFound = true;
-						else
-						{
-							isFound = false;
-							break;
-						}
-					}
+					keyColumns.add(i);
+					keyValues.add(keyValue);
 				}
-
-				if (isFound)
+			}
+			
+			if (!keyColumns.isEmpty())
+			{
+				List<Integer> found = file.find(keyColumns, keyValues);
+				foundLinesCount = found.size();
+				if (foundLinesCount > 0)
 				{
-					foundLinesCount++;
-					if (foundLinesCount == 1)
-						foundLine.putAll(currentRecord);
+					String[] record = file.getRecord(found.get(0));
+					for (int i = 0; i < headerForMatrix.length; i++)
+						foundLine.put(headerForMatrix[i], record[i]);
 				}
 			}
 		}
@@ -112,10 +110,6 @@ public class GetCsvLine extends Action
 		{
 			return DefaultResult.failed("Error while reading file", e);
 		}
-		finally
-		{
-			Utils.closeResource(reader);
-		}
 
 		Result result;
 
@@ -41,6 +41,7 @@ public abstract class MessageAction<T extends ClearThMessage<T>> extends Action
 			FILENAME = "FileName",
 			CODEC = "Codec",
 			READ_FROM_CONTEXT_PARAM = "ReadFromContext",
+			SEND_ASYNC = "SendAsync",
 			
 			CODECNAME_POSTFIX = " codec";
 	
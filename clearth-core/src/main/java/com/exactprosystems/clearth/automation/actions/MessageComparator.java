@@ -26,9 +26,17 @@ import static java.lang.String.format;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang.StringUtils.isEmpty;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
@@ -49,11 +57,15 @@ import com.exactprosystems.clearth.utils.ComparisonUtils;
 
 public class MessageComparator<T extends ClearThMessage<T>>
 {
+	//Sub-messages index relies on default matching of fields, so it is not used if any of these methods is overridden
+	private static final Set<String> MATCHING_METHODS = new HashSet<String>(Arrays.asList("fieldsEqual", "messagesEqual", "findSubMessage"));
+	
 	protected final Set<String> serviceParams;
 	protected final ComparisonUtils cu;
 	protected final boolean checkExtraRgs,
 			saveFields,
 			saveSubFields;
+	private final boolean indexAllowed;
 	protected RgKeyFieldNames rgKeyFieldNames;
 	
 	protected LinkedHashMap<String, String> outputFields;
@@ -66,6 +78,20 @@ public class MessageComparator<T extends ClearThMessage<T>>
 		this.checkExtraRgs = checkExtraRgs;
 		this.saveFields = saveFields;
 		this.saveSubFields = saveSubFields;
+		this.indexAllowed = !overridesAny(MATCHING_METHODS);
+	}
+	
+	private boolean overridesAny(Set<String> methodNames)
+	{
+		for (Class<?> c = getClass(); c != MessageComparator.class; c = c.getSuperclass())
+		{
+			for (Method m : c.getDeclaredMethods())
+			{
+				if (methodNames.contains(m.getName()))
+					return true;
+			}
+		}
+		return false;
 	}
 	
 	
@@ -252,26 +278,37 @@ public class MessageComparator<T extends ClearThMessage<T>>
 	
 	private void compareSubMessages(List<T> expectedList, List<T> actualList, ContainerResult resultContainer)
 	{
-		for (T expected : expectedList)
-		{
-			T actual = findSubMessage(actualList, expected);
-			if (actual != null)
-				resultContainer.addDetail(compareMessages(expected, actual, true));
-			else
-				resultContainer.addDetail(whenSubMessageNotFound(expected));
-		}
+		compareSubMessages(expectedList, actualList, null, resultContainer);
 	}
 	
 	private void compareSubMessages(List<T> expectedList, List<T> actualList, Set<String> rgKeys, ContainerResult resultContainer)
 	{
+		//Single expected sub-message is found by one pass over actual ones, no need to build index for that
+		SubMessagesIndex index = indexAllowed && expectedList.size() > 1 ? new SubMessagesIndex(actualList) : null;
 		for (T expected : expectedList)
 		{
-			T actual = findSubMessage(actualList, expected, rgKeys);
+			T actual;
+			if (index != null)
+				actual = index.find(expected, rgKeys);
+			else
+				actual = rgKeys != null ? findSubMessage(actualList, expected, rgKeys) : findSubMessage(actualList, expected);
+			
 			if (actual != null)
 				resultContainer.addDetail(compareMessages(expected, actual, true));
 			else
 				resultContainer.addDetail(whenSubMessageNotFound(expected));
 		}
+		
+		if (index != null)
+			index.removeFound();
+	}
+	
+	/**
+	 * Checks if expected value is matched by plain equality, thus sub-messages can be looked up by it using hash index
+	 */
+	protected boolean isPlainValue(String expectedValue)
+	{
+		return !cu.isForCompareValues(expectedValue);
 	}
 	
 	protected Result whenSubMessageNotFound(T expectedMessage)
@@ -335,4 +372,132 @@ public class MessageComparator<T extends ClearThMessage<T>>
 		}
 		addSubOutputFields(subActionId, fields);
 	}
+	
+	
+	/**
+	 * Finds actual sub-messages for expected ones without checking each pair. 
+	 * Actual sub-messages are grouped by values of fields that are compared by plain equality, 
+	 * other fields (patterns, expressions, special values) are checked only for sub-messages from matching group.
+	 * Groups keep order of sub-messages, thus the found sub-message is the same as one found by {@link #findSubMessage(List, ClearThMessage)}.
+	 * Index is used only if methods to match fields and sub-messages are not overridden
+	 */
+	protected class SubMessagesIndex
+	{
+		private final List<T> actualList;
+		private final boolean[] found;
+		//Field names -> field values -> positions of sub-messages with these values
+		private final Map<List<String>, Map<List<String>, LinkedList<Integer>>> groups = new HashMap<>();
+		
+		public SubMessagesIndex(List<T> actualList)
+		{
+			this.actualList = actualList;
+			this.found = new boolean[actualList.size()];
+		}
+		
+		/**
+		 * @param keys names of fields to match sub-messages by. If null, all fields of expected sub-message are used
+		 * @return first not yet found actual sub-message that matches expected one
+		 */
+		public T find(T expected, Set<String> keys)
+		{
+			List<String> names = new ArrayList<String>(),
+					values = new ArrayList<String>();
+			collectPlainFields(expected, keys, names, values);
+			
+			if (names.isEmpty())
+			{
+				for (int pos = 0; pos < actualList.size(); pos++)
+				{
+					if (!found[pos] && matches(expected, pos, keys))
+						return actualList.get(pos);
+				}
+				return null;
+			}
+			
+			Iterator<Integer> positions = getGroup(names, values).iterator();
+			while (positions.hasNext())
+			{
+				int pos = positions.next();
+				//Sub-message could be found via group of other fields, it is removed from this group only now
+				if (found[pos])
+					positions.remove();
+				else if (matches(expected, pos, keys))
+				{
+					positions.remove();
+					return actualList.get(pos);
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Removes found sub-messages from list of actual ones, so that only extra sub-messages remain in it
+		 */
+		public void removeFound()
+		{
+			int pos = 0;
+			Iterator<T> it = actualList.iterator();
+			while (it.hasNext())
+			{
+				it.next();
+				if (found[pos++])
+					it.remove();
+			}
+		}
+		
+		
+		private boolean matches(T expected, int pos, Set<String> keys)
+		{
+			T actual = actualList.get(pos);
+			if (keys != null ? messagesEqual(expected, actual, keys) : messagesEqual(expected, actual))
+			{
+				found[pos] = true;
+				return true;
+			}
+			return false;
+		}
+		
+		private void collectPlainFields(T expected, Set<String> keys, List<String> names, List<String> values)
+		{
+			List<String> fieldNames = new ArrayList<String>(keys != null ? keys : expected.getFieldNames());
+			//Same set of fields should give the same group key regardless of fields order
+			Collections.sort(fieldNames);
+			for (String name : fieldNames)
+			{
+				if (keys == null && isServiceParameter(name))
+					continue;
+				
+				String value = expected.getField(name);
+				if (isEmpty(value) || !isPlainValue(value))
+					continue;
+				
+				names.add(name);
+				values.add(value);
+			}
+		}
+		
+		private LinkedList<Integer> getGroup(List<String> names, List<String> values)
+		{
+			Map<List<String>, LinkedList<Integer>> byValues = groups.computeIfAbsent(names, this::groupByValues);
+			LinkedList<Integer> result = byValues.get(values);
+			return result != null ? result : new LinkedList<Integer>();
+		}
+		
+		private Map<List<String>, LinkedList<Integer>> groupByValues(List<String> names)
+		{
+			Map<List<String>, LinkedList<Integer>> result = new HashMap<>();
+			for (int pos = 0; pos < actualList.size(); pos++)
+			{
+				if (found[pos])
+					continue;
+				
+				T actual = actualList.get(pos);
+				List<String> values = new ArrayList<String>(names.size());
+				for (String name : names)
+					values.add(actual.getField(name));
+				result.computeIfAbsent(values, v -> new LinkedList<Integer>()).add(pos);
+			}
+			return result;
+		}
+	}
 }
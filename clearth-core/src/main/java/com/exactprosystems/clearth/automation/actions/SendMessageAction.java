@@ -32,6 +32,7 @@ import com.exactprosystems.clearth.utils.Stopwatch;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsUtils;
 
 import java.io.File;
+import java.util.Set;
 
 public abstract class SendMessageAction<T extends ClearThMessage<T>> extends MessageAction<T> implements TimeoutAwaiter
 {
@@ -92,6 +93,15 @@ public abstract class SendMessageAction<T extends ClearThMessage<T>> extends Mes
 	}
 	
 	
+	@Override
+	protected Set<String> getServiceParameters()
+	{
+		Set<String> result = super.getServiceParameters();
+		result.add(SEND_ASYNC);
+		return result;
+	}
+	
+	
 	protected ConnectionFinder getConnectionFinder()
 	{
 		return new ConnectionFinder();
@@ -103,7 +113,7 @@ public abstract class SendMessageAction<T extends ClearThMessage<T>> extends Mes
 		{
 			try
 			{
-				return getConnectionFinder().findConnection(getInputParams());
+				return getConnectionFinder().findSender(getInputParams());
 			}
 			catch (ConnectivityException e)
 			{
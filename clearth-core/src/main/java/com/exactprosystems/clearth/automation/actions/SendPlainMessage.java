@@ -62,7 +62,7 @@ public class SendPlainMessage extends Action
 		{
 			try
 			{
-				return new ConnectionFinder().findConnection(getInputParams());
+				return new ConnectionFinder().findSender(getInputParams());
 			}
 			catch (ConnectivityException e)
 			{
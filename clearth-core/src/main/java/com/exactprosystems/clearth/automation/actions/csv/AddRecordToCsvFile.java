@@ -21,26 +21,23 @@ package com.exactprosystems.clearth.automation.actions.csv;
 import static com.exactprosystems.clearth.automation.actions.MessageAction.FILENAME;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
-import com.csvreader.CsvReader;
-import com.csvreader.CsvWriter;
-
 import com.exactprosystems.clearth.automation.Action;
 import com.exactprosystems.clearth.automation.GlobalContext;
 import com.exactprosystems.clearth.automation.MatrixContext;
 import com.exactprosystems.clearth.automation.StepContext;
+import com.exactprosystems.clearth.automation.actions.csv.CsvAppenders.CsvAppender;
 import com.exactprosystems.clearth.automation.exceptions.FailoverException;
 import com.exactprosystems.clearth.automation.exceptions.ResultException;
 import com.exactprosystems.clearth.automation.report.Result;
 import com.exactprosystems.clearth.automation.report.results.DefaultResult;
-import com.exactprosystems.clearth.utils.Utils;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
 
 public class AddRecordToCsvFile extends Action {
@@ -71,75 +68,80 @@ public class AddRecordToCsvFile extends Action {
 			handler.check();
 		}
 
-		if(f.isFile() && (f.length() != 0) && append && addHeader)
-			return DefaultResult.failed("Inconsistent parameters - unable to add header to existing non-empty file.");
-
-		if((!append || !f.isFile() || (f.isFile() && f.length() == 0)) && !addHeader && addAccordingToHeader)
-			return DefaultResult.failed("Inconsistent parameters - unable to add data according to header without header in file.");
-
-		CsvWriter csvWriter = null;
+		CsvAppenders appenders = CsvAppenders.get(globalContext);
+		//Holding lock on registry to prevent concurrent actions from adding records to the same file in between
+		synchronized (appenders)
 		{
 			try
 			{
-				FileWriter fileWriter = new FileWriter(f, append);
-				csvWriter = new CsvWriter(fileWriter, ',');
+				boolean empty = appenders.isEmpty(f);
+				if(!empty && append && addHeader)
+					return DefaultResult.failed("Inconsistent parameters - unable to add header to existing non-empty file.");
+
+				if((!append || empty) && !addHeader && addAccordingToHeader)
+					return DefaultResult.failed("Inconsistent parameters - unable to add data according to header without header in file.");
 
+				CsvAppender appender = appenders.getAppender(f, append);
 				if(addHeader)
 				{
+					List<String> header = new ArrayList<>();
 					for (String param : inputParams.keySet())
 					{
 						if(!SERVICE_PARAMETERS.contains(param))
-							csvWriter.write(param);
+							header.add(param);
 					}
-					csvWriter.endRecord();
-					csvWriter.flush();
+					appender.writeRecord(header);
 				}
 
 				Set<String> inputWithoutServiceParams = new LinkedHashSet<>(inputParams.keySet());
 				inputWithoutServiceParams.removeAll(SERVICE_PARAMETERS);
 
+				List<String> record = new ArrayList<>();
 				if(addAccordingToHeader)
 				{
 					String[] header;
-					CsvReader csvReader = null;
 					try
 					{
-						csvReader = new CsvReader(new FileReader(f));
-						csvReader.readHeaders();
-						header = csvReader.getHeaders();
+						header = appender.getHeader();
 					} catch (Exception e)
 					{
 						return DefaultResult.failed("Could not load header from file.", e);
 					}
-					finally
-					{
-						Utils.closeResource(csvReader);
-					}
 
 					if(!(Arrays.asList(header)).containsAll(inputWithoutServiceParams))
 						return DefaultResult.failed("Input parameters do not match the header in file.");
 
 					for(String param : header)
-						csvWriter.write(inputParams.get(param));
+						record.add(inputParams.get(param));
 				}
 				else
 				{
 					for (String param : inputWithoutServiceParams)
-						csvWriter.write(inputParams.get(param));
+						record.add(inputParams.get(param));
 				}
 
-				csvWriter.endRecord();
-
+				appender.writeRecord(record);
+				//Flushing data in scope of action, so that write errors fail it and the file is complete for other readers
+				appender.flush();
 			} catch (IOException e)
 			{
+				discardAppender(appenders, f);
 				return DefaultResult.failed("Error while writing data", e);
 			}
-			finally
-			{
-				Utils.closeResource(csvWriter);
-			}
 		}
 
 		return null;
 	}
+	
+	private void discardAppender(CsvAppenders appenders, File f)
+	{
+		try
+		{
+			appenders.close(f);
+		}
+		catch (IOException e)
+		{
+			getLogger().warn("Error while closing file '{}' after write error", f, e);
+		}
+	}
 }
@@ -0,0 +1,228 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions.csv;
+
+import com.csvreader.CsvReader;
+import com.csvreader.CsvWriter;
+import com.exactprosystems.clearth.automation.GlobalContext;
+import com.exactprosystems.clearth.utils.Utils;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of open CSV files that actions append records to during execution.
+ * Files are kept open with buffered writers and are closed when step or execution ends.
+ * Actions flush written data before completion, so that the file is complete for other readers and write errors fail the action.
+ * Header of each file is cached, so that records can be added according to it without reading the file again.
+ * Actions should work with appenders while holding lock on registry, this makes concurrent appends from asynchronous actions safe
+ */
+public class CsvAppenders implements Closeable
+{
+	public static final String CONTEXT_KEY = "CsvAppenders";
+	
+	private final Map<String, CsvAppender> appenders = new HashMap<String, CsvAppender>();
+	private final GlobalContext globalContext;
+	
+	public CsvAppenders(GlobalContext globalContext)
+	{
+		this.globalContext = globalContext;
+	}
+	
+	/**
+	 * @return registry stored in given global context, i.e. registry for current execution
+	 */
+	public static CsvAppenders get(GlobalContext globalContext)
+	{
+		synchronized (globalContext)
+		{
+			CsvAppenders result = globalContext.getLoadedContext(CONTEXT_KEY);
+			if (result == null)
+			{
+				result = new CsvAppenders(globalContext);
+				globalContext.setLoadedContext(CONTEXT_KEY, result);
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Checks if file has no data, taking into account data not flushed yet
+	 */
+	public synchronized boolean isEmpty(File file) throws IOException
+	{
+		CsvAppender appender = appenders.get(file.getCanonicalPath());
+		if (appender != null)
+			return appender.empty;
+		return !file.isFile() || file.length() == 0;
+	}
+	
+	/**
+	 * Returns appender for given file, opening it if needed
+	 * @param append if false, file is truncated
+	 */
+	public synchronized CsvAppender getAppender(File file, boolean append) throws IOException
+	{
+		String path = file.getCanonicalPath();
+		CsvAppender appender = appenders.get(path);
+		if (appender != null && append)
+			return appender;
+		
+		if (appender != null)
+		{
+			appenders.remove(path);
+			appender.close();
+		}
+		
+		boolean empty = !append || !file.isFile() || file.length() == 0;
+		appender = new CsvAppender(file, new CsvWriter(new BufferedWriter(new FileWriter(file, append)), ','), empty);
+		appenders.put(path, appender);
+		globalContext.registerStepResource(this);
+		return appender;
+	}
+	
+	/**
+	 * Writes buffered data of given file, if it is open, so that the file can be read by other actions
+	 */
+	public synchronized void flush(File file) throws IOException
+	{
+		CsvAppender appender = appenders.get(file.getCanonicalPath());
+		if (appender != null)
+			appender.flush();
+	}
+	
+	/**
+	 * Closes appender of given file, if it is open. Used to discard appender after write error, so that the file is re-opened by next action
+	 */
+	public synchronized void close(File file) throws IOException
+	{
+		CsvAppender appender = appenders.remove(file.getCanonicalPath());
+		if (appender != null)
+			appender.close();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException
+	{
+		IOException error = null;
+		for (CsvAppender appender : appenders.values())
+		{
+			try
+			{
+				appender.close();
+			}
+			catch (IOException e)
+			{
+				if (error == null)
+					error = e;
+				else
+					error.addSuppressed(e);
+			}
+		}
+		appenders.clear();
+		
+		if (error != null)
+			throw error;
+	}
+	
+	
+	public static class CsvAppender
+	{
+		private final File file;
+		private final CsvWriter writer;
+		private boolean empty;
+		private String[] header;
+		
+		public CsvAppender(File file, CsvWriter writer, boolean empty)
+		{
+			this.file = file;
+			this.writer = writer;
+			this.empty = empty;
+		}
+		
+		public void writeRecord(Iterable<String> values) throws IOException
+		{
+			boolean first = empty;
+			List<String> written = first ? new ArrayList<String>() : null;
+			for (String v : values)
+			{
+				writer.write(v);
+				//Values are stored as they will be read from file: writer trims them and writes null as empty string
+				if (written != null)
+					written.add(v != null ? v.trim() : "");
+			}
+			writer.endRecord();
+			empty = false;
+			
+			//The first record is header of file
+			if (first)
+				header = written.toArray(new String[written.size()]);
+		}
+		
+		/**
+		 * @return the first record of file
+		 */
+		public String[] getHeader() throws IOException
+		{
+			if (header == null)
+				header = readHeader();
+			return header.clone();
+		}
+		
+		protected String[] readHeader() throws IOException
+		{
+			CsvReader reader = null;
+			try
+			{
+				reader = new CsvReader(new FileReader(file));
+				reader.readHeaders();
+				return reader.getHeaders();
+			}
+			finally
+			{
+				Utils.closeResource(reader);
+			}
+		}
+		
+		public void flush() throws IOException
+		{
+			writer.flush();
+		}
+		
+		/**
+		 * Writes buffered data and closes the file. 
+		 * Data is flushed explicitly because {@link CsvWriter#close()} doesn't report errors
+		 */
+		public void close() throws IOException
+		{
+			try
+			{
+				writer.flush();
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions.csv;
+
+import com.csvreader.CsvReader;
+import com.exactprosystems.clearth.automation.GlobalContext;
+import com.exactprosystems.clearth.utils.Utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Cache of parsed CSV files used for lookups during one run of scheduler.
+ * File is parsed again if its modification time or size is changed.
+ * Records of cached file can be found by values of key columns, indexes on these columns are built lazily on first lookup
+ */
+public class CsvFilesCache
+{
+	public static final String CONTEXT_KEY = "CsvFilesCache";
+	
+	private final Map<String, CsvFile> files = new HashMap<String, CsvFile>();
+	
+	/**
+	 * @return cache stored in given global context, i.e. cache for current run
+	 */
+	public static CsvFilesCache get(GlobalContext globalContext)
+	{
+		synchronized (globalContext)
+		{
+			CsvFilesCache cache = globalContext.getLoadedContext(CONTEXT_KEY);
+			if (cache == null)
+			{
+				cache = new CsvFilesCache();
+				globalContext.setLoadedContext(CONTEXT_KEY, cache);
+			}
+			return cache;
+		}
+	}
+	
+	public synchronized CsvFile getFile(File file) throws IOException
+	{
+		String path = file.getCanonicalPath();
+		long modified = file.lastModified(),
+				length = file.length();
+		CsvFile result = files.get(path);
+		if (result == null || result.modified != modified || result.length != length)
+		{
+			result = readFile(file, modified, length);
+			files.put(path, result);
+		}
+		return result;
+	}
+	
+	protected CsvFile readFile(File file, long modified, long length) throws IOException
+	{
+		CsvReader reader = null;
+		try
+		{
+			reader = new CsvReader(new FileReader(file));
+			reader.setSkipEmptyRecords(false);
+			reader.setTrimWhitespace(true);
+			
+			reader.readHeaders();
+			String[] header = reader.getHeaders();
+			List<String[]> records = new ArrayList<String[]>();
+			while (reader.readRecord())
+			{
+				String[] values = new String[header.length];
+				for (int i = 0; i < header.length; i++)
+					values[i] = reader.get(header[i]);
+				records.add(values);
+			}
+			return new CsvFile(header, records, modified, length);
+		}
+		finally
+		{
+			Utils.closeResource(reader);
+		}
+	}
+	
+	
+	public static class CsvFile
+	{
+		private final String[] header;
+		private final List<String[]> records;
+		private final long modified, length;
+		//Indexes of key columns -> normalized values of these columns -> numbers of records
+		private final Map<List<Integer>, Map<List<String>, List<Integer>>> indexes = new HashMap<List<Integer>, Map<List<String>, List<Integer>>>();
+		
+		public CsvFile(String[] header, List<String[]> records, long modified, long length)
+		{
+			this.header = header;
+			this.records = records;
+			this.modified = modified;
+			this.length = length;
+		}
+		
+		public String[] getHeader()
+		{
+			return header.clone();
+		}
+		
+		public int getRecordsCount()
+		{
+			return records.size();
+		}
+		
+		public String[] getRecord(int number)
+		{
+			return records.get(number);
+		}
+		
+		/**
+		 * Finds records whose values in given columns are equal to given values ignoring case
+		 * @param keyColumns indexes of key columns
+		 * @param keyValues values to find, one for each key column
+		 * @return numbers of found records in file order
+		 */
+		public synchronized List<Integer> find(List<Integer> keyColumns, List<String> keyValues)
+		{
+			Map<List<String>, List<Integer>> index = indexes.computeIfAbsent(keyColumns, this::buildIndex);
+			List<Integer> candidates = index.get(normalize(keyValues));
+			if (candidates == null)
+				return Collections.emptyList();
+			
+			//Normalized values are equal for strings equal ignoring case, but the opposite is not guaranteed
+			List<Integer> result = new ArrayList<Integer>(candidates.size());
+			for (Integer number : candidates)
+			{
+				if (matches(records.get(number), keyColumns, keyValues))
+					result.add(number);
+			}
+			return result;
+		}
+		
+		private Map<List<String>, List<Integer>> buildIndex(List<Integer> keyColumns)
+		{
+			Map<List<String>, List<Integer>> index = new HashMap<List<String>, List<Integer>>();
+			for (int i = 0; i < records.size(); i++)
+			{
+				String[] record = records.get(i);
+				List<String> key = new ArrayList<String>(keyColumns.size());
+				for (Integer column : keyColumns)
+					key.add(normalize(record[column]));
+				index.computeIfAbsent(key, k -> new ArrayList<Integer>(1)).add(i);
+			}
+			return index;
+		}
+		
+		private boolean matches(String[] record, List<Integer> keyColumns, List<String> keyValues)
+		{
+			for (int i = 0; i < keyColumns.size(); i++)
+			{
+				if (!keyValues.get(i).equalsIgnoreCase(record[keyColumns.get(i)]))
+					return false;
+			}
+			return true;
+		}
+		
+		private List<String> normalize(List<String> values)
+		{
+			List<String> result = new ArrayList<String>(values.size());
+			for (String v : values)
+				result.add(normalize(v));
+			return result;
+		}
+		
+		/**
+		 * Converts value so that values equal ignoring case become equal. Conversion is done the same way as in {@link String#equalsIgnoreCase(String)}
+		 */
+		private String normalize(String value)
+		{
+			if (value == null)
+				return null;
+			
+			char[] chars = value.toCharArray();
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+			return new String(chars);
+		}
+	}
+}
@@ -21,6 +21,8 @@ package com.exactprosystems.clearth.automation.actions.csv;
 import static com.exactprosystems.clearth.automation.actions.MessageAction.FILENAME;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -34,6 +36,8 @@ import com.exactprosystems.clearth.automation.exceptions.ResultException;
 import com.exactprosystems.clearth.automation.report.Result;
 import com.exactprosystems.clearth.automation.report.results.DefaultResult;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
+import com.exactprosystems.clearth.utils.tabledata.KeyIndexedStringTableData;
+import com.exactprosystems.clearth.utils.tabledata.RowsListFactory;
 import com.exactprosystems.clearth.utils.tabledata.StringTableData;
 import com.exactprosystems.clearth.utils.tabledata.readers.CsvDataReader;
 
@@ -43,16 +47,19 @@ public class LoadDataFromCsvFile extends Action implements ContextWriter {
 			STORED_CSV = "CsvRecords",
 			GLOBALCONTEXT = "GlobalContext",
 			MATRIXCONTEXT = "MatrixContext",
-			STEPCONTEXT = "StepContext";
+			STEPCONTEXT = "StepContext",
+			KEY_FIELDS = "KeyFields";
 
 	@Override
 	protected Result run(StepContext stepContext, MatrixContext matrixContext, GlobalContext globalContext) throws ResultException, FailoverException
 	{
 		InputParamsHandler handler = new InputParamsHandler(inputParams);
 		String fileName;
+		Set<String> keyFields;
 		try
 		{
 			fileName = handler.getRequiredString(FILENAME);
+			keyFields = handler.getSet(KEY_FIELDS, ",");
 		} finally
 		{
 			handler.check();
@@ -61,7 +68,9 @@ public class LoadDataFromCsvFile extends Action implements ContextWriter {
 		StringTableData tableData;
 		try
 		{
-			tableData = CsvDataReader.read(new File(fileName));
+			File file = new File(fileName);
+			CsvAppenders.get(globalContext).flush(file);
+			tableData = readData(file, keyFields);
 		} catch (Exception e)
 		{
 			return DefaultResult.failed("Couldn`t load data from file", e);
@@ -72,6 +81,32 @@ public class LoadDataFromCsvFile extends Action implements ContextWriter {
 		return DefaultResult.passed("Data was loaded successfully");
 	}
 
+	/**
+	 * Reads CSV data. If key fields are specified, data is indexed by them, so that verification of records by these keys is fast
+	 */
+	protected StringTableData readData(File file, Set<String> keyFields) throws IOException
+	{
+		if (keyFields.isEmpty())
+			return CsvDataReader.read(file);
+		
+		CsvDataReader reader = new CsvDataReader(file)
+		{
+			@Override
+			protected StringTableData createTableData(Set<String> header, RowsListFactory<String, String> rowsListFactory)
+			{
+				return new KeyIndexedStringTableData(header, rowsListFactory, keyFields);
+			}
+		};
+		try
+		{
+			return reader.readAllData();
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
 	private void saveDataToContext(StringTableData tableData, StepContext stepContext, MatrixContext matrixContext, GlobalContext globalContext, String saveTo) throws ResultException
 	{
 		if (StringUtils.equalsIgnoreCase(GLOBALCONTEXT, saveTo))
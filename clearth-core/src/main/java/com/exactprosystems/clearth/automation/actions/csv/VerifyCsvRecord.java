@@ -42,12 +42,12 @@ import com.exactprosystems.clearth.automation.report.Result;
 import com.exactprosystems.clearth.automation.report.ResultDetail;
 import com.exactprosystems.clearth.automation.report.results.DetailedResult;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
+import com.exactprosystems.clearth.utils.tabledata.KeyIndexedStringTableData;
 import com.exactprosystems.clearth.utils.tabledata.StringTableData;
 import com.exactprosystems.clearth.utils.tabledata.TableRow;
 
 public class VerifyCsvRecord extends Action implements ContextReader
 {
-	private static final String KEY_FIELDS = "KeyFields";
 	
 	protected static StringTableData getDataFromContext(StepContext stepContext, MatrixContext matrixContext, GlobalContext globalContext, String getFrom)
 	{
@@ -121,6 +121,14 @@ public class VerifyCsvRecord extends Action implements ContextReader
 	
 	protected TableRow<String, String> findRow(StringTableData data, Map<String, String> keys)
 	{
+		if (data instanceof KeyIndexedStringTableData && canUseIndex((KeyIndexedStringTableData)data, keys))
+		{
+			TableRow<String, String> foundRow = ((KeyIndexedStringTableData)data).findAndRemove(keys, r -> isKeysMatches(r, keys));
+			if (foundRow == null)
+				throw ResultException.failed("No record found by keys: " + keys);
+			return foundRow;
+		}
+		
 		Iterator<TableRow<String, String>> it = data.iterator();
 		while (it.hasNext())
 		{
@@ -135,6 +143,22 @@ public class VerifyCsvRecord extends Action implements ContextReader
 		throw ResultException.failed("No record found by keys: " + keys);
 	}
 	
+	/**
+	 * Index can be used if all indexed columns are among keys and their expected values are matched by plain equality
+	 */
+	protected boolean canUseIndex(KeyIndexedStringTableData data, Map<String, String> keys)
+	{
+		if (!data.canFindBy(keys.keySet()))
+			return false;
+		
+		for (String column : data.getKeyColumns())
+		{
+			if (comparisonUtils().isForCompareValues(keys.get(column)))
+				return false;
+		}
+		return true;
+	}
+	
 	protected Result verifyRow(TableRow<String, String> row)
 	{
 		DetailedResult result = new DetailedResult();
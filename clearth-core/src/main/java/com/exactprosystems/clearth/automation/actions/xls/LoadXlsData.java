@@ -18,7 +18,11 @@
 
 package com.exactprosystems.clearth.automation.actions.xls;
 
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.FilenameUtils;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DataFormatter;
@@ -39,6 +43,9 @@ import com.exactprosystems.clearth.utils.Utils;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsUtils;
 import com.exactprosystems.clearth.utils.multidata.MultiRowStringData;
 import com.exactprosystems.clearth.utils.multidata.MultiStringData;
+import com.exactprosystems.clearth.utils.xlsx.XlsxCell;
+import com.exactprosystems.clearth.utils.xlsx.XlsxRow;
+import com.exactprosystems.clearth.utils.xlsx.XlsxSheetReader;
 
 public class LoadXlsData extends Action
 {
@@ -52,13 +59,17 @@ public class LoadXlsData extends Action
 		FileInputStream fis = null;
 		try
 		{
-			fis = new FileInputStream(fileName);
-			Workbook workbook = WorkbookFactory.create(fis);
-			
 			DataFormatter df = createDataFormatter();
 			
-			MultiRowStringData loadedData = createDataStorage(workbook);
-			loadData(loadedData, workbook, fileName, df);
+			MultiRowStringData loadedData = isStreamingRead(fileName) ? loadStreamingData(fileName, df) : null;
+			if (loadedData == null)
+			{
+				fis = new FileInputStream(fileName);
+				Workbook workbook = WorkbookFactory.create(fis);
+				
+				loadedData = createDataStorage(workbook);
+				loadData(loadedData, workbook, fileName, df);
+			}
 			storeLoadedData(loadedData, stepContext, matrixContext, globalContext);
 		}
 		catch (Exception e)
@@ -83,14 +94,33 @@ public class LoadXlsData extends Action
 		return new DataFormatter();  //In order to obtain values of date and other formatted fields we need to use DataFormatter
 	}
 	
+	/**
+	 * @return true if file can be read as a stream, without loading the whole workbook into memory. 
+	 * Such reading is supported for XLSX files
+	 */
+	protected boolean isStreamingRead(String fileName)
+	{
+		return "xlsx".equalsIgnoreCase(FilenameUtils.getExtension(fileName));
+	}
+	
 	protected MultiRowStringData createDataStorage(Workbook workbook)
 	{
-		return new MultiRowStringData(workbook.getSheetAt(0).getFirstRowNum());
+		return createDataStorage(workbook.getSheetAt(0).getFirstRowNum());
+	}
+	
+	protected MultiRowStringData createDataStorage(int firstRowIndex)
+	{
+		return new MultiRowStringData(firstRowIndex);
 	}
 	
 	protected MultiStringData createDataRowStorage(Row row)
 	{
-		return new MultiStringData(row.getFirstCellNum());
+		return createDataRowStorage(row.getFirstCellNum());
+	}
+	
+	protected MultiStringData createDataRowStorage(int firstCellIndex)
+	{
+		return new MultiStringData(firstCellIndex);
 	}
 	
 	
@@ -126,6 +156,67 @@ public class LoadXlsData extends Action
 		}
 	}
 	
+	/**
+	 * Loads data from XLSX file by reading its first sheet as a stream
+	 * @return loaded data or null if sheet contains formulas shared between cells. 
+	 * Text of such formulas can be restored only from the whole workbook, so it needs to be loaded instead
+	 */
+	protected MultiRowStringData loadStreamingData(String fileName, DataFormatter formatter) throws IOException, ResultException
+	{
+		try (XlsxSheetReader reader = new XlsxSheetReader(new File(fileName)))
+		{
+			MultiRowStringData result = null;
+			int lastRowIndex = -1;
+			XlsxRow xlsRow;
+			while ((xlsRow = reader.readRow()) != null)
+			{
+				if (Thread.interrupted())
+					throw new ResultException("Action was interrupted while loading data from file '"+fileName+"'");
+				
+				if (result == null)
+					result = createDataStorage(xlsRow.getRowIndex());
+				else
+				{
+					//Rows absent in file have no cells
+					for (int i = lastRowIndex + 1; i < xlsRow.getRowIndex(); i++)
+						result.addData(createDataRowStorage(-1));
+				}
+				lastRowIndex = xlsRow.getRowIndex();
+				
+				MultiStringData dataRow = createDataRowStorage(xlsRow.getFirstCellIndex());
+				if (!loadDataRow(dataRow, xlsRow, reader, formatter))
+					return null;
+				result.addData(dataRow);
+			}
+			return result != null ? result : createDataStorage(0);
+		}
+	}
+	
+	/**
+	 * @return false if row contains formula that can't be restored while reading the sheet as a stream
+	 */
+	protected boolean loadDataRow(MultiStringData result, XlsxRow row, XlsxSheetReader reader, DataFormatter formatter) throws ResultException
+	{
+		int column = row.getFirstCellIndex();
+		for (XlsxCell cell : row.getCells())
+		{
+			if (cell.isGroupFormula())
+				return false;
+			
+			//Missing cells are loaded as nulls, like in workbook
+			for (; column < cell.getColumnIndex(); column++)
+				result.addData(null);
+			result.addData(getCellValue(cell, reader, formatter));
+			column++;
+		}
+		return true;
+	}
+	
+	protected String getCellValue(XlsxCell cell, XlsxSheetReader reader, DataFormatter formatter)
+	{
+		return reader.formatCellValue(cell, formatter);
+	}
+	
 	protected void storeLoadedData(MultiRowStringData result, StepContext stepContext, MatrixContext matrixContext, GlobalContext globalContext)
 	{
 		XlsUtils.storeRowsData(result, matrixContext);
@@ -0,0 +1,142 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.exactprosystems.clearth.automation.ActionGenerator;
+import com.exactprosystems.clearth.utils.xlsx.XlsxCell;
+import com.exactprosystems.clearth.utils.xlsx.XlsxRow;
+import com.exactprosystems.clearth.utils.xlsx.XlsxSheetReader;
+
+import static org.apache.commons.lang.StringUtils.isNotBlank;
+
+/**
+ * Reads matrix from the first sheet of XLSX file without loading the whole workbook into memory. 
+ * Produces the same lines as {@link XlsActionReader} does for XLSX files
+ */
+public class XlsxActionReader extends ActionReader
+{
+	private final XlsxSheetReader sheetReader;
+	private XlsxRow row;
+	private String firstCellValue;
+	
+	public XlsxActionReader(String source, boolean trimValues) throws IOException
+	{
+		super(source, trimValues);
+		this.sheetReader = createSheetReader(source);
+	}
+	
+	
+	@Override
+	public void close() throws IOException
+	{
+		sheetReader.close();
+	}
+	
+	@Override
+	public boolean readNextLine() throws IOException
+	{
+		while ((row = sheetReader.readRow()) != null)
+		{
+			if (!isRowToSkip(row))
+			{
+				firstCellValue = getCellDataAsString(row.getCells().get(0));
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean isCommentLine()
+	{
+		return firstCellValue.trim().startsWith(ActionGenerator.COMMENT_INDICATOR);
+	}
+	
+	@Override
+	public boolean isHeaderLine()
+	{
+		return firstCellValue.trim().startsWith(ActionGenerator.HEADER_DELIMITER);
+	}
+	
+	@Override
+	public boolean isEmptyLine()
+	{
+		//First cell is already converted to string, so its text is checked
+		if (isNotBlank(firstCellValue))
+			return false;
+		
+		List<XlsxCell> cells = row.getCells();
+		for (int i = 1; i < cells.size(); i++)
+		{
+			if (!cells.get(i).isBlankText())
+				return false;
+		}
+		return true;
+	}
+	
+	@Override
+	public List<String> parseLine(boolean header) throws IOException
+	{
+		List<String> result = new ArrayList<String>();
+		for (XlsxCell cell : row.getCells())
+		{
+			String value = getCellDataAsString(cell);
+			value = processValue(value, header);
+			result.add(value);
+		}
+		return result;
+	}
+	
+	@Override
+	public String getRawLine() throws IOException
+	{
+		return firstCellValue;
+	}
+	
+	protected XlsxSheetReader createSheetReader(String source) throws IOException
+	{
+		return new XlsxSheetReader(new File(source));
+	}
+	
+	
+	public String getSheetName()
+	{
+		return sheetReader.getSheetName();
+	}
+	
+	
+	protected boolean isRowToSkip(XlsxRow row)
+	{
+		return (row.isEmpty()) || (row.getFirstCellIndex() <= 0);
+	}
+	
+	protected String getCellDataAsString(XlsxCell cell)
+	{
+		String data = cell.getStringValue();
+		if (isTrimValues())
+			return data.trim();
+		else
+			return data;
+	}
+}
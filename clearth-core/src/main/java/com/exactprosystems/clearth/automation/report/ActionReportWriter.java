@@ -28,16 +28,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.exactprosystems.clearth.ClearThCore.rootRelative;
 import static com.exactprosystems.clearth.automation.report.ReportFormat.*;
 
-public class ActionReportWriter
+/**
+ * Writes reports of executed actions to step report files.
+ * Files of current step are kept open while step is executed, their content is flushed periodically to keep real-time report up to date
+ * and when the step ends.
+ * Byte ranges of asynchronous actions reports are remembered, so that when such action is finished its report is updated
+ * by storing {@link ReportPatches patch} instead of rewriting whole report file
+ */
+public class ActionReportWriter implements Closeable
 {
 	private static final Logger logger = LoggerFactory.getLogger(ActionReportWriter.class);
+	
+	public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+	
+	//ObjectMapper is thread-safe once configured, so one marshaller serves all writers
+	private static final JsonMarshaller<ActionReport> JSON_MARSHALLER = new JsonMarshaller<ActionReport>();
+	private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread t = new Thread(r, "ActionReportsFlusher");
+		t.setDaemon(true);
+		return t;
+	});
 
 	public static final String HTML_SUFFIX = ".html",
     		JSON_SUFFIX = ".json",
@@ -47,10 +72,40 @@ public class ActionReportWriter
     		FAILED_SUFFIX = "_failed";
 
 	private int actionIndex = 0;
+	private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+	private final Map<File, OpenReportFile> openFiles = new LinkedHashMap<File, OpenReportFile>();
+	private ScheduledFuture<?> flushTask;
+	//Report file -> action ID in matrix -> start and end positions of action report in file
+	private final Map<File, Map<String, long[]>> asyncRanges = new HashMap<File, Map<String, long[]>>();
 	
 	public void reset()
 	{
 		actionIndex = 0;
+		closeReportFiles();
+		clearAsyncRanges();
+	}
+	
+	/**
+	 * Closes report files kept open while writing reports of actions
+	 */
+	@Override
+	public void close()
+	{
+		closeReportFiles();
+		clearAsyncRanges();
+	}
+	
+	public long getFlushInterval()
+	{
+		return flushInterval;
+	}
+	
+	/**
+	 * @param flushInterval interval in milliseconds to flush report files being written. Zero or negative value makes reports flushed after each action
+	 */
+	public void setFlushInterval(long flushInterval)
+	{
+		this.flushInterval = flushInterval;
 	}
 	
 	/**
@@ -78,34 +133,31 @@ public class ActionReportWriter
 		String reportFilePath = getJsonStepReportPath(actionsReportsDir, action.getMatrix().getShortFileName(), actionsReportFile);
 		File reportFile = new File(reportFilePath);
 
-		PrintWriter writer = null;
 		try
 		{
-			writer = createReportWriter(reportFile);
-			if (reportFile.length() == 0)
-				writer.println("[");
-			else
-				writer.println(",");
-
 			ActionReport actionReport = createActionReport(action);
-			String jsonActionReport = new JsonMarshaller<ActionReport>().marshal(actionReport);
-
-			writePreReportData(writer, action, JSON);
-			writer.println(jsonActionReport);
-			writePostReportData(writer, action, JSON);
+			String jsonActionReport = getJsonMarshaller().marshal(actionReport);
+			
+			synchronized (openFiles)
+			{
+				OpenReportFile openFile = getOpenReportFile(reportFile);
+				PrintWriter writer = openFile.writer;
+				writer.println(openFile.empty ? "[" : ",");
+				openFile.empty = false;
+				
+				long start = action.isAsync() ? openFile.position() : -1;
+				writePreReportData(writer, action, JSON);
+				writer.println(jsonActionReport);
+				writePostReportData(writer, action, JSON);
+				if (start >= 0)
+					storeAsyncRange(reportFile, action, start, openFile.position());
+				afterReportWritten(openFile);
+			}
 		}
 		catch (IOException e)
 		{
 			getLogger().error("Error occurred while writing json action report", e);
 		}
-		finally
-		{
-			if (writer != null)
-			{
-				writer.flush();
-				writer.close();
-			}
-		}
     }
 
     /**
@@ -134,17 +186,14 @@ public class ActionReportWriter
 		File reportDir = getReportDir(actionsReportsDir, action),
 				reportFile = new File(reportDir, actionsReportFile+".swp"),
 				originalReportFile = getReportFile(reportDir, actionsReportFile, false);
-		if (!updateReport(originalReportFile, action, resultId, reportFile, HTML, reportDir, false))
+		if (patchReport(originalReportFile, action, resultId, HTML, reportDir))
 			return;
 		
-		if (!originalReportFile.delete())
-		{
-			getLogger().error("Could not delete original report file '"+originalReportFile.getAbsolutePath()+"'");
+		closeReportFile(originalReportFile);
+		if (!updateReport(originalReportFile, action, resultId, reportFile, HTML, reportDir, false))
 			return;
-		}
 		
-		if (!reportFile.renameTo(originalReportFile))
-			getLogger().error("Could not rename updated report file '"+reportFile.getAbsolutePath()+"' to '"+originalReportFile.getAbsolutePath()+"'");
+		replaceReportFile(originalReportFile, reportFile);
 	}
 
 	protected void updateJsonReport(Action action, String actionsReportsDir, String actionsReportFile)
@@ -152,18 +201,74 @@ public class ActionReportWriter
 		String reportFilePath = getJsonStepReportPath(actionsReportsDir, action.getMatrix().getShortFileName(), actionsReportFile);
 		File reportFile = new File(reportFilePath + ".swp"),
 				originalReportFile = new File(reportFilePath);
-		if (!updateReport(originalReportFile, action, "", reportFile, JSON, 
-				getReportDir(actionsReportsDir, action), false))
+		File reportDir = getReportDir(actionsReportsDir, action);
+		if (patchReport(originalReportFile, action, "", JSON, reportDir))
+			return;
+		
+		closeReportFile(originalReportFile);
+		if (!updateReport(originalReportFile, action, "", reportFile, JSON, reportDir, false))
 			return;
 
+		replaceReportFile(originalReportFile, reportFile);
+	}
+	
+	/**
+	 * Stores actual report of asynchronous action as patch of report file, if position of action report in file is known
+	 * @return true if patch is stored, false if report file should be updated in another way
+	 */
+	protected boolean patchReport(File reportFile, Action action, String resultId, ReportFormat reportFormat, File reportDir)
+	{
+		long[] range;
+		synchronized (openFiles)
+		{
+			Map<String, long[]> fileRanges = asyncRanges.get(reportFile.getAbsoluteFile());
+			range = fileRanges != null ? fileRanges.remove(action.getIdInMatrix()) : null;
+		}
+		if (range == null)
+			return false;
+		
+		ActionReport report = createActionReportForUpdate(action, reportFormat);
+		if (report == null)
+			return false;
+		
+		try
+		{
+			StringWriter content = new StringWriter();
+			PrintWriter writer = new PrintWriter(content);
+			writeActionReport(report, reportFormat, writer, action, resultId, reportDir, false);
+			writer.flush();
+			//Report files are written in default charset
+			ReportPatches.addPatch(reportFile, range[0], range[1], content.toString().getBytes(Charset.defaultCharset()));
+			return true;
+		}
+		catch (IOException e)
+		{
+			getLogger().error("Could not store patch for action report, report file will be rewritten", e);
+			return false;
+		}
+	}
+	
+	protected void replaceReportFile(File originalReportFile, File updatedReportFile)
+	{
 		if (!originalReportFile.delete())
 		{
 			getLogger().error("Could not delete original report file '"+originalReportFile.getAbsolutePath()+"'");
 			return;
 		}
-
-		if (!reportFile.renameTo(originalReportFile))
-			getLogger().error("Could not rename updated report file '"+reportFile.getAbsolutePath()+"' to '"+originalReportFile.getAbsolutePath()+"'");
+		
+		if (!updatedReportFile.renameTo(originalReportFile))
+		{
+			getLogger().error("Could not rename updated report file '"+updatedReportFile.getAbsolutePath()+"' to '"+originalReportFile.getAbsolutePath()+"'");
+			return;
+		}
+		
+		//Updated file already contains patched data, and positions of other actions reports are changed
+		if (!ReportPatches.removePatches(originalReportFile))
+			getLogger().error("Could not remove patches of report file '"+originalReportFile.getAbsolutePath()+"'");
+		synchronized (openFiles)
+		{
+			asyncRanges.remove(originalReportFile.getAbsoluteFile());
+		}
 	}
 
 	private List<ActionReport> getStepActionsReports(String destPath)
@@ -226,14 +331,22 @@ public class ActionReportWriter
 	
 	protected BufferedReader createReportReader(File reportFile) throws IOException
 	{
-		return new BufferedReader(new FileReader(reportFile));
+		return new BufferedReader(new InputStreamReader(ReportPatches.openStream(reportFile)));
 	}
 	
+	/**
+	 * Creates writer to append action reports to given file. Writers of step report files are kept open till the end of step
+	 */
 	protected PrintWriter createReportWriter(File reportFile) throws IOException
 	{
 		return new PrintWriter(new BufferedWriter(new FileWriter(reportFile, true)));
 	}
 	
+	protected JsonMarshaller<ActionReport> getJsonMarshaller()
+	{
+		return JSON_MARSHALLER;
+	}
+	
 	protected HtmlActionReport createHtmlActionReport()
 	{
 		return new HtmlActionReport();
@@ -295,27 +408,27 @@ public class ActionReportWriter
 		String resultId = buildResultId(actionsReportFile);
 		File reportDir = getReportDir(actionsReportsDir, action),
 				reportFile = getReportFile(reportDir, actionsReportFile, onlyFailed);
-		PrintWriter writer = null;
 		try
 		{
-			writer = createReportWriter(reportFile);
-			HtmlActionReport report = createHtmlActionReport();
-			writePreReportData(writer, action, HTML);
-			report.write(writer, action, resultId, reportDir, onlyFailed);
-			writePostReportData(writer, action, HTML);
+			synchronized (openFiles)
+			{
+				OpenReportFile openFile = getOpenReportFile(reportFile);
+				PrintWriter writer = openFile.writer;
+				HtmlActionReport report = createHtmlActionReport();
+				//Only main report is updated when asynchronous action is finished
+				long start = action.isAsync() && !onlyFailed ? openFile.position() : -1;
+				writePreReportData(writer, action, HTML);
+				report.write(writer, action, resultId, reportDir, onlyFailed);
+				writePostReportData(writer, action, HTML);
+				if (start >= 0)
+					storeAsyncRange(reportFile, action, start, openFile.position());
+				afterReportWritten(openFile);
+			}
 		}
 		catch (IOException e)
 		{
 			getLogger().error("Could not write action report", e);
 		}
-		finally
-		{
-			if (writer != null)
-			{
-				writer.flush();
-				writer.close();
-			}
-		}
 	}
 	
 	protected boolean updateReport(File originalReportFile, Action action, String resultId, File updatedReportFile,
@@ -420,13 +533,15 @@ public class ActionReportWriter
 				return;
 
 			case JSON:
-				String reportStr = new JsonMarshaller<ActionReport>().marshal(report);
+				String reportStr = getJsonMarshaller().marshal(report);
 				writer.println(reportStr);
 		}
 	}
 
 	public void makeReportsEnding(String actionsReportsDir, String stepSafeName)
 	{
+		closeReportFiles();
+		
 		File[] files = new File(rootRelative(actionsReportsDir)).listFiles();
 		if (files == null || files.length == 0)
 			return;
@@ -466,4 +581,121 @@ public class ActionReportWriter
 			}
 		}
 	}
+	
+	
+	/**
+	 * Returns writer for report file, opening it if needed. Writer remains open till the end of step
+	 */
+	protected OpenReportFile getOpenReportFile(File reportFile) throws IOException
+	{
+		File key = reportFile.getAbsoluteFile();
+		OpenReportFile result = openFiles.get(key);
+		if (result == null)
+		{
+			result = new OpenReportFile(reportFile, createReportWriter(reportFile), reportFile.length() == 0);
+			openFiles.put(key, result);
+			scheduleFlush();
+		}
+		return result;
+	}
+	
+	private void storeAsyncRange(File reportFile, Action action, long start, long end)
+	{
+		asyncRanges.computeIfAbsent(reportFile.getAbsoluteFile(), f -> new HashMap<String, long[]>())
+				.put(action.getIdInMatrix(), new long[] {start, end});
+	}
+	
+	protected void afterReportWritten(OpenReportFile openFile)
+	{
+		if (flushInterval <= 0)
+			openFile.writer.flush();
+	}
+	
+	/**
+	 * Writes buffered reports to files, keeping them open
+	 */
+	public void flushReportFiles()
+	{
+		synchronized (openFiles)
+		{
+			for (OpenReportFile f : openFiles.values())
+				f.writer.flush();
+		}
+	}
+	
+	protected void closeReportFile(File reportFile)
+	{
+		synchronized (openFiles)
+		{
+			OpenReportFile openFile = openFiles.remove(reportFile.getAbsoluteFile());
+			if (openFile != null)
+				openFile.close();
+		}
+	}
+	
+	protected void closeReportFiles()
+	{
+		synchronized (openFiles)
+		{
+			for (OpenReportFile f : openFiles.values())
+				f.close();
+			openFiles.clear();
+			
+			if (flushTask != null)
+			{
+				flushTask.cancel(false);
+				flushTask = null;
+			}
+		}
+	}
+	
+	//Positions of asynchronous actions reports remain valid while report files exist, i.e. till the end of run
+	private void clearAsyncRanges()
+	{
+		synchronized (openFiles)
+		{
+			asyncRanges.clear();
+		}
+	}
+	
+	private void scheduleFlush()
+	{
+		if (flushTask != null || flushInterval <= 0)
+			return;
+		flushTask = FLUSHER.scheduleWithFixedDelay(this::flushReportFiles, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	
+	protected static class OpenReportFile
+	{
+		protected final File file;
+		protected final PrintWriter writer;
+		//JSON report needs opening bracket before the first action
+		protected boolean empty;
+		
+		public OpenReportFile(File file, PrintWriter writer, boolean empty)
+		{
+			this.file = file;
+			this.writer = writer;
+			this.empty = empty;
+		}
+		
+		/**
+		 * @return position in file after all data written so far. Buffered data is flushed to get it. 
+		 * Report files are written in append mode, so the position is the file length
+		 */
+		public long position() throws IOException
+		{
+			writer.flush();
+			if (writer.checkError())
+				throw new IOException("Could not write report file '"+file.getAbsolutePath()+"'");
+			return file.length();
+		}
+		
+		public void close()
+		{
+			writer.flush();
+			writer.close();
+		}
+	}
 }
@@ -0,0 +1,242 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report;
+
+import com.exactprosystems.clearth.utils.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Patches of step report file, stored in separate file near it.
+ * Each patch replaces byte range of report file with new content, e.g. report of asynchronous action written on its start
+ * is replaced with actual report when action is finished. This allows to update reports without rewriting whole report file.
+ * Patches are applied while reading report file with {@link #openStream(File)}
+ */
+public class ReportPatches
+{
+	public static final String PATCHES_SUFFIX = ".patches";
+	
+	/**
+	 * Stores patch for given report file.
+	 * @param reportFile report file to patch
+	 * @param start position of the first byte to replace
+	 * @param end position after the last byte to replace
+	 * @param content bytes to write instead of replaced range
+	 */
+	public static void addPatch(File reportFile, long start, long end, byte[] content) throws IOException
+	{
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(getPatchesFile(reportFile), true)))
+		{
+			//Header is followed by patch content, thus patches file can be read sequentially
+			String header = start+" "+end+" "+content.length+"\n";
+			out.write(header.getBytes(StandardCharsets.US_ASCII));
+			out.write(content);
+		}
+	}
+	
+	public static boolean hasPatches(File reportFile)
+	{
+		return getPatchesFile(reportFile).isFile();
+	}
+	
+	public static boolean removePatches(File reportFile)
+	{
+		File patchesFile = getPatchesFile(reportFile);
+		return !patchesFile.exists() || patchesFile.delete();
+	}
+	
+	public static File getPatchesFile(File reportFile)
+	{
+		return new File(reportFile.getPath()+PATCHES_SUFFIX);
+	}
+	
+	/**
+	 * Opens stream to read report file with all its patches applied
+	 */
+	public static InputStream openStream(File reportFile) throws IOException
+	{
+		File patchesFile = getPatchesFile(reportFile);
+		if (!patchesFile.isFile())
+			return new FileInputStream(reportFile);
+		
+		List<Patch> patches = readPatches(patchesFile);
+		if (patches.isEmpty())
+			return new FileInputStream(reportFile);
+		return new PatchedInputStream(new FileInputStream(reportFile), new RandomAccessFile(patchesFile, "r"), patches);
+	}
+	
+	
+	private static List<Patch> readPatches(File patchesFile) throws IOException
+	{
+		//Later patch of the same range replaces earlier one
+		TreeMap<Long, Patch> result = new TreeMap<Long, Patch>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(patchesFile))))
+		{
+			long offset = 0;
+			StringBuilder header = new StringBuilder();
+			int b;
+			while ((b = in.read()) != -1)
+			{
+				offset++;
+				if (b != '\n')
+				{
+					header.append((char)b);
+					continue;
+				}
+				
+				String[] parts = header.toString().split(" ");
+				header.setLength(0);
+				if (parts.length != 3)
+					throw new IOException("Invalid patch header in file '"+patchesFile+"'");
+				
+				Patch patch = new Patch(Long.parseLong(parts[0]), Long.parseLong(parts[1]), offset, Integer.parseInt(parts[2]));
+				if (in.skipBytes(patch.length) != patch.length)
+					break;  //Patch is not completely written yet
+				offset += patch.length;
+				result.put(patch.start, patch);
+			}
+		}
+		
+		//Overlapping patches can't be applied, the earliest one is kept
+		List<Patch> patches = new ArrayList<Patch>(result.size());
+		long lastEnd = 0;
+		for (Patch p : result.values())
+		{
+			if (p.start < lastEnd)
+				continue;
+			patches.add(p);
+			lastEnd = p.end;
+		}
+		return patches;
+	}
+	
+	
+	private static class Patch
+	{
+		private final long start, end, contentOffset;
+		private final int length;
+		
+		public Patch(long start, long end, long contentOffset, int length)
+		{
+			this.start = start;
+			this.end = end;
+			this.contentOffset = contentOffset;
+			this.length = length;
+		}
+	}
+	
+	private static class PatchedInputStream extends InputStream
+	{
+		private final InputStream original;
+		private final RandomAccessFile patchesFile;
+		private final List<Patch> patches;
+		private int patchIndex = 0;
+		private long position = 0;  //Position in original stream
+		private int patchRemaining = -1;  //Bytes of current patch not read yet, -1 if original stream is being read
+		
+		public PatchedInputStream(InputStream original, RandomAccessFile patchesFile, List<Patch> patches)
+		{
+			this.original = new BufferedInputStream(original);
+			this.patchesFile = patchesFile;
+			this.patches = patches;
+		}
+		
+		@Override
+		public int read() throws IOException
+		{
+			byte[] b = new byte[1];
+			int n = read(b, 0, 1);
+			return n == -1 ? -1 : b[0] & 0xFF;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+				return 0;
+			
+			while (true)
+			{
+				if (patchRemaining > 0)
+				{
+					int n = patchesFile.read(b, off, Math.min(len, patchRemaining));
+					if (n == -1)
+						throw new EOFException("Unexpected end of patches file");
+					patchRemaining -= n;
+					return n;
+				}
+				
+				Patch next = patchIndex < patches.size() ? patches.get(patchIndex) : null;
+				if (patchRemaining == 0)
+				{
+					//Current patch is read, skipping replaced range of original stream
+					skipOriginal(next.end - position);
+					patchIndex++;
+					patchRemaining = -1;
+					continue;
+				}
+				
+				if (next != null && position == next.start)
+				{
+					patchesFile.seek(next.contentOffset);
+					patchRemaining = next.length;
+					continue;
+				}
+				
+				int toRead = next != null ? (int)Math.min(len, next.start - position) : len;
+				int n = original.read(b, off, toRead);
+				if (n == -1)
+				{
+					//Original file is shorter than expected, the rest of patches can't be applied
+					patchIndex = patches.size();
+					return -1;
+				}
+				position += n;
+				return n;
+			}
+		}
+		
+		private void skipOriginal(long count) throws IOException
+		{
+			while (count > 0)
+			{
+				long n = original.skip(count);
+				if (n <= 0)
+				{
+					if (original.read() == -1)
+						return;
+					n = 1;
+				}
+				count -= n;
+				position += n;
+			}
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			Utils.closeResource(original);
+			patchesFile.close();
+		}
+	}
+}
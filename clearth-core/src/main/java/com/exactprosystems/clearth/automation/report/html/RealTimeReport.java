@@ -22,6 +22,8 @@ import com.exactprosystems.clearth.ClearThCore;
 import com.exactprosystems.clearth.automation.Matrix;
 import com.exactprosystems.clearth.automation.Step;
 import com.exactprosystems.clearth.automation.report.ReportException;
+import com.exactprosystems.clearth.automation.report.ReportPatches;
+import com.exactprosystems.clearth.automation.report.ReportStatus;
 import com.exactprosystems.clearth.automation.report.html.template.ReportTemplateFiles;
 import freemarker.template.TemplateException;
 
@@ -30,6 +32,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,6 +65,9 @@ public class RealTimeReport extends HtmlReport
 		try
 		{
 			Map<String, Object> parameters = initTemplateParameters(allSteps, matrixSteps, actionsReportsDir, onlyFailed);
+			@SuppressWarnings("unchecked")
+			List<StepData> stepsData = (List<StepData>)parameters.get("stepsData");
+			renderSteps(stepsData, onlyFailed);
 			ClearThCore.getInstance().getReportTemplatesProcessor().processTemplate(htmlContent, parameters, ReportTemplateFiles.REPORT);
 		}
 		catch (TemplateException e)
@@ -72,6 +78,109 @@ public class RealTimeReport extends HtmlReport
 		}
 	}
 
+	/**
+	 * Writes only sections of steps changed after given revision of rendered steps, without the rest of report. 
+	 * Unchanged steps are neither rendered nor read from their actions report files
+	 * @param sinceRevision revision returned by {@link #getStepsRevision()} when client got the report last time
+	 */
+	public void writeChangedSteps(List<Step> allSteps, List<String> matrixSteps, File actionsReportsDir, long sinceRevision) throws IOException, ReportException
+	{
+		try
+		{
+			renderSteps(createStepsData(allSteps, matrixSteps, actionsReportsDir, false), false);
+		}
+		catch (TemplateException e)
+		{
+			String errMsg = "An error occurred while processing the template of the report";
+			getLogger().error(errMsg, e);
+			throw new ReportException(errMsg + ". See logs for details");
+		}
+		
+		for (String html : getStepsChangedSince(sinceRevision).values())
+			htmlContent.write(html);
+	}
+	
+	/**
+	 * Fills steps data with rendered step sections, taking them from cache if step is not changed since previous rendering
+	 */
+	protected void renderSteps(List<StepData> stepsData, boolean onlyFailed) throws IOException, TemplateException
+	{
+		if (onlyFailed)
+			return;
+		
+		RealTimeStepsCache cache = getStepsCache();
+		for (int i = 0; i < stepsData.size(); i++)
+		{
+			StepData stepData = stepsData.get(i);
+			//The same container ID as used in report template
+			String containerId = "cont" + (i + 1),
+					version = buildStepVersion(stepData);
+			String html = cache.get(containerId, version);
+			if (html == null)
+			{
+				StringWriter stepContent = new StringWriter();
+				Map<String, Object> parameters = new HashMap<String, Object>();
+				parameters.put("stepData", stepData);
+				parameters.put("containerId", containerId);
+				ClearThCore.getInstance().getReportTemplatesProcessor().processTemplate(stepContent, parameters, ReportTemplateFiles.REALTIME_STEP);
+				html = stepContent.toString();
+				cache.put(containerId, version, html);
+			}
+			stepData.setRenderedHtml(html);
+		}
+	}
+	
+	/**
+	 * Builds string that changes every time rendered step section can change: 
+	 * when step status or result is changed or when reports of its actions are written or patched
+	 */
+	protected String buildStepVersion(StepData stepData)
+	{
+		Step step = stepData.getStep();
+		ReportStatus status = stepData.getStepStatus();
+		StringBuilder sb = new StringBuilder()
+				.append(stepData.getStepName()).append('|')
+				.append(step.getKind()).append('|')
+				.append(step.isAsync()).append('|')
+				.append(status.isPassed()).append('|')
+				.append(status.getStarted() != null ? status.getStarted().getTime() : 0).append('|')
+				.append(status.getFinished() != null ? status.getFinished().getTime() : 0).append('|')
+				.append(status.getComments()).append('|')
+				.append(step.getResultsVersion()).append('|')
+				.append(stepData.isStatusExpanded());
+		
+		String actionsFilePath = stepData.getPathToActionsFile();
+		if (actionsFilePath != null)
+		{
+			File actionsFile = new File(actionsFilePath),
+					patchesFile = ReportPatches.getPatchesFile(actionsFile);
+			sb.append('|').append(actionsFile.length()).append('|').append(actionsFile.lastModified())
+					.append('|').append(patchesFile.length()).append('|').append(patchesFile.lastModified());
+		}
+		return sb.toString();
+	}
+	
+	protected RealTimeStepsCache getStepsCache()
+	{
+		return RealTimeStepsCache.forMatrix(matrix);
+	}
+	
+	/**
+	 * @return revision of rendered steps, to be passed to {@link #writeChangedSteps(List, List, File, long)} on next request
+	 */
+	public long getStepsRevision()
+	{
+		return getStepsCache().getRevision();
+	}
+	
+	/**
+	 * @return rendered sections of steps changed after given revision, by ID of their container
+	 */
+	public Map<String, String> getStepsChangedSince(long revision)
+	{
+		return getStepsCache().getChangedSince(revision);
+	}
+
 	public StringWriter getHtmlContent()
 	{
 		return htmlContent;
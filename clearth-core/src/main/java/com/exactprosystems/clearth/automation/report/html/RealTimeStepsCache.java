@@ -0,0 +1,106 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report.html;
+
+import com.exactprosystems.clearth.automation.Matrix;
+
+import java.util.*;
+
+/**
+ * Rendered step sections of real-time report for one matrix, including reports of their actions.
+ * Section is rendered again only if its version is changed, i.e. when step status or result or its actions report file is changed.
+ * Each change increases revision of cache, so that clients can request only steps changed since revision they already have
+ */
+public class RealTimeStepsCache
+{
+	//Cache is kept while matrix exists, i.e. while its scheduler is running or keeps its results
+	private static final Map<Matrix, RealTimeStepsCache> CACHES = Collections.synchronizedMap(new WeakHashMap<Matrix, RealTimeStepsCache>());
+	
+	private final Map<String, CachedStep> steps = new HashMap<String, CachedStep>();
+	private long revision = 0;
+	
+	public static RealTimeStepsCache forMatrix(Matrix matrix)
+	{
+		return CACHES.computeIfAbsent(matrix, m -> new RealTimeStepsCache());
+	}
+	
+	
+	/**
+	 * @return rendered step section with given version or null if it is not cached
+	 */
+	public synchronized String get(String containerId, String version)
+	{
+		CachedStep cached = steps.get(containerId);
+		return cached != null && cached.version.equals(version) ? cached.html : null;
+	}
+	
+	public synchronized void put(String containerId, String version, String html)
+	{
+		CachedStep cached = steps.get(containerId);
+		if (cached != null && cached.version.equals(version))
+			return;
+		
+		revision++;
+		steps.put(containerId, new CachedStep(version, html, revision));
+	}
+	
+	public synchronized long getRevision()
+	{
+		return revision;
+	}
+	
+	public synchronized int size()
+	{
+		return steps.size();
+	}
+	
+	/**
+	 * @param sinceRevision revision of cache that client already has
+	 * @return rendered sections of steps changed after given revision, by container ID, in order of rendering
+	 */
+	public synchronized Map<String, String> getChangedSince(long sinceRevision)
+	{
+		List<Map.Entry<String, CachedStep>> changed = new ArrayList<Map.Entry<String, CachedStep>>();
+		for (Map.Entry<String, CachedStep> e : steps.entrySet())
+		{
+			if (e.getValue().revision > sinceRevision)
+				changed.add(e);
+		}
+		changed.sort(Comparator.comparingLong(e -> e.getValue().revision));
+		
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (Map.Entry<String, CachedStep> e : changed)
+			result.put(e.getKey(), e.getValue().html);
+		return result;
+	}
+	
+	
+	private static class CachedStep
+	{
+		private final String version, html;
+		private final long revision;
+		
+		public CachedStep(String version, String html, long revision)
+		{
+			this.version = version;
+			this.html = html;
+			this.revision = revision;
+		}
+	}
+}
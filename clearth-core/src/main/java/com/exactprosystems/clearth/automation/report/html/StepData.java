@@ -30,6 +30,7 @@ public class StepData
 	private boolean isStatusExpanded;
 	
 	private String stepName; //Name for displaying step on page (corrected for HTML)
+	private String renderedHtml; //Already rendered step section, if available
 
 	public StepData(Step step,
 	                ReportStatus stepStatus,
@@ -73,4 +74,14 @@ public class StepData
 	{
 		return step.isAsync();
 	}
+	
+	public String getRenderedHtml()
+	{
+		return renderedHtml;
+	}
+	
+	public void setRenderedHtml(String renderedHtml)
+	{
+		this.renderedHtml = renderedHtml;
+	}
 }
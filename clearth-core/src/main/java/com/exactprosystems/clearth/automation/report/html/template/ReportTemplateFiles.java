@@ -22,4 +22,5 @@ public interface ReportTemplateFiles
 {
 	String ACTION = "action.ftl";
 	String REPORT = "report.ftl";
+	String REALTIME_STEP = "realtimestep.ftl";
 }
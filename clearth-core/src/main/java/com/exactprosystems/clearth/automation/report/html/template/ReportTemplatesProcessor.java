@@ -64,7 +64,7 @@ public class ReportTemplatesProcessor extends TemplatesProcessor
 	@Override
 	public void addParameter(String key, Object value)
 	{
-		PARAMETERS.put(key, value);
+		putParameter(PARAMETERS, key, value);
 	}
 
 	@Override
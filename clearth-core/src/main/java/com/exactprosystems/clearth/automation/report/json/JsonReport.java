@@ -22,6 +22,7 @@ import com.exactprosystems.clearth.ClearThCore;
 import com.exactprosystems.clearth.automation.Matrix;
 import com.exactprosystems.clearth.automation.Step;
 import com.exactprosystems.clearth.automation.report.AutomationReport;
+import com.exactprosystems.clearth.automation.report.ReportPatches;
 import com.exactprosystems.clearth.automation.report.StepReport;
 import com.exactprosystems.clearth.utils.JsonMarshaller;
 import com.exactprosystems.clearth.utils.Utils;
@@ -31,13 +32,14 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.exactprosystems.clearth.automation.report.ActionReportWriter.JSON_SUFFIX;
-import static com.exactprosystems.clearth.utils.FileOperationUtils.newBlockingBufferedReader;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static com.exactprosystems.clearth.utils.FileOperationUtils.newBlockingBufferedWriter;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.repeat;
@@ -179,7 +181,8 @@ public class JsonReport
 	
 	private void appendActionsReport(BufferedWriter reportWriter, Path storedActionsReportPath) throws IOException
 	{
-		try (BufferedReader actionsReportReader = newBlockingBufferedReader(storedActionsReportPath))
+		try (BufferedReader actionsReportReader = new BufferedReader(new InputStreamReader(
+				ReportPatches.openStream(storedActionsReportPath.toFile()), UTF_8)))
 		{
 			String line;
 			while ((line = actionsReportReader.readLine()) != null)
@@ -56,14 +56,19 @@ public class SchedulerInfoTemplatesProcessor extends TemplatesProcessor
 	@Override
 	public void addParameter(String key, Object value)
 	{
-		PARAMETERS.put(key, value);
+		putParameter(PARAMETERS, key, value);
+	}
+
+	@Override
+	protected File getTemplatesDir()
+	{
+		return new File(ClearThCore.htmlTemplatesPath() + TEMPLATES_DIR);
 	}
 
 	@Override
 	protected Configuration createConfiguration() throws IOException, TemplateModelException
 	{
 		Configuration configuration = super.createConfiguration();
-		configuration.setDirectoryForTemplateLoading(new File(ClearThCore.htmlTemplatesPath() + TEMPLATES_DIR));
 		configuration.setSharedVariable("node", new NodeViewDirective());
 		configuration.setSharedVariable("specialCompValues", ComparisonUtils.SPECIAL_VALUES);
 		return configuration;
@@ -42,6 +42,8 @@ import com.exactprosystems.clearth.utils.Utils;
 
 public abstract class BasicClearThClient implements ClearThClient
 {
+	protected static final long DISPATCH_TIMEOUT = 30000;
+	
 	protected final MQConnection owner;
 	protected final String name;
 	protected final File unhandledMessagesFile;
@@ -54,7 +56,7 @@ public abstract class BasicClearThClient implements ClearThClient
 	
 	protected MessageProcessorThread processorThread = null;
 	protected MessageReceiverThread receiverThread = null;
-	protected BlockingQueue<Pair<String, Date>> messageQueue = new LinkedBlockingQueue<Pair<String, Date>>();
+	protected BlockingQueue<Pair<String, Date>> messageQueue;
 	protected boolean running = false;
 	protected final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 	
@@ -68,6 +70,7 @@ public abstract class BasicClearThClient implements ClearThClient
 		storedSettings = owner.getSettings().copy();
 		warnings = new AtomicLong(0);
 		sent = new AtomicLong(0);
+		messageQueue = createMessageQueue();
 		
 		Logger logger = getLogger();
 		
@@ -108,6 +111,28 @@ public abstract class BasicClearThClient implements ClearThClient
 	protected abstract boolean isConnectionBrokenError(Throwable error);
 	
 	
+	protected BlockingQueue<Pair<String, Date>> createMessageQueue()
+	{
+		if (storedSettings.queueCapacity <= 0)
+			return new LinkedBlockingQueue<Pair<String, Date>>();
+		return new BoundedMessageQueue(name, storedSettings.queueCapacity, storedSettings.queueLowWatermark, 
+				storedSettings.queueOverflowPolicy, new File(ClearThCore.connectionsPath(), name+"_spill.dat"));
+	}
+	
+	/**
+	 * Creates queue for messages pending to be handled by given asynchronous listener. 
+	 * Queue has the same capacity and overflow policy as queue of received messages
+	 */
+	protected BlockingQueue<Pair<String, Date>> createDispatcherQueue(ReceiveListener listener)
+	{
+		if (storedSettings.queueCapacity <= 0)
+			return new LinkedBlockingQueue<Pair<String, Date>>();
+		String queueName = name+"_"+listener.getClass().getSimpleName()+"_"+receiveListeners.indexOf(listener);
+		return new BoundedMessageQueue(queueName, storedSettings.queueCapacity, storedSettings.queueLowWatermark, 
+				storedSettings.queueOverflowPolicy, new File(ClearThCore.connectionsPath(), queueName+"_spill.dat"));
+	}
+	
+	
 	protected void loadUnhandledMessages()
 	{
 		Logger logger = getLogger();
@@ -150,14 +175,14 @@ public abstract class BasicClearThClient implements ClearThClient
 				{
 					if (sb.length()>0)
 					{
-						messageQueue.add(new Pair<String, Date>(sb.toString(), d));
+						restoreUnhandledMessage(new Pair<String, Date>(sb.toString(), d));
 						sb = new StringBuilder();
 						d = null;
 					}
 				}
 			}
 			if (sb.length()>0)
-				messageQueue.add(new Pair<String, Date>(sb.toString(), d));
+				restoreUnhandledMessage(new Pair<String, Date>(sb.toString(), d));
 			toDelete = true;
 		}
 		catch (IOException e)
@@ -175,6 +200,19 @@ public abstract class BasicClearThClient implements ClearThClient
 	}
 	
 	
+	/**
+	 * Adds message received before restart to internal queue. Such messages are added regardless of queue capacity, 
+	 * so that they are not dropped and don't wait for messages processing
+	 */
+	protected void restoreUnhandledMessage(Pair<String, Date> message)
+	{
+		if (messageQueue instanceof BoundedMessageQueue)
+			((BoundedMessageQueue)messageQueue).addUnbounded(message);
+		else
+			messageQueue.offer(message);
+	}
+	
+	
 	protected void startListeners()
 	{
 		for (ReceiveListener listener : receiveListeners)
@@ -197,12 +235,6 @@ public abstract class BasicClearThClient implements ClearThClient
 		if (startListeners && (receiveListeners != null))
 			startListeners();
 		
-		//If there is a file with unhandled messages, let's read them, remove this file and pass messages to internal queue, so that they will be handled by listeners
-		if (getLogger().isTraceEnabled())
-			getLogger().trace(name+": loading unhandled messages");
-		if (unhandledMessagesFile.isFile())
-			loadUnhandledMessages();
-		
 		getLogger().trace(name+": creating processor thread");
 		if (isNeedProcessorThread())
 		{
@@ -210,6 +242,12 @@ public abstract class BasicClearThClient implements ClearThClient
 			processorThread.start();
 		}
 		
+		//If there is a file with unhandled messages, let's read them, remove this file and pass messages to internal queue, so that they will be handled by listeners.
+		if (getLogger().isTraceEnabled())
+			getLogger().trace(name+": loading unhandled messages");
+		if (unhandledMessagesFile.isFile())
+			loadUnhandledMessages();
+		
 		if (isNeedReceiverThread())
 		{
 			receiverThread = createReceiverThread();
@@ -236,6 +274,20 @@ public abstract class BasicClearThClient implements ClearThClient
 		{
 			getLogger().trace(name + ": disposing processor thread");
 			processorThread.terminate();
+			//Asynchronous listeners may still handle messages passed to them, they should finish before listeners are disposed
+			if (processorThread.hasAsynchronousListeners())
+			{
+				try
+				{
+					if (!processorThread.awaitTermination(DISPATCH_TIMEOUT))
+						getLogger().warn(name + ": asynchronous listeners didn't handle all passed messages within "+DISPATCH_TIMEOUT+" ms");
+				}
+				catch (InterruptedException e)
+				{
+					getLogger().warn(name + ": wait for asynchronous listeners interrupted");
+					Thread.currentThread().interrupt();
+				}
+			}
 			processorThread = null;
 		}
 	}
@@ -290,6 +342,8 @@ public abstract class BasicClearThClient implements ClearThClient
 		//If some messages are still in messageQueue (it means they are received, but not handled, i.e. not passed to listeners), 
 		//let's store them in file and restore on connection restart
 		saveUnhandledMessages();
+		if (messageQueue instanceof BoundedMessageQueue)
+			((BoundedMessageQueue)messageQueue).close();
 		
 		if (disposeListeners)
 			disposeListeners();
@@ -308,6 +362,16 @@ public abstract class BasicClearThClient implements ClearThClient
 	}
 	
 	protected void handleSendError(Throwable error, final String message) throws ConnectivityException
+	{
+		handleSendError(error, () -> owner.sendMessage(message));
+	}
+	
+	protected void handleSendError(Throwable error, final List<String> messages) throws ConnectivityException
+	{
+		handleSendError(error, () -> owner.sendMessages(messages));
+	}
+	
+	protected void handleSendError(Throwable error, Resender resender) throws ConnectivityException
 	{
 		if (isConnectionBrokenError(error))  //Broken connection indicates a need to make one reconnect attempt
 		{
@@ -315,7 +379,7 @@ public abstract class BasicClearThClient implements ClearThClient
 			{
 				try
 				{
-					owner.sendMessage(message);
+					resender.resend();
 				}
 				catch (ConnectionException ex)
 				{
@@ -449,6 +513,17 @@ public abstract class BasicClearThClient implements ClearThClient
 		return warnings.get();
 	}
 	
+	
+	public int getQueueDepth()
+	{
+		return messageQueue.size();
+	}
+	
+	public BoundedMessageQueue getBoundedQueue()
+	{
+		return messageQueue instanceof BoundedMessageQueue ? (BoundedMessageQueue)messageQueue : null;
+	}
+	
 	public void setWarnings(long warnings)
 	{
 		this.warnings.set(warnings);
@@ -474,4 +549,15 @@ public abstract class BasicClearThClient implements ClearThClient
 	{
 		this.sent.addAndGet(1);
 	}
+	
+	public void addSent(long count)
+	{
+		this.sent.addAndGet(count);
+	}
+	
+	
+	protected interface Resender
+	{
+		void resend() throws IOException, ConnectivityException;
+	}
 }
@@ -0,0 +1,624 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exactprosystems.clearth.utils.Pair;
+import com.exactprosystems.clearth.utils.Utils;
+
+/**
+ * Queue of received messages with limited capacity.
+ * When the queue is full, new messages are handled according to {@link QueueOverflowPolicy}:
+ * <ul>
+ * <li>{@link QueueOverflowPolicy#BLOCK} &mdash; {@link #put(Pair)} waits until the queue is drained to low watermark, {@link #offer(Pair)} rejects the message;</li>
+ * <li>{@link QueueOverflowPolicy#SPILL} &mdash; messages are appended to spill file until the queue is drained to low watermark and all spilled messages are moved back to the queue;</li>
+ * <li>{@link QueueOverflowPolicy#DROP} &mdash; messages are dropped while the queue is full.</li>
+ * </ul>
+ * Order of messages is kept in all cases. Iterator covers only messages held in memory.
+ */
+public class BoundedMessageQueue extends AbstractQueue<Pair<String, Date>> implements BlockingQueue<Pair<String, Date>>
+{
+	private static final Logger logger = LoggerFactory.getLogger(BoundedMessageQueue.class);
+
+	private final String name;
+	private final int capacity,
+			lowWatermark;
+	private final QueueOverflowPolicy policy;
+	private final File spillFile;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition(),
+			drained = lock.newCondition();
+	private final ArrayDeque<Pair<String, Date>> messages;
+
+	private boolean blocking = false,
+			closed = false;
+	private DataOutputStream spillWriter;
+	private DataInputStream spillReader;
+	private int spilledPending = 0,
+			peakDepth = 0;
+
+	private final AtomicLong dropped = new AtomicLong(0),
+			spilled = new AtomicLong(0),
+			blockedNanos = new AtomicLong(0);
+
+	/**
+	 * @param name of the queue owner, used in log messages
+	 * @param capacity maximum number of messages held in memory
+	 * @param lowWatermark number of messages in memory to which the queue should be drained to stop blocking or spilling.
+	 * Values out of [0, capacity) range are replaced by capacity/2
+	 * @param policy what to do with new messages when the queue is full
+	 * @param spillFile file to write messages to when the queue is full and policy is {@link QueueOverflowPolicy#SPILL}
+	 */
+	public BoundedMessageQueue(String name, int capacity, int lowWatermark, QueueOverflowPolicy policy, File spillFile)
+	{
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Queue capacity must be positive");
+		if (policy == QueueOverflowPolicy.SPILL && spillFile == null)
+			throw new IllegalArgumentException("Spill file must be specified for policy "+policy);
+
+		this.name = name;
+		this.capacity = capacity;
+		this.lowWatermark = lowWatermark >= 0 && lowWatermark < capacity ? lowWatermark : capacity / 2;
+		this.policy = policy;
+		this.spillFile = spillFile;
+		this.messages = new ArrayDeque<Pair<String, Date>>(Math.min(capacity, 1024));
+	}
+
+
+	/**
+	 * Inserts message according to overflow policy without waiting. 
+	 * With {@link QueueOverflowPolicy#BLOCK} the message is rejected if the queue is full or not drained to low watermark yet
+	 * @return true if message is inserted in the queue or spilled to file, false if it is rejected or dropped
+	 */
+	@Override
+	public boolean offer(Pair<String, Date> message)
+	{
+		try
+		{
+			return insert(message, 0);
+		}
+		catch (InterruptedException e)
+		{
+			//Not possible with zero timeout, but keeping interrupted status just in case
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Override
+	public boolean offer(Pair<String, Date> message, long timeout, TimeUnit unit) throws InterruptedException
+	{
+		return insert(message, unit.toNanos(timeout));
+	}
+
+	/**
+	 * Inserts message according to overflow policy. With {@link QueueOverflowPolicy#BLOCK} waits until the queue is drained to low watermark.
+	 * If waiting is interrupted, the message is added beyond capacity, so that it is not lost, and interrupted status of the thread is restored
+	 */
+	@Override
+	public void put(Pair<String, Date> message) throws InterruptedException
+	{
+		try
+		{
+			insert(message, -1);
+		}
+		catch (InterruptedException e)
+		{
+			logger.warn("{}: waiting for space in queue interrupted, message is added beyond capacity", name);
+			addUnbounded(message);
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Adds message to the queue in memory regardless of capacity and overflow policy. 
+	 * Used for messages that must not be lost or delayed, e.g. ones received before restart of the connection
+	 */
+	public void addUnbounded(Pair<String, Date> message)
+	{
+		if (message == null)
+			throw new NullPointerException();
+		
+		lock.lock();
+		try
+		{
+			//Spilled messages were received earlier, they should be handled first
+			if (spilledPending > 0)
+			{
+				try
+				{
+					spill(message);
+					return;
+				}
+				catch (IOException e)
+				{
+					logger.error("{}: could not spill message to file '{}', adding it to queue in memory", name, spillFile, e);
+				}
+			}
+			add(message, true);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Pair<String, Date> poll()
+	{
+		lock.lock();
+		try
+		{
+			return extract();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Pair<String, Date> poll(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try
+		{
+			while (messages.isEmpty() && spilledPending == 0)
+			{
+				if (nanos <= 0)
+					return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return extract();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Pair<String, Date> take() throws InterruptedException
+	{
+		lock.lockInterruptibly();
+		try
+		{
+			while (messages.isEmpty() && spilledPending == 0)
+				notEmpty.await();
+			return extract();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Pair<String, Date> peek()
+	{
+		lock.lock();
+		try
+		{
+			if (messages.isEmpty())
+				refill();
+			return messages.peek();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		lock.lock();
+		try
+		{
+			return messages.size() + spilledPending;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int remainingCapacity()
+	{
+		lock.lock();
+		try
+		{
+			return Math.max(capacity - messages.size(), 0);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int drainTo(Collection<? super Pair<String, Date>> c)
+	{
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super Pair<String, Date>> c, int maxElements)
+	{
+		if (c == this)
+			throw new IllegalArgumentException();
+
+		lock.lock();
+		try
+		{
+			int result = 0;
+			Pair<String, Date> msg;
+			while (result < maxElements && (msg = extract()) != null)
+			{
+				c.add(msg);
+				result++;
+			}
+			return result;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public Iterator<Pair<String, Date>> iterator()
+	{
+		lock.lock();
+		try
+		{
+			return new ArrayList<Pair<String, Date>>(messages).iterator();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+
+	/**
+	 * Stops blocking of message producers and releases spill file. Spilled messages that are not polled yet are lost
+	 */
+	public void close()
+	{
+		lock.lock();
+		try
+		{
+			closed = true;
+			blocking = false;
+			drained.signalAll();
+			if (spilledPending > 0)
+				logger.warn("{}: {} spilled messages were not handled", name, spilledPending);
+			resetSpill();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public int getLowWatermark()
+	{
+		return lowWatermark;
+	}
+
+	public QueueOverflowPolicy getPolicy()
+	{
+		return policy;
+	}
+
+	/**
+	 * @return number of messages held in memory
+	 */
+	public int getMemoryDepth()
+	{
+		lock.lock();
+		try
+		{
+			return messages.size();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of messages written to spill file and not moved back to the queue yet
+	 */
+	public int getSpilledDepth()
+	{
+		lock.lock();
+		try
+		{
+			return spilledPending;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return maximum number of messages held in memory since the queue creation
+	 */
+	public int getPeakDepth()
+	{
+		lock.lock();
+		try
+		{
+			return peakDepth;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+
+	public long getSpilled()
+	{
+		return spilled.get();
+	}
+
+	/**
+	 * @return total time in milliseconds during which message producers were blocked
+	 */
+	public long getBlockedTime()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+	}
+
+
+	private boolean insert(Pair<String, Date> message, long timeoutNanos) throws InterruptedException
+	{
+		if (message == null)
+			throw new NullPointerException();
+
+		lock.lock();
+		try
+		{
+			if (closed)
+			{
+				add(message, true);
+				return true;
+			}
+
+			switch (policy)
+			{
+				case SPILL : return insertOrSpill(message);
+				case DROP : return insertOrDrop(message);
+				default : return insertOrWait(message, timeoutNanos);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private boolean insertOrWait(Pair<String, Date> message, long timeoutNanos) throws InterruptedException
+	{
+		if (messages.size() >= capacity)
+			blocking = true;
+
+		if (blocking)
+		{
+			logger.debug("{}: queue is full, waiting for it to drain to {} messages", name, lowWatermark);
+			long started = System.nanoTime();
+			try
+			{
+				long nanos = timeoutNanos;
+				while (blocking)
+				{
+					if (timeoutNanos < 0)
+						drained.await();
+					else if (nanos <= 0)
+						return false;
+					else
+						nanos = drained.awaitNanos(nanos);
+				}
+			}
+			finally
+			{
+				blockedNanos.addAndGet(System.nanoTime() - started);
+			}
+		}
+
+		add(message, true);
+		return true;
+	}
+
+	private boolean insertOrSpill(Pair<String, Date> message)
+	{
+		//If some messages are spilled, new ones should be spilled too to keep order
+		if (spilledPending == 0 && messages.size() < capacity)
+		{
+			add(message, true);
+			return true;
+		}
+
+		try
+		{
+			spill(message);
+			return true;
+		}
+		catch (IOException e)
+		{
+			logger.error("{}: could not spill message to file '{}', adding it to queue in memory", name, spillFile, e);
+			add(message, false);
+			return true;
+		}
+	}
+
+	private boolean insertOrDrop(Pair<String, Date> message)
+	{
+		if (messages.size() < capacity)
+		{
+			add(message, true);
+			return true;
+		}
+
+		long count = dropped.incrementAndGet();
+		if (count == 1 || count % 1000 == 0)
+			logger.warn("{}: queue is full, {} message(s) dropped so far", name, count);
+		return false;
+	}
+
+	private void add(Pair<String, Date> message, boolean signal)
+	{
+		messages.add(message);
+		if (messages.size() > peakDepth)
+			peakDepth = messages.size();
+		if (signal)
+			notEmpty.signal();
+	}
+
+	private Pair<String, Date> extract()
+	{
+		Pair<String, Date> result = messages.poll();
+		if (result == null && spilledPending > 0)
+		{
+			refill();
+			result = messages.poll();
+		}
+
+		if (messages.size() <= lowWatermark)
+		{
+			if (spilledPending > 0)
+				refill();
+
+			if (blocking)
+			{
+				blocking = false;
+				drained.signalAll();
+			}
+		}
+		return result;
+	}
+
+
+	private void spill(Pair<String, Date> message) throws IOException
+	{
+		if (spillWriter == null)
+		{
+			logger.info("{}: queue is full, spilling messages to file '{}'", name, spillFile);
+			spillWriter = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile, spilledPending > 0)));
+		}
+
+		byte[] bytes = message.getFirst().getBytes(StandardCharsets.UTF_8);
+		Date received = message.getSecond();
+		spillWriter.writeLong(received != null ? received.getTime() : System.currentTimeMillis());
+		spillWriter.writeInt(bytes.length);
+		spillWriter.write(bytes);
+		spilledPending++;
+		spilled.incrementAndGet();
+		notEmpty.signal();
+	}
+
+	private void refill()
+	{
+		if (spilledPending == 0)
+			return;
+
+		try
+		{
+			spillWriter.flush();
+			if (spillReader == null)
+				spillReader = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+
+			while (spilledPending > 0 && messages.size() < capacity)
+			{
+				Date received = new Date(spillReader.readLong());
+				byte[] bytes = new byte[spillReader.readInt()];
+				spillReader.readFully(bytes);
+				spilledPending--;
+				add(new Pair<String, Date>(new String(bytes, StandardCharsets.UTF_8), received), false);
+			}
+		}
+		catch (IOException e)
+		{
+			logger.error("{}: could not read spilled messages from file '{}', {} message(s) lost", name, spillFile, spilledPending, e);
+			spilledPending = 0;
+		}
+
+		if (spilledPending == 0)
+		{
+			logger.info("{}: all spilled messages are moved back to queue", name);
+			resetSpill();
+		}
+	}
+
+	private void resetSpill()
+	{
+		spilledPending = 0;
+		Utils.closeResource(spillWriter);
+		Utils.closeResource(spillReader);
+		spillWriter = null;
+		spillReader = null;
+		if (spillFile != null && spillFile.isFile() && !spillFile.delete())
+			logger.warn("{}: could not delete spill file '{}'", name, spillFile);
+	}
+}
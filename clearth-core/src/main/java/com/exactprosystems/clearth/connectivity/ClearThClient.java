@@ -18,14 +18,17 @@
 
 package com.exactprosystems.clearth.connectivity;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.exactprosystems.clearth.messages.BatchMessageSender;
 import com.exactprosystems.clearth.messages.StringMessageSender;
 
 /**
  *         25 November 2016
  */
-public interface ClearThClient extends StringMessageSender
+public interface ClearThClient extends StringMessageSender, BatchMessageSender
 {
 	void addReceiveListener(ReceiveListener listener);
 	
@@ -34,4 +37,13 @@ public interface ClearThClient extends StringMessageSender
 	void start(boolean startListeners) throws ConnectivityException;
 	
 	void dispose(boolean disposeListeners) throws ConnectivityException;
+	
+	@Override
+	default List<String> sendMessages(List<String> messages) throws IOException, ConnectivityException
+	{
+		List<String> result = new ArrayList<String>(messages.size());
+		for (String message : messages)
+			result.add(sendMessage(message));
+		return result;
+	}
 }
@@ -22,17 +22,32 @@ import java.util.Date;
 
 public class CollectorMessage
 {
+	private Long id;
 	private String message;
 	private String parsedMessage;
 	private Long timestamp;
 	
 	public CollectorMessage(String message, String parsedMessage, Long timestamp)
 	{
+		this(null, message, parsedMessage, timestamp);
+	}
+	
+	public CollectorMessage(Long id, String message, String parsedMessage, Long timestamp)
+	{
+		this.id = id;
 		this.parsedMessage = parsedMessage;
 		this.message = message;
 		this.timestamp = timestamp;
 	}
 	
+	/**
+	 * @return ID of message in collector, null if message is not from collector
+	 */
+	public Long getId()
+	{
+		return id;
+	}
+	
 	public String getMessage()
 	{
 		return message;
@@ -51,7 +51,7 @@ public class DefaultMQClient extends MQClient
 	@Override
 	protected MessageProcessorThread createProcessorThread()
 	{
-		return new MessageProcessorThread(name+" (Processor thread)", messageQueue, receiveListeners);
+		return new MessageProcessorThread(name+" (Processor thread)", messageQueue, receiveListeners, this::createDispatcherQueue);
 	}
 
 	@Override
@@ -126,7 +126,7 @@ public class DiverReceiverThread extends MessageReceiverThread
 						{
 							logger.trace("Adding message to internal queue");
 							String m = message.readStringOfByteLength(message.getDataLength());
-							boolean inserted = messageQueue.offer(new Pair<String, Date>(m, new Date()));
+							boolean inserted = addToMessageQueue(new Pair<String, Date>(m, new Date()));
 							
 							if (!inserted)
 								logger.warn("It is not possible to add message to queue due to capacity restrictions");
@@ -35,6 +35,8 @@ public class ListenerConfiguration
 	protected String type;
 	@XmlElement(name = "Settings")
 	protected String settings;
+	@XmlElement(name = "Asynchronous")
+	protected boolean asynchronous;
 	
 	protected ReceiveListener implementation;
 	
@@ -59,6 +61,7 @@ public class ListenerConfiguration
 		this.name = cfg.name;
 		this.type = cfg.type;
 		this.settings = cfg.settings;
+		this.asynchronous = cfg.asynchronous;
 		this.implementation = cfg.implementation;
 	}
 	
@@ -96,6 +99,17 @@ public class ListenerConfiguration
 	}
 	
 	
+	public boolean isAsynchronous()
+	{
+		return asynchronous;
+	}
+	
+	public void setAsynchronous(boolean asynchronous)
+	{
+		this.asynchronous = asynchronous;
+	}
+	
+	
 	public ReceiveListener getImplementation()
 	{
 		return implementation;
@@ -109,7 +123,7 @@ public class ListenerConfiguration
 	@Override
 	public String toString()
 	{
-		return format("Listener name='%s', type='%s', settings='%s', implementation='%s'",
-				name, type, settings, (implementation != null) ? implementation.getClass() : null);
+		return format("Listener name='%s', type='%s', settings='%s', asynchronous=%s, implementation='%s'",
+				name, type, settings, asynchronous, (implementation != null) ? implementation.getClass() : null);
 	}
 }
@@ -0,0 +1,144 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import java.util.Date;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exactprosystems.clearth.utils.Pair;
+
+/**
+ * Passes received messages to one listener in a separate thread. 
+ * Messages are handled in order they are dispatched. 
+ * Pending messages are stored in given queue, e.g. in {@link BoundedMessageQueue} to apply the same overflow policy as connection uses for received messages
+ */
+public class ListenerDispatcher
+{
+	private static final Logger logger = LoggerFactory.getLogger(ListenerDispatcher.class);
+	
+	protected final ReceiveListener listener;
+	protected final BlockingQueue<Pair<String, Date>> queue;
+	protected final Thread thread;
+	protected volatile boolean stopped = false;
+	
+	public ListenerDispatcher(String threadName, ReceiveListener listener)
+	{
+		this(threadName, listener, new LinkedBlockingQueue<Pair<String, Date>>());
+	}
+	
+	public ListenerDispatcher(String threadName, ReceiveListener listener, BlockingQueue<Pair<String, Date>> queue)
+	{
+		this.listener = listener;
+		this.queue = queue;
+		this.thread = new Thread(this::run, threadName);
+		this.thread.start();
+	}
+	
+	/**
+	 * Puts message to queue of pending messages. If the queue is bounded, its overflow policy is applied, 
+	 * i.e. the call may wait for the listener to handle previous messages
+	 */
+	public void dispatch(String message, long receivedTimestamp)
+	{
+		if (stopped)
+		{
+			logger.warn("Dispatcher is stopped, message will not be passed to listener {}", listener);
+			return;
+		}
+		
+		try
+		{
+			queue.put(new Pair<String, Date>(message, new Date(receivedTimestamp)));
+		}
+		catch (InterruptedException e)
+		{
+			logger.warn("Interrupted while dispatching message to listener {}", listener);
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	protected void run()
+	{
+		try
+		{
+			while (true)
+			{
+				Pair<String, Date> pair = queue.poll(1000, TimeUnit.MILLISECONDS);
+				if (pair != null)
+					notifyListener(pair.getFirst(), pair.getSecond().getTime());
+				else if (stopped)
+					break;
+			}
+		}
+		catch (InterruptedException e)
+		{
+			logger.warn("Dispatcher interrupted, {} messages will not be passed to listener {}", queue.size(), listener);
+		}
+		finally
+		{
+			if (queue instanceof BoundedMessageQueue)
+				((BoundedMessageQueue)queue).close();
+		}
+	}
+	
+	protected void notifyListener(String message, long receivedTimestamp)
+	{
+		try
+		{
+			logger.trace("Notifying receive listener");
+			listener.onMessageReceived(message, receivedTimestamp);
+		}
+		catch (Exception e)
+		{
+			logger.error("Listener thrown exception while handling the message", e);
+		}
+	}
+	
+	/**
+	 * Stops accepting new messages. Already dispatched messages will be passed to listener
+	 */
+	public void shutdown()
+	{
+		stopped = true;
+	}
+	
+	public boolean awaitTermination(long timeoutMillis) throws InterruptedException
+	{
+		thread.join(Math.max(timeoutMillis, 1));
+		return !thread.isAlive();
+	}
+	
+	/**
+	 * @return number of messages waiting to be passed to listener
+	 */
+	public int getPending()
+	{
+		return queue.size();
+	}
+	
+	public ReceiveListener getListener()
+	{
+		return listener;
+	}
+}
@@ -238,6 +238,73 @@ public abstract class MQClient extends BasicClearThClient implements ClearThClie
 		}
 	}
 	
+	/**
+	 * Sends given messages under syncpoint, committing them as single unit of work. 
+	 * If any message cannot be put to the queue, the whole batch is backed out
+	 */
+	@Override
+	public List<String> sendMessages(List<String> messages) throws IOException, ConnectivityException
+	{
+		if (messages.isEmpty())
+			return new ArrayList<String>(0);
+		
+		synchronized (sendMonitor)
+		{
+			if (sendQueue == null)
+				throw new ConnectionException("Send queue not specified for '" + name + "'");
+			
+			Logger logger = getLogger();
+			if (logger.isDebugEnabled())
+				logger.debug(name+" sends batch of "+messages.size()+" messages");
+			
+			boolean uncommitted = true;
+			try
+			{
+				for (String message : messages)
+				{
+					MQMessage msg = prepareMQMessage(message);
+					if (logger.isTraceEnabled())
+						logger.trace(name+" puts message: "+Utils.EOL+message+Utils.EOL+"header: "+Utils.EOL+messageHeaderToString(msg));
+					
+					MQPutMessageOptions options = createPutMessageOptions(msg);
+					options.options = (options.options & ~CMQC.MQPMO_NO_SYNCPOINT) | CMQC.MQPMO_SYNCPOINT;
+					sendQueue.put(msg, options);
+				}
+				sendQueueManager.commit();
+				uncommitted = false;
+				if (logger.isTraceEnabled())
+					logger.trace(name+" has sent batch successfully");
+				addSent(messages.size());
+			}
+			catch (MQException e)
+			{
+				//Backing out before resending the batch, so that messages are not duplicated
+				backout();
+				uncommitted = false;
+				handleSendError(e, messages);
+			}
+			finally
+			{
+				//Messages put before non-MQ error (e.g. while preparing next message) should not remain in unit of work
+				if (uncommitted)
+					backout();
+			}
+			return new ArrayList<String>(messages);
+		}
+	}
+	
+	protected void backout()
+	{
+		try
+		{
+			sendQueueManager.backout();
+		}
+		catch (MQException e)
+		{
+			getLogger().warn(name+": could not back out messages batch", e);
+		}
+	}
+	
 	public void sendByteMessage(byte[] raw) throws IOException, MQException
 	{
 		Logger logger = getLogger();
@@ -39,7 +39,10 @@ import static com.exactprosystems.clearth.connectivity.MQExceptionUtils.isConnec
 @XmlAccessorType(XmlAccessType.NONE)
 public abstract class MQConnection extends ClearThMessageConnection<MQConnection,MQConnectionSettings>
 {
+	public static final long SEND_FLUSH_TIMEOUT = 30000;
+	
 	protected final Object connectionMonitor = new Object();
+	protected volatile PipelinedMessageSender pipelinedSender;
 	
 	public MQConnection()
 	{
@@ -171,6 +174,153 @@ public abstract class MQConnection extends ClearThMessageConnection<MQConnection
 		this.settings.autoConnect = autoConnect;
 	}
 	
+	
+	public int getQueueCapacity()
+	{
+		return settings.queueCapacity;
+	}
+	
+	public void setQueueCapacity(int queueCapacity)
+	{
+		this.settings.queueCapacity = queueCapacity;
+	}
+	
+	
+	public int getQueueLowWatermark()
+	{
+		return settings.queueLowWatermark;
+	}
+	
+	public void setQueueLowWatermark(int queueLowWatermark)
+	{
+		this.settings.queueLowWatermark = queueLowWatermark;
+	}
+	
+	
+	public QueueOverflowPolicy getQueueOverflowPolicy()
+	{
+		return settings.queueOverflowPolicy;
+	}
+	
+	public void setQueueOverflowPolicy(QueueOverflowPolicy queueOverflowPolicy)
+	{
+		this.settings.queueOverflowPolicy = queueOverflowPolicy;
+	}
+	
+	public int getSendQueueCapacity()
+	{
+		return settings.sendQueueCapacity;
+	}
+	
+	public void setSendQueueCapacity(int sendQueueCapacity)
+	{
+		this.settings.sendQueueCapacity = sendQueueCapacity;
+	}
+	
+	
+	public int getSendBatchSize()
+	{
+		return settings.sendBatchSize;
+	}
+	
+	public void setSendBatchSize(int sendBatchSize)
+	{
+		this.settings.sendBatchSize = sendBatchSize;
+	}
+	
+	/**
+	 * Passes message to pipelined sender which will send it in background together with other submitted messages. 
+	 * If pipelined sending is disabled by connection settings, sends message immediately.
+	 * Messages submitted earlier that failed to be sent are reported by exception, so that they don't stay unnoticed till the end of step
+	 * @param message to send
+	 * @throws ConnectionException if connection is not running or previously submitted messages were not sent
+	 */
+	public void sendMessageAsync(String message) throws IOException, ConnectivityException
+	{
+		if (!running)
+			throw new ConnectionException("Connection '"+name+"' is not running");
+		
+		PipelinedMessageSender sender = pipelinedSender;
+		if (sender == null)
+		{
+			sendMessage(message);
+			return;
+		}
+		
+		ConnectionException failure = sender.takeFailure();
+		if (failure != null)
+			throw failure;
+		
+		try
+		{
+			sender.submit(message);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ConnectionException("Interrupted while waiting for free space in send queue of connection '"+name+"'");
+		}
+	}
+	
+	/**
+	 * Waits until all messages passed to {@link #sendMessageAsync(String)} are sent
+	 * @param timeoutMillis maximum time to wait
+	 * @return true if all messages are sent or failed within given time
+	 */
+	public boolean flushSending(long timeoutMillis) throws InterruptedException
+	{
+		PipelinedMessageSender sender = pipelinedSender;
+		return sender == null || sender.flush(timeoutMillis);
+	}
+	
+	/**
+	 * Waits until all messages passed to {@link #sendMessageAsync(String)} are sent and reports messages failed since previous check
+	 * @param timeoutMillis maximum time to wait
+	 * @throws ConnectionException if some messages were not sent or were not handled within given time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void checkSending(long timeoutMillis) throws ConnectionException, InterruptedException
+	{
+		PipelinedMessageSender sender = pipelinedSender;
+		if (sender == null)
+			return;
+		
+		if (!sender.flush(timeoutMillis))
+			throw new ConnectionException(sender.getPending()+" message(s) sent asynchronously through '"+name+"' are not sent within "+timeoutMillis+" ms");
+		
+		ConnectionException failure = sender.takeFailure();
+		if (failure != null)
+			throw failure;
+	}
+	
+	public PipelinedMessageSender getPipelinedSender()
+	{
+		return pipelinedSender;
+	}
+	
+	protected PipelinedMessageSender createPipelinedSender()
+	{
+		return new PipelinedMessageSender(name, this, settings.sendQueueCapacity, settings.sendBatchSize);
+	}
+	
+	protected void stopPipelinedSender()
+	{
+		PipelinedMessageSender sender = pipelinedSender;
+		if (sender == null)
+			return;
+		
+		try
+		{
+			sender.stop(SEND_FLUSH_TIMEOUT);
+		}
+		catch (InterruptedException e)
+		{
+			getLogger().warn(name+": interrupted while waiting for pending messages to be sent");
+			Thread.currentThread().interrupt();
+		}
+		pipelinedSender = null;
+	}
+	
 	public void sendByteMessage(byte[] message) throws ConnectionException, IOException, MQException
 	{
 		if (!running)
@@ -233,6 +383,11 @@ public abstract class MQConnection extends ClearThMessageConnection<MQConnection
 			client.start(true);
 			started = new Date();
 			running = true;
+			if (settings.sendQueueCapacity > 0)
+			{
+				pipelinedSender = createPipelinedSender();
+				pipelinedSender.start();
+			}
 			ClearThCore.getInstance().getConnectionStorage().removeStoppedConnectionErrors(name);
 			logger.info("Connection '"+name+"' is now running");
 		}
@@ -288,6 +443,8 @@ public abstract class MQConnection extends ClearThMessageConnection<MQConnection
 	protected void disconnect() throws ConnectivityException
 	{
 		Logger logger = getLogger();
+		//Messages already submitted for sending should be sent while connection is still open
+		stopPipelinedSender();
 		if (client!=null)
 		{
 			try
@@ -383,6 +540,29 @@ public abstract class MQConnection extends ClearThMessageConnection<MQConnection
 			((MQClient)client).setWarnings(warnings);
 	}
 	
+	
+	/**
+	 * @return number of received messages waiting to be passed to listeners
+	 */
+	public int getQueueDepth()
+	{
+		if (client != null)
+			return ((MQClient)client).getQueueDepth();
+		else
+			return 0;
+	}
+	
+	/**
+	 * @return queue of received messages if its capacity is limited, null otherwise
+	 */
+	public BoundedMessageQueue getBoundedQueue()
+	{
+		if (client != null)
+			return ((MQClient)client).getBoundedQueue();
+		else
+			return null;
+	}
+	
 
 	public MQClient getClient()
 	{
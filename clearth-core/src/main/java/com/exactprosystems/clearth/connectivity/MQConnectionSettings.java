@@ -45,6 +45,18 @@ public abstract class MQConnectionSettings extends BasicMqConnectionSettings<MQC
 	@XmlElement
 	public boolean autoConnect;
 	
+	@XmlElement
+	public int queueCapacity;
+	@XmlElement
+	public int queueLowWatermark;
+	@XmlElement
+	public QueueOverflowPolicy queueOverflowPolicy;
+	
+	@XmlElement
+	public int sendQueueCapacity;
+	@XmlElement
+	public int sendBatchSize;
+	
 	
 	public MQConnectionSettings()
 	{
@@ -61,6 +73,13 @@ public abstract class MQConnectionSettings extends BasicMqConnectionSettings<MQC
 		
 		autoReconnect = false;
 		autoConnect = false;
+		
+		queueCapacity = 0;
+		queueLowWatermark = -1;
+		queueOverflowPolicy = QueueOverflowPolicy.BLOCK;
+		
+		sendQueueCapacity = 0;
+		sendBatchSize = PipelinedMessageSender.DEFAULT_BATCH_SIZE;
 	}
 	
 	public MQConnectionSettings(MQConnectionSettings settings)
@@ -78,6 +97,13 @@ public abstract class MQConnectionSettings extends BasicMqConnectionSettings<MQC
 
 		this.autoReconnect = settings.autoReconnect;
 		this.autoConnect = settings.autoConnect;
+		
+		this.queueCapacity = settings.queueCapacity;
+		this.queueLowWatermark = settings.queueLowWatermark;
+		this.queueOverflowPolicy = settings.queueOverflowPolicy;
+		
+		this.sendQueueCapacity = settings.sendQueueCapacity;
+		this.sendBatchSize = settings.sendBatchSize;
 	}
 	
 	public abstract MQConnectionSettings copy();
@@ -99,7 +125,14 @@ public abstract class MQConnectionSettings extends BasicMqConnectionSettings<MQC
 		sb.append("Channel="+channel+Utils.EOL);
 
 		sb.append("Auto-reconnect="+autoReconnect);
-		sb.append("Auto-connect="+autoConnect);
+		sb.append("Auto-connect="+autoConnect+Utils.EOL);
+		
+		sb.append("Queue capacity="+(queueCapacity > 0 ? queueCapacity : "unlimited"));
+		sb.append("Queue low watermark="+queueLowWatermark);
+		sb.append("Queue overflow policy="+queueOverflowPolicy+Utils.EOL);
+		
+		sb.append("Send queue capacity="+(sendQueueCapacity > 0 ? sendQueueCapacity : "pipelined sending disabled")+Utils.EOL);
+		sb.append("Send batch size="+sendBatchSize+Utils.EOL);
 		
 		return sb.toString();
 	}
@@ -20,10 +20,13 @@ package com.exactprosystems.clearth.connectivity;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,12 +41,26 @@ public class MessageProcessorThread extends Thread
 	protected final BlockingQueue<Pair<String, Date>> messageQueue;
 	protected final List<ReceiveListener> listeners;
 	protected AtomicLong processed = new AtomicLong(0);
+	//Asynchronous listeners get messages through their own dispatchers, so that slow listener doesn't delay others
+	protected final Map<ReceiveListener, ListenerDispatcher> dispatchers = new ConcurrentHashMap<ReceiveListener, ListenerDispatcher>();
+	protected final Function<ReceiveListener, BlockingQueue<Pair<String, Date>>> dispatcherQueueFactory;
 	
 	public MessageProcessorThread(String name, final BlockingQueue<Pair<String, Date>> messageQueue, final List<ReceiveListener> listeners)
+	{
+		this(name, messageQueue, listeners, null);
+	}
+	
+	/**
+	 * @param dispatcherQueueFactory creates queues for messages pending to be handled by asynchronous listeners. 
+	 * If null, such queues are not limited
+	 */
+	public MessageProcessorThread(String name, final BlockingQueue<Pair<String, Date>> messageQueue, final List<ReceiveListener> listeners,
+			final Function<ReceiveListener, BlockingQueue<Pair<String, Date>>> dispatcherQueueFactory)
 	{
 		super(name);
 		this.messageQueue = messageQueue;
 		this.listeners = listeners;
+		this.dispatcherQueueFactory = dispatcherQueueFactory;
 	}
 	
 	public void terminate()
@@ -65,8 +82,7 @@ public class MessageProcessorThread extends Thread
 				Pair<String, Date> pair = messageQueue.poll(1000, TimeUnit.MILLISECONDS);
 				if (pair != null)
 				{ 
-					String message = pair.getFirst();
-					notifyReceivedListeners(message);
+					notifyReceivedListeners(pair.getFirst(), pair.getSecond());
 					processed.incrementAndGet();
 				}
 			} 
@@ -83,17 +99,33 @@ public class MessageProcessorThread extends Thread
 			}
 		}
 		
+		//Dispatchers will pass already queued messages to their listeners and then stop
+		for (ListenerDispatcher dispatcher : dispatchers.values())
+			dispatcher.shutdown();
+		
 		logger.info("MessageProcessor Thread finished");
 	}
 	
 	public void notifyReceivedListeners(String message)
 	{
+		notifyReceivedListeners(message, new Date());
+	}
+	
+	public void notifyReceivedListeners(String message, Date received)
+	{
+		long receivedTimestamp = received != null ? received.getTime() : System.currentTimeMillis();
 		for (ReceiveListener listener : listeners)
 		{
+			if (listener.isAsynchronous())
+			{
+				getDispatcher(listener).dispatch(message, receivedTimestamp);
+				continue;
+			}
+			
 			try
 			{
 				logger.trace("Notifying receive listener");
-				listener.onMessageReceived(message);
+				listener.onMessageReceived(message, receivedTimestamp);
 			}
 			catch (Exception e)
 			{
@@ -102,6 +134,61 @@ public class MessageProcessorThread extends Thread
 		}
 	}
 	
+	protected ListenerDispatcher getDispatcher(ReceiveListener listener)
+	{
+		return dispatchers.computeIfAbsent(listener, l -> createDispatcher(l));
+	}
+	
+	protected ListenerDispatcher createDispatcher(ReceiveListener listener)
+	{
+		String dispatcherName = getName()+" ("+listener.getClass().getSimpleName()+" dispatcher)";
+		if (dispatcherQueueFactory == null)
+			return new ListenerDispatcher(dispatcherName, listener);
+		return new ListenerDispatcher(dispatcherName, listener, dispatcherQueueFactory.apply(listener));
+	}
+	
+	/**
+	 * Waits for thread to finish and for asynchronous listeners to handle messages already passed to them
+	 * @param timeoutMillis maximum time to wait
+	 * @return true if everything finished within given time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeoutMillis) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		join(timeoutMillis);
+		if (isAlive())
+			return false;
+		
+		for (ListenerDispatcher dispatcher : dispatchers.values())
+		{
+			if (!dispatcher.awaitTermination(Math.max(deadline - System.currentTimeMillis(), 0)))
+				return false;
+		}
+		return true;
+	}
+	
+	public boolean hasAsynchronousListeners()
+	{
+		for (ReceiveListener listener : listeners)
+		{
+			if (listener.isAsynchronous())
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @return number of messages waiting to be handled by asynchronous listeners
+	 */
+	public long getDispatcherPending()
+	{
+		long result = 0;
+		for (ListenerDispatcher dispatcher : dispatchers.values())
+			result += dispatcher.getPending();
+		return result;
+	}
+	
 	public long getProcessed()
 	{
 		return processed.get();
@@ -54,6 +54,25 @@ public abstract class MessageReceiverThread extends Thread
 		this.charset = charset;
 	}
 	
+	/**
+	 * Passes received message to internal queue, waiting for free space if the queue is full and its overflow policy says so. 
+	 * The message is already taken from MQ queue, so it is added even if waiting is interrupted, keeping interrupted status of the thread
+	 * @return false if the queue rejected the message
+	 */
+	protected boolean addToMessageQueue(Pair<String, Date> message)
+	{
+		try
+		{
+			messageQueue.put(message);
+			return true;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			return messageQueue.offer(message);
+		}
+	}
+	
 	protected MQMessage createNewMessage(int charset)
 	{
 		MQMessage m = new MQMessage();
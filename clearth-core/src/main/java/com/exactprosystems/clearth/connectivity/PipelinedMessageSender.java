@@ -0,0 +1,256 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exactprosystems.clearth.messages.BatchMessageSender;
+
+/**
+ * Sends messages in separate thread, grouping messages accumulated in bounded queue into batches.
+ * Caller is blocked only if the queue is full, i.e. if messages are submitted faster than they can be sent
+ */
+public class PipelinedMessageSender
+{
+	private static final Logger logger = LoggerFactory.getLogger(PipelinedMessageSender.class);
+	
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	
+	protected final String name;
+	protected final BatchMessageSender sender;
+	protected final BlockingQueue<String> queue;
+	protected final int batchSize;
+	protected final Thread senderThread;
+	protected final Object idleMonitor = new Object();
+	
+	protected volatile boolean terminated = false;
+	protected volatile Throwable lastError;
+	protected final AtomicLong sent = new AtomicLong(0),
+			failed = new AtomicLong(0),
+			batches = new AtomicLong(0);
+	//Number of messages submitted, but not sent or failed yet, including the batch being sent now
+	protected final AtomicLong pending = new AtomicLong(0);
+	//Number of failed messages already reported by takeFailure()
+	protected long reportedFailed = 0;
+	
+	public PipelinedMessageSender(String name, BatchMessageSender sender, int capacity, int batchSize)
+	{
+		this.name = name;
+		this.sender = sender;
+		this.queue = new ArrayBlockingQueue<String>(capacity);
+		this.batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+		this.senderThread = new Thread(this::sendLoop, name+" (Sender thread)");
+	}
+	
+	
+	public void start()
+	{
+		senderThread.start();
+	}
+	
+	/**
+	 * Adds message to sending queue, waiting for free space if needed
+	 * @param message to send
+	 * @throws ConnectionException if sender is stopped
+	 * @throws InterruptedException if interrupted while waiting for free space in queue
+	 */
+	public void submit(String message) throws ConnectionException, InterruptedException
+	{
+		if (terminated)
+			throw new ConnectionException("Messages sender '"+name+"' is stopped");
+		
+		pending.incrementAndGet();
+		try
+		{
+			queue.put(message);
+		}
+		catch (InterruptedException e)
+		{
+			pending.decrementAndGet();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Waits until all submitted messages are sent or failed
+	 * @param timeoutMillis maximum time to wait
+	 * @return true if all messages are handled within given time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean flush(long timeoutMillis) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (idleMonitor)
+		{
+			while (pending.get() > 0)
+			{
+				long left = deadline - System.currentTimeMillis();
+				if (left <= 0 || !senderThread.isAlive())
+					return false;
+				idleMonitor.wait(left);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Sends already submitted messages and stops sender thread
+	 * @param timeoutMillis maximum time to wait for submitted messages to be sent
+	 * @return true if all submitted messages are handled within given time
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean stop(long timeoutMillis) throws InterruptedException
+	{
+		terminated = true;
+		long started = System.currentTimeMillis();
+		boolean result = flush(timeoutMillis);
+		senderThread.interrupt();
+		senderThread.join(Math.max(timeoutMillis - (System.currentTimeMillis() - started), 1));
+		if (!result)
+			logger.warn("{}: {} messages were not sent before stop", name, pending.get());
+		return result;
+	}
+	
+	
+	protected void sendLoop()
+	{
+		logger.info("{}: sender thread started", name);
+		List<String> batch = new ArrayList<String>(batchSize);
+		while (!terminated || !queue.isEmpty())
+		{
+			try
+			{
+				String first = queue.poll(1000, TimeUnit.MILLISECONDS);
+				if (first == null)
+					continue;
+				
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				sendBatch(batch);
+			}
+			catch (InterruptedException e)
+			{
+				if (!terminated)
+					logger.warn("{}: sender thread interrupted", name);
+				break;
+			}
+			finally
+			{
+				if (!batch.isEmpty())
+				{
+					messagesHandled(batch.size());
+					batch.clear();
+				}
+			}
+		}
+		logger.info("{}: sender thread finished", name);
+	}
+	
+	protected void sendBatch(List<String> batch)
+	{
+		try
+		{
+			sender.sendMessages(batch);
+			sent.addAndGet(batch.size());
+			batches.incrementAndGet();
+		}
+		catch (Exception e)
+		{
+			lastError = e;
+			failed.addAndGet(batch.size());
+			logger.error("{}: could not send batch of {} messages", name, batch.size(), e);
+		}
+	}
+	
+	protected void messagesHandled(int count)
+	{
+		synchronized (idleMonitor)
+		{
+			pending.addAndGet(-count);
+			idleMonitor.notifyAll();
+		}
+	}
+	
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+	
+	public int getQueueSize()
+	{
+		return queue.size();
+	}
+	
+	public long getPending()
+	{
+		return pending.get();
+	}
+	
+	public long getSent()
+	{
+		return sent.get();
+	}
+	
+	public long getFailed()
+	{
+		return failed.get();
+	}
+	
+	public long getBatches()
+	{
+		return batches.get();
+	}
+	
+	/**
+	 * @return last error occurred while sending messages or null if all messages were sent successfully
+	 */
+	public Throwable getLastError()
+	{
+		return lastError;
+	}
+	
+	/**
+	 * Returns error that describes messages failed since previous call of this method, so that each failure is reported once
+	 * @return exception with number of failed messages and last sending error as cause or null if no messages failed since previous call
+	 */
+	public synchronized ConnectionException takeFailure()
+	{
+		long failedNow = failed.get(),
+				newFailed = failedNow - reportedFailed;
+		if (newFailed <= 0)
+			return null;
+		
+		reportedFailed = failedNow;
+		return new ConnectionException(newFailed+" message(s) sent asynchronously through '"+name+"' could not be sent", lastError);
+	}
+}
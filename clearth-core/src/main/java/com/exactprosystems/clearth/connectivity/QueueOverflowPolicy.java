@@ -0,0 +1,52 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+/**
+ * Defines what {@link BoundedMessageQueue} does with new messages when it is full
+ */
+public enum QueueOverflowPolicy
+{
+	/** Receiver thread waits until the queue is drained to its low watermark */
+	BLOCK("Block"),
+	/** New messages are written to a local file and moved back to the queue when it is drained to its low watermark */
+	SPILL("Spill to file"),
+	/** New messages are dropped and counted */
+	DROP("Drop");
+
+	private final String label;
+
+	QueueOverflowPolicy(String label)
+	{
+		this.label = label;
+	}
+
+	public String getLabel()
+	{
+		return label;
+	}
+
+	public static QueueOverflowPolicy policyByName(String name)
+	{
+		for (QueueOverflowPolicy policy : values())
+			if (policy.name().equalsIgnoreCase(name))
+				return policy;
+		return BLOCK;
+	}
+}
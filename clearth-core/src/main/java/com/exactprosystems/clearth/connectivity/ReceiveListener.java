@@ -37,6 +37,8 @@ public abstract class ReceiveListener
     public static final ThreadLocal<SimpleDateFormat> format =
             ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy.MM.dd HH:mm:ss.SSS"));
 
+	private volatile boolean asynchronous = false;
+
 	public abstract void start();
 	
 
@@ -51,6 +53,19 @@ public abstract class ReceiveListener
 		onMessageReceived(message, currentTimeMillis());
 	}
 	
+	/**
+	 * @return true if listener should get messages in its own thread, not delaying other listeners of the same connection
+	 */
+	public boolean isAsynchronous()
+	{
+		return asynchronous;
+	}
+	
+	public void setAsynchronous(boolean asynchronous)
+	{
+		this.asynchronous = asynchronous;
+	}
+	
 	/**
 	 * Dispose listener
 	 */
@@ -22,9 +22,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -54,6 +60,10 @@ public abstract class ClearThConnectionStorage
 
 	public static final String MQ = "MQ";
 	
+	protected static final int AUTOSTART_THREADS = 8;
+	protected static final long AUTOSTART_TIMEOUT = 60000,
+			AUTOSTART_CHECK_INTERVAL = 100;
+	
 	protected final List<ClearThConnection<?,?>> connections = new CopyOnWriteArrayList<>();
 	protected final Map<String, ClearThConnection<?,?>> connectionsByName = new ConcurrentHashMap<>();
 	protected final Map<String, List<ClearThConnection<?,?>>> connectionsByType = new ConcurrentHashMap<>();
@@ -67,6 +77,7 @@ public abstract class ClearThConnectionStorage
 
 	protected final Comparator<ClearThConnection<?,?>> connectionComparator;
 	protected final ConnectionStartValidator connectionStartValidator = new ConnectionStartValidator();
+	protected volatile List<ConnectionStartInfo> autoStartReport = emptyList();
 	
 	protected abstract void initFactories() throws ConnectivityException;
 
@@ -253,28 +264,204 @@ public abstract class ClearThConnectionStorage
 	
 	// Manage Connections
 	
+	/**
+	 * Starts connections marked for auto-connect. Connections are started in parallel, so that long start of one connection doesn't delay the others
+	 */
 	public void autoStartConnections()
 	{
+		List<ClearThConnection<?, ?>> toStart = new ArrayList<>();
+		List<ConnectionStartInfo> report = new ArrayList<>();
 		for (ClearThConnection<?, ?> connection : connections)
 		{
 			if (!connection.isAutoConnect())
 				continue;
-
+			
 			if (!connection.isRunning())
+				toStart.add(connection);
+			else
 			{
-				try
-				{
-					connection.start();
-					logger.info("Connection '{}' is now running", connection.getName());
-				}
-				catch (Exception e)
+				logger.info("Connection '{}' is already running", connection.getName());
+				report.add(new ConnectionStartInfo(connection.getName(), ConnectionStartInfo.Status.ALREADY_RUNNING, 0, null));
+			}
+		}
+		
+		if (!toStart.isEmpty())
+		{
+			long started = System.currentTimeMillis();
+			report.addAll(startConnections(toStart));
+			logger.info("Auto-start of {} connection(s) took {} ms", toStart.size(), System.currentTimeMillis() - started);
+		}
+		autoStartReport = report;
+	}
+	
+	protected List<ConnectionStartInfo> startConnections(List<ClearThConnection<?, ?>> toStart)
+	{
+		//Connections that may conflict with each other are started one after another, so that start validation of each of them sees the others running
+		List<List<ConnectionStarter>> groups = groupConflictingConnections(toStart);
+		int threads = Math.min(getAutoStartThreads(), groups.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			private final AtomicInteger index = new AtomicInteger(0);
+			
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "ConnectionStarter-" + index.incrementAndGet());
+				t.setDaemon(true);  //Thread stuck in timed out start shouldn't prevent application from stopping
+				return t;
+			}
+		});
+		
+		List<ConnectionStarter> starters = new ArrayList<>(toStart.size());
+		List<Future<?>> futures = new ArrayList<>(groups.size());
+		long timeout = getAutoStartTimeout();
+		try
+		{
+			for (List<ConnectionStarter> group : groups)
+			{
+				//Group may wait for free thread while earlier groups are started, then its connections are started one by one.
+				//Connections not started by the deadline are skipped, so that start ignoring interruption doesn't block others forever
+				long waitSlots = (starters.size() + threads - 1) / threads,
+						deadline = System.currentTimeMillis() + timeout * (waitSlots + group.size());
+				for (ConnectionStarter starter : group)
+					starter.setDeadline(deadline);
+				
+				starters.addAll(group);
+				futures.add(executor.submit(() -> {
+					for (ConnectionStarter starter : group)
+						starter.run();
+				}));
+			}
+			return awaitStarters(starters);
+		}
+		catch (InterruptedException e)
+		{
+			logger.warn("Wait for connections to start is interrupted");
+			Thread.currentThread().interrupt();
+			for (Future<?> future : futures)
+				future.cancel(true);
+			return emptyList();
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	protected List<List<ConnectionStarter>> groupConflictingConnections(List<ClearThConnection<?, ?>> toStart)
+	{
+		List<List<ConnectionStarter>> groups = new ArrayList<>();
+		for (ClearThConnection<?, ?> connection : toStart)
+		{
+			//Connection can conflict with several groups, they are merged into one then
+			List<ConnectionStarter> target = null;
+			Iterator<List<ConnectionStarter>> it = groups.iterator();
+			while (it.hasNext())
+			{
+				List<ConnectionStarter> group = it.next();
+				if (!isConflicting(connection, group))
+					continue;
+				
+				if (target == null)
+					target = group;
+				else
 				{
-					logger.error("Error occurred while starting connection '{}'", connection.getName(), e);
+					target.addAll(group);
+					it.remove();
 				}
 			}
-			else
-				logger.info("Connection '{}' is already running", connection.getName());
+			
+			if (target == null)
+			{
+				target = new ArrayList<>();
+				groups.add(target);
+			}
+			target.add(new ConnectionStarter(connection));
+		}
+		return groups;
+	}
+	
+	private boolean isConflicting(ClearThConnection<?, ?> connection, List<ConnectionStarter> group)
+	{
+		for (ConnectionStarter starter : group)
+		{
+			if (connectionStartValidator.isConflicting(connection, starter.connection))
+				return true;
 		}
+		return false;
+	}
+	
+	private List<ConnectionStartInfo> awaitStarters(List<ConnectionStarter> starters) throws InterruptedException
+	{
+		long timeout = getAutoStartTimeout();
+		List<ConnectionStartInfo> result = new ArrayList<>(starters.size());
+		List<ConnectionStarter> pending = new ArrayList<>(starters);
+		while (!pending.isEmpty())
+		{
+			Iterator<ConnectionStarter> it = pending.iterator();
+			while (it.hasNext())
+			{
+				ConnectionStarter starter = it.next();
+				ConnectionStartInfo info = starter.getResult(timeout);
+				if (info == null)
+					continue;
+				
+				it.remove();
+				result.add(info);
+				logConnectionStart(info);
+			}
+			
+			if (!pending.isEmpty())
+				Thread.sleep(AUTOSTART_CHECK_INTERVAL);
+		}
+		return result;
+	}
+	
+	private void logConnectionStart(ConnectionStartInfo info)
+	{
+		String name = info.getConnectionName();
+		switch (info.getStatus())
+		{
+			case STARTED :
+				logger.info("Connection '{}' is now running, start took {} ms", name, info.getDuration());
+				break;
+			case TIMED_OUT :
+				logger.error("Connection '{}' didn't start within {} ms, it will be stopped", name, info.getDuration());
+				addStoppedConnectionError(new ConnectionErrorInfo(name, "Connection didn't start within "+info.getDuration()+" ms and was stopped", Instant.now()));
+				break;
+			case NOT_STARTED :
+				logger.error("Connection '{}' was not started: it was waiting for {} ms for other connections to start", name, info.getDuration());
+				addStoppedConnectionError(new ConnectionErrorInfo(name, "Connection was not started because other connections took too long to start", Instant.now()));
+				break;
+			default :
+				logger.error("Error occurred while starting connection '{}'", name, info.getError());
+				addStoppedConnectionError(new ConnectionErrorInfo(name, 
+						"Could not start connection: " + (info.getError() != null ? info.getError().getMessage() : null), Instant.now()));
+		}
+	}
+	
+	/**
+	 * @return maximum number of connections being started at the same time by {@link #autoStartConnections()}
+	 */
+	protected int getAutoStartThreads()
+	{
+		return AUTOSTART_THREADS;
+	}
+	
+	/**
+	 * @return time in milliseconds for one connection to start when started by {@link #autoStartConnections()}
+	 */
+	protected long getAutoStartTimeout()
+	{
+		return AUTOSTART_TIMEOUT;
+	}
+	
+	/**
+	 * @return outcome of connections start performed by last call of {@link #autoStartConnections()}
+	 */
+	public List<ConnectionStartInfo> getAutoStartReport()
+	{
+		return autoStartReport;
 	}
 	
 	
@@ -579,4 +766,129 @@ public abstract class ClearThConnectionStorage
 	{
 		return stoppedConnectionsErrors;
 	}
+	
+	
+	protected static class ConnectionStarter implements Runnable
+	{
+		private static final int WAITING = 0,
+				STARTING = 1,
+				FINISHED = 2,
+				TIMED_OUT = 3,
+				SKIPPED = 4;
+		
+		private final ClearThConnection<?, ?> connection;
+		private final long createdAt = System.currentTimeMillis();
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+		private volatile long startedAt = -1,
+				finishedAt = -1,
+				deadline = Long.MAX_VALUE;
+		private volatile Throwable error;
+		private Thread runner;
+		
+		public ConnectionStarter(ClearThConnection<?, ?> connection)
+		{
+			this.connection = connection;
+		}
+		
+		@Override
+		public void run()
+		{
+			startedAt = System.currentTimeMillis();
+			//Starter is skipped if deadline has passed while it was waiting for its turn
+			if (!state.compareAndSet(WAITING, STARTING))
+				return;
+			
+			synchronized (this)
+			{
+				runner = Thread.currentThread();
+			}
+			try
+			{
+				connection.start();
+			}
+			catch (Throwable e)
+			{
+				error = e;
+			}
+			finally
+			{
+				finishedAt = System.currentTimeMillis();
+				synchronized (this)
+				{
+					runner = null;
+					//Interruption of timed out start shouldn't affect next connection in the group
+					Thread.interrupted();
+				}
+			}
+			
+			if (!state.compareAndSet(STARTING, FINISHED))
+				stopTimedOut();
+		}
+		
+		private void stopTimedOut()
+		{
+			if (!connection.isRunning())
+				return;
+			
+			try
+			{
+				logger.warn("Stopping connection '{}' that has started after timeout", connection.getName());
+				connection.stop();
+			}
+			catch (Exception e)
+			{
+				logger.error("Could not stop connection '{}' after start timeout", connection.getName(), e);
+			}
+		}
+		
+		public ClearThConnection<?, ?> getConnection()
+		{
+			return connection;
+		}
+		
+		/**
+		 * @param deadline time in milliseconds by which connection should be started. 
+		 * If start hasn't begun by this time, it will be skipped
+		 */
+		public void setDeadline(long deadline)
+		{
+			this.deadline = deadline;
+		}
+		
+		/**
+		 * @return start outcome or null if connection is still starting within given timeout or waiting for its turn before deadline. 
+		 * Timeout is counted from actual start, not from submission to thread pool
+		 */
+		public ConnectionStartInfo getResult(long timeout)
+		{
+			String name = connection.getName();
+			int currentState = state.get();
+			if (currentState == FINISHED)
+			{
+				long duration = finishedAt - startedAt;
+				return error == null ? new ConnectionStartInfo(name, ConnectionStartInfo.Status.STARTED, duration, null)
+						: new ConnectionStartInfo(name, ConnectionStartInfo.Status.FAILED, duration, error);
+			}
+			
+			long now = System.currentTimeMillis();
+			if (currentState == WAITING)
+			{
+				if (now < deadline || !state.compareAndSet(WAITING, SKIPPED))
+					return null;  //If start has just begun, its timeout will be checked on next call
+				return new ConnectionStartInfo(name, ConnectionStartInfo.Status.NOT_STARTED, now - createdAt, null);
+			}
+			
+			long duration = now - startedAt;
+			if ((duration < timeout && now < deadline) || !state.compareAndSet(STARTING, TIMED_OUT))
+				return null;  //If start has just finished, its result will be returned on next call
+			
+			//Connection will be stopped by starter thread once start is interrupted or completed
+			synchronized (this)
+			{
+				if (runner != null)
+					runner.interrupt();
+			}
+			return new ConnectionStartInfo(name, ConnectionStartInfo.Status.TIMED_OUT, duration, null);
+		}
+	}
 }
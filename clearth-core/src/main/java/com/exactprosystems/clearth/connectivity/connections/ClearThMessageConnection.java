@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import com.exactprosystems.clearth.ClearThCore;
 import com.exactprosystems.clearth.connectivity.listeners.FileReceiveListener;
 import com.exactprosystems.clearth.connectivity.listeners.ProxyListener;
+import com.exactprosystems.clearth.messages.BatchMessageSender;
 import com.exactprosystems.clearth.messages.StringMessageSender;
 import com.exactprosystems.clearth.utils.KeyValueUtils;
 import com.exactprosystems.clearth.utils.SettingsException;
@@ -48,7 +49,7 @@ import static org.apache.commons.lang.StringUtils.isBlank;
  */
 public abstract class ClearThMessageConnection<C extends ClearThMessageConnection<C,S>, 
 								S extends ClearThConnectionSettings<S>>
-		extends ClearThConnection<C,S> implements StringMessageSender
+		extends ClearThConnection<C,S> implements StringMessageSender, BatchMessageSender
 {
 	
 	@XmlElementWrapper
@@ -69,6 +70,14 @@ public abstract class ClearThMessageConnection<C extends ClearThMessageConnectio
 		return client.sendMessage(message);
 	}
 	
+	@Override
+	public List<String> sendMessages(List<String> messages) throws IOException, ConnectivityException
+	{
+		if (!running)
+			throw new ConnectionException("Connection '"+name+"' is not running");
+		return client.sendMessages(messages);
+	}
+	
 	
 	public void copy(C copyFrom)  //Used when changing settings of connection by supplying settings in another one, but new instance shouldn't be created
 	{
@@ -157,6 +166,7 @@ public abstract class ClearThMessageConnection<C extends ClearThMessageConnectio
 				getLogger().debug("Adding listener {} ({}) to connection '{}'", new Object[] {listenerName, listenerType, name});
 
 				ReceiveListener listenerImpl = createListener(listenerName, listenerType, cfg.getSettings());
+				listenerImpl.setAsynchronous(cfg.isAsynchronous());
 
 				cfg.setImplementation(listenerImpl);
 				implementations.add(listenerImpl);
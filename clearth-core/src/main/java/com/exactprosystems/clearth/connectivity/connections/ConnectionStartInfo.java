@@ -0,0 +1,76 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.connections;
+
+/**
+ * Outcome of connection start performed on ClearTH startup
+ */
+public class ConnectionStartInfo
+{
+	public enum Status
+	{
+		STARTED,
+		ALREADY_RUNNING,
+		FAILED,
+		TIMED_OUT,
+		NOT_STARTED
+	}
+	
+	private final String connectionName;
+	private final Status status;
+	private final long duration;
+	private final Throwable error;
+	
+	public ConnectionStartInfo(String connectionName, Status status, long duration, Throwable error)
+	{
+		this.connectionName = connectionName;
+		this.status = status;
+		this.duration = duration;
+		this.error = error;
+	}
+	
+	public String getConnectionName()
+	{
+		return connectionName;
+	}
+	
+	public Status getStatus()
+	{
+		return status;
+	}
+	
+	/**
+	 * @return time in milliseconds spent to start the connection
+	 */
+	public long getDuration()
+	{
+		return duration;
+	}
+	
+	public Throwable getError()
+	{
+		return error;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("'%s': %s in %d ms", connectionName, status, duration);
+	}
+}
@@ -152,7 +152,7 @@ public class FlatMessageCodec implements ICodec {
 
 		messageValidator.validate(encodedMessage, dictionary.getConditions(messageDesc.getType()));
 
-		SimpleClearThMessage flatMessage = new SimpleClearThMessage();
+		SimpleClearThMessage flatMessage = new SimpleClearThMessage(dictionary.getFieldNames());
 		for(FlatMessageFieldDesc fieldDesc: messageDesc.getFieldDesc())
 		{
 			String fieldName = fieldDesc.getName();
@@ -168,6 +168,7 @@ public class FlatMessageCodec implements ICodec {
 		}
 		flatMessage.addField(MSGTYPE, messageDesc.getType());
 		flatMessage.setEncodedMessage(encodedMessage);
+		flatMessage.trimFields();
 
 		return flatMessage;
 	}
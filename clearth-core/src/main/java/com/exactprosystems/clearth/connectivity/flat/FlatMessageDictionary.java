@@ -19,19 +19,27 @@
 package com.exactprosystems.clearth.connectivity.flat;
 
 import com.exactprosystems.clearth.connectivity.Dictionary;
+import com.exactprosystems.clearth.connectivity.iface.FieldNameTable;
 import com.exactprosystems.clearth.utils.DictionaryLoadException;
 
 import org.apache.commons.lang.StringUtils;
 
 import java.io.Reader;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import static com.exactprosystems.clearth.connectivity.iface.ClearThMessage.MSGTYPE;
 
 public class FlatMessageDictionary extends Dictionary<FlatMessageDesc, FlatMessageDictionaryDesc>
 {
 	public static final String RIGHT_ALIGNMENT = "right";
 	public static final String LEFT_ALIGNMENT = "left";
+	
+	//Assigned in processDictionary() called from parent constructor, thus shouldn't be initialized here
+	protected FieldNameTable fieldNames;
 
 	public FlatMessageDictionary(String fileName) throws DictionaryLoadException {
 		super(fileName);
@@ -47,6 +55,34 @@ public class FlatMessageDictionary extends Dictionary<FlatMessageDesc, FlatMessa
 		return new Class[]{FlatMessageDictionaryDesc.class};
 	}
 
+	@Override
+	protected void processDictionary(FlatMessageDictionaryDesc dictionary) throws DictionaryLoadException
+	{
+		super.processDictionary(dictionary);
+		fieldNames = createFieldNameTable();
+	}
+	
+	protected FieldNameTable createFieldNameTable()
+	{
+		Set<String> names = new LinkedHashSet<String>();
+		names.add(MSGTYPE);
+		for (FlatMessageDesc messageDesc : messageDescList)
+		{
+			for (FlatMessageFieldDesc fieldDesc : messageDesc.getFieldDesc())
+				names.add(fieldDesc.getName());
+		}
+		//Fixed-length fields often contain the same codes and flags in many messages, so values are shared too
+		return new FieldNameTable(names, true);
+	}
+	
+	/**
+	 * @return table of field names from this dictionary, to be used by decoded messages
+	 */
+	public FieldNameTable getFieldNames()
+	{
+		return fieldNames;
+	}
+	
 	@Override
 	protected Map<String, FlatMessageDesc> convertToMessageDescMap(List<FlatMessageDesc> messageDescList) throws DictionaryLoadException
 	{
@@ -167,8 +167,9 @@ public abstract class ClearThMessage<T extends ClearThMessage<T>>
 	
 	public List<T> getSubMessages(String type)
 	{
-		checkExist();
 		List<T> result = new ArrayList<T>();
+		if (subMessages == null)
+			return result;
 		
 		for(T subMessage : subMessages)
 		{
@@ -0,0 +1,331 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.iface;
+
+import java.util.*;
+
+/**
+ * Map of message fields that keeps names and values in arrays instead of entry objects.
+ * Names are taken from {@link FieldNameTable}, so messages with the same fields share name instances.
+ * Map keeps insertion order like {@link LinkedHashMap}. Small maps are searched linearly, 
+ * larger ones build hash index of field positions, which is an array of ints instead of entry objects
+ */
+public class CompactFieldMap extends AbstractMap<String, String>
+{
+	private static final String[] EMPTY = new String[0];
+	private static final int HASH_INDEX_THRESHOLD = 8;
+	
+	private final FieldNameTable table;
+	private String[] names = EMPTY,
+			values = EMPTY;
+	private int size = 0;
+	//Positions of fields plus 1 by hash of name, 0 is for empty slot. Built on demand
+	private int[] hashIndex;
+	private EntrySet entrySet;
+	
+	public CompactFieldMap(FieldNameTable table)
+	{
+		this.table = table;
+	}
+	
+	public CompactFieldMap(FieldNameTable table, Map<String, String> fields)
+	{
+		this(table);
+		if (fields != null && !fields.isEmpty())
+		{
+			ensureCapacity(fields.size());
+			putAll(fields);
+		}
+	}
+	
+	
+	public FieldNameTable getTable()
+	{
+		return table;
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return indexOf(key) > -1;
+	}
+	
+	@Override
+	public String get(Object key)
+	{
+		int index = indexOf(key);
+		return index > -1 ? values[index] : null;
+	}
+	
+	@Override
+	public String put(String key, String value)
+	{
+		value = table.value(key, value);
+		int index = indexOf(key);
+		if (index > -1)
+		{
+			String old = values[index];
+			values[index] = value;
+			return old;
+		}
+		
+		ensureCapacity(size + 1);
+		names[size] = table.name(key);
+		values[size] = value;
+		size++;
+		if (hashIndex != null)
+		{
+			if (size * 2 > hashIndex.length)
+				hashIndex = null;
+			else
+				addToHashIndex(size - 1);
+		}
+		return null;
+	}
+	
+	@Override
+	public String remove(Object key)
+	{
+		int index = indexOf(key);
+		if (index < 0)
+			return null;
+		
+		String old = values[index];
+		removeAt(index);
+		return old;
+	}
+	
+	@Override
+	public void clear()
+	{
+		names = EMPTY;
+		values = EMPTY;
+		size = 0;
+		hashIndex = null;
+	}
+	
+	@Override
+	public Set<Entry<String, String>> entrySet()
+	{
+		if (entrySet == null)
+			entrySet = new EntrySet();
+		return entrySet;
+	}
+	
+	/**
+	 * Reduces storage to the current number of fields
+	 */
+	public void trimToSize()
+	{
+		if (names.length == size)
+			return;
+		names = Arrays.copyOf(names, size);
+		values = Arrays.copyOf(values, size);
+	}
+	
+	
+	private int indexOf(Object key)
+	{
+		if (size > HASH_INDEX_THRESHOLD && key != null)
+		{
+			if (hashIndex == null)
+				buildHashIndex();
+			
+			int mask = hashIndex.length - 1;
+			for (int slot = hash(key) & mask; hashIndex[slot] != 0; slot = (slot + 1) & mask)
+			{
+				int index = hashIndex[slot] - 1;
+				if (key.equals(names[index]))
+					return index;
+			}
+			return -1;
+		}
+		
+		for (int i = 0; i < size; i++)
+		{
+			if (Objects.equals(names[i], key))
+				return i;
+		}
+		return -1;
+	}
+	
+	private void buildHashIndex()
+	{
+		int capacity = Integer.highestOneBit(size * 4);
+		hashIndex = new int[capacity];
+		for (int i = 0; i < size; i++)
+			addToHashIndex(i);
+	}
+	
+	private void addToHashIndex(int index)
+	{
+		//Null name is found by linear search only
+		if (names[index] == null)
+			return;
+		
+		int mask = hashIndex.length - 1,
+				slot = hash(names[index]) & mask;
+		while (hashIndex[slot] != 0)
+			slot = (slot + 1) & mask;
+		hashIndex[slot] = index + 1;
+	}
+	
+	private static int hash(Object key)
+	{
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	private void ensureCapacity(int capacity)
+	{
+		if (capacity <= names.length)
+			return;
+		
+		int newCapacity = Math.max(capacity, names.length + (names.length >> 1));
+		names = Arrays.copyOf(names, Math.max(newCapacity, 4));
+		values = Arrays.copyOf(values, names.length);
+	}
+	
+	private void removeAt(int index)
+	{
+		int moved = size - index - 1;
+		if (moved > 0)
+		{
+			System.arraycopy(names, index + 1, names, index, moved);
+			System.arraycopy(values, index + 1, values, index, moved);
+		}
+		size--;
+		names[size] = null;
+		values[size] = null;
+		//Positions of following fields are changed
+		hashIndex = null;
+	}
+	
+	
+	private class EntrySet extends AbstractSet<Entry<String, String>>
+	{
+		@Override
+		public Iterator<Entry<String, String>> iterator()
+		{
+			return new EntryIterator();
+		}
+		
+		@Override
+		public int size()
+		{
+			return size;
+		}
+		
+		@Override
+		public void clear()
+		{
+			CompactFieldMap.this.clear();
+		}
+	}
+	
+	private class EntryIterator implements Iterator<Entry<String, String>>
+	{
+		private int next = 0,
+				last = -1;
+		
+		@Override
+		public boolean hasNext()
+		{
+			return next < size;
+		}
+		
+		@Override
+		public Entry<String, String> next()
+		{
+			if (next >= size)
+				throw new NoSuchElementException();
+			last = next++;
+			return new FieldEntry(last);
+		}
+		
+		@Override
+		public void remove()
+		{
+			if (last < 0)
+				throw new IllegalStateException();
+			removeAt(last);
+			next = last;
+			last = -1;
+		}
+	}
+	
+	private class FieldEntry implements Entry<String, String>
+	{
+		private final String name;
+		private final int index;
+		
+		public FieldEntry(int index)
+		{
+			this.name = names[index];
+			this.index = index;
+		}
+		
+		@Override
+		public String getKey()
+		{
+			return name;
+		}
+		
+		@Override
+		public String getValue()
+		{
+			return values[index];
+		}
+		
+		@Override
+		public String setValue(String value)
+		{
+			String old = values[index];
+			values[index] = table.value(name, value);
+			return old;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Entry))
+				return false;
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return Objects.equals(name, e.getKey()) && Objects.equals(getValue(), e.getValue());
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return Objects.hashCode(name) ^ Objects.hashCode(getValue());
+		}
+		
+		@Override
+		public String toString()
+		{
+			return name + "=" + getValue();
+		}
+	}
+}
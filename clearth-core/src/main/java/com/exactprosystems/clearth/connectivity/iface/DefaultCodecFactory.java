@@ -18,22 +18,43 @@
 
 package com.exactprosystems.clearth.connectivity.iface;
 
+import java.io.File;
+import java.lang.reflect.Constructor;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.exactprosystems.clearth.ClearThCore;
 import com.exactprosystems.clearth.xmldata.XmlCodecConfig;
 
+/**
+ * Creates codecs using classes specified in codec configuration.
+ * Dictionaries are shared between codecs created by the same factory and are reloaded only when dictionary file changes
+ */
 public class DefaultCodecFactory implements ICodecFactory
 {
+	protected final DictionaryCache dictionaryCache = new DictionaryCache();
+	
 	public ICodec createCodec(XmlCodecConfig config) throws Exception
 	{
 		if (StringUtils.isEmpty(config.getDictionaryFile()))
 			return (ICodec) Class.forName(config.getCodec()).getDeclaredConstructor().newInstance();
 		
-		String xmlFile = ClearThCore.getInstance().getDictsPath()+config.getDictionaryFile();
-		
-		Object dictionary = Class.forName(config.getDictionary()).getDeclaredConstructor(String.class).newInstance(xmlFile);
+		File xmlFile = new File(ClearThCore.getInstance().getDictsPath()+config.getDictionaryFile());
+		Object dictionary = getDictionary(config, xmlFile);
 		
-		return (ICodec) Class.forName(config.getCodec()).getDeclaredConstructor(dictionary.getClass()).newInstance(dictionary);
+		Constructor<?> codecConstructor = Class.forName(config.getCodec()).getDeclaredConstructor(dictionary.getClass());
+		return (ICodec) codecConstructor.newInstance(dictionary);
+	}
+	
+	protected Object getDictionary(XmlCodecConfig config, File dictionaryFile) throws Exception
+	{
+		String dictionaryClass = config.getDictionary();
+		return dictionaryCache.getDictionary(config.getName()+"|"+dictionaryClass+"|"+dictionaryFile.getPath(), dictionaryFile, 
+				fileName -> Class.forName(dictionaryClass).getDeclaredConstructor(String.class).newInstance(fileName));
+	}
+	
+	public DictionaryCache getDictionaryCache()
+	{
+		return dictionaryCache;
 	}
 }
@@ -0,0 +1,98 @@
+/******************************************************************************
+ * Copyright 2009-2020 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.iface;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps loaded dictionaries to share them between codecs. 
+ * Dictionary is reloaded when its file is changed, i.e. when file modification time or size differ from ones of loaded dictionary
+ */
+public class DictionaryCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(DictionaryCache.class);
+	
+	private final ConcurrentMap<String, CachedDictionary> dictionaries = new ConcurrentHashMap<String, CachedDictionary>();
+	
+	/**
+	 * Returns dictionary loaded from given file, loading it if it is not in cache yet or if file has changed since last load
+	 * @param key identifies dictionary in cache, e.g. codec name
+	 * @param file to load dictionary from
+	 * @param loader loads dictionary from file
+	 * @return loaded dictionary
+	 * @throws Exception if dictionary cannot be loaded
+	 */
+	public Object getDictionary(String key, File file, DictionaryLoader loader) throws Exception
+	{
+		CachedDictionary cached = dictionaries.computeIfAbsent(key, k -> new CachedDictionary());
+		//Loading each dictionary under its own lock, so that slow load doesn't block access to other dictionaries
+		synchronized (cached)
+		{
+			long modified = file.lastModified(),
+					length = file.length();
+			if (cached.dictionary == null || cached.modified != modified || cached.length != length)
+			{
+				if (cached.dictionary == null)
+					logger.debug("Loading dictionary '{}' from file '{}'", key, file);
+				else
+					logger.info("Dictionary file '{}' has changed, reloading dictionary '{}'", file, key);
+				
+				long started = System.currentTimeMillis();
+				cached.dictionary = loader.load(file.getPath());
+				cached.modified = modified;
+				cached.length = length;
+				logger.debug("Dictionary '{}' loaded in {} ms", key, System.currentTimeMillis() - started);
+			}
+			return cached.dictionary;
+		}
+	}
+	
+	public void invalidate(String key)
+	{
+		dictionaries.remove(key);
+	}
+	
+	public void clear()
+	{
+		dictionaries.clear();
+	}
+	
+	public int size()
+	{
+		return dictionaries.size();
+	}
+	
+	
+	public interface DictionaryLoader
+	{
+		Object load(String fileName) throws Exception;
+	}
+	
+	private static class CachedDictionary
+	{
+		private Object dictionary;
+		private long modified,
+				length;
+	}
+}
@@ -0,0 +1,165 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.iface;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Table of field names shared by messages, so that messages don't keep own copies of the same names.
+ * Usually filled with field names from dictionary. Names not known in advance are added on first use until table is full.
+ * Optionally, table also shares short values that are likely to repeat in many messages, like codes and flags.
+ * Values are shared only for enum-like fields: once field gets too many distinct values (e.g. IDs or timestamps), its values are not shared anymore
+ */
+public class FieldNameTable
+{
+	public static final int MAX_NAMES = 10000,
+			MAX_VALUES = 10000,
+			MAX_FIELD_VALUES = 64,
+			MAX_SHARED_VALUE_LENGTH = 32;
+	
+	private static final FieldNameTable DEFAULT = new FieldNameTable(null, false);
+	
+	private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<String, String>();
+	private final ConcurrentHashMap<String, FieldValues> values;
+	private final AtomicInteger valuesCount = new AtomicInteger();
+	
+	public FieldNameTable(Collection<String> knownNames, boolean shareValues)
+	{
+		if (knownNames != null)
+		{
+			for (String name : knownNames)
+				names.putIfAbsent(name, name);
+		}
+		values = shareValues ? new ConcurrentHashMap<String, FieldValues>() : null;
+	}
+	
+	/**
+	 * @return table used by messages created without dictionary
+	 */
+	public static FieldNameTable getDefault()
+	{
+		return DEFAULT;
+	}
+	
+	
+	/**
+	 * @return instance of name stored in table, or given name if table is full
+	 */
+	public String name(String name)
+	{
+		return share(names, name, MAX_NAMES);
+	}
+	
+	/**
+	 * @param name name of field the value belongs to
+	 * @param value value to share
+	 * @return instance of value stored in table, or given value if values are not shared, value is too long, 
+	 * field has too many distinct values or table is full
+	 */
+	public String value(String name, String value)
+	{
+		if (values == null || name == null || value == null || value.length() > MAX_SHARED_VALUE_LENGTH)
+			return value;
+		
+		FieldValues fieldValues = values.get(name);
+		if (fieldValues == null)
+		{
+			if (values.size() >= MAX_NAMES)
+				return value;
+			fieldValues = values.computeIfAbsent(name, n -> new FieldValues());
+		}
+		return fieldValues.share(value);
+	}
+	
+	public boolean isShareValues()
+	{
+		return values != null;
+	}
+	
+	public int getNamesCount()
+	{
+		return names.size();
+	}
+	
+	public int getValuesCount()
+	{
+		return valuesCount.get();
+	}
+	
+	
+	private String share(ConcurrentHashMap<String, String> storage, String s, int limit)
+	{
+		if (s == null)
+			return null;
+		
+		String result = storage.get(s);
+		if (result != null)
+			return result;
+		
+		//Limit is not strict for concurrent additions, it just prevents unbounded growth
+		if (storage.size() >= limit)
+			return s;
+		
+		result = storage.putIfAbsent(s, s);
+		return result != null ? result : s;
+	}
+	
+	
+	private class FieldValues
+	{
+		private volatile ConcurrentHashMap<String, String> storage = new ConcurrentHashMap<String, String>();
+		
+		public String share(String value)
+		{
+			ConcurrentHashMap<String, String> current = storage;
+			if (current == null)
+				return value;
+			
+			String result = current.get(value);
+			if (result != null)
+				return result;
+			
+			if (current.size() >= MAX_FIELD_VALUES)
+			{
+				disable(current);
+				return value;
+			}
+			
+			//As for names, limit is not strict for concurrent additions
+			if (valuesCount.get() >= MAX_VALUES)
+				return value;
+			
+			result = current.putIfAbsent(value, value);
+			if (result != null)
+				return result;
+			valuesCount.incrementAndGet();
+			return value;
+		}
+		
+		private synchronized void disable(ConcurrentHashMap<String, String> current)
+		{
+			if (storage != current)
+				return;
+			storage = null;
+			valuesCount.addAndGet(-current.size());
+		}
+	}
+}
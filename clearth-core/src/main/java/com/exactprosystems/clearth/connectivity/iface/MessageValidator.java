@@ -52,14 +52,14 @@ public class MessageValidator
 	}
 	
 	
-	public void validate(String messageText, List<MessageValidatorCondition> conditions) throws DecodeException
+	public void validate(CharSequence messageText, List<MessageValidatorCondition> conditions) throws DecodeException
 	{
 		MessageValidatorCondition errorCondition = checkConditions(messageText, conditions);
 		if (errorCondition != null)
 			throw new DecodeException(errorCondition.buildErrorMessage());
 	}
 	
-	public boolean isValid(String messageText, List<MessageValidatorCondition> conditions)
+	public boolean isValid(CharSequence messageText, List<MessageValidatorCondition> conditions)
 	{
 		return checkConditions(messageText, conditions) == null;
 	}
@@ -76,7 +76,7 @@ public class MessageValidator
 	}
 	
 	
-	protected MessageValidatorCondition checkConditions(String s, List<MessageValidatorCondition> conditions)
+	protected MessageValidatorCondition checkConditions(CharSequence s, List<MessageValidatorCondition> conditions)
 	{
 		if (conditions == null)
 			return null;
@@ -22,5 +22,14 @@ public interface MessageValidatorCondition
 {
 	boolean check(String message);
 	
+	/**
+	 * Checks message text given as character sequence, e.g. as a view over another text. 
+	 * Override to check it without building a string
+	 */
+	default boolean check(CharSequence message)
+	{
+		return check(message.toString());
+	}
+	
 	String buildErrorMessage();
 }
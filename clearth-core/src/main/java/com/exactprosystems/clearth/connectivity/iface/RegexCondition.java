@@ -46,6 +46,12 @@ public class RegexCondition implements MessageValidatorCondition
 
 	@Override
 	public boolean check(String message)
+	{
+		return check((CharSequence)message);
+	}
+
+	@Override
+	public boolean check(CharSequence message)
 	{
 		boolean found = pattern.matcher(message).find();
 		return found != invert;
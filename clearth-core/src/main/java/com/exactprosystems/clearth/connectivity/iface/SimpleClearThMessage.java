@@ -19,16 +19,14 @@
 package com.exactprosystems.clearth.connectivity.iface;
 
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
-import static org.apache.commons.collections4.MapUtils.isNotEmpty;
 
 public class SimpleClearThMessage extends ClearThMessage<SimpleClearThMessage>
 {
-	private final Map<String, String> fields = new LinkedHashMap<String, String>();
+	private final CompactFieldMap fields;
 	
 	
 	public SimpleClearThMessage()
@@ -36,6 +34,14 @@ public class SimpleClearThMessage extends ClearThMessage<SimpleClearThMessage>
 		this(null, null);
 	}
 	
+	/**
+	 * Creates message that takes field names from given table, usually one built from dictionary
+	 */
+	public SimpleClearThMessage(FieldNameTable fieldNames)
+	{
+		this.fields = new CompactFieldMap(fieldNames);
+	}
+	
 	public SimpleClearThMessage(Map<String, String> fields)
 	{
 		this(fields, null);
@@ -43,8 +49,7 @@ public class SimpleClearThMessage extends ClearThMessage<SimpleClearThMessage>
 	
 	public SimpleClearThMessage(Map<String, String> fields, Collection<SimpleClearThMessage> subMessages)
 	{
-		if (isNotEmpty(fields))
-			this.fields.putAll(fields);
+		this.fields = new CompactFieldMap(FieldNameTable.getDefault(), fields);
 		if (isNotEmpty(subMessages))
 			getSubMessages().addAll(subMessages);
 	}
@@ -89,7 +94,8 @@ public class SimpleClearThMessage extends ClearThMessage<SimpleClearThMessage>
 	@Override
 	public SimpleClearThMessage cloneMessage()
 	{
-		SimpleClearThMessage copy = new SimpleClearThMessage(this.fields);
+		SimpleClearThMessage copy = new SimpleClearThMessage(fields.getTable());
+		copy.fields.putAll(fields);
 		if (hasSubMessages())
 		{
 			for (SimpleClearThMessage subMessage : getSubMessages())
@@ -101,6 +107,14 @@ public class SimpleClearThMessage extends ClearThMessage<SimpleClearThMessage>
 		return copy;
 	}
 
+	/**
+	 * Releases spare storage of fields. Call it when message is completely built and is going to be stored for long
+	 */
+	public void trimFields()
+	{
+		fields.trimToSize();
+	}
+
 	@Override
 	protected Object getFieldObject(String fieldName)
 	{
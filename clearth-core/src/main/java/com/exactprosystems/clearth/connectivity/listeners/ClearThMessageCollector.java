@@ -32,8 +32,10 @@ import com.exactprosystems.clearth.connectivity.iface.ReceivedStringMessage;
 import com.exactprosystems.clearth.connectivity.iface.SimpleClearThMessage;
 import com.exactprosystems.clearth.connectivity.listeners.storage.ContentStorage;
 import com.exactprosystems.clearth.connectivity.listeners.storage.DefaultFileContentStorage;
+import com.exactprosystems.clearth.connectivity.listeners.storage.DefaultSegmentedFileContentStorage;
 import com.exactprosystems.clearth.connectivity.listeners.storage.FileContentStorage;
 import com.exactprosystems.clearth.connectivity.listeners.storage.MemoryContentStorage;
+import com.exactprosystems.clearth.connectivity.listeners.storage.SegmentedFileContentStorage;
 import com.exactprosystems.clearth.connectivity.listeners.storage.WritingContentStorage;
 import com.exactprosystems.clearth.utils.SettingsException;
 import com.exactprosystems.clearth.utils.inputparams.InputParamsHandler;
@@ -43,8 +45,11 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +60,11 @@ import java.util.concurrent.atomic.AtomicLong;
 		+ "<li><b>type=&lt;value&gt;</b> &mdash; type of a codec that will decode incoming messages. <br/>" + "If you just need to collect messages without decoding them, omit this setting.</li>"
 		+ "<li><b>fileName=&lt;path&gt;</b> &mdash; path to a file which contains an initial message set for this collector.</li>"
 		+ "<li><b>contentsFileName=&lt;path&gt;</b> &mdash; path to a file in which to store current collector contents.</li>"
+		+ "<li><b>contentsDir=&lt;path&gt;</b> &mdash; path to a directory in which to store collector contents in segment files. "
+		+ "Only index of messages and limited number of recently used messages are kept in memory then. Takes precedence over 'contentsFileName'.</li>"
+		+ "<li><b>cacheSize=&lt;value&gt;</b> &mdash; maximum number of decoded messages kept in memory when 'contentsDir' is set. Default value is '"+SegmentedFileContentStorage.DEFAULT_CACHE_SIZE+"'.</li>"
+		+ "<li><b>segmentSize=&lt;value&gt;</b> &mdash; size of one segment file in megabytes when 'contentsDir' is set. Default value is '"+(SegmentedFileContentStorage.DEFAULT_SEGMENT_SIZE >> 20)+"'.</li>"
+		+ "<li><b>restoreContents=&lt;true/false&gt;</b> &mdash; If set as 'true' messages stored in 'contentsDir' before restart are restored in collector, else they are removed. Default value is 'false'.</li>"
 		+ "<li><b>storeTimestamp=&lt;true/false&gt;</b> &mdash; If set as 'true' message receiving timestamp will be written in storage file before message content. Default value is 'false'.</li>"
 		+ "<li><b>maxAge=&lt;value&gt;</b> &mdash; hours after which a message will be removed from collector.</li>"
 		+ "<li><b>failedMaxAge=&lt;value&gt;</b> &mdash; hours after which a message will be removed from failed-to-parse messages. Default value is '6'.</li>"
@@ -67,6 +77,10 @@ public class ClearThMessageCollector extends ReceiveListener
 	public static final String TYPE_SETTING = "type"; 
 	public static final String FILENAME_SETTING = "filename";
 	public static final String CONTENTSFILENAME_SETTING = "contentsfilename";
+	public static final String CONTENTSDIR_SETTING = "contentsdir";
+	public static final String CACHESIZE_SETTING = "cachesize";
+	public static final String SEGMENTSIZE_SETTING = "segmentsize";
+	public static final String RESTORECONTENTS_SETTING = "restorecontents";
 	public static final String MAXAGE_SETTING = "maxage";
 	public static final String FAILEDMAXAGE_SETTING = "failedmaxage";
 	public static final String STOREFAILEDMESSAGES_SETTING = "storefailed";
@@ -78,6 +92,9 @@ public class ClearThMessageCollector extends ReceiveListener
 	private static final double DEFAULT_FAILED_MAX_AGE = 6;
 
 	private final Object codecMonitor = new Object();
+	//Codecs to decode messages read back from segmented storage, so that reading doesn't wait for codec used by receiving thread
+	private final Queue<ICodec> restoringCodecs = new ConcurrentLinkedQueue<ICodec>();
+	private volatile String codecType;
 
 	private volatile String collectorName, connectionName;
 	protected volatile boolean active = true;
@@ -106,6 +123,7 @@ public class ClearThMessageCollector extends ReceiveListener
 		this.collectorName = collectorName;
 		this.connectionName = connectionName;
 		this.codec = codec;
+		this.codecType = settings.get(TYPE_SETTING);
 		this.collectorCleaner = Executors.newScheduledThreadPool(1, r -> new Thread(r, "collectorCleanerTimer"));
 
 		InputParamsHandler handler = new InputParamsHandler(settings);
@@ -140,8 +158,17 @@ public class ClearThMessageCollector extends ReceiveListener
 
 		try
 		{
-			String contentsFileName = handler.getString(CONTENTSFILENAME_SETTING);
-			if (contentsFileName != null)
+			String contentsDir = handler.getString(CONTENTSDIR_SETTING),
+					contentsFileName = handler.getString(CONTENTSFILENAME_SETTING);
+			if (contentsDir != null)
+			{
+				long segmentSize = (long)handler.getPositiveInteger(SEGMENTSIZE_SETTING, 
+						(int)(SegmentedFileContentStorage.DEFAULT_SEGMENT_SIZE >> 20)) << 20;
+				int cacheSize = handler.getNonNegativeInteger(CACHESIZE_SETTING, SegmentedFileContentStorage.DEFAULT_CACHE_SIZE);
+				boolean restore = handler.getBoolean(RESTORECONTENTS_SETTING, false);
+				this.contentStorage = createSegmentedFileContentStorage(contentsDir, segmentSize, cacheSize, restore);
+			}
+			else if (contentsFileName != null)
 				this.contentStorage = createFileContentStorage(contentsFileName);
 		}
 		catch (Exception e)
@@ -155,7 +182,10 @@ public class ClearThMessageCollector extends ReceiveListener
 			this.contentStorage = new MemoryContentStorage<ReceivedClearThMessage, ReceivedStringMessage>();
 		}
 
-		this.messageId = new AtomicLong(0);
+		//Restored messages keep their IDs, new ones should follow them
+		long firstId = contentStorage instanceof SegmentedFileContentStorage 
+				? ((SegmentedFileContentStorage<?, ?>)contentStorage).getLastStoredId()+1 : 0;
+		this.messageId = new AtomicLong(firstId);
 		
 		initFromFile(handler.getString(FILENAME_SETTING), messageEndIndicator);
 	}
@@ -175,20 +205,10 @@ public class ClearThMessageCollector extends ReceiveListener
 
 		try
 		{
-			ClearThMessage<?> cthMessage;
-			if (codec == null)
-			{
-				cthMessage = new SimpleClearThMessage();
-				cthMessage.addField(MESSAGE, message);
+			ClearThMessage<?> cthMessage = decodeMessage(message);
+			//Segmented storage keeps only encoded messages, so they should be always available
+			if (cthMessage.getEncodedMessage() == null && contentStorage instanceof SegmentedFileContentStorage)
 				cthMessage.setEncodedMessage(message);
-			}
-			else
-			{
-				synchronized (codecMonitor)
-				{
-					cthMessage = codec.decode(message);
-				}
-			}
 
 			getLogger().trace("Adding message: {}, \r\ntimestamp: {}", cthMessage, time);
 			ReceivedClearThMessage receivedMessage = new ReceivedClearThMessage(id, time, cthMessage);
@@ -202,6 +222,70 @@ public class ClearThMessageCollector extends ReceiveListener
 		}
 	}
 
+	protected ClearThMessage<?> decodeMessage(String message) throws Exception
+	{
+		ICodec currentCodec = codec;
+		if (currentCodec == null)
+		{
+			ClearThMessage<?> cthMessage = new SimpleClearThMessage();
+			cthMessage.addField(MESSAGE, message);
+			cthMessage.setEncodedMessage(message);
+			return cthMessage;
+		}
+		
+		synchronized (codecMonitor)
+		{
+			return currentCodec.decode(message);
+		}
+	}
+	
+	/**
+	 * Decodes message read back from content storage. 
+	 * Uses separate codec instances, so that decoding doesn't wait for receiving thread and can be done by several threads at once
+	 */
+	protected ClearThMessage<?> restoreMessage(String message) throws Exception
+	{
+		ICodec restoringCodec = borrowRestoringCodec();
+		if (restoringCodec == null)
+			return decodeMessage(message);
+		
+		try
+		{
+			return restoringCodec.decode(message);
+		}
+		finally
+		{
+			restoringCodecs.offer(restoringCodec);
+		}
+	}
+	
+	private ICodec borrowRestoringCodec()
+	{
+		ICodec result = restoringCodecs.poll();
+		if (result != null)
+			return result;
+		
+		String type = codecType;
+		if (codec == null || type == null)
+			return null;
+		
+		try
+		{
+			return createRestoringCodec(type);
+		}
+		catch (SettingsException e)
+		{
+			getLogger().warn("Could not create codec '{}' to decode stored messages, codec of collector will be used", type, e);
+			codecType = null;
+			return null;
+		}
+	}
+	
+	protected ICodec createRestoringCodec(String type) throws SettingsException
+	{
+		return ClearThCore.getInstance().createCodec(type);
+	}
+
 	@Override
 	public void dispose()
 	{
@@ -274,6 +358,47 @@ public class ClearThMessageCollector extends ReceiveListener
 		return result;
 	}
 	
+	/**
+	 * Gets from collector data about messages received after message with given ID without copying it. 
+	 * Returned collection reflects changes in collector and is ordered by message ID. 
+	 * If messages are stored on disk, they are read while iterating over collection
+	 * 
+	 * @param afterId ID of message after which needed messages were received
+	 * @return read-only view of messages received after message with given ID
+	 */
+	public Collection<ReceivedClearThMessage> getMessagesDataView(long afterId)
+	{
+		return Collections.unmodifiableCollection(getMessagesAfterId(afterId));
+	}
+	
+	/**
+	 * Gets from collector data about messages received within given time range
+	 * 
+	 * @param from minimum receiving time of messages, inclusive
+	 * @param to maximum receiving time of messages, inclusive
+	 * @return list of messages received within given time range
+	 */
+	public Collection<ReceivedClearThMessage> getMessagesDataReceived(long from, long to)
+	{
+		logger.trace("Getting messages data received between {} and {}", from, to);
+		Collection<ReceivedClearThMessage> result = new ArrayDeque<ReceivedClearThMessage>();
+		if (contentStorage instanceof SegmentedFileContentStorage)
+		{
+			//Filtering by receiving time stored in index, so that other messages are not read from disk and decoded
+			result.addAll(((SegmentedFileContentStorage<ReceivedClearThMessage, ?>)contentStorage).getContentPassedReceivedBetween(from, to).values());
+		}
+		else
+		{
+			for (ReceivedClearThMessage msg : contentStorage.getContentPassed().values())
+			{
+				if (msg.getReceived() >= from && msg.getReceived() <= to)
+					result.add(msg);
+			}
+		}
+		logger.trace("Messages count: {}", result.size());
+		return result;
+	}
+	
 	/**
 	 * Gets message data for given ID
 	 * @param id of message
@@ -313,6 +438,18 @@ public class ClearThMessageCollector extends ReceiveListener
 		return new ArrayDeque<ReceivedStringMessage>(contentStorage.getContentFailed().values());
 	}
 
+	/**
+	 * Gets from collector messages that could not be decoded and received after message with given ID, without copying them. 
+	 * Returned collection reflects changes in collector and is ordered by message ID
+	 *
+	 * @param afterId ID of message after which needed messages were received
+	 * @return read-only view of message data
+	 */
+	public Collection<ReceivedStringMessage> getMessagesFailedView(long afterId)
+	{
+		return Collections.unmodifiableCollection(getFailedMessagesAfterId(afterId));
+	}
+
 	/**
 	 * Gets from collector messages that could not be decoded and received after message with given ID
 	 *
@@ -381,6 +518,9 @@ public class ClearThMessageCollector extends ReceiveListener
 	public void setCodec(ICodec codec)
 	{
 		this.codec = codec;
+		//Type of new codec is unknown, so it will be used to decode stored messages as well
+		this.codecType = null;
+		restoringCodecs.clear();
 	}
 	
 	
@@ -529,7 +669,11 @@ public class ClearThMessageCollector extends ReceiveListener
 		public void run()
 		{
 			long currentTime = System.currentTimeMillis();
-			if (maxAgeMillis > -1)
+			if (maxAgeMillis > -1 && contentStorage instanceof SegmentedFileContentStorage)
+			{
+				((SegmentedFileContentStorage<?,?>) contentStorage).removePassedReceivedBefore(currentTime - maxAgeMillis);
+			}
+			else if (maxAgeMillis > -1)
 			{
 				Iterator<ReceivedClearThMessage> itr = contentStorage.getContentPassed().values().iterator();
 				while (itr.hasNext())
@@ -557,6 +701,12 @@ public class ClearThMessageCollector extends ReceiveListener
 		return new DefaultFileContentStorage(contentsFilePath, storeTimestamp);
 	}
 	
+	protected SegmentedFileContentStorage<ReceivedClearThMessage, ReceivedStringMessage> createSegmentedFileContentStorage(String storageDirPath,
+			long segmentSize, int cacheSize, boolean restore) throws IOException
+	{
+		return new DefaultSegmentedFileContentStorage(storageDirPath, segmentSize, cacheSize, restore, this::restoreMessage);
+	}
+	
 	
 	protected int getDebugLogMessageSizeLimit()
 	{
@@ -0,0 +1,84 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.listeners.storage;
+
+import java.io.IOException;
+
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.ReceivedClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.ReceivedStringMessage;
+
+public class DefaultSegmentedFileContentStorage extends SegmentedFileContentStorage<ReceivedClearThMessage, ReceivedStringMessage>
+{
+	/**
+	 * Decodes messages when they are read back from disk
+	 */
+	public interface MessageDecoder
+	{
+		ClearThMessage<?> decode(String message) throws Exception;
+	}
+
+	private final MessageDecoder decoder;
+
+	public DefaultSegmentedFileContentStorage(String storageDirPath, MessageDecoder decoder) throws IOException
+	{
+		super(storageDirPath);
+		this.decoder = decoder;
+	}
+
+	public DefaultSegmentedFileContentStorage(String storageDirPath, long segmentSize, int cacheSize, MessageDecoder decoder) throws IOException
+	{
+		super(storageDirPath, segmentSize, cacheSize);
+		this.decoder = decoder;
+	}
+
+	public DefaultSegmentedFileContentStorage(String storageDirPath, long segmentSize, int cacheSize, boolean restore, MessageDecoder decoder) 
+			throws IOException
+	{
+		super(storageDirPath, segmentSize, cacheSize, restore);
+		this.decoder = decoder;
+	}
+
+
+	@Override
+	protected String extractContentPassed(ReceivedClearThMessage item)
+	{
+		if (item == null || item.getMessage() == null || item.getMessage().getEncodedMessage() == null)
+			return "";
+		return item.getMessage().getEncodedMessage();
+	}
+
+	@Override
+	protected long extractIdPassed(ReceivedClearThMessage item)
+	{
+		return item.getId();
+	}
+
+	@Override
+	protected long extractReceivedPassed(ReceivedClearThMessage item)
+	{
+		return item.getReceived();
+	}
+
+	@Override
+	protected ReceivedClearThMessage restorePassed(long id, long received, String content) throws Exception
+	{
+		return new ReceivedClearThMessage(id, received, decoder.decode(content));
+	}
+}
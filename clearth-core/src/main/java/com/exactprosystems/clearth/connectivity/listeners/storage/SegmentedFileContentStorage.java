@@ -0,0 +1,956 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.listeners.storage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.exactprosystems.clearth.ClearThCore;
+import com.exactprosystems.clearth.utils.Utils;
+
+/**
+ * Storage that keeps in memory only an index of stored messages and a limited number of recently used decoded messages.
+ * Message contents are appended to segment files in given directory and read back via memory mapping when needed.
+ * Messages that couldn't be parsed are kept in memory, like in {@link MemoryContentStorage}.
+ * <p>
+ * Segments found in storage directory on creation are either restored, making their items available again, or removed, 
+ * depending on constructor arguments. In the former case segments are kept on disk when storage is disposed. 
+ * Items removed individually are not tracked on disk, so they are restored as well if their segment still exists.
+ * <p>
+ * Messages given to callers stay the same objects while callers hold references to them,
+ * even if they are evicted from the cache of decoded messages.
+ */
+public abstract class SegmentedFileContentStorage<P, F> implements ContentStorage<P, F>
+{
+	private static final Logger logger = LoggerFactory.getLogger(SegmentedFileContentStorage.class);
+
+	public static final int DEFAULT_CACHE_SIZE = 10000;
+	public static final long DEFAULT_SEGMENT_SIZE = 0x4000000; // 64 mb
+	protected static final int WRITE_BUFFER_SIZE = 0x100000; // 1 mb
+	protected static final String SEGMENT_PREFIX = "segment_",
+			SEGMENT_SUFFIX = ".dat";
+	// Record header: ID, receiving time, length of content
+	protected static final int RECORD_HEADER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+	protected final MemoryContentStorage<P, F> failedStorage;
+
+	protected final File storageDir;
+	protected final long segmentSize;
+	protected final int cacheSize;
+	//If true, segments are kept on disposal to be restored on next creation
+	protected final boolean restore;
+
+	//Index of stored messages. Key - message ID in collector
+	protected final ConcurrentSkipListMap<Long, StoredItem> index = new ConcurrentSkipListMap<Long, StoredItem>();
+	private final Map<Integer, Segment> segments = new ConcurrentHashMap<Integer, Segment>();
+
+	//Recently used decoded messages, guarded by itself
+	private final Map<Long, P> cache;
+	//Decoded messages still referenced by callers, so that they get the same objects on next access
+	private final Map<Long, ItemReference<P>> references = new ConcurrentHashMap<Long, ItemReference<P>>();
+	private final ReferenceQueue<P> referenceQueue = new ReferenceQueue<P>();
+
+	private final Object writeMonitor = new Object();
+	private final ByteBuffer writeBuffer;
+	private Segment activeSegment;
+	private int segmentNumber = 0;
+
+
+	public SegmentedFileContentStorage(String storageDirPath) throws IOException
+	{
+		this(storageDirPath, DEFAULT_SEGMENT_SIZE, DEFAULT_CACHE_SIZE);
+	}
+
+	public SegmentedFileContentStorage(String storageDirPath, long segmentSize, int cacheSize) throws IOException
+	{
+		this(storageDirPath, segmentSize, cacheSize, false);
+	}
+
+	/**
+	 * @param restore if true, items from segments found in storage directory are restored and segments are kept on disposal, 
+	 * else such segments are removed
+	 */
+	public SegmentedFileContentStorage(String storageDirPath, long segmentSize, int cacheSize, boolean restore) throws IOException
+	{
+		if (segmentSize <= RECORD_HEADER_SIZE || segmentSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Segment size must be greater than "+RECORD_HEADER_SIZE+" and not greater than "+Integer.MAX_VALUE+" bytes");
+		if (cacheSize < 0)
+			throw new IllegalArgumentException("Cache size cannot be negative");
+
+		this.storageDir = new File(ClearThCore.rootRelative(storageDirPath));
+		if (storageDir.exists() && !storageDir.isDirectory())
+			throw new IllegalArgumentException("Unable to use file '"+storageDir+"' as storage directory");
+		if (!storageDir.exists() && !storageDir.mkdirs())
+			throw new IOException("Could not create storage directory '"+storageDir+"'");
+		if (restore)
+			restoreSegments();
+		else
+			removeOldSegments();
+
+		this.segmentSize = segmentSize;
+		this.cacheSize = cacheSize;
+		this.restore = restore;
+		this.cache = new LinkedHashMap<Long, P>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = -4530871392164810371L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, P> eldest)
+			{
+				return size() > SegmentedFileContentStorage.this.cacheSize;
+			}
+		};
+		this.writeBuffer = ByteBuffer.allocate(getWriteBufferSize());
+		this.failedStorage = new MemoryContentStorage<P, F>();
+		this.activeSegment = createSegment();
+	}
+
+
+	@Override
+	public void start()
+	{
+		failedStorage.start();
+		getLogger().info("Content will be stored in directory '{}', segment size: {} bytes, cache size: {} messages", storageDir, segmentSize, cacheSize);
+	}
+
+	@Override
+	public void dispose()
+	{
+		getLogger().info("Disposing segmented content storage...");
+		clearMemory();
+		synchronized (writeMonitor)
+		{
+			if (restore)
+				closeSegments();
+			else
+				removeSegments();
+			activeSegment = null;
+		}
+	}
+
+
+	@Override
+	public void insertPassed(long id, P item)
+	{
+		if (item == null)
+		{
+			getLogger().trace("Unable to store 'null' item");
+			return;
+		}
+
+		byte[] content = extractContentPassed(item).getBytes(StandardCharsets.UTF_8);
+		long received = extractReceivedPassed(item);
+		synchronized (writeMonitor)
+		{
+			if (activeSegment == null)
+			{
+				getLogger().warn("Storage is disposed, item {} will not be stored", id);
+				return;
+			}
+
+			try
+			{
+				StoredItem stored = writeRecord(id, received, content);
+				putDecoded(id, item);
+				index.put(id, stored);
+			}
+			catch (IOException e)
+			{
+				getLogger().error("Unable to write item {} to segment '{}'", id, activeSegment.file, e);
+			}
+		}
+	}
+
+	@Override
+	public void insertFailed(long id, F item)
+	{
+		failedStorage.insertFailed(id, item);
+	}
+
+
+	@Override
+	public void removePassed(P item)
+	{
+		if (item == null)
+			getLogger().trace("Unable to remove 'null' item");
+		else
+			removeStored(extractIdPassed(item));
+	}
+
+	@Override
+	public void removePassed(long itemId)
+	{
+		removeStored(itemId);
+	}
+
+	@Override
+	public void removeFailed(F item)
+	{
+		failedStorage.removeFailed(item);
+	}
+
+	@Override
+	public void removeFailed(long itemId)
+	{
+		failedStorage.removeFailed(itemId);
+	}
+
+	/**
+	 * Removes messages received before given time. Unlike iteration over {@link #getContentPassed()}, doesn't need to read messages from disk.
+	 * Items are stored in order of receiving, so iteration stops at the first item received at or after given time
+	 * @param time in milliseconds
+	 */
+	public void removePassedReceivedBefore(long time)
+	{
+		Iterator<Map.Entry<Long, StoredItem>> it = index.entrySet().iterator();
+		while (it.hasNext())
+		{
+			Map.Entry<Long, StoredItem> entry = it.next();
+			if (entry.getValue().received >= time)
+				break;
+			removeStored(entry.getKey());
+		}
+	}
+
+
+	@Override
+	public void clearMemory()
+	{
+		clearDecoded();
+		index.clear();
+		failedStorage.clearMemory();
+	}
+
+	@Override
+	public void clearPassed()
+	{
+		synchronized (writeMonitor)
+		{
+			index.clear();
+			clearDecoded();
+			if (activeSegment == null)
+				return;
+
+			removeSegments();
+			try
+			{
+				activeSegment = createSegment();
+			}
+			catch (IOException e)
+			{
+				getLogger().error("Could not create new segment in '{}'", storageDir, e);
+				activeSegment = null;
+			}
+		}
+	}
+
+	@Override
+	public void clearFailed()
+	{
+		failedStorage.clearFailed();
+	}
+
+
+	@Override
+	public Map<Long, P> getContentPassed()
+	{
+		return new StoredItemsView(index);
+	}
+
+	@Override
+	public Map<Long, P> getContentPassedAfterId(long id)
+	{
+		return new StoredItemsView(index.tailMap(id, false));
+	}
+
+	/**
+	 * Returns view of items received within given time range. 
+	 * Items are selected by receiving time stored in index, so only selected items are read from disk while iterating over the view
+	 * @param from minimum receiving time, inclusive
+	 * @param to maximum receiving time, inclusive
+	 */
+	public Map<Long, P> getContentPassedReceivedBetween(long from, long to)
+	{
+		NavigableMap<Long, StoredItem> selected = new TreeMap<Long, StoredItem>();
+		for (Map.Entry<Long, StoredItem> entry : index.entrySet())
+		{
+			long received = entry.getValue().received;
+			if (received >= from && received <= to)
+				selected.put(entry.getKey(), entry.getValue());
+		}
+		return new StoredItemsView(selected);
+	}
+
+	@Override
+	public Map<Long, F> getContentFailed()
+	{
+		return failedStorage.getContentFailed();
+	}
+
+	@Override
+	public Map<Long, F> getContentFailedAfterId(long id)
+	{
+		return failedStorage.getContentFailedAfterId(id);
+	}
+
+
+	/**
+	 * @return number of decoded messages currently held in memory cache
+	 */
+	public int getCachedCount()
+	{
+		synchronized (cache)
+		{
+			return cache.size();
+		}
+	}
+
+	/**
+	 * @return ID of the last stored item or -1 if storage has no items, e.g. to continue numbering of restored items
+	 */
+	public long getLastStoredId()
+	{
+		Map.Entry<Long, StoredItem> last = index.lastEntry();
+		return last != null ? last.getKey() : -1;
+	}
+
+	public File getStorageDir()
+	{
+		return storageDir;
+	}
+
+	public long getSegmentSize()
+	{
+		return segmentSize;
+	}
+
+	public int getCacheSize()
+	{
+		return cacheSize;
+	}
+
+
+	protected abstract String extractContentPassed(P item);
+
+	protected abstract long extractIdPassed(P item);
+
+	protected abstract long extractReceivedPassed(P item);
+
+	/**
+	 * Creates item from content previously stored on disk
+	 * @param id of item in collector
+	 * @param received time when item was received
+	 * @param content stored content of item, as returned by {@link #extractContentPassed(Object)}
+	 * @return restored item
+	 * @throws Exception if item cannot be restored
+	 */
+	protected abstract P restorePassed(long id, long received, String content) throws Exception;
+
+
+	protected P loadItem(long id, StoredItem stored)
+	{
+		P result = getDecoded(id);
+		if (result != null)
+			return result;
+
+		byte[] content = readContent(stored);
+		if (content == null)
+			return null;
+
+		try
+		{
+			result = restorePassed(id, stored.received, new String(content, StandardCharsets.UTF_8));
+		}
+		catch (Exception e)
+		{
+			getLogger().warn("Could not restore item {} from segment {}", id, stored.segment, e);
+			return null;
+		}
+
+		//Item may have been removed while it was being read
+		if (!index.containsKey(id))
+			return result;
+
+		P existing = getDecoded(id);
+		if (existing != null)
+			return existing;
+		putDecoded(id, result);
+		return result;
+	}
+
+	protected void removeStored(long id)
+	{
+		StoredItem stored = index.remove(id);
+		if (stored == null)
+			return;
+
+		synchronized (cache)
+		{
+			cache.remove(id);
+		}
+		references.remove(id);
+
+		synchronized (writeMonitor)
+		{
+			Segment segment = segments.get(stored.segment);
+			if (segment != null && segment.liveItems.decrementAndGet() <= 0 && segment != activeSegment)
+				removeSegment(segment);
+		}
+	}
+
+
+	private P getDecoded(long id)
+	{
+		synchronized (cache)
+		{
+			P result = cache.get(id);
+			if (result != null)
+				return result;
+		}
+
+		ItemReference<P> ref = references.get(id);
+		if (ref == null)
+			return null;
+
+		P result = ref.get();
+		if (result != null)
+		{
+			synchronized (cache)
+			{
+				cache.put(id, result);
+			}
+		}
+		return result;
+	}
+
+	private void putDecoded(long id, P item)
+	{
+		expungeReferences();
+		synchronized (cache)
+		{
+			cache.put(id, item);
+		}
+		references.put(id, new ItemReference<P>(id, item, referenceQueue));
+	}
+
+	private void clearDecoded()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+		}
+		references.clear();
+		expungeReferences();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void expungeReferences()
+	{
+		ItemReference<P> ref;
+		while ((ref = (ItemReference<P>)referenceQueue.poll()) != null)
+			references.remove(ref.id, ref);
+	}
+
+
+	private StoredItem writeRecord(long id, long received, byte[] content) throws IOException
+	{
+		int recordSize = RECORD_HEADER_SIZE + content.length;
+		if (activeSegment.size > 0 && activeSegment.size + recordSize > segmentSize)
+			sealActiveSegment();
+
+		Segment segment = activeSegment;
+		long offset = segment.size;
+		if (writeBuffer.remaining() < recordSize)
+			flushWriteBuffer();
+
+		if (writeBuffer.remaining() >= recordSize)
+		{
+			writeBuffer.putLong(id).putLong(received).putInt(content.length).put(content);
+		}
+		else
+		{
+			//Record is too big for buffer, writing it directly
+			ByteBuffer record = ByteBuffer.allocate(recordSize);
+			record.putLong(id).putLong(received).putInt(content.length).put(content);
+			record.flip();
+			writeToChannel(segment, record);
+		}
+
+		segment.size += recordSize;
+		segment.liveItems.incrementAndGet();
+		return new StoredItem(segment.number, offset + RECORD_HEADER_SIZE, content.length, received);
+	}
+
+	private void flushWriteBuffer() throws IOException
+	{
+		if (writeBuffer.position() == 0)
+			return;
+
+		writeBuffer.flip();
+		try
+		{
+			writeToChannel(activeSegment, writeBuffer);
+		}
+		finally
+		{
+			writeBuffer.clear();
+		}
+	}
+
+	private void writeToChannel(Segment segment, ByteBuffer data) throws IOException
+	{
+		while (data.hasRemaining())
+			segment.flushed += segment.channel.write(data, segment.flushed);
+	}
+
+	private void sealActiveSegment() throws IOException
+	{
+		Segment sealed = activeSegment;
+		flushWriteBuffer();
+		sealed.sealed = true;
+		activeSegment = createSegment();
+
+		if (sealed.liveItems.get() <= 0)
+			removeSegment(sealed);
+		getLogger().debug("Segment '{}' is sealed, new segment: '{}'", sealed.file, activeSegment.file);
+	}
+
+	private Segment createSegment() throws IOException
+	{
+		int number = segmentNumber++;
+		File file = new File(storageDir, SEGMENT_PREFIX+number+SEGMENT_SUFFIX);
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		Segment segment = new Segment(number, file, channel);
+		segments.put(number, segment);
+		return segment;
+	}
+
+	private void removeSegment(Segment segment)
+	{
+		segments.remove(segment.number);
+		segment.mapped = null;
+		Utils.closeResource(segment.channel);
+		//Mapped segment may be still in use on some platforms, it will be removed on exit then
+		if (!segment.file.delete())
+		{
+			getLogger().debug("Could not delete segment '{}' now, it will be deleted on exit", segment.file);
+			segment.file.deleteOnExit();
+		}
+	}
+
+	private void closeSegments()
+	{
+		try
+		{
+			if (activeSegment != null)
+				flushWriteBuffer();
+		}
+		catch (IOException e)
+		{
+			getLogger().error("Could not write buffered items to segment '{}'", activeSegment.file, e);
+		}
+
+		for (Segment segment : segments.values())
+		{
+			segment.mapped = null;
+			Utils.closeResource(segment.channel);
+		}
+		segments.clear();
+	}
+
+	private void removeSegments()
+	{
+		writeBuffer.clear();
+		for (Segment segment : segments.values())
+			removeSegment(segment);
+	}
+
+	private File[] listOldSegments()
+	{
+		File[] result = storageDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+		return result != null ? result : new File[0];
+	}
+
+	private void removeOldSegments()
+	{
+		File[] oldSegments = listOldSegments();
+		if (oldSegments.length == 0)
+			return;
+
+		getLogger().info("Removing {} old segment(s) from '{}'", oldSegments.length, storageDir);
+		for (File f : oldSegments)
+		{
+			if (!f.delete())
+				getLogger().warn("Could not delete old segment '{}'", f);
+		}
+	}
+
+	private void restoreSegments() throws IOException
+	{
+		NavigableMap<Integer, File> oldSegments = new TreeMap<Integer, File>();
+		for (File f : listOldSegments())
+		{
+			String name = f.getName();
+			try
+			{
+				oldSegments.put(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length()-SEGMENT_SUFFIX.length())), f);
+			}
+			catch (NumberFormatException e)
+			{
+				getLogger().warn("File '{}' is not a segment, it will be ignored", f);
+			}
+		}
+		if (oldSegments.isEmpty())
+			return;
+
+		for (Map.Entry<Integer, File> entry : oldSegments.entrySet())
+		{
+			Segment segment = restoreSegment(entry.getKey(), entry.getValue());
+			segments.put(segment.number, segment);
+		}
+
+		for (StoredItem item : index.values())
+			segments.get(item.segment).liveItems.incrementAndGet();
+		for (Segment segment : segments.values())
+		{
+			if (segment.liveItems.get() <= 0)
+				removeSegment(segment);
+		}
+		segmentNumber = oldSegments.lastKey()+1;
+		getLogger().info("Restored {} item(s) from {} segment(s) in '{}'", index.size(), segments.size(), storageDir);
+	}
+
+	private Segment restoreSegment(int number, File file) throws IOException
+	{
+		long fileSize = file.length(),
+				position = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			while (position + RECORD_HEADER_SIZE <= fileSize)
+			{
+				long id = in.readLong(),
+						received = in.readLong();
+				int length = in.readInt();
+				if (length < 0 || position + RECORD_HEADER_SIZE + length > fileSize)
+					break;
+
+				//Newer record with the same ID replaces older one
+				StoredItem previous = index.put(id, new StoredItem(number, position + RECORD_HEADER_SIZE, length, received));
+				if (previous != null)
+					getLogger().warn("Item {} is found in segments {} and {}, the latter is used", id, previous.segment, number);
+				position += RECORD_HEADER_SIZE + length;
+				skipFully(in, length);
+			}
+		}
+
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (position < fileSize)
+		{
+			getLogger().warn("Segment '{}' ends with incomplete record, it will be truncated to {} bytes", file, position);
+			channel.truncate(position);
+		}
+
+		Segment segment = new Segment(number, file, channel);
+		segment.size = position;
+		segment.flushed = position;
+		segment.sealed = true;
+		return segment;
+	}
+
+	private void skipFully(DataInputStream in, int length) throws IOException
+	{
+		int left = length;
+		while (left > 0)
+		{
+			int skipped = in.skipBytes(left);
+			if (skipped <= 0)
+				throw new EOFException("Unexpected end of segment");
+			left -= skipped;
+		}
+	}
+
+	private byte[] readContent(StoredItem stored)
+	{
+		Segment segment = segments.get(stored.segment);
+		if (segment == null)
+			return null;
+
+		byte[] result = new byte[stored.length];
+		try
+		{
+			if (!segment.sealed)
+			{
+				synchronized (writeMonitor)
+				{
+					if (!segment.sealed)
+					{
+						if (segment == activeSegment && stored.offset + stored.length > segment.flushed)
+							flushWriteBuffer();
+
+						ByteBuffer target = ByteBuffer.wrap(result);
+						long position = stored.offset;
+						while (target.hasRemaining())
+						{
+							int read = segment.channel.read(target, position);
+							if (read < 0)
+								throw new IOException("Unexpected end of segment");
+							position += read;
+						}
+						return result;
+					}
+				}
+			}
+
+			ByteBuffer mapped = segment.getMapped().duplicate();
+			mapped.position((int)stored.offset);
+			mapped.get(result);
+			return result;
+		}
+		catch (IOException e)
+		{
+			getLogger().error("Could not read item from segment '{}'", segment.file, e);
+			return null;
+		}
+	}
+
+
+	protected int getWriteBufferSize()
+	{
+		return WRITE_BUFFER_SIZE;
+	}
+
+	protected Logger getLogger()
+	{
+		return logger;
+	}
+
+
+	/**
+	 * Location of stored item in segment files
+	 */
+	protected static class StoredItem
+	{
+		protected final int segment,
+				length;
+		protected final long offset,
+				received;
+
+		public StoredItem(int segment, long offset, int length, long received)
+		{
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.received = received;
+		}
+	}
+
+	private static class Segment
+	{
+		private final int number;
+		private final File file;
+		private final FileChannel channel;
+		private final AtomicInteger liveItems = new AtomicInteger(0);
+		//Changed only under writeMonitor
+		private long size = 0,
+				flushed = 0;
+		private volatile boolean sealed = false;
+		private volatile MappedByteBuffer mapped;
+
+		public Segment(int number, File file, FileChannel channel)
+		{
+			this.number = number;
+			this.file = file;
+			this.channel = channel;
+		}
+
+		public MappedByteBuffer getMapped() throws IOException
+		{
+			MappedByteBuffer result = mapped;
+			if (result != null)
+				return result;
+
+			synchronized (this)
+			{
+				if (mapped == null)
+					mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, flushed);
+				return mapped;
+			}
+		}
+	}
+
+	private static class ItemReference<T> extends WeakReference<T>
+	{
+		private final long id;
+
+		public ItemReference(long id, T referent, ReferenceQueue<? super T> queue)
+		{
+			super(referent, queue);
+			this.id = id;
+		}
+	}
+
+	/**
+	 * Map view over stored items. Items are read from disk only when accessed
+	 */
+	protected class StoredItemsView extends AbstractMap<Long, P>
+	{
+		private final NavigableMap<Long, StoredItem> items;
+
+		public StoredItemsView(NavigableMap<Long, StoredItem> items)
+		{
+			this.items = items;
+		}
+
+		@Override
+		public P get(Object key)
+		{
+			if (!(key instanceof Long))
+				return null;
+
+			StoredItem stored = items.get(key);
+			return stored != null ? loadItem((Long)key, stored) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return items.containsKey(key);
+		}
+
+		@Override
+		public P remove(Object key)
+		{
+			P result = get(key);
+			if (result != null)
+				removeStored((Long)key);
+			return result;
+		}
+
+		@Override
+		public int size()
+		{
+			return items.size();
+		}
+
+		@Override
+		public boolean isEmpty()
+		{
+			return items.isEmpty();
+		}
+
+		@Override
+		public void clear()
+		{
+			for (Long id : items.keySet())
+				removeStored(id);
+		}
+
+		@Override
+		public Set<Map.Entry<Long, P>> entrySet()
+		{
+			return new AbstractSet<Map.Entry<Long, P>>()
+			{
+				@Override
+				public Iterator<Map.Entry<Long, P>> iterator()
+				{
+					return new StoredItemsIterator(items.entrySet().iterator());
+				}
+
+				@Override
+				public int size()
+				{
+					return items.size();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Iterator that reads items one by one, skipping ones that were removed or could not be restored
+	 */
+	protected class StoredItemsIterator implements Iterator<Map.Entry<Long, P>>
+	{
+		private final Iterator<Map.Entry<Long, StoredItem>> source;
+		private Map.Entry<Long, P> next, last;
+
+		public StoredItemsIterator(Iterator<Map.Entry<Long, StoredItem>> source)
+		{
+			this.source = source;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (next == null && source.hasNext())
+			{
+				Map.Entry<Long, StoredItem> entry = source.next();
+				P item = loadItem(entry.getKey(), entry.getValue());
+				if (item != null)
+					next = new AbstractMap.SimpleImmutableEntry<Long, P>(entry.getKey(), item);
+			}
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<Long, P> next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			last = next;
+			next = null;
+			return last;
+		}
+
+		@Override
+		public void remove()
+		{
+			if (last == null)
+				throw new IllegalStateException();
+			removeStored(last.getKey());
+			last = null;
+		}
+	}
+}
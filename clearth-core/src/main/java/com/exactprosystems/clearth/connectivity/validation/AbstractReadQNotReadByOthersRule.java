@@ -78,6 +78,17 @@ abstract public class AbstractReadQNotReadByOthersRule<C extends ClearThMessageC
 
 		return null;
 	}
+	
+	@Override
+	public boolean isConflicting(ClearThConnection<?, ?> connection1, ClearThConnection<?, ?> connection2)
+	{
+		if (!isConnectionSuitable(connection1) || !isConnectionSuitable(connection2))
+			return false;
+		
+		S settings1 = (S) ((C) connection1).getSettings(),
+				settings2 = (S) ((C) connection2).getSettings();
+		return settings1.isUseReceiveQueue() && settings2.isUseReceiveQueue() && useSameReceiveQueue(settings1, settings2);
+	}
 
 	/**
 	 * Checks if two host names are related to the same host.
@@ -38,4 +38,17 @@ public interface ClearThConnectionValidationRule
 	 * @return error description if validation is failed. In case of passed validation can return null or empty String.
 	 */
 	String check(ClearThConnection<?, ?> connectionToCheck);
+	
+	/**
+	 * Tests whether two connections can prevent each other from starting due to this rule. 
+	 * Conflicting connections are not started simultaneously, so that validation of each of them takes the other into account.
+	 * Default implementation treats all suitable connections as conflicting.
+	 * @param connection1 first connection to test.
+	 * @param connection2 second connection to test.
+	 * @return true if start of one connection can make start of another connection invalid.
+	 */
+	default boolean isConflicting(ClearThConnection<?, ?> connection1, ClearThConnection<?, ?> connection2)
+	{
+		return isConnectionSuitable(connection1) && isConnectionSuitable(connection2);
+	}
 }
@@ -56,4 +56,14 @@ public class ConnectionStartValidator
 		if (errorMessages.length() != 0)
 			throw new SettingsException(errorMessages.toString());
 	}
+	
+	public boolean isConflicting(ClearThConnection<?, ?> connection1, ClearThConnection<?, ?> connection2)
+	{
+		for (ClearThConnectionValidationRule rule : rules)
+		{
+			if (rule.isConflicting(connection1, connection2))
+				return true;
+		}
+		return false;
+	}
 }
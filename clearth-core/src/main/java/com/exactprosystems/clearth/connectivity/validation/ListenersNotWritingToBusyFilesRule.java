@@ -66,6 +66,17 @@ public class ListenersNotWritingToBusyFilesRule implements ClearThConnectionVali
 			return null;
 	}
 
+	@Override
+	public boolean isConflicting(ClearThConnection<?, ?> connection1, ClearThConnection<?, ?> connection2)
+	{
+		if (!isConnectionSuitable(connection1) || !isConnectionSuitable(connection2))
+			return false;
+		
+		Set<Path> paths1 = findWrittenFilePathsOfCheckedConnection((ClearThMessageConnection<?, ?>) connection1).keySet(),
+				paths2 = findWrittenFilePathsOfCheckedConnection((ClearThMessageConnection<?, ?>) connection2).keySet();
+		return !Collections.disjoint(paths1, paths2);
+	}
+
 	private List<ClearThMessageConnection> getAllStartedMsgConnections()
 	{
 		return getInstance().getConnectionStorage()
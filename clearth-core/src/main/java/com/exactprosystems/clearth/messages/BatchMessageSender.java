@@ -0,0 +1,39 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.messages;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.exactprosystems.clearth.connectivity.ConnectivityException;
+
+/**
+ * Interface for classes that can send several string messages at once
+ */
+public interface BatchMessageSender
+{
+	/**
+	 * Sends given messages as one batch. Depending on implementation, batch can be sent as single unit of work
+	 * @param messages to send
+	 * @return sending outcomes, one per message, if present
+	 * @throws IOException if messages cannot be sent due to I/O error
+	 * @throws ConnectivityException if connection to messages destination is broken
+	 */
+	public List<String> sendMessages(List<String> messages) throws IOException, ConnectivityException;
+}
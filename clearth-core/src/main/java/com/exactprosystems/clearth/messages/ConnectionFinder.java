@@ -23,6 +23,7 @@ import com.exactprosystems.clearth.automation.actions.MessageAction;
 import com.exactprosystems.clearth.automation.exceptions.ResultException;
 import com.exactprosystems.clearth.connectivity.ConnectivityException;
 import com.exactprosystems.clearth.connectivity.ListenerType;
+import com.exactprosystems.clearth.connectivity.MQConnection;
 import com.exactprosystems.clearth.connectivity.ReceiveListener;
 import com.exactprosystems.clearth.connectivity.connections.ClearThConnection;
 import com.exactprosystems.clearth.connectivity.connections.ClearThMessageConnection;
@@ -57,6 +58,26 @@ public class ConnectionFinder
 		return findConnection(conName);
 	}
 	
+	/**
+	 * Finds connection to send messages through. 
+	 * If action parameters request asynchronous sending, messages are passed to pipelined sender of MQ connection, 
+	 * so that they are sent in batches. Such messages are sent immediately if pipelined sending is disabled in connection settings.
+	 * Messages that failed to be sent in background make the next asynchronous sending through the same connection fail 
+	 * and are reported as error of step when it ends
+	 */
+	public StringMessageSender findSender(Map<String, String> inputParams) throws ResultException, ConnectivityException
+	{
+		ClearThMessageConnection<?,?> con = findConnection(inputParams);
+		if (!(con instanceof MQConnection) || !InputParamsUtils.getBooleanOrDefault(inputParams, MessageAction.SEND_ASYNC, false))
+			return con;
+		
+		MQConnection mqCon = (MQConnection)con;
+		return message -> {
+			mqCon.sendMessageAsync(message);
+			return message;
+		};
+	}
+	
 	
 	public ClearThMessageCollector findCollector(ClearThMessageConnection<?,?> connection) throws ResultException
 	{
@@ -19,14 +19,16 @@
 package com.exactprosystems.clearth.templates;
 
 import com.exactprosystems.clearth.ClearThCore;
+import com.exactprosystems.clearth.automation.report.ReportPatches;
 import com.exactprosystems.clearth.utils.Utils;
 
 import freemarker.core.Environment;
 import freemarker.template.*;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Writer;
 import java.util.Map;
 
@@ -55,7 +57,8 @@ public class IncludeFileDirective implements TemplateDirectiveModel {
 			BufferedReader in = null;
 			try
 			{
-				in = new BufferedReader(new FileReader(fileName));
+				//Reports of actions may have patches with actual data of asynchronous actions
+				in = new BufferedReader(new InputStreamReader(ReportPatches.openStream(new File(fileName))));
 
 				String line;
 				while ((line = in.readLine()) != null)
@@ -19,9 +19,12 @@
 package com.exactprosystems.clearth.templates;
 
 import com.exactprosystems.clearth.ClearThCore;
+import freemarker.cache.StrongCacheStorage;
 import freemarker.ext.beans.BeansWrapper;
 import freemarker.ext.beans.BeansWrapperBuilder;
 import freemarker.template.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -34,6 +37,9 @@ import java.util.Map;
  */
 public abstract class TemplatesProcessor
 {
+	private static final Logger logger = LoggerFactory.getLogger(TemplatesProcessor.class);
+	protected static final String TEMPLATE_EXTENSION = ".ftl";
+	
 	protected Configuration configuration;
 
 	protected static final Map<String, Object> COMMON_PARAMETERS = new HashMap<String, Object>()
@@ -46,19 +52,28 @@ public abstract class TemplatesProcessor
 	public TemplatesProcessor() throws IOException, TemplateModelException
 	{
 		configuration = createConfiguration();
+		for (Map.Entry<String, Object> parameter : getParameters().entrySet())
+			configuration.setSharedVariable(parameter.getKey(), parameter.getValue());
+		preloadTemplates();
 	}
 
+	/**
+	 * Processes template with given parameters. Common parameters are shared variables of configuration, thus they are available to all templates 
+	 * without being copied to parameters of each call
+	 */
 	public void processTemplate(Writer out, Map<String, Object> parameters, String fileName) throws IOException, TemplateException
 	{
 		Template template = configuration.getTemplate(fileName);
-		parameters.putAll(getParameters());
 		template.process(parameters, out);
 	}
 
 	protected Configuration createConfiguration() throws IOException, TemplateModelException
 	{
 		Configuration configuration = new Configuration(Configuration.VERSION_2_3_23);
-		configuration.setDirectoryForTemplateLoading(new File(ClearThCore.htmlTemplatesPath()));
+		configuration.setDirectoryForTemplateLoading(getTemplatesDir());
+		//Parsed templates are kept while application is running, they are not dropped on memory shortage to be parsed again
+		configuration.setCacheStorage(new StrongCacheStorage());
+		configuration.setLocalizedLookup(false);
 		configuration.setDefaultEncoding("UTF-8");
 		configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
 		configuration.setSharedVariable("includeFile", new IncludeFileDirective());
@@ -66,10 +81,53 @@ public abstract class TemplatesProcessor
 		return configuration;
 	}
 
+	protected File getTemplatesDir()
+	{
+		return new File(ClearThCore.htmlTemplatesPath());
+	}
+
+	/**
+	 * Parses all templates from templates directory, so that they are taken from cache when the first report is generated
+	 */
+	protected void preloadTemplates()
+	{
+		File[] files = getTemplatesDir().listFiles((dir, name) -> name.endsWith(TEMPLATE_EXTENSION));
+		if (files == null)
+			return;
+		
+		for (File file : files)
+		{
+			try
+			{
+				configuration.getTemplate(file.getName());
+			}
+			catch (IOException e)
+			{
+				logger.warn("Could not preload template '{}'", file.getAbsolutePath(), e);
+			}
+		}
+	}
+
 	protected Map<String, Object> getParameters()
 	{
 		return COMMON_PARAMETERS;
 	}
 
+	/**
+	 * Stores parameter in given map and makes it available to all templates
+	 */
+	protected void putParameter(Map<String, Object> parameters, String key, Object value)
+	{
+		parameters.put(key, value);
+		try
+		{
+			configuration.setSharedVariable(key, value);
+		}
+		catch (TemplateModelException e)
+		{
+			throw new IllegalArgumentException("Could not add template parameter '"+key+"'", e);
+		}
+	}
+
 	public abstract void addParameter(String key, Object value);
 }
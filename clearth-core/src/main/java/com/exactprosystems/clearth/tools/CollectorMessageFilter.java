@@ -0,0 +1,205 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
+
+/**
+ * Compiled filter for messages shown by {@link CollectorScannerTool}.
+ * Filter consists of conditions separated by " &amp;&amp; ", all of them must be met:
+ * <ul>
+ * <li><b>@Field=value</b> &mdash; field of message or of any its sub-message equals value;</li>
+ * <li><b>@Field~text</b> &mdash; field of message or of any its sub-message contains text;</li>
+ * <li><b>/regex/</b> &mdash; part of encoded message matches regular expression;</li>
+ * <li>any other text &mdash; encoded message contains this text, e.g. "@example.com".</li>
+ * </ul>
+ * Condition that starts with backslash is always text condition without the backslash, i.e. "\/path/" matches messages that contain "/path/".
+ * Messages that could not be decoded have no fields, so field conditions are never met for them
+ */
+public class CollectorMessageFilter
+{
+	public static final String CONDITIONS_SEPARATOR = " && ";
+	public static final char ESCAPE = '\\';
+	
+	private static final Pattern FIELD_CONDITION = Pattern.compile("^@([\\w.\\-]+)([=~])(.*)$", Pattern.DOTALL);
+	
+	private static final CollectorMessageFilter EMPTY = new CollectorMessageFilter(Collections.<Condition>emptyList());
+	
+	private final List<Condition> conditions;
+	
+	private CollectorMessageFilter(List<Condition> conditions)
+	{
+		this.conditions = conditions;
+	}
+	
+	/**
+	 * @param filter text of filter. Null or empty filter matches all messages
+	 * @return compiled filter
+	 * @throws IllegalArgumentException if filter contains invalid regular expression
+	 */
+	public static CollectorMessageFilter compile(String filter) throws IllegalArgumentException
+	{
+		if (filter == null || filter.isEmpty())
+			return EMPTY;
+		
+		List<Condition> conditions = new ArrayList<Condition>();
+		for (String part : filter.split(Pattern.quote(CONDITIONS_SEPARATOR)))
+		{
+			if (!part.isEmpty())
+				conditions.add(compileCondition(part));
+		}
+		return new CollectorMessageFilter(conditions);
+	}
+	
+	private static Condition compileCondition(String text)
+	{
+		if (text.charAt(0) == ESCAPE)
+			return new TextCondition(text.substring(1));
+		
+		if (text.length() > 2 && text.startsWith("/") && text.endsWith("/"))
+		{
+			try
+			{
+				return new RegexCondition(Pattern.compile(text.substring(1, text.length() - 1)));
+			}
+			catch (PatternSyntaxException e)
+			{
+				throw new IllegalArgumentException("Invalid regular expression in filter: " + e.getDescription(), e);
+			}
+		}
+		
+		Matcher field = FIELD_CONDITION.matcher(text);
+		if (field.matches())
+			return new FieldCondition(field.group(1), field.group(3), field.group(2).equals("~"));
+		
+		return new TextCondition(text);
+	}
+	
+	
+	public boolean isEmpty()
+	{
+		return conditions.isEmpty();
+	}
+	
+	/**
+	 * @param message decoded message to check
+	 * @param encoded encoded message to check text conditions against
+	 * @return true if message meets all conditions of filter
+	 */
+	public boolean matches(ClearThMessage<?> message, String encoded)
+	{
+		for (Condition c : conditions)
+		{
+			if (!c.matches(message, encoded))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * @param encoded message that could not be decoded
+	 * @return true if message meets all conditions of filter
+	 */
+	public boolean matches(String encoded)
+	{
+		return matches(null, encoded);
+	}
+	
+	
+	private interface Condition
+	{
+		boolean matches(ClearThMessage<?> message, String encoded);
+	}
+	
+	private static class TextCondition implements Condition
+	{
+		private final String text;
+		
+		public TextCondition(String text)
+		{
+			this.text = text;
+		}
+		
+		@Override
+		public boolean matches(ClearThMessage<?> message, String encoded)
+		{
+			return encoded != null && encoded.contains(text);
+		}
+	}
+	
+	private static class RegexCondition implements Condition
+	{
+		private final Pattern pattern;
+		
+		public RegexCondition(Pattern pattern)
+		{
+			this.pattern = pattern;
+		}
+		
+		@Override
+		public boolean matches(ClearThMessage<?> message, String encoded)
+		{
+			return encoded != null && pattern.matcher(encoded).find();
+		}
+	}
+	
+	private static class FieldCondition implements Condition
+	{
+		private final String field,
+				value;
+		private final boolean contains;
+		
+		public FieldCondition(String field, String value, boolean contains)
+		{
+			this.field = field;
+			this.value = value;
+			this.contains = contains;
+		}
+		
+		@Override
+		public boolean matches(ClearThMessage<?> message, String encoded)
+		{
+			return message != null && matchesField(message);
+		}
+		
+		private boolean matchesField(ClearThMessage<?> message)
+		{
+			String fieldValue = message.getField(field);
+			if (fieldValue != null && (contains ? fieldValue.contains(value) : fieldValue.equals(value)))
+				return true;
+			
+			if (message.hasSubMessages())
+			{
+				for (ClearThMessage<?> sub : message.getSubMessages())
+				{
+					if (matchesField(sub))
+						return true;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.tools;
+
+import java.util.List;
+
+import com.exactprosystems.clearth.connectivity.CollectorMessage;
+
+/**
+ * Page of messages found by {@link CollectorScannerTool}. 
+ * Cursor is ID of the last message checked while building the page, next page is built from messages received after it
+ */
+public class CollectorMessagesPage
+{
+	private final List<CollectorMessage> messages;
+	private final long startCursor,
+			nextCursor;
+	private final boolean hasMore;
+	private final int scanned;
+	
+	public CollectorMessagesPage(List<CollectorMessage> messages, long startCursor, long nextCursor, boolean hasMore, int scanned)
+	{
+		this.messages = messages;
+		this.startCursor = startCursor;
+		this.nextCursor = nextCursor;
+		this.hasMore = hasMore;
+		this.scanned = scanned;
+	}
+	
+	
+	public List<CollectorMessage> getMessages()
+	{
+		return messages;
+	}
+	
+	/**
+	 * @return cursor the page was built from
+	 */
+	public long getStartCursor()
+	{
+		return startCursor;
+	}
+	
+	/**
+	 * @return cursor to build next page from
+	 */
+	public long getNextCursor()
+	{
+		return nextCursor;
+	}
+	
+	/**
+	 * @return true if collector has messages after the ones checked for this page
+	 */
+	public boolean isHasMore()
+	{
+		return hasMore;
+	}
+	
+	/**
+	 * @return number of messages checked while building the page
+	 */
+	public int getScanned()
+	{
+		return scanned;
+	}
+	
+	public boolean isEmpty()
+	{
+		return messages.isEmpty();
+	}
+}
@@ -22,11 +22,13 @@ import static com.exactprosystems.clearth.ClearThCore.connectionStorage;
 import static com.exactprosystems.clearth.utils.Utils.nvl;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import com.exactprosystems.clearth.connectivity.CollectorMessage;
 import com.exactprosystems.clearth.connectivity.ReceiveListener;
 import com.exactprosystems.clearth.connectivity.connections.ClearThMessageConnection;
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
 import com.exactprosystems.clearth.connectivity.iface.ReceivedClearThMessage;
 import com.exactprosystems.clearth.connectivity.iface.ReceivedStringMessage;
 import com.exactprosystems.clearth.connectivity.listeners.ClearThMessageCollector;
@@ -37,16 +39,22 @@ import com.exactprosystems.clearth.connectivity.listeners.ClearThMessageCollecto
  */
 public class CollectorScannerTool
 {
+	/** Cursor to get the first page of messages */
+	public static final long FIRST_CURSOR = -1;
+	public static final int DEFAULT_PAGE_SIZE = 100,
+			DEFAULT_SCAN_LIMIT = 100000;
+	
+	private static final String NO_ORIGINAL_MESSAGE = "[could not get original message]",
+			NO_PARSED_MESSAGE = "[could not get parsed message]";
+	
 	protected String collectorFilter;
+	protected CollectorMessageFilter compiledFilter;
+	protected int scanLimit = DEFAULT_SCAN_LIMIT;
 	
 	public CollectorScannerTool()
 	{
 		this.collectorFilter = null;
-	}
-	
-	private boolean checkFilter(String checkedValue)
-	{
-		return (this.collectorFilter == null || this.collectorFilter.isEmpty() || checkedValue.contains(collectorFilter));
+		this.compiledFilter = CollectorMessageFilter.compile(null);
 	}
 	
 	private ReceiveListener getCollector(ClearThMessageConnection<?, ?> connection)
@@ -57,7 +65,7 @@ public class CollectorScannerTool
 
 	/**
 	 * Returns list of CollectorMessages (correct message, parsed message, timestamp) from selected
-	 * collector
+	 * collector. All messages are checked, so for large collectors {@link #getCollectorMessagesPage(ReceiveListener, long, int)} is preferable
 	 *
 	 * @param collector
 	 *          selected collector
@@ -65,33 +73,8 @@ public class CollectorScannerTool
 	 */
 	public List<CollectorMessage> getCollectorMessages(ReceiveListener collector)
 	{
-		if (collector == null)
-			return null;
-
-		//Using try-catch block to get around NPE while connection is stopping and is chosen in 'Collector scanner' tool
-		try
-		{
-			List<CollectorMessage> msgList = new ArrayList<CollectorMessage>();
-			if (collector instanceof ClearThMessageCollector)
-			{
-				ClearThMessageCollector imc = (ClearThMessageCollector) collector;
-				for (ReceivedClearThMessage msgData : imc.getMessagesData())
-				{
-					String encoded = nvl(msgData.getMessage().getEncodedMessage(), "[could not get original message]");
-					if (checkFilter(encoded))
-						msgList.add(new CollectorMessage(encoded, msgData.getMessage().toString(), msgData.getReceived()));
-				}
-			}
-	
-			if (msgList.size() > 0)
-				return msgList;
-			else
-				return null;
-		}
-		catch (Exception e)
-		{
-			return null;
-		}
+		CollectorMessagesPage page = getCollectorMessagesPage(collector, FIRST_CURSOR, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		return page == null || page.isEmpty() ? null : page.getMessages();
 	}
 
 	/**
@@ -110,26 +93,80 @@ public class CollectorScannerTool
 
 	public List<CollectorMessage> getCollectorMessagesFailed(ReceiveListener collector)
 	{
-		if (collector == null)
-			return null;
+		CollectorMessagesPage page = getCollectorMessagesFailedPage(collector, FIRST_CURSOR, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		return page == null || page.isEmpty() ? null : page.getMessages();
+	}
+	
+	public List<CollectorMessage> getCollectorMessagesFailed(ClearThMessageConnection<?, ?> connection)
+	{
+		return (connection == null) ? null : getCollectorMessagesFailed(getCollector(connection));
+	}
+	
+	
+	/**
+	 * Returns page of messages from collector that match current filter. 
+	 * Messages are checked one by one directly in collector storage, starting after given cursor, 
+	 * until page is full or scan limit is reached, thus page may contain less messages even if collector has more matching ones
+	 * 
+	 * @param collector selected collector
+	 * @param cursor cursor of previous page or {@link #FIRST_CURSOR}
+	 * @param pageSize maximum number of messages in page
+	 * @return page of correct messages from collector, null if collector is not available
+	 */
+	public CollectorMessagesPage getCollectorMessagesPage(ReceiveListener collector, long cursor, int pageSize)
+	{
+		return getCollectorMessagesPage(collector, cursor, pageSize, scanLimit);
+	}
+	
+	public CollectorMessagesPage getCollectorMessagesPage(ClearThMessageConnection<?, ?> connection, long cursor, int pageSize)
+	{
+		return (connection == null) ? null : getCollectorMessagesPage(getCollector(connection), cursor, pageSize);
+	}
+	
+	/**
+	 * Returns page of messages that could not be decoded by collector and match current filter
+	 * 
+	 * @param collector selected collector
+	 * @param cursor cursor of previous page or {@link #FIRST_CURSOR}
+	 * @param pageSize maximum number of messages in page
+	 * @return page of failed messages from collector, null if collector is not available
+	 */
+	public CollectorMessagesPage getCollectorMessagesFailedPage(ReceiveListener collector, long cursor, int pageSize)
+	{
+		return getCollectorMessagesFailedPage(collector, cursor, pageSize, scanLimit);
+	}
+	
+	public CollectorMessagesPage getCollectorMessagesFailedPage(ClearThMessageConnection<?, ?> connection, long cursor, int pageSize)
+	{
+		return (connection == null) ? null : getCollectorMessagesFailedPage(getCollector(connection), cursor, pageSize);
+	}
+	
+	
+	protected CollectorMessagesPage getCollectorMessagesPage(ReceiveListener collector, long cursor, int pageSize, int limit)
+	{
 		if (!(collector instanceof ClearThMessageCollector))
 			return null;
 		
-		// Use try-catch block to get around NPE while connection is stopping and is chosen in 'Collector scanner' tool
+		//Using try-catch block to get around NPE while connection is stopping and is chosen in 'Collector scanner' tool
 		try
 		{
-			ClearThMessageCollector imc = (ClearThMessageCollector)collector;
+			CollectorMessageFilter filter = compiledFilter;
+			Iterator<ReceivedClearThMessage> it = ((ClearThMessageCollector)collector).getMessagesDataView(cursor).iterator();
 			List<CollectorMessage> msgList = new ArrayList<CollectorMessage>();
-			for (ReceivedStringMessage msgData : imc.getMessagesFailed())
+			long nextCursor = cursor;
+			int scanned = 0;
+			while (msgList.size() < pageSize && scanned < limit && it.hasNext())
 			{
-				if (checkFilter(msgData.getMessage()))
-					msgList.add(new CollectorMessage(msgData.getMessage(), "[could not get parsed message]", msgData.getReceived()));
+				ReceivedClearThMessage msgData = it.next();
+				scanned++;
+				nextCursor = msgData.getId();
+				
+				ClearThMessage<?> message = msgData.getMessage();
+				String encoded = message.getEncodedMessage();
+				if (filter.matches(message, encoded))
+					msgList.add(new CollectorMessage(msgData.getId(), nvl(encoded, NO_ORIGINAL_MESSAGE), message.toString(), msgData.getReceived()));
 			}
-			
-			if (msgList.size() > 0)
-				return msgList;
-			else
-				return null;
+			return new CollectorMessagesPage(msgList, cursor, nextCursor, it.hasNext(), scanned);
 		}
 		catch (Exception e)
 		{
@@ -137,9 +174,34 @@ public class CollectorScannerTool
 		}
 	}
 	
-	public List<CollectorMessage> getCollectorMessagesFailed(ClearThMessageConnection<?, ?> connection)
+	protected CollectorMessagesPage getCollectorMessagesFailedPage(ReceiveListener collector, long cursor, int pageSize, int limit)
 	{
-		return (connection == null) ? null : getCollectorMessagesFailed(getCollector(connection));
+		if (!(collector instanceof ClearThMessageCollector))
+			return null;
+		
+		// Use try-catch block to get around NPE while connection is stopping and is chosen in 'Collector scanner' tool
+		try
+		{
+			CollectorMessageFilter filter = compiledFilter;
+			Iterator<ReceivedStringMessage> it = ((ClearThMessageCollector)collector).getMessagesFailedView(cursor).iterator();
+			List<CollectorMessage> msgList = new ArrayList<CollectorMessage>();
+			long nextCursor = cursor;
+			int scanned = 0;
+			while (msgList.size() < pageSize && scanned < limit && it.hasNext())
+			{
+				ReceivedStringMessage msgData = it.next();
+				scanned++;
+				nextCursor = msgData.getId();
+				
+				if (filter.matches(msgData.getMessage()))
+					msgList.add(new CollectorMessage(msgData.getId(), msgData.getMessage(), NO_PARSED_MESSAGE, msgData.getReceived()));
+			}
+			return new CollectorMessagesPage(msgList, cursor, nextCursor, it.hasNext(), scanned);
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
 	}
 
 	public ClearThMessageConnection getConnectionByName(String name)
@@ -172,8 +234,26 @@ public class CollectorScannerTool
 		return collectorFilter;
 	}
 
-	public void setCollectorFilter(String collectorFilter)
+	/**
+	 * Sets filter for messages, see {@link CollectorMessageFilter} for syntax
+	 * @throws IllegalArgumentException if filter is invalid. Current filter is not changed in this case
+	 */
+	public void setCollectorFilter(String collectorFilter) throws IllegalArgumentException
 	{
+		this.compiledFilter = CollectorMessageFilter.compile(collectorFilter);
 		this.collectorFilter = collectorFilter;
 	}
+	
+	/**
+	 * @return maximum number of messages checked while building one page
+	 */
+	public int getScanLimit()
+	{
+		return scanLimit;
+	}
+	
+	public void setScanLimit(int scanLimit)
+	{
+		this.scanLimit = scanLimit;
+	}
 }
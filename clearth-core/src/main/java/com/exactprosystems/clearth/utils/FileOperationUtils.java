@@ -34,19 +34,23 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import com.exactprosystems.clearth.ClearThCore;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.csvreader.CsvWriter;
 import com.exactprosystems.clearth.automation.exceptions.ParametersException;
 
 public class FileOperationUtils
 {
+	private static final Logger logger = LoggerFactory.getLogger(FileOperationUtils.class);
+	
 	private static final String EXT_ZIP = "ZIP";
+	private static final int ZIP_PIPE_SIZE = 64 * 1024;
 
 	public static final String FILE_SEPARATOR = "/";
 
@@ -94,11 +98,22 @@ public class FileOperationUtils
 	
 	public static void zipFiles(File zipFile, File[] files, String[] names) throws IOException
 	{
-		ZipOutputStream zipOut = null;
-		try
+		try (OutputStream out = new FileOutputStream(zipFile))
+		{
+			zipFiles(out, files, names);
+		}
+	}
+	
+	/**
+	 * Writes ZIP archive with given files to stream. Files are compressed in parallel, stream is not closed
+	 * @param out stream to write archive to
+	 * @param files files and directories to add to archive. Non-existing ones are skipped
+	 * @param names names of entries for files. If name is not specified, file name is used. Directories are added with their own names
+	 */
+	public static void zipFiles(OutputStream out, File[] files, String[] names) throws IOException
+	{
+		try (ParallelZipWriter zipWriter = new ParallelZipWriter(new FlushOnCloseOutputStream(out)))
 		{
-			zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
-			byte buffer[] = new byte[4096];
 			for (int i = 0; i < files.length; i++)
 			{
 				if (!files[i].exists())
@@ -106,35 +121,17 @@ public class FileOperationUtils
 				
 				if (files[i].isFile())
 				{
-					BufferedInputStream fileInput = null;
-					try
-					{
-						fileInput = new BufferedInputStream(new FileInputStream(files[i]), buffer.length);
-						
-						ZipEntry entry;
-						if (names != null && i < names.length && names[i] != null && !names[i].trim().isEmpty())
-							entry = new ZipEntry(names[i]);
-						else
-							entry = new ZipEntry(files[i].getName());
-						zipOut.putNextEntry(entry);
-						
-						int count;
-						while ((count = fileInput.read(buffer)) != -1)
-							zipOut.write(buffer, 0, count);
-					}
-					finally
-					{
-						closeResource(fileInput);
-					}
+					String name;
+					if (names != null && i < names.length && names[i] != null && !names[i].trim().isEmpty())
+						name = names[i];
+					else
+						name = files[i].getName();
+					zipWriter.addFile(files[i], name);
 				}
 				else
-					zipDirectory(zipOut, files[i], files[i]);
+					zipDirectory(zipWriter, files[i], files[i]);
 			}
-		}
-		finally
-		{
-			if (zipOut != null)
-				zipOut.close();
+			zipWriter.finish();
 		}
 	}
 	
@@ -152,8 +149,47 @@ public class FileOperationUtils
 	{
 		zipFiles(zipFile, files.toArray(new File[files.size()]));
 	}
+	
+	/**
+	 * Starts creation of ZIP archive with given files in background thread. 
+	 * Returned stream allows to read archive while it is being created, e.g. to send it to client without storing it on disk
+	 * @param files files and directories to add to archive
+	 * @param names names of entries for files, can be null
+	 * @return stream to read archive from. If archive creation fails, reading from stream throws IOException
+	 */
+	public static InputStream zipFilesAsStream(List<File> files, List<String> names) throws IOException
+	{
+		File[] filesArray = files.toArray(new File[files.size()]);
+		String[] namesArray = names != null ? names.toArray(new String[names.size()]) : null;
+		
+		ZipPipeInputStream result = new ZipPipeInputStream();
+		PipedOutputStream out = new PipedOutputStream(result);
+		Thread writer = new Thread(() -> {
+			try
+			{
+				zipFiles(out, filesArray, namesArray);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				logger.warn("Error while creating ZIP archive", e);
+				result.failure = e;
+			}
+			finally
+			{
+				closeResource(out);
+			}
+		}, "ZipStreamWriter");
+		writer.setDaemon(true);
+		writer.start();
+		return result;
+	}
+	
+	public static InputStream zipFilesAsStream(List<File> files) throws IOException
+	{
+		return zipFilesAsStream(files, null);
+	}
 
-	private static void zipDirectory(ZipOutputStream zipOut, File dir, File rootDir) throws IOException
+	private static void zipDirectory(ParallelZipWriter zipWriter, File dir, File rootDir) throws IOException
 	{
 		if (!dir.exists())
 			return;
@@ -165,39 +201,20 @@ public class FileOperationUtils
 				return;
 			
 			for (File f : listFiles)
-				zipDirectory(zipOut, f, rootDir);
+				zipDirectory(zipWriter, f, rootDir);
 			return;
 		}
 		
-		int bytesIn;
-		byte[] buffer = new byte[4096];
-		FileInputStream fis = new FileInputStream(dir);
-		try
-		{
-			ZipEntry anEntry = new ZipEntry(rootDir.getName() + dir.getPath().substring(rootDir.getPath().length()));
-			zipOut.putNextEntry(anEntry);
-
-			while ((bytesIn = fis.read(buffer)) != -1)
-				zipOut.write(buffer, 0, bytesIn);
-		}
-		finally
-		{
-			closeResource(fis);
-		}
+		zipWriter.addFile(dir, rootDir.getName() + dir.getPath().substring(rootDir.getPath().length()));
 	}
 	
 	public static void zipDirectories(File zipFile, List<File> dirs) throws IOException
 	{
-		ZipOutputStream zipOut = null;
-		try
+		try (ParallelZipWriter zipWriter = new ParallelZipWriter(new FileOutputStream(zipFile)))
 		{
-			zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
 			for (File dir : dirs)
-				zipDirectory(zipOut, dir, dir);
-		}
-		finally
-		{
-			closeResource(zipOut);
+				zipDirectory(zipWriter, dir, dir);
+			zipWriter.finish();
 		}
 	}
 	
@@ -515,4 +532,60 @@ public class FileOperationUtils
 
 		return compiledFile.getAbsolutePath();
 	}
+	
+	
+	/**
+	 * Pipe that reports failure of archive creation instead of end of stream, so that client doesn't get incomplete archive as complete one
+	 */
+	private static class ZipPipeInputStream extends PipedInputStream
+	{
+		private volatile Exception failure;
+		
+		public ZipPipeInputStream()
+		{
+			super(ZIP_PIPE_SIZE);
+		}
+		
+		@Override
+		public synchronized int read() throws IOException
+		{
+			return checkFailure(super.read());
+		}
+		
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException
+		{
+			return checkFailure(super.read(b, off, len));
+		}
+		
+		private int checkFailure(int result) throws IOException
+		{
+			if (result == -1 && failure != null)
+				throw new IOException("Could not create ZIP archive", failure);
+			return result;
+		}
+	}
+	
+	/**
+	 * Stream that only flushes underlying stream when closed, so that writer of archive doesn't close stream given by caller
+	 */
+	private static class FlushOnCloseOutputStream extends FilterOutputStream
+	{
+		public FlushOnCloseOutputStream(OutputStream out)
+		{
+			super(out);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			flush();
+		}
+	}
 }
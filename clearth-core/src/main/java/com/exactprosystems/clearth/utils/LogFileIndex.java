@@ -0,0 +1,414 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Sparse index of log file: byte offsets of log records taken at regular intervals together with their timestamps.
+ * It allows to start reading log from position close to given time instead of scanning the whole file.
+ * Index is stored in separate file named by fingerprint of log file beginning, so that index stays valid when log file is renamed by rolling.
+ * When log file grows, only new part of it is indexed, so rolled log files are indexed once
+ */
+public class LogFileIndex
+{
+	public static final String INDEX_SUFFIX = ".idx";
+	
+	private static final int VERSION = 2,
+			CHECKPOINT_INTERVAL = 64 * 1024,
+			FINGERPRINT_SIZE = 1024,
+			LINE_PREFIX_SIZE = 256,
+			READ_BUFFER_SIZE = 64 * 1024;
+	private static final String TIME_FORMAT = "dd MMM yyyy HH:mm:ss";
+	//Record starts with level, followed by optional thread name and time as in "%p %t %d{dd MMM yyyy HH:mm:ss,SSS}"
+	private static final Pattern RECORD_TIME_PATTERN = Pattern.compile("^(DEBUG|INFO|WARN|TRACE|ERROR)\\s.*?(\\d{2} \\S+ \\d{4} \\d{2}:\\d{2}:\\d{2}),\\d{3}\\s");
+	
+	private final File logFile;
+	private final SimpleDateFormat timeFormat = new SimpleDateFormat(TIME_FORMAT);
+	
+	private long fingerprint = 0,
+			tailFingerprint = 0,
+			indexedLength = 0,
+			firstTime = -1,
+			lastTime = -1;
+	private int fingerprintLength = 0,
+			count = 0;
+	private long[] offsets = new long[16],
+			times = new long[16];
+	
+	private LogFileIndex(File logFile)
+	{
+		this.logFile = logFile;
+	}
+	
+	/**
+	 * Loads index of given log file from index directory, indexes part of log file written after index was saved and stores updated index
+	 * @param logFile log file to get index for
+	 * @param indexDir directory to store index in
+	 * @return up-to-date index of log file
+	 * @throws IOException if log file cannot be read. Errors while loading or saving index file cause log file to be indexed again
+	 */
+	public static LogFileIndex load(File logFile, File indexDir) throws IOException
+	{
+		LogFileIndex result = new LogFileIndex(logFile);
+		result.initFingerprint();
+		File indexFile = new File(indexDir, result.getIndexName());
+		if (!indexFile.isFile() || !result.read(indexFile) || !result.isValid())
+		{
+			result = new LogFileIndex(logFile);
+			result.initFingerprint();
+		}
+		
+		if (result.update())
+			result.save(indexFile);
+		return result;
+	}
+	
+	/**
+	 * Removes index files that don't belong to any of given log files, i.e. indexes of deleted logs and outdated indexes of growing logs
+	 * @param indexDir directory with index files
+	 * @param logFiles all log files indexes of which are stored in the directory
+	 */
+	public static void removeObsolete(File indexDir, File[] logFiles)
+	{
+		File[] indexFiles = indexDir.listFiles((dir, name) -> name.endsWith(INDEX_SUFFIX));
+		if (indexFiles == null || indexFiles.length == 0)
+			return;
+		
+		Set<String> actual = new HashSet<String>();
+		if (logFiles != null)
+		{
+			for (File logFile : logFiles)
+			{
+				try
+				{
+					actual.add(getIndexName(logFile));
+				}
+				catch (IOException e)
+				{
+					//Cannot find out which index belongs to this log file, so keeping all of them
+					return;
+				}
+			}
+		}
+		
+		for (File indexFile : indexFiles)
+		{
+			if (!actual.contains(indexFile.getName()))
+				indexFile.delete();
+		}
+	}
+	
+	/**
+	 * @return name of file to store index of given log file in
+	 */
+	static String getIndexName(File logFile) throws IOException
+	{
+		LogFileIndex index = new LogFileIndex(logFile);
+		index.initFingerprint();
+		return index.getIndexName();
+	}
+	
+	
+	/**
+	 * @return time of the first log record in file, -1 if file has no log records
+	 */
+	public long getFirstTime()
+	{
+		return firstTime;
+	}
+	
+	/**
+	 * @return time of the last log record in file, -1 if file has no log records
+	 */
+	public long getLastTime()
+	{
+		return lastTime;
+	}
+	
+	public int getCheckpointsCount()
+	{
+		return count;
+	}
+	
+	/**
+	 * @param time time to find position for
+	 * @return offset of the last indexed log record whose time is before given one. 0 if there is no such record
+	 */
+	public long findOffset(long time)
+	{
+		int low = 0,
+				high = count - 1,
+				found = -1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time)
+			{
+				found = mid;
+				low = mid + 1;
+			}
+			else
+				high = mid - 1;
+		}
+		return found < 0 ? 0 : offsets[found];
+	}
+	
+	
+	private void initFingerprint() throws IOException
+	{
+		fingerprintLength = (int)Math.min(logFile.length(), FINGERPRINT_SIZE);
+		fingerprint = calcFingerprint(0, fingerprintLength);
+	}
+	
+	private String getIndexName()
+	{
+		return String.format("%08x_%d", fingerprint, fingerprintLength) + INDEX_SUFFIX;
+	}
+	
+	/**
+	 * Checks that index read from file belongs to the log file: beginning of log file and the end of its indexed part 
+	 * should be the same as when index was saved
+	 */
+	private boolean isValid() throws IOException
+	{
+		long length = logFile.length();
+		if (length < indexedLength || length < fingerprintLength)
+			return false;
+		return calcFingerprint(0, fingerprintLength) == fingerprint && calcTailFingerprint() == tailFingerprint;
+	}
+	
+	private long calcTailFingerprint() throws IOException
+	{
+		long start = Math.max(0, indexedLength - FINGERPRINT_SIZE);
+		return calcFingerprint(start, (int)(indexedLength - start));
+	}
+	
+	private long calcFingerprint(long offset, int length) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		if (length > 0)
+		{
+			byte[] bytes = new byte[length];
+			try (RandomAccessFile in = new RandomAccessFile(logFile, "r"))
+			{
+				in.seek(offset);
+				in.readFully(bytes);
+			}
+			crc.update(bytes);
+		}
+		return crc.getValue();
+	}
+	
+	/**
+	 * Indexes part of log file after already indexed length. Only complete lines are indexed, the last line may be still being written
+	 * @return true if index has changed
+	 */
+	private boolean update() throws IOException
+	{
+		long length = logFile.length();
+		if (length <= indexedLength)
+			return false;
+		
+		boolean changed = false;
+		try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ))
+		{
+			channel.position(indexedLength);
+			InputStream in = Channels.newInputStream(channel);
+			
+			byte[] buffer = new byte[READ_BUFFER_SIZE],
+					line = new byte[LINE_PREFIX_SIZE],
+					lastRecord = new byte[LINE_PREFIX_SIZE];
+			int lineLength = 0,
+					lastRecordLength = 0,
+					read;
+			long position = indexedLength,
+					lineStart = indexedLength,
+					nextCheckpoint = count > 0 ? offsets[count - 1] + CHECKPOINT_INTERVAL : 0;
+			while ((read = in.read(buffer)) != -1)
+			{
+				for (int i = 0; i < read; i++)
+				{
+					byte b = buffer[i];
+					position++;
+					if (b != '\n')
+					{
+						if (lineLength < line.length)
+							line[lineLength++] = b;
+						continue;
+					}
+					
+					//Line is complete, checking if it is a log record
+					if (lineLength > 0 && isLevelStart(line[0]))
+					{
+						if (lineStart >= nextCheckpoint)
+						{
+							long time = parseTime(line, lineLength);
+							if (time >= 0)
+							{
+								addCheckpoint(lineStart, time);
+								nextCheckpoint = lineStart + CHECKPOINT_INTERVAL;
+							}
+						}
+						
+						byte[] swap = lastRecord;
+						lastRecord = line;
+						line = swap;
+						lastRecordLength = lineLength;
+					}
+					
+					lineLength = 0;
+					lineStart = position;
+					indexedLength = position;
+					changed = true;
+				}
+			}
+			
+			if (lastRecordLength > 0)
+			{
+				long time = parseTime(lastRecord, lastRecordLength);
+				if (time >= 0)
+					lastTime = Math.max(lastTime, time);
+			}
+		}
+		
+		if (changed)
+			tailFingerprint = calcTailFingerprint();
+		return changed;
+	}
+	
+	private boolean isLevelStart(byte b)
+	{
+		return b == 'D' || b == 'I' || b == 'W' || b == 'T' || b == 'E';
+	}
+	
+	private long parseTime(byte[] line, int length)
+	{
+		Matcher m = RECORD_TIME_PATTERN.matcher(new String(line, 0, length));
+		if (!m.find())
+			return -1;
+		
+		try
+		{
+			return timeFormat.parse(m.group(2)).getTime();
+		}
+		catch (ParseException e)
+		{
+			return -1;
+		}
+	}
+	
+	private void addCheckpoint(long offset, long time)
+	{
+		if (count == offsets.length)
+		{
+			offsets = Arrays.copyOf(offsets, count * 2);
+			times = Arrays.copyOf(times, count * 2);
+		}
+		offsets[count] = offset;
+		times[count] = time;
+		count++;
+		
+		if (firstTime < 0)
+			firstTime = time;
+		lastTime = Math.max(lastTime, time);
+	}
+	
+	
+	private boolean read(File indexFile)
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+		{
+			if (in.readInt() != VERSION)
+				return false;
+			
+			fingerprint = in.readLong();
+			fingerprintLength = in.readInt();
+			tailFingerprint = in.readLong();
+			indexedLength = in.readLong();
+			firstTime = in.readLong();
+			lastTime = in.readLong();
+			int checkpoints = in.readInt();
+			for (int i = 0; i < checkpoints; i++)
+			{
+				long offset = in.readLong();
+				addCheckpoint(offset, in.readLong());
+			}
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+	
+	private void save(File indexFile)
+	{
+		//Writing to temporary file first, so that concurrent readers don't get incomplete index
+		File tempFile = new File(indexFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+		try
+		{
+			Files.createDirectories(indexFile.getParentFile().toPath());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				out.writeInt(VERSION);
+				out.writeLong(fingerprint);
+				out.writeInt(fingerprintLength);
+				out.writeLong(tailFingerprint);
+				out.writeLong(indexedLength);
+				out.writeLong(firstTime);
+				out.writeLong(lastTime);
+				out.writeInt(count);
+				for (int i = 0; i < count; i++)
+				{
+					out.writeLong(offsets[i]);
+					out.writeLong(times[i]);
+				}
+			}
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			//Index will be built again next time
+			tempFile.delete();
+		}
+	}
+}
@@ -27,15 +27,24 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class LogsExtractor
 {
+	private static final Logger logger = LoggerFactory.getLogger(LogsExtractor.class);
+	
 	private static final SimpleDateFormat LOG_TIME_FORMAT = new SimpleDateFormat("dd MMM yyyy HH:mm:ss");
 	private static final Pattern logFindPattern = Pattern.compile("^(DEBUG|INFO|WARN|TRACE|ERROR)\\s.*");
 	private static final String PATTERN_START_STOP_STRING = "[A-Z]+\\s%s(:\\w*)?\\s%s,\\d{3}\\s.*";
+	public static final String INDEX_DIR = "index/";
+	//Records of different threads may be written not exactly in time order, so search starts a bit earlier
+	private static final long TIME_MARGIN = 60 * 1000;
 
 	private String schedulerName;
 	private Set<String> allowedThreadNames;
-	private File logsDir;
+	private File logsDir,
+			indexDir;
 
 	private File[] logFiles;
 
@@ -44,8 +53,9 @@ public class LogsExtractor
 		this.logsDir = logsDir;
 		this.schedulerName = schedulerName;
 		this.allowedThreadNames = allowedThreadNames;
+		this.indexDir = new File(logsDir, INDEX_DIR);
 
-		logFiles = logsDir.listFiles(pathname -> pathname.getName().contains(logName));
+		logFiles = logsDir.listFiles(pathname -> pathname.isFile() && pathname.getName().contains(logName));
 		if (logFiles != null)
 			Arrays.sort(logFiles, Collections.reverseOrder());
 	}
@@ -72,9 +82,15 @@ public class LogsExtractor
 			endPattern = Pattern.compile(String.format(PATTERN_START_STOP_STRING, schedulerName, end));
 		}
 
+		//Start line has time with precision to seconds
+		long startSecond = startTime.getTime() - startTime.getTime() % 1000;
+		
+		//Indexes of logs deleted after rolling are not needed anymore. Index directory is common for all logs in directory
+		LogFileIndex.removeObsolete(indexDir, logsDir.listFiles(File::isFile));
+		
 		boolean complete;
 		boolean previousMatch = false;
-		try (OutputStream out = new FileOutputStream(shortLog))
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(shortLog)))
 		{
 			boolean startFound = false;
 			complete = false;
@@ -84,7 +100,20 @@ public class LogsExtractor
 			{
 				if (complete)
 					break;
-				try (BufferedReader in = new BufferedReader(new FileReader(logFile)))
+				
+				long offset = 0;
+				if (!startFound)
+				{
+					LogFileIndex index = loadIndex(logFile);
+					if (index != null)
+					{
+						if (!mayContain(index, startSecond))
+							continue;
+						offset = index.findOffset(startSecond - TIME_MARGIN);
+					}
+				}
+				
+				try (BufferedReader in = openReader(logFile, offset))
 				{
 					String line;
 					while ((line = in.readLine()) != null)
@@ -142,6 +171,43 @@ public class LogsExtractor
 		return shortLog;
 	}
 	
+	private LogFileIndex loadIndex(File logFile)
+	{
+		try
+		{
+			return LogFileIndex.load(logFile, indexDir);
+		}
+		catch (IOException e)
+		{
+			logger.warn("Could not index log file '{}', it will be scanned entirely", logFile, e);
+			return null;
+		}
+	}
+	
+	private boolean mayContain(LogFileIndex index, long time)
+	{
+		//File without timestamps is checked as before
+		if (index.getFirstTime() < 0)
+			return true;
+		return index.getFirstTime() <= time + TIME_MARGIN && index.getLastTime() >= time - TIME_MARGIN;
+	}
+	
+	private BufferedReader openReader(File logFile, long offset) throws IOException
+	{
+		FileInputStream in = new FileInputStream(logFile);
+		try
+		{
+			if (offset > 0)
+				in.getChannel().position(offset);
+			return new BufferedReader(new InputStreamReader(in));
+		}
+		catch (IOException e)
+		{
+			Utils.closeResource(in);
+			throw e;
+		}
+	}
+	
 	private void writeLine(OutputStream writer, String line) throws IOException
 	{
 		writer.write(line.getBytes());
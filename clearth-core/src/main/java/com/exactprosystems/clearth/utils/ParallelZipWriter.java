@@ -0,0 +1,534 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes ZIP archive to given stream, compressing entries in parallel.
+ * Files are split into chunks which are deflated on shared bounded pool. 
+ * Compressed chunks are written in the order they were added, as soon as they are ready, so archive can be streamed to client while being created.
+ * Each chunk is deflated using the end of previous chunk as dictionary, thus compression ratio is nearly the same as for sequential compression.
+ * Number of chunks being compressed or waiting to be written is limited, so memory consumption doesn't depend on size of files.
+ */
+public class ParallelZipWriter implements Closeable
+{
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	
+	private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors()),
+			DICTIONARY_SIZE = 32 * 1024,
+			BUFFER_SIZE = 64 * 1024;
+	private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(THREADS, new DaemonThreadFactory());
+	
+	private static final int LOCAL_HEADER_SIG = 0x04034b50,
+			DATA_DESCRIPTOR_SIG = 0x08074b50,
+			CENTRAL_HEADER_SIG = 0x02014b50,
+			END_SIG = 0x06054b50,
+			ZIP64_END_SIG = 0x06064b50,
+			ZIP64_LOCATOR_SIG = 0x07064b50,
+			ZIP64_EXTRA_ID = 0x0001;
+	private static final int VERSION = 20,
+			VERSION_ZIP64 = 45,
+			FLAGS = 0x0008 | 0x0800,  //Sizes and CRC are in data descriptor, name is in UTF-8
+			METHOD_DEFLATED = 8;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL,
+			ZIP64_THRESHOLD = 0xF0000000L;  //Leaves room for deflate overhead, as compressed size is not known in advance
+	private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+	
+	private final OutputStream out;
+	private final int level,
+			chunkSize,
+			maxPending;
+	private final Deque<PendingChunk> pending = new ArrayDeque<PendingChunk>();
+	private final List<EntryInfo> entries = new ArrayList<EntryInfo>();
+	private final Set<String> names = new HashSet<String>();
+	private final byte[] numBuffer = new byte[8];
+	private long written = 0;
+	private boolean finished = false,
+			failed = false;
+	
+	public ParallelZipWriter(OutputStream out)
+	{
+		this(out, Deflater.DEFAULT_COMPRESSION, DEFAULT_CHUNK_SIZE);
+	}
+	
+	public ParallelZipWriter(OutputStream out, int level, int chunkSize)
+	{
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		
+		this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+		this.level = level;
+		this.chunkSize = chunkSize;
+		this.maxPending = THREADS * 2;
+	}
+	
+	
+	/**
+	 * Adds file to archive. File contents are compressed in background and written when all previously added entries are written
+	 * @param file file to add
+	 * @param name name of entry in archive
+	 * @throws ZipException if archive already contains entry with given name
+	 * @throws IOException if error occurred while compressing or writing previously added entries
+	 */
+	public void addFile(File file, String name) throws IOException
+	{
+		if (finished)
+			throw new IOException("Archive is already finished");
+		if (!names.add(name))
+			throw new ZipException("duplicate entry: "+name);
+		
+		long size = file.length();
+		EntryInfo entry = new EntryInfo(name, file.lastModified(), size >= ZIP64_THRESHOLD);
+		entries.add(entry);
+		
+		long offset = 0;
+		do
+		{
+			int length = (int)Math.min(chunkSize, size - offset);
+			boolean first = offset == 0,
+					last = offset + length >= size;
+			Future<Chunk> future = COMPRESSORS.submit(new ChunkCompressor(file, offset, length, last));
+			pending.add(new PendingChunk(entry, first, last, future));
+			offset += length;
+			
+			writeReady();
+		}
+		while (offset < size);
+	}
+	
+	/**
+	 * Waits for all entries to be written and writes central directory of archive. Underlying stream is flushed but not closed
+	 */
+	public void finish() throws IOException
+	{
+		if (finished)
+			return;
+		
+		try
+		{
+			while (!pending.isEmpty())
+				writeChunk(pending.poll());
+			writeCentralDirectory();
+			out.flush();
+			finished = true;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			failed = true;
+			throw e;
+		}
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if (!failed)
+				finish();
+		}
+		finally
+		{
+			for (PendingChunk p : pending)
+				p.future.cancel(true);
+			pending.clear();
+			out.close();
+		}
+	}
+	
+	
+	private void writeReady() throws IOException
+	{
+		try
+		{
+			//Writing chunks that are already compressed, waiting only if too many chunks are pending
+			while (!pending.isEmpty() && (pending.size() > maxPending || pending.peek().future.isDone()))
+				writeChunk(pending.poll());
+		}
+		catch (IOException | RuntimeException e)
+		{
+			failed = true;
+			throw e;
+		}
+	}
+	
+	private void writeChunk(PendingChunk p) throws IOException
+	{
+		//Sending what is already written before waiting, this lets client receive data without delays
+		if (!p.future.isDone())
+			out.flush();
+		
+		Chunk chunk = getChunk(p.future);
+		EntryInfo entry = p.entry;
+		if (p.first)
+			writeLocalHeader(entry);
+		
+		write(chunk.compressed, chunk.compressedLength);
+		entry.crc.update(chunk.data, chunk.dataOffset, chunk.dataLength);
+		entry.size += chunk.dataLength;
+		entry.compressedSize += chunk.compressedLength;
+		
+		if (p.last)
+			writeDataDescriptor(entry);
+	}
+	
+	private Chunk getChunk(Future<Chunk> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Wait for compressed data interrupted");
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException)cause;
+			throw new IOException("Error while compressing data", cause);
+		}
+	}
+	
+	
+	private void writeLocalHeader(EntryInfo entry) throws IOException
+	{
+		entry.headerOffset = written;
+		writeInt(LOCAL_HEADER_SIG);
+		writeShort(entry.zip64 ? VERSION_ZIP64 : VERSION);
+		writeShort(FLAGS);
+		writeShort(METHOD_DEFLATED);
+		writeInt(entry.dosTime);
+		writeInt(0);  //CRC and sizes are written in data descriptor
+		writeInt(entry.zip64 ? ZIP64_MAGIC : 0);
+		writeInt(entry.zip64 ? ZIP64_MAGIC : 0);
+		writeShort(entry.name.length);
+		writeShort(entry.zip64 ? 20 : 0);
+		write(entry.name, entry.name.length);
+		if (entry.zip64)
+		{
+			writeShort(ZIP64_EXTRA_ID);
+			writeShort(16);
+			writeLong(0);
+			writeLong(0);
+		}
+	}
+	
+	private void writeDataDescriptor(EntryInfo entry) throws IOException
+	{
+		writeInt(DATA_DESCRIPTOR_SIG);
+		writeInt(entry.crc.getValue());
+		if (entry.zip64)
+		{
+			writeLong(entry.compressedSize);
+			writeLong(entry.size);
+		}
+		else
+		{
+			writeInt(entry.compressedSize);
+			writeInt(entry.size);
+		}
+	}
+	
+	private void writeCentralDirectory() throws IOException
+	{
+		long start = written;
+		boolean zip64Archive = false;
+		for (EntryInfo entry : entries)
+		{
+			boolean offset64 = entry.headerOffset >= ZIP64_MAGIC,
+					zip64 = entry.zip64 || offset64;
+			zip64Archive |= zip64;
+			
+			int extraLength = 0;
+			if (entry.zip64)
+				extraLength += 16;
+			if (offset64)
+				extraLength += 8;
+			
+			writeInt(CENTRAL_HEADER_SIG);
+			writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+			writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+			writeShort(FLAGS);
+			writeShort(METHOD_DEFLATED);
+			writeInt(entry.dosTime);
+			writeInt(entry.crc.getValue());
+			writeInt(entry.zip64 ? ZIP64_MAGIC : entry.compressedSize);
+			writeInt(entry.zip64 ? ZIP64_MAGIC : entry.size);
+			writeShort(entry.name.length);
+			writeShort(extraLength > 0 ? extraLength + 4 : 0);
+			writeShort(0);  //Comment length
+			writeShort(0);  //Disk number
+			writeShort(0);  //Internal attributes
+			writeInt(0);    //External attributes
+			writeInt(offset64 ? ZIP64_MAGIC : entry.headerOffset);
+			write(entry.name, entry.name.length);
+			if (extraLength > 0)
+			{
+				writeShort(ZIP64_EXTRA_ID);
+				writeShort(extraLength);
+				if (entry.zip64)
+				{
+					writeLong(entry.size);
+					writeLong(entry.compressedSize);
+				}
+				if (offset64)
+					writeLong(entry.headerOffset);
+			}
+		}
+		
+		long end = written,
+				size = end - start;
+		int count = entries.size();
+		if (zip64Archive || count >= ZIP64_MAGIC_COUNT || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC)
+		{
+			writeInt(ZIP64_END_SIG);
+			writeLong(44);  //Size of the rest of record
+			writeShort(VERSION_ZIP64);
+			writeShort(VERSION_ZIP64);
+			writeInt(0);
+			writeInt(0);
+			writeLong(count);
+			writeLong(count);
+			writeLong(size);
+			writeLong(start);
+			
+			writeInt(ZIP64_LOCATOR_SIG);
+			writeInt(0);
+			writeLong(end);
+			writeInt(1);
+		}
+		
+		writeInt(END_SIG);
+		writeShort(0);
+		writeShort(0);
+		writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+		writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+		writeInt(Math.min(size, ZIP64_MAGIC));
+		writeInt(Math.min(start, ZIP64_MAGIC));
+		writeShort(0);
+	}
+	
+	
+	private void write(byte[] bytes, int length) throws IOException
+	{
+		out.write(bytes, 0, length);
+		written += length;
+	}
+	
+	private void writeShort(int value) throws IOException
+	{
+		writeNumber(value, 2);
+	}
+	
+	private void writeInt(long value) throws IOException
+	{
+		writeNumber(value, 4);
+	}
+	
+	private void writeLong(long value) throws IOException
+	{
+		writeNumber(value, 8);
+	}
+	
+	private void writeNumber(long value, int bytes) throws IOException
+	{
+		for (int i = 0; i < bytes; i++)
+			numBuffer[i] = (byte)(value >>> (i * 8));
+		write(numBuffer, bytes);
+	}
+	
+	private static long toDosTime(long millis)
+	{
+		LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+		if (time.getYear() < 1980)
+			return (1 << 21) | (1 << 16);  //1980-01-01 00:00:00
+		return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 
+				| time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+	}
+	
+	
+	private class ChunkCompressor implements Callable<Chunk>
+	{
+		private final File file;
+		private final long offset;
+		private final int length;
+		private final boolean last;
+		
+		public ChunkCompressor(File file, long offset, int length, boolean last)
+		{
+			this.file = file;
+			this.offset = offset;
+			this.length = length;
+			this.last = last;
+		}
+		
+		@Override
+		public Chunk call() throws IOException
+		{
+			//Chunk is read together with the end of previous chunk, which is used as dictionary
+			int dictLength = (int)Math.min(offset, DICTIONARY_SIZE);
+			byte[] data = new byte[dictLength + length];
+			readData(data, offset - dictLength);
+			
+			Deflater deflater = new Deflater(level, true);
+			try
+			{
+				if (dictLength > 0)
+					deflater.setDictionary(data, 0, dictLength);
+				deflater.setInput(data, dictLength, length);
+				if (last)
+					deflater.finish();
+				
+				//Chunks except for the last one end with sync flush, so that they can be concatenated into one deflate stream
+				byte[] compressed = new byte[length + (length >> 8) + 64];
+				int compressedLength = 0;
+				while (true)
+				{
+					if (compressedLength == compressed.length)
+						compressed = Arrays.copyOf(compressed, compressed.length * 2);
+					
+					int available = compressed.length - compressedLength;
+					int count = deflater.deflate(compressed, compressedLength, available, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+					compressedLength += count;
+					if (last ? deflater.finished() : count < available)
+						break;
+				}
+				return new Chunk(data, dictLength, length, compressed, compressedLength);
+			}
+			finally
+			{
+				deflater.end();
+			}
+		}
+		
+		private void readData(byte[] data, long position) throws IOException
+		{
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+			{
+				ByteBuffer buffer = ByteBuffer.wrap(data);
+				while (buffer.hasRemaining())
+				{
+					int count = channel.read(buffer, position);
+					if (count < 0)
+						throw new IOException("File '"+file+"' has been truncated while being archived");
+					position += count;
+				}
+			}
+		}
+	}
+	
+	private static class Chunk
+	{
+		private final byte[] data,
+				compressed;
+		private final int dataOffset,
+				dataLength,
+				compressedLength;
+		
+		public Chunk(byte[] data, int dataOffset, int dataLength, byte[] compressed, int compressedLength)
+		{
+			this.data = data;
+			this.dataOffset = dataOffset;
+			this.dataLength = dataLength;
+			this.compressed = compressed;
+			this.compressedLength = compressedLength;
+		}
+	}
+	
+	private static class PendingChunk
+	{
+		private final EntryInfo entry;
+		private final boolean first,
+				last;
+		private final Future<Chunk> future;
+		
+		public PendingChunk(EntryInfo entry, boolean first, boolean last, Future<Chunk> future)
+		{
+			this.entry = entry;
+			this.first = first;
+			this.last = last;
+			this.future = future;
+		}
+	}
+	
+	private static class EntryInfo
+	{
+		private final byte[] name;
+		private final long dosTime;
+		private final boolean zip64;
+		private final CRC32 crc = new CRC32();
+		private long size = 0,
+				compressedSize = 0,
+				headerOffset = 0;
+		
+		public EntryInfo(String name, long lastModified, boolean zip64)
+		{
+			this.name = name.getBytes(UTF_8);
+			this.dosTime = toDosTime(lastModified);
+			this.zip64 = zip64;
+		}
+	}
+	
+	private static class DaemonThreadFactory implements ThreadFactory
+	{
+		private final AtomicInteger index = new AtomicInteger(0);
+		
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "ZipCompressor-" + index.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.scripts;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.FileUtils;
+
+import com.exactprosystems.clearth.utils.Utils;
+
+/**
+ * Captures output stream of script keeping only bounded part of it in memory. 
+ * While output fits into head and tail sizes, it is kept in memory as a whole. 
+ * After that only the first and the last bytes are kept, the rest is written to spill file if it is enabled. 
+ * Output is also passed line by line to listener, if specified.
+ */
+public class ScriptOutputCapture extends OutputStream
+{
+	private final int headSize,
+			tailSize;
+	private final boolean spillEnabled;
+	private final File spillDir;
+	private final ScriptOutputListener listener;
+	private final boolean error;
+	private final Charset charset = Charset.defaultCharset();
+	
+	private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+	private byte[] head,
+			tail;
+	private int tailPos;
+	private long size;
+	private File spillFile;
+	private OutputStream spill;
+	
+	private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+	private boolean lastCR = false;
+	
+	public ScriptOutputCapture(ScriptOutputSettings settings, boolean error)
+	{
+		this.headSize = Math.max(settings.getHeadSize(), 0);
+		this.tailSize = Math.max(settings.getTailSize(), 0);
+		this.spillEnabled = settings.isSpillEnabled();
+		this.spillDir = settings.getSpillDir();
+		this.listener = settings.getListener();
+		this.error = error;
+	}
+	
+	
+	@Override
+	public void write(int b) throws IOException
+	{
+		write(new byte[] {(byte)b}, 0, 1);
+	}
+	
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException
+	{
+		if (len <= 0)
+			return;
+		
+		size += len;
+		if (memory != null)
+		{
+			memory.write(b, off, len);
+			if (memory.size() > headSize + tailSize)
+				overflow();
+		}
+		else
+		{
+			if (spill != null)
+				spill.write(b, off, len);
+			addToTail(b, off, len);
+		}
+		
+		if (listener != null)
+			splitLines(b, off, len);
+	}
+	
+	@Override
+	public synchronized void flush() throws IOException
+	{
+		if (spill != null)
+			spill.flush();
+	}
+	
+	/**
+	 * Closes spill file and passes the last line to listener. Spill file is kept, use {@link #deleteSpillFile()} to remove it
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (listener != null && (line.size() > 0))
+			passLine();
+		
+		if (spill != null)
+		{
+			spill.close();
+			spill = null;
+		}
+	}
+	
+	
+	/**
+	 * @return total number of bytes written to stream
+	 */
+	public synchronized long getSize()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return true if output didn't fit into memory and only its head and tail are kept
+	 */
+	public synchronized boolean isTruncated()
+	{
+		return memory == null;
+	}
+	
+	/**
+	 * @return file with full output or null if output fits into memory or spilling is disabled
+	 */
+	public synchronized File getSpillFile()
+	{
+		return spillFile;
+	}
+	
+	/**
+	 * @return full output if it fits into memory, else its head and tail with number of skipped bytes between them
+	 */
+	public synchronized String getSummary()
+	{
+		if (memory != null)
+			return new String(memory.toByteArray(), charset);
+		
+		long skipped = size - head.length - tail.length;
+		return new String(head, charset) + Utils.EOL + "... " + skipped + " bytes skipped ..." + Utils.EOL + new String(getTail(), charset);
+	}
+	
+	/**
+	 * @return full output, read from spill file if output didn't fit into memory. 
+	 * If spilling is disabled, result is the same as from {@link #getSummary()}
+	 */
+	public synchronized String getText() throws IOException
+	{
+		if (spillFile == null)
+			return getSummary();
+		
+		if (spill != null)
+			spill.flush();
+		return FileUtils.readFileToString(spillFile, charset);
+	}
+	
+	public synchronized void deleteSpillFile()
+	{
+		Utils.closeResource(spill);
+		spill = null;
+		if (spillFile != null)
+		{
+			FileUtils.deleteQuietly(spillFile);
+			spillFile = null;
+		}
+	}
+	
+	
+	private void overflow() throws IOException
+	{
+		byte[] data = memory.toByteArray();
+		memory = null;
+		
+		if (spillEnabled)
+		{
+			spillFile = spillDir != null ? File.createTempFile("script_output_", ".txt", spillDir) : File.createTempFile("script_output_", ".txt");
+			spill = new BufferedOutputStream(new FileOutputStream(spillFile));
+			spill.write(data);
+		}
+		
+		head = new byte[headSize];
+		System.arraycopy(data, 0, head, 0, headSize);
+		tail = new byte[tailSize];
+		tailPos = 0;
+		addToTail(data, headSize, data.length - headSize);
+	}
+	
+	private void addToTail(byte[] b, int off, int len)
+	{
+		if (tailSize == 0)
+			return;
+		
+		if (len >= tailSize)
+		{
+			System.arraycopy(b, off + len - tailSize, tail, 0, tailSize);
+			tailPos = 0;
+			return;
+		}
+		
+		int first = Math.min(len, tailSize - tailPos);
+		System.arraycopy(b, off, tail, tailPos, first);
+		System.arraycopy(b, off + first, tail, 0, len - first);
+		tailPos = (tailPos + len) % tailSize;
+	}
+	
+	private byte[] getTail()
+	{
+		//Tail buffer is completely filled at the moment of overflow, so it is a ring starting at tailPos
+		byte[] result = new byte[tailSize];
+		System.arraycopy(tail, tailPos, result, 0, tailSize - tailPos);
+		System.arraycopy(tail, 0, result, tailSize - tailPos, tailPos);
+		return result;
+	}
+	
+	private void splitLines(byte[] b, int off, int len)
+	{
+		int lineStart = off;
+		for (int i = off; i < off + len; i++)
+		{
+			byte c = b[i];
+			if (c != '\n' && c != '\r')
+			{
+				if (lastCR)
+					lastCR = false;
+				continue;
+			}
+			
+			//'\r\n' is one line terminator
+			boolean skip = c == '\n' && lastCR && i == lineStart;
+			lastCR = c == '\r';
+			if (skip)
+			{
+				lineStart = i + 1;
+				continue;
+			}
+			
+			line.write(b, lineStart, i - lineStart);
+			passLine();
+			lineStart = i + 1;
+		}
+		line.write(b, lineStart, off + len - lineStart);
+		
+		//Very long lines are passed in parts not to keep them in memory
+		if (line.size() > headSize + tailSize)
+			passLine();
+	}
+	
+	private void passLine()
+	{
+		String text = new String(line.toByteArray(), charset);
+		line.reset();
+		listener.onLine(text, error);
+	}
+}
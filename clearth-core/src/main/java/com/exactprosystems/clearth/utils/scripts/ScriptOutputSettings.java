@@ -0,0 +1,98 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.scripts;
+
+import java.io.File;
+
+/**
+ * Settings of script execution with bounded output capture, see {@link ScriptOutputCapture}
+ */
+public class ScriptOutputSettings
+{
+	public static final int DEFAULT_HEAD_SIZE = 64 * 1024,
+			DEFAULT_TAIL_SIZE = 64 * 1024;
+	
+	private int headSize = DEFAULT_HEAD_SIZE,
+			tailSize = DEFAULT_TAIL_SIZE;
+	private boolean spillEnabled = true;
+	private File spillDir;
+	private ScriptOutputListener listener;
+	
+	public int getHeadSize()
+	{
+		return headSize;
+	}
+	
+	/**
+	 * @param headSize number of bytes from the beginning of output to keep in memory
+	 */
+	public void setHeadSize(int headSize)
+	{
+		this.headSize = headSize;
+	}
+	
+	public int getTailSize()
+	{
+		return tailSize;
+	}
+	
+	/**
+	 * @param tailSize number of bytes from the end of output to keep in memory
+	 */
+	public void setTailSize(int tailSize)
+	{
+		this.tailSize = tailSize;
+	}
+	
+	public boolean isSpillEnabled()
+	{
+		return spillEnabled;
+	}
+	
+	/**
+	 * @param spillEnabled if true, output that doesn't fit into head and tail is written to file, so that full text remains available
+	 */
+	public void setSpillEnabled(boolean spillEnabled)
+	{
+		this.spillEnabled = spillEnabled;
+	}
+	
+	public File getSpillDir()
+	{
+		return spillDir;
+	}
+	
+	/**
+	 * @param spillDir directory to create spill files in. If null, default temporary directory is used
+	 */
+	public void setSpillDir(File spillDir)
+	{
+		this.spillDir = spillDir;
+	}
+	
+	public ScriptOutputListener getListener()
+	{
+		return listener;
+	}
+	
+	public void setListener(ScriptOutputListener listener)
+	{
+		this.listener = listener;
+	}
+}
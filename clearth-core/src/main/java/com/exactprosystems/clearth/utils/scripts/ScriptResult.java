@@ -18,6 +18,8 @@
 
 package com.exactprosystems.clearth.utils.scripts;
 
+import java.io.IOException;
+
 import com.exactprosystems.clearth.utils.CommaBuilder;
 
 public class ScriptResult 
@@ -39,6 +41,22 @@ public class ScriptResult
 		this.errStr = errStr;
 	}
 
+	/**
+	 * @return full text of script output. For results with bounded output capture it may be read from spill file
+	 */
+	public String readFullOutput() throws IOException
+	{
+		return outStr;
+	}
+	
+	/**
+	 * @return full text of script error output. For results with bounded output capture it may be read from spill file
+	 */
+	public String readFullError() throws IOException
+	{
+		return errStr;
+	}
+
 	@Override
 	public String toString() {
 		return new CommaBuilder().append("Result code=").add(result)
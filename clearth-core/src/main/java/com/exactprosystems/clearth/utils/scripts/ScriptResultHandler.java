@@ -21,6 +21,7 @@ package com.exactprosystems.clearth.utils.scripts;
 import static org.apache.commons.lang.time.DurationFormatUtils.*;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.exec.ExecuteException;
 import org.apache.commons.exec.ExecuteResultHandler;
@@ -28,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.exactprosystems.clearth.utils.LineBuilder;
+import com.exactprosystems.clearth.utils.Utils;
 
 /**
  * Implementation of 'ExecuteResultHandler' used for asynchronous
@@ -44,10 +46,10 @@ public class ScriptResultHandler implements ExecuteResultHandler
 	private final long startTime;
 
 	/** Output of script execution*/
-	private final ByteArrayOutputStream outWriter;
+	private final OutputStream outWriter;
 
 	/** Error of script execution */
-	private final ByteArrayOutputStream errWriter;
+	private final OutputStream errWriter;
 
 	/** Message for completed process*/
 	private String messageComplete;
@@ -59,6 +61,19 @@ public class ScriptResultHandler implements ExecuteResultHandler
 	 * Constructor.
 	 */
 	public ScriptResultHandler(ByteArrayOutputStream outWriter, ByteArrayOutputStream errWriter)
+	{
+		this((OutputStream)outWriter, (OutputStream)errWriter);
+	}
+
+	/**
+	 * Constructor for output captured with bounded size.
+	 */
+	public ScriptResultHandler(ScriptOutputCapture outWriter, ScriptOutputCapture errWriter)
+	{
+		this((OutputStream)outWriter, (OutputStream)errWriter);
+	}
+
+	private ScriptResultHandler(OutputStream outWriter, OutputStream errWriter)
 	{
 		this.outWriter = outWriter;
 		this.errWriter = errWriter;
@@ -100,9 +115,22 @@ public class ScriptResultHandler implements ExecuteResultHandler
 
 	private String buildMessage(String message, final int exitValue)
 	{
-		String scriptResult = String.format("Result code=%d, Output=%s, Error string=%s", exitValue, outWriter.toString(), errWriter.toString());
+		String scriptResult = String.format("Result code=%d, Output=%s, Error string=%s", exitValue, getText(outWriter), getText(errWriter));
 		LineBuilder lineBuilder = new LineBuilder();
 		lineBuilder.append(message).append(scriptResult).add("Script execution duration: ").add(formatDurationHMS(System.currentTimeMillis() - startTime));
 		return lineBuilder.toString();
 	}
+
+	private String getText(OutputStream stream)
+	{
+		if (!(stream instanceof ScriptOutputCapture))
+			return stream.toString();
+
+		//Output is only logged, so spill file is not needed after that
+		ScriptOutputCapture capture = (ScriptOutputCapture)stream;
+		Utils.closeResource(capture);
+		String result = capture.getSummary();
+		capture.deleteSpillFile();
+		return result;
+	}
 }
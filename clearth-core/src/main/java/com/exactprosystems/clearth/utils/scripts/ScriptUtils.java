@@ -67,8 +67,41 @@ public class ScriptUtils extends Utils
 		return execute(commandLine, args, exitValues);
 	}
 
+	/**
+	 * Executes script keeping only bounded part of its output in memory, see {@link ScriptOutputCapture}. 
+	 * Returned result should be closed to remove spill files
+	 */
+	public static StreamedScriptResult executeScriptStreaming(String commandLineString, String[] args, int[] exitValues,
+	                                                          ScriptOutputSettings settings) throws IOException
+	{
+		logger.debug("Command line to execute: {}. Parameters: {} ", commandLineString, args);
+
+		CommandLine commandLine = CommandLine.parse(commandLineString, EnvironmentUtils.getProcEnvironment());
+
+		return executeStreaming(commandLine, args, exitValues, settings);
+	}
+
+	public static StreamedScriptResult executeScriptStreaming(String command, String executableName, String shellOption,
+	                                                          String[] args, int[] exitValues, ScriptOutputSettings settings) throws IOException
+	{
+		CommandLine commandLine =
+				CommandLine.parse(executableName, EnvironmentUtils.getProcEnvironment())
+						.addArgument(shellOption).addArgument(command, false);
+		return executeStreaming(commandLine, args, exitValues, settings);
+	}
+
 	public static void executeScriptAsync(String commandLineString, String[] args, int[] exitValues,
 	                                      String messageComplete, String messageFail) throws IOException
+	{
+		executeScriptAsync(commandLineString, args, exitValues, messageComplete, messageFail, null);
+	}
+
+	/**
+	 * Executes script asynchronously, its output is logged on completion
+	 * @param outputSettings defines part of output to keep in memory, see {@link ScriptOutputCapture}. If null, whole output is kept
+	 */
+	public static void executeScriptAsync(String commandLineString, String[] args, int[] exitValues,
+	                                      String messageComplete, String messageFail, ScriptOutputSettings outputSettings) throws IOException
 	{
 		logger.debug("Command line to execute: {}. Parameters: {} ", commandLineString, args);
 
@@ -76,7 +109,7 @@ public class ScriptUtils extends Utils
 		if (args != null)
 			commandLine.addArguments(args, false);
 
-		executeAsync(commandLine, exitValues, messageComplete, messageFail);
+		executeAsync(commandLine, exitValues, messageComplete, messageFail, outputSettings);
 	}
 
 	public static void executeScriptAsync(String commandLineString, int[] exitValues, String messageComplete,
@@ -93,14 +126,20 @@ public class ScriptUtils extends Utils
 
 	public static void executeScriptAsync(String command, String executableName, String shellOption, int[] exitValues,
 	                                      String messageComplete, String messageFail) throws IOException
+	{
+		executeScriptAsync(command, executableName, shellOption, exitValues, messageComplete, messageFail, null);
+	}
+
+	public static void executeScriptAsync(String command, String executableName, String shellOption, int[] exitValues,
+	                                      String messageComplete, String messageFail, ScriptOutputSettings outputSettings) throws IOException
 	{
 		CommandLine commandLine =
 				CommandLine.parse(executableName, EnvironmentUtils.getProcEnvironment())
 						.addArgument(shellOption).addArgument(command, false);
-		executeAsync(commandLine, exitValues, messageComplete, messageFail);
+		executeAsync(commandLine, exitValues, messageComplete, messageFail, outputSettings);
 	}
 
-	private static ScriptResult execute(CommandLine commandLine, String[] args, int[] exitValues) throws IOException
+	private static Executor createExecutor(CommandLine commandLine, String[] args, int[] exitValues)
 	{
 		Executor executor = new DefaultExecutor();
 		if (args != null)
@@ -110,7 +149,12 @@ public class ScriptUtils extends Utils
 			executor.setExitValues(exitValues);
 		else
 			executor.setExitValue(0);
+		return executor;
+	}
 
+	private static ScriptResult execute(CommandLine commandLine, String[] args, int[] exitValues) throws IOException
+	{
+		Executor executor = createExecutor(commandLine, args, exitValues);
 		try (ByteArrayOutputStream outWriter = new ByteArrayOutputStream();
 		     ByteArrayOutputStream errWriter = new ByteArrayOutputStream())
 		{
@@ -122,23 +166,62 @@ public class ScriptUtils extends Utils
 		}
 	}
 
+	private static StreamedScriptResult executeStreaming(CommandLine commandLine, String[] args, int[] exitValues,
+	                                                     ScriptOutputSettings settings) throws IOException
+	{
+		Executor executor = createExecutor(commandLine, args, exitValues);
+		ScriptOutputCapture outCapture = new ScriptOutputCapture(settings, false),
+				errCapture = new ScriptOutputCapture(settings, true);
+		boolean executed = false;
+		try
+		{
+			executor.setStreamHandler(new PumpStreamHandler(outCapture, errCapture));
+			long startTime = System.currentTimeMillis();
+			int result = executor.execute(commandLine);
+			logger.debug("Script execution duration: {}", formatDurationHMS(System.currentTimeMillis() - startTime));
+			
+			outCapture.close();
+			errCapture.close();
+			executed = true;
+			return new StreamedScriptResult(result, outCapture, errCapture);
+		}
+		finally
+		{
+			if (!executed)
+			{
+				Utils.closeResource(outCapture);
+				Utils.closeResource(errCapture);
+				outCapture.deleteSpillFile();
+				errCapture.deleteSpillFile();
+			}
+		}
+	}
+
 	private static void executeAsync(CommandLine commandLine, int[] exitValues, String messageComplete,
-	                                 String messageFail) throws IOException
+	                                 String messageFail, ScriptOutputSettings outputSettings) throws IOException
 	{
 		Executor executor = new DefaultExecutor();
 		executor.setExitValues(exitValues);
 
-		try (ByteArrayOutputStream outWriter = new ByteArrayOutputStream();
-		     ByteArrayOutputStream errWriter = new ByteArrayOutputStream())
+		ScriptResultHandler scriptResultHandler;
+		if (outputSettings != null)
+		{
+			ScriptOutputCapture outWriter = new ScriptOutputCapture(outputSettings, false),
+					errWriter = new ScriptOutputCapture(outputSettings, true);
+			executor.setStreamHandler(new PumpStreamHandler(outWriter, errWriter));
+			scriptResultHandler = new ScriptResultHandler(outWriter, errWriter);
+		}
+		else
 		{
+			ByteArrayOutputStream outWriter = new ByteArrayOutputStream(),
+					errWriter = new ByteArrayOutputStream();
 			executor.setStreamHandler(new PumpStreamHandler(new PrintStream(outWriter), new PrintStream(errWriter)));
+			scriptResultHandler = new ScriptResultHandler(outWriter, errWriter);
+		}
 
-			ScriptResultHandler scriptResultHandler = new ScriptResultHandler(outWriter, errWriter);
-
-			scriptResultHandler.setMessageComplete(messageComplete);
-			scriptResultHandler.setMessageFail(messageFail);
+		scriptResultHandler.setMessageComplete(messageComplete);
+		scriptResultHandler.setMessageFail(messageFail);
 
-			executor.execute(commandLine, scriptResultHandler);
-		}
+		executor.execute(commandLine, scriptResultHandler);
 	}
 }
@@ -0,0 +1,108 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.scripts;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Result of script executed with bounded output capture. 
+ * {@link #outStr} and {@link #errStr} contain full output only if it fits into memory, else they contain head and tail of output. 
+ * Full text is available via {@link #readFullOutput()} and {@link #readFullError()} if spilling is enabled. 
+ * Spill files are removed when result is closed
+ */
+public class StreamedScriptResult extends ScriptResult implements Closeable
+{
+	private final ScriptOutputCapture outCapture,
+			errCapture;
+	
+	public StreamedScriptResult(int result, ScriptOutputCapture outCapture, ScriptOutputCapture errCapture)
+	{
+		super(result, outCapture.getSummary(), errCapture.getSummary());
+		this.outCapture = outCapture;
+		this.errCapture = errCapture;
+	}
+	
+	@Override
+	public void close()
+	{
+		deleteOutputFile();
+		deleteErrorFile();
+	}
+	
+	public void deleteOutputFile()
+	{
+		outCapture.deleteSpillFile();
+	}
+	
+	public void deleteErrorFile()
+	{
+		errCapture.deleteSpillFile();
+	}
+	
+	
+	@Override
+	public String readFullOutput() throws IOException
+	{
+		return outCapture.getText();
+	}
+	
+	@Override
+	public String readFullError() throws IOException
+	{
+		return errCapture.getText();
+	}
+	
+	public boolean isOutputTruncated()
+	{
+		return outCapture.isTruncated();
+	}
+	
+	public boolean isErrorTruncated()
+	{
+		return errCapture.isTruncated();
+	}
+	
+	public long getOutputSize()
+	{
+		return outCapture.getSize();
+	}
+	
+	public long getErrorSize()
+	{
+		return errCapture.getSize();
+	}
+	
+	/**
+	 * @return file with full output of script or null if output fits into memory or spilling is disabled
+	 */
+	public File getOutputFile()
+	{
+		return outCapture.getSpillFile();
+	}
+	
+	/**
+	 * @return file with full error output of script or null if it fits into memory or spilling is disabled
+	 */
+	public File getErrorFile()
+	{
+		return errCapture.getSpillFile();
+	}
+}
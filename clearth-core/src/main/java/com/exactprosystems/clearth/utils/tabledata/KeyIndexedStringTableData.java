@@ -0,0 +1,216 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.tabledata;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Storage of table-like data where header and values are strings, with hash index on key columns.
+ * Rows are kept in original order, while index allows to quickly find and remove row by values of key columns
+ */
+public class KeyIndexedStringTableData extends StringTableData
+{
+	protected final List<String> keyColumns;
+	protected final Set<String> keyColumnsSet;
+	protected final Map<List<String>, List<TableRow<String, String>>> index = new HashMap<List<String>, List<TableRow<String, String>>>();
+	//Rows removed by key are removed from rows list lazily, because removal from the middle of list is slow
+	protected final Set<TableRow<String, String>> removedRows = Collections.newSetFromMap(new IdentityHashMap<TableRow<String, String>, Boolean>());
+	
+	public KeyIndexedStringTableData(Set<String> header, RowsListFactory<String, String> rowsListFactory, Collection<String> keyColumns)
+	{
+		super(header, rowsListFactory);
+		this.keyColumns = new ArrayList<String>(keyColumns);
+		this.keyColumnsSet = new HashSet<String>(keyColumns);
+	}
+	
+	public KeyIndexedStringTableData(TableHeader<String> header, RowsListFactory<String, String> rowsListFactory, Collection<String> keyColumns)
+	{
+		super(header, rowsListFactory);
+		this.keyColumns = new ArrayList<String>(keyColumns);
+		this.keyColumnsSet = new HashSet<String>(keyColumns);
+	}
+	
+	
+	public List<String> getKeyColumns()
+	{
+		return Collections.unmodifiableList(keyColumns);
+	}
+	
+	/**
+	 * @return true if given key names contain all key columns of index, thus index can be used to find rows by these keys
+	 */
+	public boolean canFindBy(Collection<String> keyNames)
+	{
+		return !keyColumns.isEmpty() && keyNames.containsAll(keyColumnsSet);
+	}
+	
+	/**
+	 * Finds the first row whose key columns have given values and which matches given filter, and removes it from table
+	 * @param keyValues values of key columns by column name, can contain values of other columns as well
+	 * @param filter to check found rows by other criteria
+	 * @return found row, null if no row matches
+	 */
+	public TableRow<String, String> findAndRemove(Map<String, String> keyValues, Predicate<TableRow<String, String>> filter)
+	{
+		List<String> key = new ArrayList<String>(keyColumns.size());
+		for (String column : keyColumns)
+			key.add(keyValues.get(column));
+		
+		List<TableRow<String, String>> bucket = index.get(key);
+		if (bucket == null)
+			return null;
+		
+		Iterator<TableRow<String, String>> it = bucket.iterator();
+		while (it.hasNext())
+		{
+			TableRow<String, String> row = it.next();
+			if (!filter.test(row))
+				continue;
+			
+			it.remove();
+			if (bucket.isEmpty())
+				index.remove(key);
+			removedRows.add(row);
+			if (removedRows.size() > rows.size() / 2)
+				compact();
+			return row;
+		}
+		return null;
+	}
+	
+	@Override
+	public void add(TableRow<String, String> row) throws IllegalArgumentException
+	{
+		super.add(row);
+		index.computeIfAbsent(createKey(row), k -> new LinkedList<TableRow<String, String>>()).add(row);
+	}
+	
+	@Override
+	public void clear()
+	{
+		super.clear();
+		index.clear();
+		removedRows.clear();
+	}
+	
+	@Override
+	public Iterator<TableRow<String, String>> iterator()
+	{
+		compact();
+		Iterator<TableRow<String, String>> it = rows.iterator();
+		return new Iterator<TableRow<String, String>>()
+		{
+			private TableRow<String, String> current;
+			
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public TableRow<String, String> next()
+			{
+				current = it.next();
+				return current;
+			}
+			
+			@Override
+			public void remove()
+			{
+				it.remove();
+				removeFromIndex(current);
+			}
+		};
+	}
+	
+	@Override
+	public TableRow<String, String> removeRow(int index)
+	{
+		compact();
+		TableRow<String, String> row = super.removeRow(index);
+		removeFromIndex(row);
+		return row;
+	}
+	
+	@Override
+	public TableRow<String, String> getRow(int index)
+	{
+		compact();
+		return super.getRow(index);
+	}
+	
+	@Override
+	public List<TableRow<String, String>> getRows()
+	{
+		compact();
+		return super.getRows();
+	}
+	
+	@Override
+	public int size()
+	{
+		return rows.size() - removedRows.size();
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	
+	protected List<String> createKey(TableRow<String, String> row)
+	{
+		List<String> key = new ArrayList<String>(keyColumns.size());
+		for (String column : keyColumns)
+			key.add(row.getValue(column));
+		return key;
+	}
+	
+	protected void removeFromIndex(TableRow<String, String> row)
+	{
+		List<String> key = createKey(row);
+		List<TableRow<String, String>> bucket = index.get(key);
+		if (bucket == null)
+			return;
+		
+		//Rows are compared by identity, equal rows are different table rows
+		Iterator<TableRow<String, String>> it = bucket.iterator();
+		while (it.hasNext())
+		{
+			if (it.next() == row)
+			{
+				it.remove();
+				break;
+			}
+		}
+		if (bucket.isEmpty())
+			index.remove(key);
+	}
+	
+	protected void compact()
+	{
+		if (removedRows.isEmpty())
+			return;
+		rows.removeIf(removedRows::contains);
+		removedRows.clear();
+	}
+}
@@ -0,0 +1,163 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.xlsx;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Cell read from XLSX sheet by {@link XlsxSheetReader}. Keeps cell value as it is stored in file, 
+ * with shared and inline strings already resolved
+ */
+public class XlsxCell
+{
+	public static final String TYPE_NUMBER = "n",
+			TYPE_SHARED_STRING = "s",
+			TYPE_INLINE_STRING = "inlineStr",
+			TYPE_FORMULA_STRING = "str",
+			TYPE_BOOLEAN = "b",
+			TYPE_ERROR = "e";
+	
+	public static final String FORMULA_NORMAL = "normal";
+	
+	private final int columnIndex,
+			styleIndex;
+	private final String type,
+			value,
+			formula,
+			formulaType;
+	
+	public XlsxCell(int columnIndex, String type, int styleIndex, String value, String formula, String formulaType)
+	{
+		this.columnIndex = columnIndex;
+		this.type = type;
+		this.styleIndex = styleIndex;
+		this.value = value;
+		this.formula = formula;
+		this.formulaType = formulaType;
+	}
+	
+	
+	public int getColumnIndex()
+	{
+		return columnIndex;
+	}
+	
+	/**
+	 * @return type of cell as specified in file, 'n' if not specified
+	 */
+	public String getType()
+	{
+		return type;
+	}
+	
+	/**
+	 * @return index of cell style, -1 if cell has no explicit style
+	 */
+	public int getStyleIndex()
+	{
+		return styleIndex;
+	}
+	
+	/**
+	 * @return stored value of cell or cached result of its formula, null if cell has no value
+	 */
+	public String getValue()
+	{
+		return value;
+	}
+	
+	/**
+	 * @return formula text, empty string for cells that refer to shared formula and null if cell has no formula
+	 */
+	public String getFormula()
+	{
+		return formula;
+	}
+	
+	public String getFormulaType()
+	{
+		return formulaType;
+	}
+	
+	public boolean hasFormula()
+	{
+		return formula != null;
+	}
+	
+	/**
+	 * @return true if cell formula is shared with other cells or is applied to range of cells. 
+	 * Text of such formulas needs the whole workbook to be restored
+	 */
+	public boolean isGroupFormula()
+	{
+		return formula != null && !FORMULA_NORMAL.equals(formulaType);
+	}
+	
+	public boolean isBoolean()
+	{
+		return TYPE_BOOLEAN.equals(type);
+	}
+	
+	public boolean isError()
+	{
+		return TYPE_ERROR.equals(type);
+	}
+	
+	public boolean isString()
+	{
+		return TYPE_SHARED_STRING.equals(type) || TYPE_INLINE_STRING.equals(type) || TYPE_FORMULA_STRING.equals(type);
+	}
+	
+	/**
+	 * @return true if cell has neither value nor formula, i.e. it is present in file only to keep its style
+	 */
+	public boolean isBlank()
+	{
+		return formula == null && value == null && !isString() && !isBoolean() && !isError();
+	}
+	
+	/**
+	 * @return true if text representation of cell is blank. Formulas, numbers, booleans and errors are never treated as blank text
+	 */
+	public boolean isBlankText()
+	{
+		if (formula != null)
+			return false;
+		if (isString())
+			return StringUtils.isBlank(value);
+		return isBlank();
+	}
+	
+	/**
+	 * @return cell value converted to string the same way as done by setting string type for cell in workbook: 
+	 * numbers and errors are returned as stored, booleans as TRUE or FALSE, formulas are replaced with their cached results
+	 */
+	public String getStringValue()
+	{
+		if (isBoolean())
+			return "1".equals(value) ? "TRUE" : "FALSE";
+		return value != null ? value : "";
+	}
+	
+	@Override
+	public String toString()
+	{
+		return columnIndex + ": " + (formula != null ? "=" + formula : value);
+	}
+}
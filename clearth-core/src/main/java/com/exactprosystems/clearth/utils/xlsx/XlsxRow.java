@@ -0,0 +1,68 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.xlsx;
+
+import java.util.List;
+
+/**
+ * Row read from XLSX sheet by {@link XlsxSheetReader}. Contains only cells present in file, ordered by column index
+ */
+public class XlsxRow
+{
+	private final int rowIndex;
+	private final List<XlsxCell> cells;
+	
+	public XlsxRow(int rowIndex, List<XlsxCell> cells)
+	{
+		this.rowIndex = rowIndex;
+		this.cells = cells;
+	}
+	
+	
+	public int getRowIndex()
+	{
+		return rowIndex;
+	}
+	
+	public List<XlsxCell> getCells()
+	{
+		return cells;
+	}
+	
+	public boolean isEmpty()
+	{
+		return cells.isEmpty();
+	}
+	
+	/**
+	 * @return index of first cell in row, -1 if row has no cells
+	 */
+	public int getFirstCellIndex()
+	{
+		return cells.isEmpty() ? -1 : cells.get(0).getColumnIndex();
+	}
+	
+	/**
+	 * @return index of last cell in row plus one, -1 if row has no cells
+	 */
+	public int getLastCellIndex()
+	{
+		return cells.isEmpty() ? -1 : cells.get(cells.size() - 1).getColumnIndex() + 1;
+	}
+}
@@ -0,0 +1,394 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.xlsx;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.SAXException;
+
+import com.exactprosystems.clearth.utils.Utils;
+
+/**
+ * Reads sheet of XLSX file row by row, parsing sheet XML as a stream. 
+ * Unlike XSSFWorkbook, doesn't keep sheet contents in memory: only shared strings and styles tables are loaded
+ */
+public class XlsxSheetReader implements Closeable
+{
+	private static final String TAG_SHEET_DATA = "sheetData",
+			TAG_ROW = "row",
+			TAG_CELL = "c",
+			TAG_VALUE = "v",
+			TAG_FORMULA = "f",
+			TAG_INLINE_STRING = "is",
+			TAG_TEXT = "t",
+			TAG_PHONETIC_RUN = "rPh",
+			TAG_WORKBOOK_PROPERTIES = "workbookPr",
+			ATTR_REF = "r",
+			ATTR_TYPE = "t",
+			ATTR_STYLE = "s",
+			ATTR_DATE_1904 = "date1904";
+	
+	private static final int GENERAL_FORMAT_INDEX = 0;
+	private static final XMLInputFactory XML_FACTORY = createXmlFactory();
+	
+	private final OPCPackage pkg;
+	private final ReadOnlySharedStringsTable sharedStrings;
+	private final StylesTable styles;
+	private final boolean date1904;
+	private final String sheetName;
+	private final InputStream sheetStream;
+	private final XMLStreamReader xml;
+	private final Map<Integer, String> formatStrings = new HashMap<Integer, String>();
+	private int lastRowIndex = -1;
+	private boolean finished = false;
+	
+	/**
+	 * Creates reader for the first sheet of given file
+	 */
+	public XlsxSheetReader(File file) throws IOException
+	{
+		OPCPackage opened = null;
+		InputStream stream = null;
+		try
+		{
+			opened = OPCPackage.open(file, PackageAccess.READ);
+			XSSFReader reader = new XSSFReader(opened);
+			date1904 = readDate1904(reader);
+			sharedStrings = new ReadOnlySharedStringsTable(opened, false);
+			styles = reader.getStylesTable();
+			
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator)reader.getSheetsData();
+			if (!sheets.hasNext())
+				throw new IOException("File '"+file+"' contains no sheets");
+			stream = sheets.next();
+			sheetName = sheets.getSheetName();
+			xml = XML_FACTORY.createXMLStreamReader(stream);
+		}
+		catch (OpenXML4JException | SAXException | XMLStreamException e)
+		{
+			Utils.closeResource(stream);
+			revert(opened);
+			throw new IOException("Could not open XLSX file '"+file+"'", e);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Utils.closeResource(stream);
+			revert(opened);
+			throw e;
+		}
+		pkg = opened;
+		sheetStream = stream;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			xml.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException("Could not close sheet reader", e);
+		}
+		finally
+		{
+			Utils.closeResource(sheetStream);
+			revert(pkg);
+		}
+	}
+	
+	
+	public String getSheetName()
+	{
+		return sheetName;
+	}
+	
+	public boolean isDate1904()
+	{
+		return date1904;
+	}
+	
+	/**
+	 * @return next row present in sheet or null if there are no more rows. 
+	 * Rows absent in file are skipped, so index of returned row may differ from index of previous one by more than 1
+	 */
+	public XlsxRow readRow() throws IOException
+	{
+		if (finished)
+			return null;
+		
+		try
+		{
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+				if (event == XMLStreamConstants.START_ELEMENT && TAG_ROW.equals(xml.getLocalName()))
+					return readRowContent();
+				if (event == XMLStreamConstants.END_ELEMENT && TAG_SHEET_DATA.equals(xml.getLocalName()))
+					break;
+			}
+			finished = true;
+			return null;
+		}
+		catch (XMLStreamException | RuntimeException e)
+		{
+			throw new IOException("Error while reading row "+(lastRowIndex + 2)+" of sheet '"+sheetName+"'", e);
+		}
+	}
+	
+	/**
+	 * Formats value of cell the same way as {@link DataFormatter#formatCellValue(org.apache.poi.ss.usermodel.Cell)} does for cells of workbook: 
+	 * cells with formulas are represented by formula text, numbers and dates are formatted according to cell style
+	 * @param cell to get formatted value from. Text of formulas from {@link XlsxCell#isGroupFormula() groups} can't be restored and is returned as stored in cell
+	 * @param formatter to use for numbers and dates
+	 */
+	public String formatCellValue(XlsxCell cell, DataFormatter formatter)
+	{
+		if (cell.hasFormula())
+			return cell.getFormula();
+		if (cell.isBoolean())
+			return cell.getStringValue();
+		if (cell.isError())
+			return cell.getValue() != null ? cell.getValue() : FormulaError.NULL.getString();
+		if (cell.isString())
+			return cell.getStringValue();
+		if (cell.getValue() == null)
+			return "";
+		
+		double value = Double.parseDouble(cell.getValue());
+		XSSFCellStyle style = getCellStyle(cell);
+		//Numbers without style are formatted as "General", like DataFormatter does, i.e. 1 instead of 1.0
+		if (style == null)
+			return formatGeneral(value, formatter);
+		
+		int formatIndex = style.getDataFormat();
+		String formatString = getFormatString(style);
+		if (formatString == null || formatString.trim().isEmpty())
+			return formatGeneral(value, formatter);
+		return formatter.formatRawCellContents(value, formatIndex, formatString, date1904);
+	}
+	
+	
+	private XlsxRow readRowContent() throws XMLStreamException
+	{
+		String ref = xml.getAttributeValue(null, ATTR_REF);
+		int rowIndex = ref != null ? Integer.parseInt(ref) - 1 : lastRowIndex + 1;
+		lastRowIndex = rowIndex;
+		
+		List<XlsxCell> cells = new ArrayList<XlsxCell>();
+		int lastColumn = -1;
+		while (xml.hasNext())
+		{
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT && TAG_CELL.equals(xml.getLocalName()))
+			{
+				XlsxCell cell = readCell(lastColumn);
+				cells.add(cell);
+				lastColumn = cell.getColumnIndex();
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT && TAG_ROW.equals(xml.getLocalName()))
+				break;
+		}
+		return new XlsxRow(rowIndex, cells);
+	}
+	
+	private XlsxCell readCell(int lastColumn) throws XMLStreamException
+	{
+		String ref = xml.getAttributeValue(null, ATTR_REF),
+				type = xml.getAttributeValue(null, ATTR_TYPE),
+				style = xml.getAttributeValue(null, ATTR_STYLE);
+		int column = ref != null ? getColumnIndex(ref) : lastColumn + 1;
+		if (type == null)
+			type = XlsxCell.TYPE_NUMBER;
+		
+		String value = null,
+				formula = null,
+				formulaType = null;
+		while (xml.hasNext())
+		{
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = xml.getLocalName();
+				if (TAG_VALUE.equals(name))
+					value = xml.getElementText();
+				else if (TAG_FORMULA.equals(name))
+				{
+					formulaType = xml.getAttributeValue(null, ATTR_TYPE);
+					if (formulaType == null)
+						formulaType = XlsxCell.FORMULA_NORMAL;
+					formula = xml.getElementText();
+				}
+				else if (TAG_INLINE_STRING.equals(name))
+					value = readInlineString();
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT && TAG_CELL.equals(xml.getLocalName()))
+				break;
+		}
+		
+		if (XlsxCell.TYPE_SHARED_STRING.equals(type) && value != null && formula == null)
+			value = decodeText(sharedStrings.getEntryAt(Integer.parseInt(value)));
+		return new XlsxCell(column, type, style != null ? Integer.parseInt(style) : -1, value, formula, formulaType);
+	}
+	
+	private String readInlineString() throws XMLStreamException
+	{
+		StringBuilder result = new StringBuilder();
+		int phoneticDepth = 0;
+		while (xml.hasNext())
+		{
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = xml.getLocalName();
+				if (TAG_PHONETIC_RUN.equals(name))
+					phoneticDepth++;
+				else if (TAG_TEXT.equals(name) && phoneticDepth == 0)
+					result.append(xml.getElementText());
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				String name = xml.getLocalName();
+				if (TAG_PHONETIC_RUN.equals(name))
+					phoneticDepth--;
+				else if (TAG_INLINE_STRING.equals(name))
+					break;
+			}
+		}
+		return decodeText(result.toString());
+	}
+	
+	private int getColumnIndex(String cellRef)
+	{
+		int result = 0;
+		for (int i = 0; i < cellRef.length(); i++)
+		{
+			char c = cellRef.charAt(i);
+			if (c == '$')
+				continue;
+			if (c < 'A' || c > 'Z')
+				break;
+			result = result * 26 + (c - 'A' + 1);
+		}
+		if (result == 0)
+			return new CellReference(cellRef).getCol();
+		return result - 1;
+	}
+	
+	private String decodeText(String text)
+	{
+		//Characters not allowed in XML are stored as '_xHHHH_', decoding only strings that may contain them
+		if (text == null || text.indexOf("_x") < 0)
+			return text;
+		return new XSSFRichTextString(text).getString();
+	}
+	
+	private String getFormatString(XSSFCellStyle style)
+	{
+		int formatIndex = style.getDataFormat();
+		String result = formatStrings.get(formatIndex);
+		if (result == null && !formatStrings.containsKey(formatIndex))
+		{
+			result = style.getDataFormatString();
+			if (result == null)
+				result = BuiltinFormats.getBuiltinFormat(formatIndex);
+			formatStrings.put(formatIndex, result);
+		}
+		return result;
+	}
+	
+	private String formatGeneral(double value, DataFormatter formatter)
+	{
+		return formatter.formatRawCellContents(value, GENERAL_FORMAT_INDEX, BuiltinFormats.getBuiltinFormat(GENERAL_FORMAT_INDEX), date1904);
+	}
+	
+	private XSSFCellStyle getCellStyle(XlsxCell cell)
+	{
+		if (styles == null)
+			return null;
+		if (cell.getStyleIndex() >= 0)
+			return styles.getStyleAt(cell.getStyleIndex());
+		return styles.getNumCellStyles() > 0 ? styles.getStyleAt(0) : null;
+	}
+	
+	
+	private static XMLInputFactory createXmlFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+	
+	private static boolean readDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XMLStreamException
+	{
+		try (InputStream stream = reader.getWorkbookData())
+		{
+			XMLStreamReader workbook = XML_FACTORY.createXMLStreamReader(stream);
+			try
+			{
+				while (workbook.hasNext())
+				{
+					if (workbook.next() == XMLStreamConstants.START_ELEMENT && TAG_WORKBOOK_PROPERTIES.equals(workbook.getLocalName()))
+					{
+						String value = workbook.getAttributeValue(null, ATTR_DATE_1904);
+						return "1".equals(value) || "true".equalsIgnoreCase(value);
+					}
+				}
+				return false;
+			}
+			finally
+			{
+				workbook.close();
+			}
+		}
+	}
+	
+	private static void revert(OPCPackage pkg)
+	{
+		//Package is opened for reading, closing it would try to save changes
+		if (pkg != null)
+			pkg.revert();
+	}
+}
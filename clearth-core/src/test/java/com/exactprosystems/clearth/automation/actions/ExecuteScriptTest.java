@@ -0,0 +1,121 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.ClearThCore;
+import com.exactprosystems.clearth.automation.report.Result;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.doReturn;
+import static org.testng.Assert.*;
+
+public class ExecuteScriptTest extends BasicTestNgTest
+{
+	private static final File TEMP_DIR = new File("testOutput/ExecuteScriptTest/temp"),
+			OUTPUT_DIR = new File("testOutput/ExecuteScriptTest/output");
+	
+	@Override
+	protected void mockOtherApplicationFields(ClearThCore application) throws Exception
+	{
+		doReturn(TEMP_DIR.getPath()).when(application).getTempDirPath();
+	}
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		Files.createDirectories(TEMP_DIR.toPath());
+		Files.createDirectories(OUTPUT_DIR.toPath());
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		FileUtils.deleteDirectory(TEMP_DIR.getParentFile());
+	}
+	
+	
+	@Test
+	public void limitedOutputSavedToFile() throws Exception
+	{
+		File outputFile = new File(OUTPUT_DIR, "output.txt");
+		ExecuteScript action = createAction("seq 1 20000", 
+				ExecuteScript.OUTPUT_LIMIT, "100", ExecuteScript.OUTPUT_FILE, outputFile.getPath());
+		Result result = action.run(null, null, null);
+		
+		assertTrue(result.isSuccess(), result.getComment());
+		assertTrue(action.getOutputParams().get(ExecuteScript.OUTPUT).length() < 200);
+		assertEquals(action.getOutputParams().get(ExecuteScript.OUTPUT_FILE), outputFile.getAbsolutePath());
+		
+		List<String> lines = Files.readAllLines(outputFile.toPath());
+		assertEquals(lines.size(), 20000);
+		assertEquals(lines.get(19999), "20000");
+		assertEquals(TEMP_DIR.list().length, 0, "Temporary files left");
+	}
+	
+	@Test
+	public void spillFileRemovedWithoutOutputFile() throws Exception
+	{
+		ExecuteScript action = createAction("seq 1 20000", ExecuteScript.OUTPUT_LIMIT, "100");
+		Result result = action.run(null, null, null);
+		
+		assertTrue(result.isSuccess(), result.getComment());
+		assertNull(action.getOutputParams().get(ExecuteScript.OUTPUT_FILE));
+		assertEquals(TEMP_DIR.list().length, 0, "Temporary files left");
+	}
+	
+	@Test
+	public void outputNotLimitedByDefault() throws Exception
+	{
+		ExecuteScript action = createAction("seq 1 20000");
+		Result result = action.run(null, null, null);
+		
+		assertTrue(result.isSuccess(), result.getComment());
+		String output = action.getOutputParams().get(ExecuteScript.OUTPUT);
+		assertTrue(output.startsWith("1\n2\n"));
+		assertTrue(output.endsWith("19999\n20000"));
+	}
+	
+	
+	private ExecuteScript createAction(String script, String... params)
+	{
+		Map<String, String> actionParams = new LinkedHashMap<>();
+		actionParams.put(ExecuteScript.SCRIPT_TEXT_PARAM, script);
+		actionParams.put(ExecuteScript.EXECUTABLE_NAME_PARAM, "sh");
+		for (int i = 0; i < params.length; i += 2)
+			actionParams.put(params[i], params[i+1]);
+		
+		return new ExecuteScript()
+		{
+			{
+				inputParams = actionParams;
+			}
+		};
+	}
+}
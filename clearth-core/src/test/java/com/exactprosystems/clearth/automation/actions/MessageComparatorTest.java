@@ -0,0 +1,133 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.automation.exceptions.ParametersException;
+import com.exactprosystems.clearth.automation.report.Result;
+import com.exactprosystems.clearth.automation.report.ResultDetail;
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.SimpleClearThMessage;
+import com.exactprosystems.clearth.messages.RgKeyFieldNames;
+import com.exactprosystems.clearth.utils.ComparisonUtils;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class MessageComparatorTest extends BasicTestNgTest
+{
+	private static final String RG_TYPE = "RG";
+	private static final Set<String> SERVICE_PARAMS = new HashSet<String>(Arrays.asList(ClearThMessage.SUBMSGTYPE, ClearThMessage.SUBMSGSOURCE));
+	private static final String[] A_VALUES = {"1", "2", "3", ComparisonUtils.IS_NOT_EMPTY, ""},
+			B_VALUES = {"x", "y", ComparisonUtils.IS_EMPTY, ""},
+			C_VALUES = {"p", "q", ""};
+	
+	@Test
+	public void testIndexSameAsFindSubMessage()
+	{
+		Random random = new Random(1);
+		MessageComparator<SimpleClearThMessage> comparator = new MessageComparator<SimpleClearThMessage>(SERVICE_PARAMS, true, false, false);
+		for (int iteration = 0; iteration < 200; iteration++)
+		{
+			List<SimpleClearThMessage> actual = new ArrayList<SimpleClearThMessage>(),
+					expected = new ArrayList<SimpleClearThMessage>();
+			for (int i = 0; i < 30; i++)
+				actual.add(createSubMessage(random, 3, "actual" + i));
+			for (int i = 0; i < 10; i++)
+				expected.add(createSubMessage(random, A_VALUES.length, "expected" + i));
+			
+			Set<String> keys = iteration % 2 == 0 ? null : new HashSet<String>(Arrays.asList("A", "B"));
+			List<SimpleClearThMessage> sequentialList = new ArrayList<SimpleClearThMessage>(actual),
+					indexedList = new ArrayList<SimpleClearThMessage>(actual);
+			MessageComparator<SimpleClearThMessage>.SubMessagesIndex index = comparator.new SubMessagesIndex(indexedList);
+			for (SimpleClearThMessage e : expected)
+			{
+				SimpleClearThMessage bySequentialSearch = keys != null ? comparator.findSubMessage(sequentialList, e, keys) 
+						: comparator.findSubMessage(sequentialList, e);
+				assertSame(index.find(e, keys), bySequentialSearch, "Iteration " + iteration + ", " + e.getField(ClearThMessage.SUBMSGSOURCE));
+			}
+			
+			index.removeFound();
+			assertEquals(indexedList.size(), sequentialList.size());
+			for (int i = 0; i < indexedList.size(); i++)
+				assertSame(indexedList.get(i), sequentialList.get(i));
+		}
+	}
+	
+	@Test
+	public void testOverriddenFieldsEqual()
+	{
+		MessageComparator<SimpleClearThMessage> comparator = new MessageComparator<SimpleClearThMessage>(SERVICE_PARAMS, true, false, false)
+		{
+			@Override
+			protected boolean fieldsEqual(String name, SimpleClearThMessage expectedMessage, SimpleClearThMessage actualMessage)
+					throws ParametersException
+			{
+				return expectedMessage.getField(name).equalsIgnoreCase(actualMessage.getField(name));
+			}
+			
+			@Override
+			protected ResultDetail compareFields(String name, SimpleClearThMessage expectedMessage, SimpleClearThMessage actualMessage)
+			{
+				String expectedValue = expectedMessage.getField(name),
+						actualValue = actualMessage.getField(name);
+				return new ResultDetail(name, expectedValue, actualValue, expectedValue.equalsIgnoreCase(actualValue));
+			}
+		};
+		
+		SimpleClearThMessage expected = new SimpleClearThMessage(),
+				actual = new SimpleClearThMessage();
+		for (String value : new String[] {"abc", "def"})
+		{
+			expected.addSubMessage(createSubMessage(value, "expected_" + value));
+			actual.addSubMessage(createSubMessage(value.toUpperCase(), null));
+		}
+		
+		//Index would look for sub-messages with exactly the same values, overridden method should be used instead
+		Result result = comparator.compareMessages(expected, actual, new RgKeyFieldNames());
+		assertTrue(result.isSuccess());
+		
+		result = new MessageComparator<SimpleClearThMessage>(SERVICE_PARAMS, true, false, false).compareMessages(expected, actual, new RgKeyFieldNames());
+		assertFalse(result.isSuccess());
+	}
+	
+	
+	private SimpleClearThMessage createSubMessage(Random random, int aValuesCount, String source)
+	{
+		SimpleClearThMessage result = new SimpleClearThMessage();
+		result.addField(ClearThMessage.SUBMSGTYPE, RG_TYPE);
+		result.addField(ClearThMessage.SUBMSGSOURCE, source);
+		result.addField("A", A_VALUES[random.nextInt(aValuesCount)]);
+		result.addField("B", B_VALUES[random.nextInt(aValuesCount == 3 ? 2 : B_VALUES.length)]);
+		result.addField("C", C_VALUES[random.nextInt(C_VALUES.length)]);
+		return result;
+	}
+	
+	private SimpleClearThMessage createSubMessage(String value, String source)
+	{
+		SimpleClearThMessage result = new SimpleClearThMessage();
+		result.addField(ClearThMessage.SUBMSGTYPE, RG_TYPE);
+		if (source != null)
+			result.addField(ClearThMessage.SUBMSGSOURCE, source);
+		result.addField("Value", value);
+		return result;
+	}
+}
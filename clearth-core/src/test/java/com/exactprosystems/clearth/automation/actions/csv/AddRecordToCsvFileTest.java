@@ -0,0 +1,113 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions.csv;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.automation.GlobalContext;
+import com.exactprosystems.clearth.automation.report.Result;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+public class AddRecordToCsvFileTest extends BasicTestNgTest
+{
+	private File dir;
+	private GlobalContext globalContext;
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		dir = Files.createTempDirectory("AddRecordToCsvFileTest").toFile();
+		globalContext = new GlobalContext(new Date(), false, new HashMap<>(), null, "test");
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		CsvAppenders.get(globalContext).close();
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	
+	@Test
+	public void appendedRecordsAreReadableWhileFileIsOpen() throws Exception
+	{
+		File file = new File(dir, "records.csv");
+		
+		assertNull(addRecord(file, "ID", "1", "Name", "First"));
+		assertNull(addRecord(file, "ID", "2", "Name", "Second"));
+		
+		//File is still open by CsvAppenders, but all records should be on disk already
+		assertEquals(Files.readAllLines(file.toPath()), asList("ID,Name", "1,First", "2,Second"));
+	}
+	
+	@Test
+	public void fileIsRewrittenWhenNotAppending() throws Exception
+	{
+		File file = new File(dir, "rewritten.csv");
+		
+		assertNull(addRecord(file, "ID", "1"));
+		assertNull(addRecord(file, "AppendData", "false", "AddHeader", "true", "ID", "2"));
+		assertNull(addRecord(file, "ID", "3"));
+		
+		assertEquals(Files.readAllLines(file.toPath()), asList("ID", "2", "3"));
+	}
+	
+	@Test
+	public void recordNotMatchingHeaderIsRejected() throws Exception
+	{
+		File file = new File(dir, "mismatch.csv");
+		
+		assertNull(addRecord(file, "ID", "1"));
+		Result result = addRecord(file, "Unknown", "2");
+		
+		assertNotNull(result);
+		assertFalse(result.isSuccess());
+		assertEquals(Files.readAllLines(file.toPath()), asList("ID", "1"));
+	}
+	
+	
+	private Result addRecord(File file, String... params) throws Exception
+	{
+		Map<String, String> actionParams = new LinkedHashMap<>();
+		actionParams.put("FileName", file.getAbsolutePath());
+		for (int i = 0; i < params.length; i += 2)
+			actionParams.put(params[i], params[i+1]);
+		
+		AddRecordToCsvFile action = new AddRecordToCsvFile()
+		{
+			{
+				inputParams = actionParams;
+			}
+		};
+		return action.run(null, null, globalContext);
+	}
+}
@@ -0,0 +1,100 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions.csv;
+
+import com.exactprosystems.clearth.automation.actions.csv.CsvFilesCache.CsvFile;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+public class CsvFilesCacheTest
+{
+	private File dir;
+	private CsvFilesCache cache;
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		dir = Files.createTempDirectory("CsvFilesCacheTest").toFile();
+		cache = new CsvFilesCache();
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	
+	@Test
+	public void fileCachedUntilModified() throws Exception
+	{
+		File file = new File(dir, "data.csv");
+		write(file, "ID,Name", "1,First");
+		
+		CsvFile first = cache.getFile(file);
+		assertSame(cache.getFile(file), first);
+		assertEquals(first.getRecordsCount(), 1);
+		
+		//Size is changed
+		write(file, "ID,Name", "1,First", "2,Second");
+		CsvFile second = cache.getFile(file);
+		assertNotSame(second, first);
+		assertEquals(second.getRecordsCount(), 2);
+		assertEquals(second.find(asList(0), asList("2")), asList(1));
+		
+		//Size is the same, but modification time is changed
+		write(file, "ID,Name", "1,First", "2,Other_");
+		assertTrue(file.setLastModified(file.lastModified() + 2000));
+		CsvFile third = cache.getFile(file);
+		assertNotSame(third, second);
+		assertEquals(third.getRecord(1)[1], "Other_");
+	}
+	
+	@Test
+	public void recordsFoundByKeyColumns() throws Exception
+	{
+		File file = new File(dir, "keys.csv");
+		write(file, "ID,Name,Value", "1,First,10", "2,Second,20", "2,second,30", "3,Third,40");
+		CsvFile csv = cache.getFile(file);
+		
+		assertEquals(csv.find(asList(0), asList("2")), asList(1, 2));
+		//Values are compared ignoring case
+		assertEquals(csv.find(asList(0, 1), asList("2", "SECOND")), asList(1, 2));
+		assertEquals(csv.find(asList(1), asList("third")), asList(3));
+		assertEquals(csv.find(asList(0, 1), asList("3", "First")), Collections.emptyList());
+		assertEquals(csv.find(asList(2), asList("50")), Collections.emptyList());
+	}
+	
+	
+	private void write(File file, String... lines) throws IOException
+	{
+		Files.write(file.toPath(), asList(lines), StandardCharsets.UTF_8);
+	}
+}
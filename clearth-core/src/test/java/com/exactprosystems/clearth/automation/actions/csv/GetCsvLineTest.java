@@ -0,0 +1,144 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.actions.csv;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.automation.GlobalContext;
+import com.exactprosystems.clearth.automation.actions.GetCsvLine;
+import com.exactprosystems.clearth.automation.report.Result;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+public class GetCsvLineTest extends BasicTestNgTest
+{
+	private File dir,
+			file;
+	private GlobalContext globalContext;
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		dir = Files.createTempDirectory("GetCsvLineTest").toFile();
+		file = new File(dir, "lines.csv");
+		write("ID,Name,Value", "1,First,10", "2,Second,20", "2,Other,30");
+		globalContext = new GlobalContext(new Date(), false, new HashMap<>(), null, "test");
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		CsvAppenders.get(globalContext).close();
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	
+	@Test
+	public void lineFoundByKeyFields() throws Exception
+	{
+		TestGetCsvLine action = getLine("ID", "1");
+		assertTrue(action.getResult().isSuccess());
+		assertEquals(action.getOutputParams().get("Name"), "First");
+		assertEquals(action.getOutputParams().get("Value"), "10");
+		
+		action = getLine("ID", "2", "Name", "OTHER");
+		assertTrue(action.getResult().isSuccess());
+		assertEquals(action.getOutputParams().get("Value"), "30");
+	}
+	
+	@Test
+	public void firstOfSeveralLinesFound() throws Exception
+	{
+		TestGetCsvLine action = getLine("ID", "2");
+		assertTrue(action.getResult().isSuccess());
+		assertEquals(action.getOutputParams().get("Name"), "Second");
+		assertEquals(action.getResult().getMessage(), "2 lines found for defined key fields");
+	}
+	
+	@Test
+	public void lineNotFound() throws Exception
+	{
+		assertFalse(getLine("ID", "5").getResult().isSuccess());
+		assertFalse(getLine("ID", "1", "Name", "Second").getResult().isSuccess());
+	}
+	
+	@Test
+	public void changedFileReadAgain() throws Exception
+	{
+		assertEquals(getLine("ID", "1").getOutputParams().get("Value"), "10");
+		
+		write("ID,Name,Value", "1,First,11", "3,Third,30");
+		assertTrue(file.setLastModified(file.lastModified() + 2000));
+		assertEquals(getLine("ID", "1").getOutputParams().get("Value"), "11");
+		assertEquals(getLine("ID", "3").getOutputParams().get("Name"), "Third");
+	}
+	
+	
+	private TestGetCsvLine getLine(String... params)
+	{
+		Map<String, String> actionParams = new LinkedHashMap<>();
+		actionParams.put("FileName", file.getAbsolutePath());
+		for (int i = 0; i < params.length; i += 2)
+			actionParams.put(params[i], params[i+1]);
+		
+		TestGetCsvLine action = new TestGetCsvLine(actionParams);
+		action.execute(globalContext);
+		return action;
+	}
+	
+	private void write(String... lines) throws IOException
+	{
+		Files.write(file.toPath(), asList(lines), StandardCharsets.UTF_8);
+	}
+	
+	
+	private static class TestGetCsvLine extends GetCsvLine
+	{
+		private Result result;
+		
+		public TestGetCsvLine(Map<String, String> actionParams)
+		{
+			inputParams = actionParams;
+		}
+		
+		public void execute(GlobalContext globalContext)
+		{
+			result = run(null, null, globalContext);
+		}
+		
+		@Override
+		public Result getResult()
+		{
+			return result;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report;
+
+import com.exactprosystems.clearth.automation.report.ActionReportWriter.OpenReportFile;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class ActionReportWriterTest
+{
+	private static final String DATA = "action report";
+	private static final long WAIT_TIMEOUT = 5000;
+	
+	private File dir,
+			reportFile;
+	private ActionReportWriter writer;
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		dir = Files.createTempDirectory("ActionReportWriterTest").toFile();
+		reportFile = new File(dir, "step.html");
+		writer = new ActionReportWriter();
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		writer.close();
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	
+	@Test
+	public void reportsFlushedPeriodically() throws Exception
+	{
+		writer.setFlushInterval(100);
+		write(reportFile);
+		assertEquals(reportFile.length(), 0, "Report is written before flush");
+		
+		waitForLength(reportFile, DATA.length());
+		assertEquals(read(reportFile), DATA);
+		
+		//Flushing continues while file is open
+		write(reportFile);
+		waitForLength(reportFile, DATA.length() * 2);
+	}
+	
+	@Test
+	public void allOpenFilesFlushed() throws Exception
+	{
+		writer.setFlushInterval(100);
+		File failedReportFile = new File(dir, "step_failed.html");
+		write(reportFile);
+		write(failedReportFile);
+		
+		waitForLength(reportFile, DATA.length());
+		waitForLength(failedReportFile, DATA.length());
+	}
+	
+	@Test
+	public void reportsFlushedAfterEachAction() throws Exception
+	{
+		writer.setFlushInterval(0);
+		write(reportFile);
+		assertEquals(read(reportFile), DATA);
+	}
+	
+	@Test
+	public void reportsFlushedOnClose() throws Exception
+	{
+		writer.setFlushInterval(ActionReportWriter.DEFAULT_FLUSH_INTERVAL * 3600);
+		write(reportFile);
+		assertEquals(reportFile.length(), 0);
+		
+		writer.flushReportFiles();
+		assertEquals(read(reportFile), DATA);
+		
+		write(reportFile);
+		writer.close();
+		assertEquals(read(reportFile), DATA + DATA);
+		
+		//File is opened again for next step and appended
+		write(reportFile);
+		writer.reset();
+		assertEquals(read(reportFile), DATA + DATA + DATA);
+	}
+	
+	
+	@Test
+	public void reportWriterHookUsed() throws Exception
+	{
+		writer = new ActionReportWriter()
+		{
+			@Override
+			protected PrintWriter createReportWriter(File reportFile) throws IOException
+			{
+				return new PrintWriter(new BufferedWriter(new FileWriter(reportFile, true)))
+				{
+					@Override
+					public void print(String s)
+					{
+						super.print(s.toUpperCase());
+					}
+				};
+			}
+		};
+		writer.setFlushInterval(0);
+		write(reportFile);
+		assertEquals(read(reportFile), DATA.toUpperCase());
+		assertEquals(writer.getOpenReportFile(reportFile).position(), DATA.length());
+	}
+	
+	@Test
+	public void asyncRangesClearedOnReset() throws Exception
+	{
+		Field field = ActionReportWriter.class.getDeclaredField("asyncRanges");
+		field.setAccessible(true);
+		@SuppressWarnings("unchecked")
+		Map<File, Map<String, long[]>> asyncRanges = (Map<File, Map<String, long[]>>)field.get(writer);
+		
+		asyncRanges.put(reportFile.getAbsoluteFile(), new HashMap<String, long[]>());
+		writer.reset();
+		assertTrue(asyncRanges.isEmpty(), "Ranges of previous run are kept after reset");
+		
+		asyncRanges.put(reportFile.getAbsoluteFile(), new HashMap<String, long[]>());
+		writer.close();
+		assertTrue(asyncRanges.isEmpty(), "Ranges of previous run are kept after close");
+	}
+	
+	
+	private void write(File file) throws IOException
+	{
+		OpenReportFile openFile = writer.getOpenReportFile(file);
+		openFile.writer.print(DATA);
+		writer.afterReportWritten(openFile);
+	}
+	
+	private void waitForLength(File file, long length) throws InterruptedException
+	{
+		long end = System.currentTimeMillis() + WAIT_TIMEOUT;
+		while (file.length() < length && System.currentTimeMillis() < end)
+			Thread.sleep(20);
+		assertEquals(file.length(), length, "Length of flushed file "+file.getName());
+	}
+	
+	private String read(File file) throws IOException
+	{
+		return FileUtils.readFileToString(file, UTF_8);
+	}
+}
@@ -0,0 +1,65 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.testng.Assert.*;
+
+public class ReportPatchesTest extends BasicTestNgTest
+{
+	private static final File REPORT_FILE = new File("testOutput/report_patches/step");
+	
+	@Test
+	public void testPatchesApplied() throws IOException
+	{
+		REPORT_FILE.getParentFile().mkdirs();
+		ReportPatches.removePatches(REPORT_FILE);
+		FileUtils.write(REPORT_FILE, "head|async1|middle|async2|tail", US_ASCII);
+		
+		ReportPatches.addPatch(REPORT_FILE, 19, 25, "second".getBytes(US_ASCII));
+		ReportPatches.addPatch(REPORT_FILE, 5, 11, "first action done".getBytes(US_ASCII));
+		assertTrue(ReportPatches.hasPatches(REPORT_FILE));
+		assertEquals(read(), "head|first action done|middle|second|tail");
+		
+		//Later patch of the same range replaces earlier one
+		ReportPatches.addPatch(REPORT_FILE, 19, 25, "".getBytes(US_ASCII));
+		assertEquals(read(), "head|first action done|middle||tail");
+		
+		assertTrue(ReportPatches.removePatches(REPORT_FILE));
+		assertEquals(read(), "head|async1|middle|async2|tail");
+	}
+	
+	
+	private String read() throws IOException
+	{
+		try (InputStream in = ReportPatches.openStream(REPORT_FILE))
+		{
+			return IOUtils.toString(in, US_ASCII);
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report.html;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.ClearThCore;
+import com.exactprosystems.clearth.automation.DefaultStep;
+import com.exactprosystems.clearth.automation.Matrix;
+import com.exactprosystems.clearth.automation.Step;
+import com.exactprosystems.clearth.automation.report.ReportStatus;
+import com.exactprosystems.clearth.automation.report.html.template.ReportTemplatesProcessor;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.*;
+
+public class RealTimeReportTest extends BasicTestNgTest
+{
+	private static final String TEMPLATES_DIR = Paths.get(System.getProperty("user.dir")).getParent().resolve("cfg/templates").toString() + File.separator;
+	
+	private File dir;
+	private Matrix matrix;
+	
+	@Override
+	protected void mockOtherApplicationFields(ClearThCore application) throws Exception
+	{
+		doReturn(TEMPLATES_DIR).when(application).getHtmlTemplatesPath();
+		doReturn("").when(application).getReportsFilePath();
+		ReportTemplatesProcessor processor = new ReportTemplatesProcessor();
+		doReturn(processor).when(application).getReportTemplatesProcessor();
+	}
+	
+	@BeforeMethod
+	public void prepare() throws IOException
+	{
+		dir = Files.createTempDirectory("RealTimeReportTest").toFile();
+		matrix = mock(Matrix.class);
+	}
+	
+	@AfterMethod
+	public void cleanUp() throws IOException
+	{
+		FileUtils.deleteDirectory(dir);
+	}
+	
+	
+	@Test
+	public void sectionCachedWithActionsReport() throws Exception
+	{
+		File actionsFile = new File(dir, "Step1");
+		FileUtils.writeStringToFile(actionsFile, "ACTIONS-1", StandardCharsets.UTF_8);
+		DefaultStep step = createStep("Step1");
+		
+		StepData first = render(step, actionsFile);
+		assertTrue(first.getRenderedHtml().contains("Step1 - Default (PASSED)"));
+		assertTrue(first.getRenderedHtml().contains("ACTIONS-1"));
+		
+		StepData second = render(step, actionsFile);
+		assertSame(second.getRenderedHtml(), first.getRenderedHtml());
+		assertEquals(RealTimeStepsCache.forMatrix(matrix).size(), 1);
+	}
+	
+	@Test
+	public void sectionRenderedAgainWhenActionsReportChanged() throws Exception
+	{
+		File actionsFile = new File(dir, "Step1");
+		FileUtils.writeStringToFile(actionsFile, "ACTIONS-1", StandardCharsets.UTF_8);
+		DefaultStep step = createStep("Step1");
+		StepData first = render(step, actionsFile);
+		
+		FileUtils.writeStringToFile(actionsFile, "ACTIONS-1ACTIONS-2", StandardCharsets.UTF_8);
+		StepData second = render(step, actionsFile);
+		assertNotSame(second.getRenderedHtml(), first.getRenderedHtml());
+		assertTrue(second.getRenderedHtml().contains("ACTIONS-2"));
+	}
+	
+	@Test
+	public void sectionRenderedAgainWhenStepChanged() throws Exception
+	{
+		DefaultStep step = createStep("Step1");
+		StepData first = render(step, null);
+		
+		step.setError(new Exception("Step error"));
+		StepData second = render(step, null);
+		assertNotSame(second.getRenderedHtml(), first.getRenderedHtml());
+		
+		StepData third = render(step, null);
+		assertSame(third.getRenderedHtml(), second.getRenderedHtml());
+	}
+	
+	@Test
+	public void onlyChangedStepsReturned() throws Exception
+	{
+		DefaultStep step1 = createStep("Step1"),
+				step2 = createStep("Step2");
+		RealTimeReport report = new RealTimeReport(matrix, "user", "report", null, null);
+		render(report, step1, step2);
+		long revision = report.getStepsRevision();
+		assertEquals(report.getStepsChangedSince(0).keySet(), new HashSet<String>(Arrays.asList("cont1", "cont2")));
+		
+		render(report, step1, step2);
+		assertEquals(report.getStepsRevision(), revision);
+		assertTrue(report.getStepsChangedSince(revision).isEmpty());
+		
+		step2.setError(new Exception("Step error"));
+		render(report, step1, step2);
+		assertTrue(report.getStepsRevision() > revision);
+		Map<String, String> changed = report.getStepsChangedSince(revision);
+		assertEquals(changed.keySet(), Collections.singleton("cont2"));
+		assertTrue(changed.get("cont2").contains("id=\"cont2_step\""));
+	}
+	
+	@Test
+	public void changedStepsWritten() throws Exception
+	{
+		doReturn("matrix").when(matrix).getShortFileName();
+		DefaultStep step1 = createStep("Step1"),
+				step2 = createStep("Step2");
+		step1.setFinished(new Date());
+		step2.setFinished(new Date());
+		List<Step> steps = Arrays.<Step>asList(step1, step2);
+		List<String> matrixSteps = Arrays.asList("Step1", "Step2");
+		
+		RealTimeReport first = new RealTimeReport(matrix, "user", "report", null, null);
+		first.writeChangedSteps(steps, matrixSteps, dir, 0);
+		long revision = first.getStepsRevision();
+		String html = first.getHtmlContent().toString();
+		assertTrue(html.contains("cont1_step") && html.contains("cont2_step"));
+		assertFalse(html.contains("<body"));
+		
+		step1.setError(new Exception("Step error"));
+		RealTimeReport second = new RealTimeReport(matrix, "user", "report", null, null);
+		second.writeChangedSteps(steps, matrixSteps, dir, revision);
+		html = second.getHtmlContent().toString();
+		assertTrue(html.contains("cont1_step"));
+		assertFalse(html.contains("cont2_step"));
+	}
+	
+	@Test
+	public void sectionsNotRenderedForFailedOnly() throws Exception
+	{
+		StepData stepData = new StepData(createStep("Step1"), new ReportStatus(true), null, false, "Step1");
+		new RealTimeReport(matrix, "user", "report", null, null).renderSteps(Collections.singletonList(stepData), true);
+		assertNull(stepData.getRenderedHtml());
+		assertEquals(RealTimeStepsCache.forMatrix(matrix).size(), 0);
+	}
+	
+	
+	private DefaultStep createStep(String name)
+	{
+		return new DefaultStep(name, "Default", null, null, false, null, false, false, true, null);
+	}
+	
+	private StepData render(DefaultStep step, File actionsFile) throws Exception
+	{
+		StepData result = new StepData(step, new ReportStatus(true), actionsFile != null ? actionsFile.getAbsolutePath() : null, 
+				false, step.getName());
+		new RealTimeReport(matrix, "user", "report", null, null).renderSteps(Collections.singletonList(result), false);
+		return result;
+	}
+	
+	private void render(RealTimeReport report, DefaultStep... steps) throws Exception
+	{
+		List<StepData> stepsData = new ArrayList<StepData>();
+		for (DefaultStep step : steps)
+			stepsData.add(new StepData(step, new ReportStatus(true), null, false, step.getName()));
+		report.renderSteps(stepsData, false);
+	}
+}
@@ -0,0 +1,100 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.automation.report.html.template;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.ClearThCore;
+import com.exactprosystems.clearth.automation.DefaultStep;
+import com.exactprosystems.clearth.automation.report.ReportStatus;
+import com.exactprosystems.clearth.automation.report.html.StepData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.doReturn;
+import static org.testng.Assert.*;
+
+public class ReportTemplatesProcessorTest extends BasicTestNgTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(ReportTemplatesProcessorTest.class);
+	private static final String TEMPLATES_DIR = Paths.get(System.getProperty("user.dir")).getParent().resolve("cfg/templates").toString() + File.separator;
+	private static final int STEPS_COUNT = 1000;
+	
+	@Override
+	protected void mockOtherApplicationFields(ClearThCore application)
+	{
+		doReturn(TEMPLATES_DIR).when(application).getHtmlTemplatesPath();
+	}
+	
+	@Test
+	public void testRenderSteps() throws Exception
+	{
+		ReportTemplatesProcessor processor = new ReportTemplatesProcessor();
+		long start = System.nanoTime(),
+				length = 0;
+		for (int i = 1; i <= STEPS_COUNT; i++)
+		{
+			String html = renderStep(processor, i);
+			assertTrue(html.contains("Step" + i + " - Default (PASSED)"), "Step " + i + " rendered");
+			length += html.length();
+		}
+		long duration = System.nanoTime() - start;
+		logger.info("Rendered {} step reports ({} chars) in {} ms, {} steps/s", STEPS_COUNT, length, duration / 1000000, 
+				STEPS_COUNT * 1000000000L / Math.max(duration, 1));
+	}
+	
+	@Test
+	public void testParametersNotModified() throws Exception
+	{
+		ReportTemplatesProcessor processor = new ReportTemplatesProcessor();
+		processor.addParameter("customResultClass", ReportStatus.class);
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("stepData", createStepData(1));
+		parameters.put("containerId", "cont1");
+		StringWriter writer = new StringWriter();
+		processor.processTemplate(writer, parameters, ReportTemplateFiles.REALTIME_STEP);
+		
+		//Common parameters are available to templates without being copied to parameters of call
+		assertTrue(writer.toString().contains("Step1 - Default (PASSED)"));
+		assertEquals(parameters.size(), 2);
+	}
+	
+	
+	private String renderStep(ReportTemplatesProcessor processor, int index) throws Exception
+	{
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put("stepData", createStepData(index));
+		parameters.put("containerId", "cont" + index);
+		StringWriter writer = new StringWriter();
+		processor.processTemplate(writer, parameters, ReportTemplateFiles.REALTIME_STEP);
+		return writer.toString();
+	}
+	
+	private StepData createStepData(int index)
+	{
+		DefaultStep step = new DefaultStep("Step" + index, "Default", null, null, false, null, false, false, true, null);
+		return new StepData(step, new ReportStatus(true), "", false, "Step" + index);
+	}
+}
@@ -0,0 +1,178 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.utils.Pair;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+public class BoundedMessageQueueTest extends BasicTestNgTest
+{
+	private static final File SPILL_FILE = new File("testOutput/queue_spill.dat");
+
+	@Test
+	public void testDrop()
+	{
+		BoundedMessageQueue queue = new BoundedMessageQueue("drop", 3, 1, QueueOverflowPolicy.DROP, null);
+		for (int i = 0; i < 5; i++)
+			queue.offer(message(i));
+
+		assertEquals(queue.size(), 3);
+		assertEquals(queue.getDropped(), 2);
+		assertEquals(queue.getPeakDepth(), 3);
+		assertEquals(pollAll(queue), "0,1,2");
+	}
+
+	@Test
+	public void testSpillKeepsOrder()
+	{
+		SPILL_FILE.getParentFile().mkdirs();
+		BoundedMessageQueue queue = new BoundedMessageQueue("spill", 3, 1, QueueOverflowPolicy.SPILL, SPILL_FILE);
+		for (int i = 0; i < 5; i++)
+			queue.offer(message(i));
+
+		assertEquals(queue.getMemoryDepth(), 3);
+		assertEquals(queue.getSpilledDepth(), 2);
+		assertTrue(SPILL_FILE.isFile());
+
+		//Messages added while spilled ones are pending should be spilled too to keep order
+		assertEquals(queue.poll().getFirst(), "0");
+		queue.offer(message(5));
+		assertEquals(pollAll(queue), "1,2,3,4,5");
+		assertEquals(queue.getSpilled(), 3);
+		assertFalse(SPILL_FILE.exists());
+		queue.close();
+	}
+
+	@Test(timeOut = 10000)
+	public void testBlockUntilLowWatermark() throws Exception
+	{
+		BoundedMessageQueue queue = new BoundedMessageQueue("block", 4, 1, QueueOverflowPolicy.BLOCK, null);
+		for (int i = 0; i < 4; i++)
+			queue.offer(message(i));
+
+		Thread producer = new Thread(() -> {
+			try
+			{
+				queue.put(message(4));
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+
+		//Queue is drained to 2 messages, this is above low watermark, producer still waits
+		queue.poll();
+		queue.poll();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+
+		queue.poll();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		assertEquals(pollAll(queue), "3,4");
+		assertTrue(queue.getBlockedTime() > 0);
+		assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testOfferDoesNotBlock()
+	{
+		BoundedMessageQueue queue = new BoundedMessageQueue("offer", 2, 0, QueueOverflowPolicy.BLOCK, null);
+		assertTrue(queue.offer(message(0)));
+		assertTrue(queue.offer(message(1)));
+		assertFalse(queue.offer(message(2)));
+
+		//Queue is not drained to low watermark yet
+		queue.poll();
+		assertFalse(queue.offer(message(3)));
+
+		queue.poll();
+		assertTrue(queue.offer(message(4)));
+		assertEquals(pollAll(queue), "4");
+	}
+
+	@Test(timeOut = 10000)
+	public void testInterruptedPutKeepsMessage() throws Exception
+	{
+		BoundedMessageQueue queue = new BoundedMessageQueue("interrupt", 1, 0, QueueOverflowPolicy.BLOCK, null);
+		queue.put(message(0));
+
+		AtomicBoolean interrupted = new AtomicBoolean(false);
+		Thread producer = new Thread(() -> {
+			try
+			{
+				queue.put(message(1));
+			}
+			catch (InterruptedException e)
+			{
+				//Interruption should be re-asserted instead
+			}
+			interrupted.set(Thread.currentThread().isInterrupted());
+		});
+		producer.start();
+		producer.join(200);
+		assertTrue(producer.isAlive());
+
+		producer.interrupt();
+		producer.join(5000);
+		assertFalse(producer.isAlive());
+		assertTrue(interrupted.get());
+		assertEquals(pollAll(queue), "0,1");
+	}
+
+	@Test
+	public void testAddUnboundedIgnoresCapacity()
+	{
+		BoundedMessageQueue queue = new BoundedMessageQueue("restore", 2, 0, QueueOverflowPolicy.DROP, null);
+		for (int i = 0; i < 4; i++)
+			queue.addUnbounded(message(i));
+
+		assertEquals(queue.getDropped(), 0);
+		assertEquals(pollAll(queue), "0,1,2,3");
+	}
+
+
+	private Pair<String, Date> message(int index)
+	{
+		return new Pair<String, Date>(Integer.toString(index), new Date());
+	}
+
+	private String pollAll(BoundedMessageQueue queue)
+	{
+		List<String> result = new ArrayList<String>();
+		Pair<String, Date> msg;
+		while ((msg = queue.poll()) != null)
+			result.add(msg.getFirst());
+		return String.join(",", result);
+	}
+}
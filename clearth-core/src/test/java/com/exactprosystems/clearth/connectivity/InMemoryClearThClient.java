@@ -0,0 +1,123 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client that keeps sent messages in memory, used to test sending without MQ server
+ */
+public class InMemoryClearThClient implements ClearThClient
+{
+	private final List<String> sent = new CopyOnWriteArrayList<String>();
+	private final List<List<String>> batches = new CopyOnWriteArrayList<List<String>>();
+	private volatile CountDownLatch sendLatch;
+	private volatile String failOn;
+	
+	@Override
+	public String sendMessage(String message) throws IOException, ConnectivityException
+	{
+		checkMessage(message);
+		sent.add(message);
+		return message;
+	}
+	
+	@Override
+	public List<String> sendMessages(List<String> messages) throws IOException, ConnectivityException
+	{
+		//Imitating unit of work: nothing is committed if any message fails
+		for (String message : messages)
+			checkMessage(message);
+		
+		batches.add(new ArrayList<String>(messages));
+		sent.addAll(messages);
+		return new ArrayList<String>(messages);
+	}
+	
+	private void checkMessage(String message) throws ConnectionException
+	{
+		CountDownLatch latch = sendLatch;
+		if (latch != null)
+		{
+			try
+			{
+				latch.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		if (message.equals(failOn))
+			throw new ConnectionException("Could not send '"+message+"'");
+	}
+	
+	@Override
+	public void addReceiveListener(ReceiveListener listener)
+	{
+	}
+	
+	@Override
+	public void addReceiveListeners(List<ReceiveListener> listeners)
+	{
+	}
+	
+	@Override
+	public void start(boolean startListeners)
+	{
+	}
+	
+	@Override
+	public void dispose(boolean disposeListeners)
+	{
+	}
+	
+	
+	public List<String> getSent()
+	{
+		return sent;
+	}
+	
+	public List<List<String>> getBatches()
+	{
+		return batches;
+	}
+	
+	/**
+	 * @param sendLatch latch to wait for before sending each message, null to send immediately
+	 */
+	public void setSendLatch(CountDownLatch sendLatch)
+	{
+		this.sendLatch = sendLatch;
+	}
+	
+	/**
+	 * @param failOn message which sending should fail
+	 */
+	public void setFailOn(String failOn)
+	{
+		this.failOn = failOn;
+	}
+}
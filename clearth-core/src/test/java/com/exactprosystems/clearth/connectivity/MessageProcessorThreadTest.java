@@ -0,0 +1,162 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class MessageProcessorThreadTest extends BasicTestNgTest
+{
+	@Test(timeOut = 10000)
+	public void testSlowAsynchronousListener() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+		TestListener slow = new TestListener(release),
+				fast = new TestListener(null);
+		slow.setAsynchronous(true);
+		
+		BlockingQueue<Pair<String, Date>> queue = new LinkedBlockingQueue<Pair<String, Date>>();
+		for (int i = 0; i < 3; i++)
+			queue.add(new Pair<String, Date>("msg"+i, new Date(1000 + i)));
+		
+		MessageProcessorThread processor = new MessageProcessorThread("Test processor", queue, Arrays.asList(slow, fast));
+		processor.start();
+		try
+		{
+			//Slow listener is blocked, but other listener should get all messages anyway
+			while (fast.received.size() < 3)
+				Thread.sleep(10);
+			assertEquals(fast.received.toString(), "[msg0@1000, msg1@1001, msg2@1002]");
+			assertTrue(slow.received.isEmpty());
+			
+			release.countDown();
+		}
+		finally
+		{
+			processor.terminate();
+		}
+		
+		assertTrue(processor.awaitTermination(5000));
+		assertEquals(slow.received.toString(), "[msg0@1000, msg1@1001, msg2@1002]");
+	}
+	
+	@Test(timeOut = 10000)
+	public void testBoundedDispatcherQueue() throws Exception
+	{
+		CountDownLatch release = new CountDownLatch(1);
+		TestListener slow = new TestListener(release),
+				fast = new TestListener(null);
+		slow.setAsynchronous(true);
+		
+		BlockingQueue<Pair<String, Date>> queue = new LinkedBlockingQueue<Pair<String, Date>>();
+		for (int i = 0; i < 10; i++)
+			queue.add(new Pair<String, Date>("msg"+i, new Date(1000 + i)));
+		
+		List<BoundedMessageQueue> dispatcherQueues = new CopyOnWriteArrayList<BoundedMessageQueue>();
+		MessageProcessorThread processor = new MessageProcessorThread("Test processor", queue, Arrays.asList(slow, fast), 
+				listener -> {
+					BoundedMessageQueue result = new BoundedMessageQueue("Test dispatcher", 2, 0, QueueOverflowPolicy.DROP, null);
+					dispatcherQueues.add(result);
+					return result;
+				});
+		processor.start();
+		try
+		{
+			while (fast.received.size() < 10)
+				Thread.sleep(10);
+			
+			//Slow listener is blocked on the first message, dispatcher queue can hold only 2 more messages
+			assertEquals(dispatcherQueues.size(), 1);
+			BoundedMessageQueue dispatcherQueue = dispatcherQueues.get(0);
+			assertTrue(dispatcherQueue.size() <= 2);
+			assertTrue(dispatcherQueue.getDropped() > 0);
+			
+			release.countDown();
+		}
+		finally
+		{
+			processor.terminate();
+		}
+		
+		assertTrue(processor.awaitTermination(5000));
+		assertTrue(slow.received.size() <= 3, slow.received.toString());
+		assertEquals(slow.received.get(0), "msg0@1000");
+	}
+	
+	
+	private static class TestListener extends ReceiveListener
+	{
+		private static final Logger logger = LoggerFactory.getLogger(TestListener.class);
+		
+		private final CountDownLatch latch;
+		private final List<String> received = new CopyOnWriteArrayList<String>();
+		
+		public TestListener(CountDownLatch latch)
+		{
+			this.latch = latch;
+		}
+		
+		@Override
+		public void start()
+		{
+		}
+		
+		@Override
+		public void onMessageReceived(String message, long receivedTimestamp)
+		{
+			if (latch != null)
+			{
+				try
+				{
+					latch.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			received.add(message + "@" + receivedTimestamp);
+		}
+		
+		@Override
+		public void dispose()
+		{
+		}
+		
+		@Override
+		protected Logger getLogger()
+		{
+			return logger;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.testng.Assert.*;
+
+public class PipelinedMessageSenderTest extends BasicTestNgTest
+{
+	@Test(timeOut = 10000)
+	public void testMessagesGroupedInOrder() throws Exception
+	{
+		InMemoryClearThClient client = new InMemoryClearThClient();
+		CountDownLatch latch = new CountDownLatch(1);
+		client.setSendLatch(latch);
+		
+		PipelinedMessageSender sender = new PipelinedMessageSender("Test", client, 100, 10);
+		sender.start();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 25; i++)
+		{
+			String msg = "msg" + i;
+			expected.add(msg);
+			sender.submit(msg);
+		}
+		//While first message is being sent, others are accumulated in queue
+		latch.countDown();
+		
+		assertTrue(sender.flush(5000));
+		assertEquals(client.getSent(), expected);
+		assertEquals(sender.getSent(), 25);
+		assertEquals(sender.getPending(), 0);
+		for (List<String> batch : client.getBatches())
+			assertTrue(batch.size() <= 10, "Batch size "+batch.size());
+		assertTrue(client.getBatches().size() < 25);
+		
+		assertTrue(sender.stop(1000));
+	}
+	
+	@Test(timeOut = 10000)
+	public void testFailedBatch() throws Exception
+	{
+		InMemoryClearThClient client = new InMemoryClearThClient();
+		client.setFailOn("bad");
+		
+		PipelinedMessageSender sender = new PipelinedMessageSender("Test", client, 10, 1);
+		sender.start();
+		sender.submit("good1");
+		sender.submit("bad");
+		sender.submit("good2");
+		assertTrue(sender.stop(5000));
+		
+		assertEquals(client.getSent(), Arrays.asList("good1", "good2"));
+		assertEquals(sender.getFailed(), 1);
+		assertTrue(sender.getLastError() instanceof ConnectionException);
+		
+		//Failure is reported once
+		ConnectionException failure = sender.takeFailure();
+		assertNotNull(failure);
+		assertTrue(failure.getMessage().startsWith("1 message(s)"), failure.getMessage());
+		assertSame(failure.getCause(), sender.getLastError());
+		assertNull(sender.takeFailure());
+		
+		try
+		{
+			sender.submit("late");
+			fail("Stopped sender shouldn't accept messages");
+		}
+		catch (ConnectionException e)
+		{
+			//Expected
+		}
+	}
+}
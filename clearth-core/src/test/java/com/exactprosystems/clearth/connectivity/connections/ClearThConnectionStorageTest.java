@@ -0,0 +1,218 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.connections;
+
+import com.exactprosystems.clearth.connectivity.ConnectivityException;
+import com.exactprosystems.clearth.connectivity.validation.ClearThConnectionValidationRule;
+import com.exactprosystems.clearth.connectivity.validation.ConnectionStartValidator;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class ClearThConnectionStorageTest
+{
+	private static final long START_TIMEOUT = 1000;
+	private static final String CONFLICT_PREFIX = "Shared";
+	
+	@Test
+	public void connectionsStartInParallel() throws Exception
+	{
+		TestStorage storage = new TestStorage();
+		List<ClearThConnection<?, ?>> connections = asList(createConnection(storage, "Conn1", 300),
+				createConnection(storage, "Conn2", 300),
+				createConnection(storage, "Conn3", 300));
+		
+		long started = System.currentTimeMillis();
+		Map<String, ConnectionStartInfo> report = toMap(storage.startConnections(connections));
+		long duration = System.currentTimeMillis() - started;
+		
+		assertEquals(report.size(), 3);
+		for (ConnectionStartInfo info : report.values())
+			assertEquals(info.getStatus(), ConnectionStartInfo.Status.STARTED, info.getConnectionName());
+		assertTrue(duration < 800, "Connections should start in parallel, but start took "+duration+" ms");
+	}
+	
+	@Test
+	public void timedOutConnectionIsStopped() throws Exception
+	{
+		TestStorage storage = new TestStorage();
+		ClearThConnection<?, ?> slow = createConnection(storage, "Slow", 60000),
+				fast = createConnection(storage, "Fast", 0);
+		
+		Map<String, ConnectionStartInfo> report = toMap(storage.startConnections(asList(slow, fast)));
+		
+		assertEquals(report.get("Slow").getStatus(), ConnectionStartInfo.Status.TIMED_OUT);
+		assertEquals(report.get("Fast").getStatus(), ConnectionStartInfo.Status.STARTED);
+		verify(slow, timeout(2000)).stop();
+		assertFalse(slow.isRunning());
+		verify(fast, never()).stop();
+		
+		assertEquals(storage.getStoppedConnectionsErrors().size(), 1);
+		assertEquals(storage.getStoppedConnectionsErrors().iterator().next().getConnectionName(), "Slow");
+	}
+	
+	@Test
+	public void conflictingConnectionsAreValidated() throws Exception
+	{
+		TestStorage storage = new TestStorage();
+		List<ClearThConnection<?, ?>> connections = asList(createConnection(storage, CONFLICT_PREFIX+"1", 200),
+				createConnection(storage, "Other", 200),
+				createConnection(storage, CONFLICT_PREFIX+"2", 200));
+		
+		Map<String, ConnectionStartInfo> report = toMap(storage.startConnections(connections));
+		
+		assertEquals(report.get(CONFLICT_PREFIX+"1").getStatus(), ConnectionStartInfo.Status.STARTED);
+		assertEquals(report.get("Other").getStatus(), ConnectionStartInfo.Status.STARTED);
+		
+		ConnectionStartInfo rejected = report.get(CONFLICT_PREFIX+"2");
+		assertEquals(rejected.getStatus(), ConnectionStartInfo.Status.FAILED);
+		assertEquals(rejected.getError().getMessage().trim(), "Connection '"+CONFLICT_PREFIX+"2' conflicts with running connection");
+	}
+	
+	
+	@Test(timeOut = 10000)
+	public void startIgnoringInterruptionDoesntBlockGroup() throws Exception
+	{
+		TestStorage storage = new TestStorage();
+		ClearThConnection<?, ?> stuck = createConnection(storage, CONFLICT_PREFIX+"1", 30000, false),
+				waiting = createConnection(storage, CONFLICT_PREFIX+"2", 0),
+				other = createConnection(storage, "Other", 0);
+		
+		long started = System.currentTimeMillis();
+		Map<String, ConnectionStartInfo> report = toMap(storage.startConnections(asList(stuck, waiting, other)));
+		long duration = System.currentTimeMillis() - started;
+		
+		assertEquals(report.get(CONFLICT_PREFIX+"1").getStatus(), ConnectionStartInfo.Status.TIMED_OUT);
+		assertEquals(report.get(CONFLICT_PREFIX+"2").getStatus(), ConnectionStartInfo.Status.NOT_STARTED);
+		assertEquals(report.get("Other").getStatus(), ConnectionStartInfo.Status.STARTED);
+		assertTrue(duration < START_TIMEOUT * 4, "Start of group should end by its deadline, but took "+duration+" ms");
+		verify(waiting, never()).start();
+		assertEquals(storage.getStoppedConnectionsErrors().size(), 2);
+	}
+	
+	
+	private Map<String, ConnectionStartInfo> toMap(List<ConnectionStartInfo> report)
+	{
+		Map<String, ConnectionStartInfo> result = new HashMap<>();
+		for (ConnectionStartInfo info : report)
+			result.put(info.getConnectionName(), info);
+		return result;
+	}
+	
+	private ClearThConnection<?, ?> createConnection(TestStorage storage, String name, long startDuration) throws Exception
+	{
+		return createConnection(storage, name, startDuration, true);
+	}
+	
+	private ClearThConnection<?, ?> createConnection(TestStorage storage, String name, long startDuration, boolean interruptible) throws Exception
+	{
+		ClearThConnection<?, ?> connection = mock(ClearThConnection.class);
+		AtomicBoolean running = new AtomicBoolean(false);
+		when(connection.getName()).thenReturn(name);
+		when(connection.getType()).thenReturn("Test");
+		when(connection.isRunning()).then(inv -> running.get());
+		doAnswer(inv -> {
+			storage.getConnectionStartValidator().checkIfCanStartConnection(connection);
+			//Connection is considered running even if its start is interrupted, like the one that ignores interruption
+			running.set(true);
+			long end = System.currentTimeMillis() + startDuration;
+			do
+			{
+				try
+				{
+					Thread.sleep(Math.max(end - System.currentTimeMillis(), 1));
+				}
+				catch (InterruptedException e)
+				{
+					//Start is interrupted, but connection keeps running
+					if (interruptible)
+						break;
+				}
+			}
+			while (System.currentTimeMillis() < end);
+			return null;
+		}).when(connection).start();
+		doAnswer(inv -> {
+			running.set(false);
+			return null;
+		}).when(connection).stop();
+		storage.addLink(connection, false);
+		return connection;
+	}
+	
+	
+	private static class TestStorage extends ClearThConnectionStorage
+	{
+		public TestStorage() throws ConnectivityException
+		{
+			super();
+		}
+		
+		@Override
+		protected void initFactories()
+		{
+		}
+		
+		@Override
+		protected void initConnectionStartValidator(ConnectionStartValidator validator)
+		{
+			validator.addRule(new SharedResourceRule(this));
+		}
+		
+		@Override
+		protected long getAutoStartTimeout()
+		{
+			return START_TIMEOUT;
+		}
+	}
+	
+	private static class SharedResourceRule implements ClearThConnectionValidationRule
+	{
+		private final ClearThConnectionStorage storage;
+		
+		public SharedResourceRule(ClearThConnectionStorage storage)
+		{
+			this.storage = storage;
+		}
+		
+		@Override
+		public boolean isConnectionSuitable(ClearThConnection<?, ?> connectionToCheck)
+		{
+			return connectionToCheck.getName().startsWith(CONFLICT_PREFIX);
+		}
+		
+		@Override
+		public String check(ClearThConnection<?, ?> connectionToCheck)
+		{
+			for (ClearThConnection<?, ?> other : storage.getConnections())
+			{
+				if (other != connectionToCheck && isConnectionSuitable(other) && other.isRunning())
+					return "Connection '"+connectionToCheck.getName()+"' conflicts with running connection";
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.iface;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+import static org.testng.Assert.*;
+
+public class CompactFieldMapTest extends BasicTestNgTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(CompactFieldMapTest.class);
+	private static final int HEAP_MESSAGES = 20000,
+			HEAP_FIELDS = 20;
+	
+	@Test
+	public void testSameAsLinkedHashMap()
+	{
+		Map<String, String> compact = new CompactFieldMap(new FieldNameTable(null, false)),
+				expected = new LinkedHashMap<String, String>();
+		for (Map<String, String> map : Arrays.asList(compact, expected))
+		{
+			for (int i = 0; i < 10; i++)
+				map.put("Field" + i, Integer.toString(i));
+			map.put("Field3", "New");
+			map.put("Null", null);
+			map.remove("Field5");
+			map.put("Field5", "5");
+			
+			Iterator<Map.Entry<String, String>> it = map.entrySet().iterator();
+			while (it.hasNext())
+			{
+				Map.Entry<String, String> entry = it.next();
+				if (entry.getKey().equals("Field0") || entry.getKey().equals("Field9"))
+					it.remove();
+				else if (entry.getKey().equals("Field1"))
+					entry.setValue("One");
+			}
+		}
+		
+		assertEquals(compact, expected);
+		assertEquals(expected, compact);
+		assertEquals(compact.hashCode(), expected.hashCode());
+		assertEquals(new ArrayList<String>(compact.keySet()), new ArrayList<String>(expected.keySet()));
+		assertEquals(new ArrayList<String>(compact.values()), new ArrayList<String>(expected.values()));
+		assertTrue(compact.containsKey("Null"));
+		assertNull(compact.get("Null"));
+		assertNull(compact.get("Field0"));
+	}
+	
+	@Test
+	public void testSharedNamesAndValues()
+	{
+		FieldNameTable table = new FieldNameTable(Collections.singleton("Name"), true);
+		SimpleClearThMessage m1 = new SimpleClearThMessage(table),
+				m2 = new SimpleClearThMessage(table);
+		m1.addField(new String("Name"), new String("Value"));
+		m2.addField(new String("Name"), new String("Value"));
+		
+		assertSame(m1.getFieldNames().iterator().next(), m2.getFieldNames().iterator().next());
+		assertSame(m1.getField("Name"), m2.getField("Name"));
+		assertEquals(table.getNamesCount(), 1);
+		assertEquals(table.getValuesCount(), 1);
+		
+		SimpleClearThMessage copy = m1.cloneMessage();
+		assertEquals(copy, m1);
+		copy.addField("Name", "Other");
+		assertEquals(m1.getField("Name"), "Value");
+	}
+	
+	@Test
+	public void testManyFields()
+	{
+		Map<String, String> compact = new CompactFieldMap(new FieldNameTable(null, false)),
+				expected = new LinkedHashMap<String, String>();
+		for (Map<String, String> map : Arrays.asList(compact, expected))
+		{
+			for (int i = 0; i < 100; i++)
+				map.put("Field" + i, Integer.toString(i));
+			for (int i = 0; i < 100; i += 3)
+				map.remove("Field" + i);
+			map.put("Field50", "New");
+			map.put(null, "Null name");
+			for (int i = 100; i < 120; i++)
+				map.put("Field" + i, Integer.toString(i));
+		}
+		
+		assertEquals(compact, expected);
+		assertEquals(new ArrayList<String>(compact.keySet()), new ArrayList<String>(expected.keySet()));
+		for (int i = 0; i < 130; i++)
+		{
+			String name = "Field" + i;
+			assertEquals(compact.containsKey(name), expected.containsKey(name), name);
+			assertEquals(compact.get(name), expected.get(name), name);
+		}
+		assertEquals(compact.get(null), "Null name");
+	}
+	
+	@Test
+	public void testValuesSharedForEnumLikeFields()
+	{
+		FieldNameTable table = new FieldNameTable(Arrays.asList("Id", "Status"), true);
+		List<SimpleClearThMessage> messages = new ArrayList<SimpleClearThMessage>();
+		for (int i = 0; i < FieldNameTable.MAX_FIELD_VALUES * 2; i++)
+		{
+			SimpleClearThMessage message = new SimpleClearThMessage(table);
+			message.addField("Id", "ID" + i);
+			message.addField("Status", new String(i % 2 == 0 ? "New" : "Filled"));
+			messages.add(message);
+		}
+		
+		assertSame(messages.get(0).getField("Status"), messages.get(2).getField("Status"));
+		assertEquals(table.getValuesCount(), 2, "Only values of Status are kept");
+		
+		SimpleClearThMessage m1 = new SimpleClearThMessage(table),
+				m2 = new SimpleClearThMessage(table);
+		m1.addField("Id", new String("ID0"));
+		m2.addField("Id", new String("ID0"));
+		assertNotSame(m1.getField("Id"), m2.getField("Id"));
+	}
+	
+	@Test
+	public void testHeapUsage()
+	{
+		long plain = measureHeap(this::createFields),
+				compact = measureHeap(i -> new CompactFieldMap(FieldNameTable.getDefault(), createFields(i)));
+		logger.info("Heap used by fields of {} messages with {} fields: {} bytes per message with LinkedHashMap, {} bytes per message with CompactFieldMap", 
+				HEAP_MESSAGES, HEAP_FIELDS, plain / HEAP_MESSAGES, compact / HEAP_MESSAGES);
+		assertTrue(compact < plain, "Compact messages use less heap");
+	}
+	
+	
+	private Map<String, String> createFields(int messageIndex)
+	{
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (int i = 0; i < HEAP_FIELDS; i++)
+			result.put(new String("Field" + i), messageIndex + "_" + i);
+		return result;
+	}
+	
+	private long measureHeap(IntFunction<Map<String, String>> factory)
+	{
+		long before = usedHeap();
+		List<Map<String, String>> messages = new ArrayList<Map<String, String>>(HEAP_MESSAGES);
+		for (int i = 0; i < HEAP_MESSAGES; i++)
+			messages.add(factory.apply(i));
+		long result = usedHeap() - before;
+		assertEquals(messages.size(), HEAP_MESSAGES);
+		return result;
+	}
+	
+	private long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
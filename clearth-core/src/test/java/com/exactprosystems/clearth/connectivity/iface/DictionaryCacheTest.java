@@ -0,0 +1,66 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.iface;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class DictionaryCacheTest extends BasicTestNgTest
+{
+	@Test
+	public void testReloadOnFileChange() throws Exception
+	{
+		File file = new File("testOutput/dictionary_cache/dict.txt");
+		FileUtils.writeStringToFile(file, "version1", StandardCharsets.UTF_8);
+		try
+		{
+			DictionaryCache cache = new DictionaryCache();
+			AtomicInteger loads = new AtomicInteger(0);
+			DictionaryCache.DictionaryLoader loader = fileName -> 
+			{
+				loads.incrementAndGet();
+				return FileUtils.readFileToString(new File(fileName), StandardCharsets.UTF_8);
+			};
+			
+			Object first = cache.getDictionary("codec", file, loader);
+			assertEquals(first, "version1");
+			assertSame(cache.getDictionary("codec", file, loader), first);
+			assertEquals(loads.get(), 1);
+			
+			FileUtils.writeStringToFile(file, "version22", StandardCharsets.UTF_8);
+			assertEquals(cache.getDictionary("codec", file, loader), "version22");
+			assertEquals(loads.get(), 2);
+			
+			cache.invalidate("codec");
+			cache.getDictionary("codec", file, loader);
+			assertEquals(loads.get(), 3);
+		}
+		finally
+		{
+			FileUtils.deleteDirectory(file.getParentFile());
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.listeners.storage;
+
+import com.exactprosystems.clearth.BasicTestNgTest;
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.ReceivedClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.SimpleClearThMessage;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class SegmentedFileContentStorageTest extends BasicTestNgTest
+{
+	private static final String STORAGE_DIR = "testOutput/segmented_storage";
+	private static final String FIELD = "Field";
+
+	private DefaultSegmentedFileContentStorage storage;
+
+	@BeforeMethod
+	public void setUp() throws IOException
+	{
+		// Small segments and cache to make messages go through disk
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, SegmentedFileContentStorageTest::decode);
+		storage.start();
+	}
+
+	@AfterMethod
+	public void tearDown() throws IOException
+	{
+		storage.dispose();
+		FileUtils.deleteDirectory(new File(STORAGE_DIR));
+	}
+
+
+	@Test
+	public void testMessagesReadFromDisk()
+	{
+		for (int i = 0; i < 50; i++)
+			storage.insertPassed(i, received(i, 1000 + i));
+
+		assertEquals(storage.getContentPassed().size(), 50);
+		assertTrue(storage.getCachedCount() <= 2);
+
+		int expected = 0;
+		for (Map.Entry<Long, ReceivedClearThMessage> entry : storage.getContentPassed().entrySet())
+		{
+			ReceivedClearThMessage msg = entry.getValue();
+			assertEquals(entry.getKey().longValue(), expected);
+			assertEquals(msg.getId(), expected);
+			assertEquals(msg.getReceived(), 1000 + expected);
+			assertEquals(msg.getMessage().getField(FIELD), "Value" + expected);
+			expected++;
+		}
+		assertEquals(expected, 50);
+
+		assertEquals(storage.getContentPassedAfterId(44).keySet().iterator().next().longValue(), 45);
+		assertEquals(storage.getContentPassedAfterId(44).size(), 5);
+	}
+
+	@Test
+	public void testSameMessageObjectWhileReferenced()
+	{
+		for (int i = 0; i < 10; i++)
+			storage.insertPassed(i, received(i, i));
+
+		List<ReceivedClearThMessage> held = new ArrayList<>(storage.getContentPassed().values());
+		for (ReceivedClearThMessage msg : held)
+			assertSame(storage.getContentPassed().get(msg.getId()), msg);
+	}
+
+	@Test
+	public void testRemoval()
+	{
+		for (int i = 0; i < 30; i++)
+			storage.insertPassed(i, received(i, i));
+
+		storage.removePassed(3);
+		Iterator<ReceivedClearThMessage> it = storage.getContentPassed().values().iterator();
+		while (it.hasNext())
+		{
+			if (it.next().getId() % 2 == 0)
+				it.remove();
+		}
+		storage.removePassedReceivedBefore(10);
+
+		assertEquals(storage.getContentPassed().keySet().toString(), "[11, 13, 15, 17, 19, 21, 23, 25, 27, 29]");
+
+		storage.clearPassed();
+		assertTrue(storage.getContentPassed().isEmpty());
+
+		storage.insertPassed(100, received(100, 100));
+		assertEquals(storage.getContentPassed().get(100L).getMessage().getField(FIELD), "Value100");
+	}
+
+	@Test
+	public void testRemovalStopsAtNewerItem()
+	{
+		storage.insertPassed(0, received(0, 5));
+		storage.insertPassed(1, received(1, 20));
+		storage.insertPassed(2, received(2, 7));  //Out of order item is kept, as it follows newer one
+
+		storage.removePassedReceivedBefore(10);
+
+		assertEquals(storage.getContentPassed().keySet().toString(), "[1, 2]");
+	}
+
+	@Test
+	public void testReceivedBetweenReadsOnlySelected() throws IOException
+	{
+		storage.dispose();
+		List<String> decoded = new ArrayList<String>();
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, value -> {
+			decoded.add(value);
+			return decode(value);
+		});
+		storage.start();
+		for (int i = 0; i < 20; i++)
+			storage.insertPassed(i, received(i, 1000 + i));
+		System.gc();  //Inserted items are weakly referenced, letting them go to make storage read items from disk
+		decoded.clear();
+		
+		Map<Long, ReceivedClearThMessage> found = storage.getContentPassedReceivedBetween(1005, 1007);
+		assertEquals(found.keySet().toString(), "[5, 6, 7]");
+		for (ReceivedClearThMessage msg : found.values())
+			assertTrue(msg.getReceived() >= 1005 && msg.getReceived() <= 1007);
+		for (String value : decoded)
+			assertTrue(value.equals("Value5") || value.equals("Value6") || value.equals("Value7"), "Unexpected decoded item: "+value);
+	}
+
+	@Test
+	public void testSegmentsRestored() throws IOException
+	{
+		storage.dispose();
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, true, SegmentedFileContentStorageTest::decode);
+		for (int i = 0; i < 30; i++)
+			storage.insertPassed(i, received(i, 1000 + i));
+		storage.removePassedReceivedBefore(1010);
+		storage.dispose();
+
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, true, SegmentedFileContentStorageTest::decode);
+		storage.start();
+		//Items removed before restart are restored if their segment is still in use
+		assertTrue(storage.getContentPassed().size() >= 20);
+		assertEquals(storage.getLastStoredId(), 29);
+		ReceivedClearThMessage restored = storage.getContentPassed().get(25L);
+		assertEquals(restored.getReceived(), 1025);
+		assertEquals(restored.getMessage().getField(FIELD), "Value25");
+
+		storage.insertPassed(30, received(30, 1030));
+		assertEquals(storage.getContentPassed().get(30L).getMessage().getField(FIELD), "Value30");
+		assertEquals(storage.getContentPassed().get(29L).getMessage().getField(FIELD), "Value29");
+	}
+
+	@Test
+	public void testOldSegmentsRemovedWithoutRestore() throws IOException
+	{
+		storage.dispose();
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, true, SegmentedFileContentStorageTest::decode);
+		for (int i = 0; i < 10; i++)
+			storage.insertPassed(i, received(i, i));
+		storage.dispose();
+
+		storage = new DefaultSegmentedFileContentStorage(STORAGE_DIR, 256, 2, SegmentedFileContentStorageTest::decode);
+		storage.start();
+		assertTrue(storage.getContentPassed().isEmpty());
+		assertEquals(storage.getLastStoredId(), -1);
+		assertEquals(new File(STORAGE_DIR).list().length, 1);  //Only new active segment
+	}
+
+
+	private static ReceivedClearThMessage received(long id, long time)
+	{
+		return new ReceivedClearThMessage(id, time, decode("Value" + id));
+	}
+
+	private static ClearThMessage<?> decode(String value)
+	{
+		SimpleClearThMessage result = new SimpleClearThMessage();
+		result.addField(FIELD, value);
+		result.setEncodedMessage(value);
+		return result;
+	}
+}
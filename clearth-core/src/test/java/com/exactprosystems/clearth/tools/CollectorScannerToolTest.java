@@ -0,0 +1,133 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.tools;
+
+import com.exactprosystems.clearth.connectivity.CollectorMessage;
+import com.exactprosystems.clearth.connectivity.iface.ClearThMessage;
+import com.exactprosystems.clearth.connectivity.iface.SimpleClearThMessage;
+import com.exactprosystems.clearth.connectivity.listeners.ClearThMessageCollector;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class CollectorScannerToolTest
+{
+	private ClearThMessageCollector collector;
+	
+	@BeforeClass
+	public void prepareCollector() throws Exception
+	{
+		collector = new ClearThMessageCollector("Collector", "Connection", Collections.<String, String>emptyMap(), null);
+		for (int i = 0; i < 1000; i++)
+			collector.onMessageReceived("Message " + i + (i % 10 == 0 ? " tenth" : ""), i);
+	}
+	
+	@AfterClass
+	public void disposeCollector()
+	{
+		collector.dispose();
+	}
+	
+	@Test
+	public void testPages()
+	{
+		CollectorScannerTool tool = new CollectorScannerTool();
+		tool.setCollectorFilter("tenth");
+		
+		List<String> found = new ArrayList<String>();
+		long cursor = CollectorScannerTool.FIRST_CURSOR;
+		CollectorMessagesPage page;
+		do
+		{
+			page = tool.getCollectorMessagesPage(collector, cursor, 30);
+			assertTrue(page.getMessages().size() <= 30);
+			for (CollectorMessage msg : page.getMessages())
+				found.add(msg.getMessage());
+			cursor = page.getNextCursor();
+		}
+		while (page.isHasMore());
+		
+		assertEquals(found.size(), 100);
+		assertEquals(found.get(0), "Message 0 tenth");
+		assertEquals(found.get(99), "Message 990 tenth");
+	}
+	
+	@Test
+	public void testScanLimit()
+	{
+		CollectorScannerTool tool = new CollectorScannerTool();
+		tool.setCollectorFilter("Message 999");
+		tool.setScanLimit(100);
+		
+		//No matching messages within scan limit, but page tells where to continue from
+		CollectorMessagesPage page = tool.getCollectorMessagesPage(collector, CollectorScannerTool.FIRST_CURSOR, 10);
+		assertTrue(page.isEmpty());
+		assertTrue(page.isHasMore());
+		assertEquals(page.getScanned(), 100);
+		assertEquals(page.getNextCursor(), 99);
+	}
+	
+	@Test
+	public void testFilter()
+	{
+		ClearThMessage<?> message = new SimpleClearThMessage();
+		message.addField("MsgType", "NewOrder");
+		SimpleClearThMessage sub = new SimpleClearThMessage();
+		sub.addField("Account", "ACC-123");
+		((SimpleClearThMessage)message).addSubMessage(sub);
+		String encoded = "MsgType=NewOrder|Account=ACC-123";
+		
+		assertTrue(CollectorMessageFilter.compile(null).matches(message, encoded));
+		assertTrue(CollectorMessageFilter.compile("Account=ACC").matches(message, encoded));
+		assertTrue(CollectorMessageFilter.compile("@MsgType=NewOrder && @Account~123").matches(message, encoded));
+		assertFalse(CollectorMessageFilter.compile("@MsgType=New").matches(message, encoded));
+		assertTrue(CollectorMessageFilter.compile("/ACC-\\d+$/").matches(message, encoded));
+		assertFalse(CollectorMessageFilter.compile("@MsgType=NewOrder && /^Account/").matches(message, encoded));
+		//Failed messages have no fields
+		assertFalse(CollectorMessageFilter.compile("@MsgType=NewOrder").matches(encoded));
+	}
+	
+	@Test
+	public void testPlainTextFilter()
+	{
+		String encoded = "Email=trader@example.com|Path=/path/to/file|Note=@ticket 10";
+		
+		//Text that doesn't look like field condition is searched in message as is
+		assertTrue(CollectorMessageFilter.compile("@example.com").matches(encoded));
+		assertTrue(CollectorMessageFilter.compile("@ticket 10").matches(encoded));
+		assertFalse(CollectorMessageFilter.compile("@other.com").matches(encoded));
+		//Escaped text is not treated as regular expression or field condition
+		assertTrue(CollectorMessageFilter.compile("\\/path/").matches(encoded));
+		assertFalse(CollectorMessageFilter.compile("\\/path/file/").matches(encoded));
+		assertFalse(CollectorMessageFilter.compile("\\@Path=/path").matches(encoded));
+		assertTrue(CollectorMessageFilter.compile("\\Path=/path").matches(encoded));
+	}
+	
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void testInvalidFilter()
+	{
+		new CollectorScannerTool().setCollectorFilter("/[/");
+	}
+}
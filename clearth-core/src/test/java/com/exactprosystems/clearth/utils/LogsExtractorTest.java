@@ -0,0 +1,172 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class LogsExtractorTest
+{
+	private static final File LOGS_DIR = new File("testOutput/LogsExtractorTest");
+	private static final String LOG_NAME = "clearth.log",
+			SCHEDULER = "admin";
+	private static final long BASE_TIME = 1600000000000L,
+			RUN_START = BASE_TIME + 150000 * 1000L,
+			RUN_FINISH = RUN_START + 100 * 1000L;
+	
+	private final SimpleDateFormat timeFormat = new SimpleDateFormat("dd MMM yyyy HH:mm:ss,SSS");
+	private final List<String> expectedLines = new ArrayList<String>();
+	
+	@BeforeClass
+	public void prepareLogs() throws IOException
+	{
+		FileUtils.deleteDirectory(LOGS_DIR);
+		LOGS_DIR.mkdirs();
+		
+		//Three rolled files, one record per second, run is in the middle one
+		int second = 0;
+		for (String name : new String[] {LOG_NAME + ".2", LOG_NAME + ".1", LOG_NAME})
+		{
+			try (Writer writer = Files.newBufferedWriter(new File(LOGS_DIR, name).toPath()))
+			{
+				for (int i = 0; i < 100000; i++, second++)
+				{
+					long time = BASE_TIME + second * 1000L;
+					boolean scheduler = second % 2 == 0;
+					String line = (scheduler ? "INFO " + SCHEDULER : "DEBUG OtherThread") + " " 
+							+ timeFormat.format(new Date(time)) + " Logger - Record " + second + Utils.EOL;
+					writer.write(line);
+					if (scheduler && time >= RUN_START && time <= RUN_FINISH)
+						expectedLines.add(line.trim());
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testExtractLogByRun() throws IOException
+	{
+		LogsExtractor extractor = new LogsExtractor(LOGS_DIR, LOG_NAME, SCHEDULER, new HashSet<String>(Arrays.asList(SCHEDULER)));
+		File result = extractor.extractLogByRun(new Date(RUN_START), new Date(RUN_FINISH), "run.log");
+		
+		assertNotNull(result);
+		assertEquals(Files.readAllLines(result.toPath(), StandardCharsets.UTF_8), expectedLines);
+		assertTrue(new File(LOGS_DIR, LogsExtractor.INDEX_DIR + LogFileIndex.getIndexName(new File(LOGS_DIR, LOG_NAME + ".1"))).isFile());
+		
+		//Extraction with already built index should give the same result
+		result = extractor.extractLogByRun(new Date(RUN_START), new Date(RUN_FINISH), "run2.log");
+		assertEquals(Files.readAllLines(result.toPath(), StandardCharsets.UTF_8), expectedLines);
+	}
+	
+	@Test
+	public void testIndex() throws IOException
+	{
+		File indexDir = new File(LOGS_DIR, "testIndex");
+		File logFile = new File(LOGS_DIR, LOG_NAME + ".2");
+		LogFileIndex index = LogFileIndex.load(logFile, indexDir);
+		
+		assertEquals(index.getFirstTime(), BASE_TIME);
+		assertEquals(index.getLastTime(), BASE_TIME + 99999 * 1000L);
+		assertTrue(index.getCheckpointsCount() > 1);
+		
+		long time = BASE_TIME + 50000 * 1000L,
+				offset = index.findOffset(time);
+		try (RandomAccessFile file = new RandomAccessFile(logFile, "r"))
+		{
+			file.seek(offset - 1);
+			assertEquals(file.read(), '\n');
+			String line = file.readLine();
+			long lineSecond = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+			assertTrue(lineSecond < 50000 && lineSecond > 49000, "Found record "+lineSecond);
+		}
+		
+		//Index is extended when log file grows
+		String line = "INFO " + SCHEDULER + " " + timeFormat.format(new Date(BASE_TIME + 200000 * 1000L)) + " Logger - Added" + Utils.EOL;
+		Files.write(logFile.toPath(), line.getBytes(), StandardOpenOption.APPEND);
+		index = LogFileIndex.load(logFile, indexDir);
+		assertEquals(index.getFirstTime(), BASE_TIME);
+		assertEquals(index.getLastTime(), BASE_TIME + 200000 * 1000L);
+	}
+	
+	@Test
+	public void testIndexAfterRolling() throws IOException
+	{
+		File dir = new File(LOGS_DIR, "testIndexAfterRolling"),
+				indexDir = new File(dir, "index"),
+				logFile = new File(dir, LOG_NAME),
+				rolledFile = new File(dir, LOG_NAME + ".1");
+		dir.mkdirs();
+		writeRecords(logFile, 0, 10000);
+		
+		LogFileIndex index = LogFileIndex.load(logFile, indexDir);
+		File indexFile = new File(indexDir, LogFileIndex.getIndexName(logFile));
+		assertTrue(indexFile.isFile());
+		assertTrue(indexFile.setLastModified(1000));
+		
+		//Log file is renamed by rolling and new log file is started
+		assertTrue(logFile.renameTo(rolledFile));
+		writeRecords(logFile, 10000, 100);
+		
+		//Index of renamed file is taken as is, without indexing file again
+		LogFileIndex rolledIndex = LogFileIndex.load(rolledFile, indexDir);
+		assertEquals(indexFile.lastModified(), 1000);
+		assertEquals(rolledIndex.getCheckpointsCount(), index.getCheckpointsCount());
+		assertEquals(rolledIndex.getLastTime(), BASE_TIME + 9999 * 1000L);
+		
+		LogFileIndex newIndex = LogFileIndex.load(logFile, indexDir);
+		assertEquals(newIndex.getFirstTime(), BASE_TIME + 10000 * 1000L);
+		File newIndexFile = new File(indexDir, LogFileIndex.getIndexName(logFile));
+		assertTrue(newIndexFile.isFile());
+		
+		//Index of deleted log is removed
+		assertTrue(rolledFile.delete());
+		LogFileIndex.removeObsolete(indexDir, dir.listFiles(File::isFile));
+		assertFalse(indexFile.exists());
+		assertTrue(newIndexFile.isFile());
+	}
+	
+	private void writeRecords(File file, int firstSecond, int count) throws IOException
+	{
+		try (Writer writer = Files.newBufferedWriter(file.toPath()))
+		{
+			for (int second = firstSecond; second < firstSecond + count; second++)
+			{
+				writer.write("INFO " + SCHEDULER + " " + timeFormat.format(new Date(BASE_TIME + second * 1000L)) 
+						+ " Logger - Record " + second + Utils.EOL);
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.apache.commons.io.IOUtils.toByteArray;
+import static org.testng.Assert.*;
+
+public class ParallelZipWriterTest
+{
+	private static final File OUTPUT_DIR = new File("testOutput/ParallelZipWriterTest");
+	
+	private final List<File> files = new ArrayList<File>();
+	
+	@BeforeClass
+	public void prepareFiles() throws IOException
+	{
+		OUTPUT_DIR.mkdirs();
+		Random random = new Random(1);
+		for (int size : new int[] {0, 10, 5000, 100000})
+		{
+			StringBuilder sb = new StringBuilder();
+			while (sb.length() < size)
+				sb.append("Line ").append(random.nextInt(1000)).append('\n');
+			
+			File file = new File(OUTPUT_DIR, "file" + size + ".txt");
+			Files.write(file.toPath(), sb.substring(0, size).getBytes());
+			files.add(file);
+		}
+	}
+	
+	@Test
+	public void testEntriesInOrder() throws IOException
+	{
+		//Small chunks make files to be split and compressed in parallel
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ParallelZipWriter writer = new ParallelZipWriter(out, Deflater.DEFAULT_COMPRESSION, 1024))
+		{
+			for (File f : files)
+				writer.addFile(f, "dir/" + f.getName());
+		}
+		
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray())))
+		{
+			for (File f : files)
+			{
+				ZipEntry entry = zip.getNextEntry();
+				assertNotNull(entry);
+				assertEquals(entry.getName(), "dir/" + f.getName());
+				assertTrue(Arrays.equals(toByteArray(zip), Files.readAllBytes(f.toPath())), "Contents of " + f.getName());
+			}
+			assertNull(zip.getNextEntry());
+		}
+	}
+	
+	@Test
+	public void testCentralDirectory() throws IOException
+	{
+		File zipFile = new File(OUTPUT_DIR, "archive.zip");
+		try (ParallelZipWriter writer = new ParallelZipWriter(new FileOutputStream(zipFile), Deflater.BEST_SPEED, 2048))
+		{
+			for (File f : files)
+				writer.addFile(f, f.getName());
+		}
+		
+		try (ZipFile zip = new ZipFile(zipFile))
+		{
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			for (File f : files)
+			{
+				ZipEntry entry = entries.nextElement();
+				assertEquals(entry.getName(), f.getName());
+				assertEquals(entry.getSize(), f.length());
+				try (InputStream in = zip.getInputStream(entry))
+				{
+					assertTrue(Arrays.equals(toByteArray(in), Files.readAllBytes(f.toPath())), "Contents of " + f.getName());
+				}
+			}
+			assertFalse(entries.hasMoreElements());
+		}
+	}
+	
+	@Test(expectedExceptions = ZipException.class)
+	public void testDuplicateEntry() throws IOException
+	{
+		try (ParallelZipWriter writer = new ParallelZipWriter(new ByteArrayOutputStream()))
+		{
+			writer.addFile(files.get(1), "file.txt");
+			writer.addFile(files.get(2), "file.txt");
+		}
+	}
+	
+	@Test
+	public void testZipAsStream() throws IOException
+	{
+		byte[] zipData;
+		try (InputStream in = FileOperationUtils.zipFilesAsStream(files, Arrays.asList("renamed.txt")))
+		{
+			zipData = toByteArray(in);
+		}
+		
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(zipData)))
+		{
+			assertEquals(zip.getNextEntry().getName(), "renamed.txt");
+			for (int i = 1; i < files.size(); i++)
+				assertEquals(zip.getNextEntry().getName(), files.get(i).getName());
+			assertNull(zip.getNextEntry());
+		}
+	}
+	
+	@Test(expectedExceptions = IOException.class)
+	public void testZipAsStreamFailure() throws IOException
+	{
+		List<File> duplicates = Arrays.asList(files.get(1), files.get(1));
+		try (InputStream in = FileOperationUtils.zipFilesAsStream(duplicates))
+		{
+			toByteArray(in);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.scripts;
+
+import com.exactprosystems.clearth.utils.Utils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.testng.Assert.*;
+
+public class ScriptOutputCaptureTest
+{
+	private static final File SPILL_DIR = new File("testOutput/script_output");
+	
+	@Test
+	public void testOutputInMemory() throws IOException
+	{
+		List<String> lines = new ArrayList<String>();
+		ScriptOutputCapture capture = new ScriptOutputCapture(settings(16, 16, true, lines), false);
+		write(capture, "line1\r\nline", "2\n\nlast");
+		capture.close();
+		
+		assertFalse(capture.isTruncated());
+		assertNull(capture.getSpillFile());
+		assertEquals(capture.getSummary(), "line1\r\nline2\n\nlast");
+		assertEquals(capture.getText(), capture.getSummary());
+		assertEquals(lines, asList("output:line1", "output:line2", "output:", "output:last"));
+	}
+	
+	@Test
+	public void testHeadAndTail() throws IOException
+	{
+		SPILL_DIR.mkdirs();
+		List<String> lines = new ArrayList<String>();
+		ScriptOutputCapture capture = new ScriptOutputCapture(settings(4, 6, true, lines), true);
+		write(capture, "0123456", "789\nabcdefgh", "ijklmnopqr", "stuvwxyz\n");
+		capture.close();
+		
+		assertTrue(capture.isTruncated());
+		assertEquals(capture.getSize(), 38);
+		assertEquals(capture.getSummary(), "0123" + Utils.EOL + "... 28 bytes skipped ..." + Utils.EOL + "vwxyz\n");
+		
+		File spillFile = capture.getSpillFile();
+		assertTrue(spillFile.isFile());
+		assertEquals(capture.getText(), "0123456789\nabcdefghijklmnopqrstuvwxyz\n");
+		//Lines longer than head and tail are passed in parts
+		assertEquals(lines, asList("error:0123456789", "error:abcdefghijklmnopqr", "error:stuvwxyz"));
+		
+		capture.deleteSpillFile();
+		assertFalse(spillFile.exists());
+	}
+	
+	@Test
+	public void testNoSpill() throws IOException
+	{
+		ScriptOutputCapture capture = new ScriptOutputCapture(settings(2, 2, false, null), false);
+		write(capture, "abcdefgh");
+		capture.close();
+		
+		assertNull(capture.getSpillFile());
+		assertEquals(capture.getText(), "ab" + Utils.EOL + "... 4 bytes skipped ..." + Utils.EOL + "gh");
+	}
+	
+	
+	private ScriptOutputSettings settings(int headSize, int tailSize, boolean spill, List<String> lines)
+	{
+		ScriptOutputSettings settings = new ScriptOutputSettings();
+		settings.setHeadSize(headSize);
+		settings.setTailSize(tailSize);
+		settings.setSpillEnabled(spill);
+		settings.setSpillDir(SPILL_DIR);
+		if (lines != null)
+			settings.setListener((line, error) -> lines.add((error ? "error:" : "output:") + line));
+		return settings;
+	}
+	
+	private void write(ScriptOutputCapture capture, String... parts) throws IOException
+	{
+		for (String part : parts)
+			capture.write(part.getBytes(US_ASCII));
+	}
+	
+	private List<String> asList(String... values)
+	{
+		List<String> result = new ArrayList<String>();
+		for (String v : values)
+			result.add(v);
+		return result;
+	}
+}
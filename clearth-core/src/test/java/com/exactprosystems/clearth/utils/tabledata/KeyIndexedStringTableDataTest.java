@@ -0,0 +1,71 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.tabledata;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class KeyIndexedStringTableDataTest
+{
+	@Test
+	public void testFindAndRemove()
+	{
+		KeyIndexedStringTableData data = new KeyIndexedStringTableData(new LinkedHashSet<String>(Arrays.asList("Id", "Side", "Qty")),
+				RowsListFactories.<String, String>linkedListFactory(), Collections.singletonList("Id"));
+		addRow(data, "1", "Buy", "10");
+		addRow(data, "2", "Sell", "20");
+		addRow(data, "1", "Sell", "30");
+		addRow(data, "3", "Buy", "40");
+		
+		assertTrue(data.canFindBy(new HashSet<String>(Arrays.asList("Id", "Side"))));
+		assertFalse(data.canFindBy(Collections.singleton("Side")));
+		
+		Map<String, String> keys = new HashMap<String, String>();
+		keys.put("Id", "1");
+		keys.put("Side", "Sell");
+		TableRow<String, String> row = data.findAndRemove(keys, r -> "Sell".equals(r.getValue("Side")));
+		assertEquals(row.getValue("Qty"), "30");
+		assertNull(data.findAndRemove(keys, r -> "Sell".equals(r.getValue("Side"))));
+		assertEquals(data.size(), 3);
+		
+		//Removal through iterator keeps index up to date
+		Iterator<TableRow<String, String>> it = data.iterator();
+		assertEquals(it.next().getValue("Qty"), "10");
+		it.remove();
+		assertNull(data.findAndRemove(Collections.singletonMap("Id", "1"), r -> true));
+		
+		assertEquals(data.findAndRemove(Collections.singletonMap("Id", "3"), r -> true).getValue("Qty"), "40");
+		assertEquals(data.size(), 1);
+		assertEquals(data.getRows().size(), 1);
+		assertEquals(data.getRow(0).getValue("Id"), "2");
+	}
+	
+	
+	private void addRow(KeyIndexedStringTableData data, String id, String side, String qty)
+	{
+		TableRow<String, String> row = data.createRow();
+		row.setValue("Id", id);
+		row.setValue("Side", side);
+		row.setValue("Qty", qty);
+		data.add(row);
+	}
+}
@@ -0,0 +1,210 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.utils.xlsx;
+
+import com.exactprosystems.clearth.automation.generator.ActionReader;
+import com.exactprosystems.clearth.automation.generator.XlsActionReader;
+import com.exactprosystems.clearth.automation.generator.XlsxActionReader;
+import org.apache.commons.io.IOUtils;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+public class XlsxSheetReaderTest
+{
+	private static final File XLSX_FILE = new File("testOutput/xlsx_reader/matrix.xlsx"),
+			UNSTYLED_FILE = new File("testOutput/xlsx_reader/unstyled.xlsx");
+	private static final String STYLES_PART = "xl/styles.xml";
+	
+	@BeforeClass
+	public void prepareFile() throws IOException
+	{
+		XLSX_FILE.getParentFile().mkdirs();
+		try (Workbook workbook = new XSSFWorkbook())
+		{
+			Sheet sheet = workbook.createSheet("Matrix");
+			CellStyle dateStyle = workbook.createCellStyle();
+			dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.MM.yyyy HH:mm"));
+			CellStyle percentStyle = workbook.createCellStyle();
+			percentStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("0.00%"));
+			
+			Row row = sheet.createRow(0);
+			row.createCell(1).setCellValue("#ID");
+			row.createCell(2).setCellValue("#Action");
+			row.createCell(4).setCellValue(" #Value ");
+			
+			row = sheet.createRow(2);
+			row.createCell(1).setCellValue("id1");
+			row.createCell(2).setCellValue(1);
+			Cell cell = row.createCell(3);
+			cell.setCellValue(43831.5);
+			cell.setCellStyle(dateStyle);
+			cell = row.createCell(4);
+			cell.setCellValue(0.1234);
+			cell.setCellStyle(percentStyle);
+			row.createCell(5).setCellValue(true);
+			row.createCell(6).setCellFormula("C3*2");
+			row.createCell(7).setCellType(CellType.BLANK);
+			
+			row = sheet.createRow(3);
+			row.createCell(0).setCellValue("Column A");
+			
+			row = sheet.createRow(4);
+			row.createCell(1).setCellValue("  ");
+			row.createCell(2).setCellType(CellType.BLANK);
+			
+			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+			try (FileOutputStream out = new FileOutputStream(XLSX_FILE))
+			{
+				workbook.write(out);
+			}
+		}
+		
+		//Some tools write workbooks without styles part at all
+		try (Workbook workbook = new XSSFWorkbook())
+		{
+			Row row = workbook.createSheet("Data").createRow(0);
+			row.createCell(0).setCellValue(1);
+			row.createCell(1).setCellValue(1234567);
+			row.createCell(2).setCellValue(0.1);
+			row.createCell(3).setCellValue(-2.5);
+			row.createCell(4).setCellValue(1e20);
+			row.createCell(5).setCellValue("text");
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			workbook.write(out);
+			removeStyles(out.toByteArray(), UNSTYLED_FILE);
+		}
+	}
+	
+	@Test
+	public void testFormattedValues() throws IOException, InvalidFormatException
+	{
+		try (XlsxSheetReader reader = new XlsxSheetReader(XLSX_FILE))
+		{
+			assertEquals(reader.getSheetName(), "Matrix");
+		}
+		assertEquals(formatByReader(XLSX_FILE), formatByWorkbook(XLSX_FILE));
+	}
+	
+	@Test
+	public void testUnstyledNumbers() throws IOException, InvalidFormatException
+	{
+		List<String> actual = formatByReader(UNSTYLED_FILE);
+		assertEquals(actual, formatByWorkbook(UNSTYLED_FILE));
+		assertEquals(actual.get(0), "0:0=1");
+	}
+	
+	@Test
+	public void testMatrixLines() throws IOException
+	{
+		for (boolean trim : new boolean[] {true, false})
+			assertEquals(readLines(new XlsxActionReader(XLSX_FILE.getPath(), trim)), readLines(new XlsActionReader(XLSX_FILE.getPath(), trim)));
+	}
+	
+	
+	private List<String> formatByWorkbook(File file) throws IOException, InvalidFormatException
+	{
+		DataFormatter formatter = new DataFormatter();
+		List<String> result = new ArrayList<String>();
+		try (Workbook workbook = WorkbookFactory.create(file))
+		{
+			for (Row row : workbook.getSheetAt(0))
+			{
+				for (Cell cell : row)
+					result.add(row.getRowNum() + ":" + cell.getColumnIndex() + "=" + formatter.formatCellValue(cell));
+			}
+		}
+		return result;
+	}
+	
+	private List<String> formatByReader(File file) throws IOException
+	{
+		DataFormatter formatter = new DataFormatter();
+		List<String> result = new ArrayList<String>();
+		try (XlsxSheetReader reader = new XlsxSheetReader(file))
+		{
+			XlsxRow row;
+			while ((row = reader.readRow()) != null)
+			{
+				for (XlsxCell cell : row.getCells())
+					result.add(row.getRowIndex() + ":" + cell.getColumnIndex() + "=" + reader.formatCellValue(cell, formatter));
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Writes copy of XLSX file without styles part and references to it
+	 */
+	private static void removeStyles(byte[] xlsx, File target) throws IOException
+	{
+		try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(xlsx));
+				ZipOutputStream out = new ZipOutputStream(new FileOutputStream(target)))
+		{
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null)
+			{
+				if (STYLES_PART.equals(entry.getName()))
+					continue;
+				
+				String content = IOUtils.toString(in, UTF_8);
+				if (entry.getName().endsWith(".rels") || entry.getName().equals("[Content_Types].xml"))
+					content = content.replaceAll("<(Relationship|Override)[^>]*styles\\.xml\"[^>]*/>", "");
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				out.write(content.getBytes(UTF_8));
+				out.closeEntry();
+			}
+		}
+	}
+	
+	private List<String> readLines(ActionReader reader) throws IOException
+	{
+		List<String> result = new ArrayList<String>();
+		try
+		{
+			while (reader.readNextLine())
+			{
+				boolean header = reader.isHeaderLine();
+				result.add(reader.getRawLine() + " header=" + header + " empty=" + reader.isEmptyLine() + " " + reader.parseLine(header));
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return result;
+	}
+}
@@ -18,10 +18,25 @@
 
 package com.exactprosystems.clearth.web;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 
 import javax.activation.FileDataSource;
 import javax.servlet.ServletException;
@@ -29,15 +44,34 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.exactprosystems.clearth.ClearThCore;
 
+/**
+ * Sends files from application folder. Supports single byte range requests to resume downloads, 
+ * conditional requests by ETag and modification time and gzip compression of text files
+ */
 @SuppressWarnings("serial")
 public class DownloadServlet extends HttpServlet
 {
-	private static final int BUFFER_SIZE = 8192;
+	private static final int BUFFER_SIZE = 8192,
+			MIN_COMPRESSED_SIZE = 1024;
+	private static final String BYTES_UNIT = "bytes",
+			GZIP = "gzip",
+			GZIP_ETAG_SUFFIX = "-gzip";
+	private static final Set<String> TEXT_EXTENSIONS = new HashSet<String>(Arrays.asList("html", "htm", "txt", "csv", "log", "xml", "json", "js", "css", "cfg"));
+	
+	//Tomcat sends files set by these attributes without copying them through application
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support",
+			SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename",
+			SENDFILE_START = "org.apache.tomcat.sendfile.start",
+			SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	//Output streams of Jetty can send mapped file content directly
+	private static final String SEND_CONTENT_METHOD = "sendContent";
+	private static final Map<Class<?>, Optional<Method>> SEND_CONTENT_METHODS = new ConcurrentHashMap<Class<?>, Optional<Method>>();
 	
 	private final static Logger logger = LoggerFactory.getLogger(DownloadServlet.class);
 
@@ -60,8 +94,43 @@ public class DownloadServlet extends HttpServlet
 			return;
 		}
 		
+		long length = file.getFile().length(),
+				lastModified = file.getFile().lastModified() / 1000 * 1000;  //HTTP dates have precision of seconds
+		String eTag = buildETag(length, lastModified);
+		boolean text = isTextFile(file),
+				compress = text && length >= MIN_COMPRESSED_SIZE && request.getHeader("Range") == null && acceptsGzip(request);
+		
 		response.reset();
 		response.setBufferSize(BUFFER_SIZE);
+		response.setHeader("Accept-Ranges", BYTES_UNIT);
+		response.setDateHeader("Last-Modified", lastModified);
+		response.setHeader("ETag", compress ? toCompressedETag(eTag) : eTag);
+		if (text)
+			response.setHeader("Vary", "Accept-Encoding");
+		
+		if (isNotModified(request, compress, eTag, lastModified))
+		{
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		
+		long start = 0,
+				end = length - 1;
+		long[] range = getRange(request, length, eTag, lastModified);
+		if (range != null)
+		{
+			if (range.length == 0)
+			{
+				response.setHeader("Content-Range", BYTES_UNIT + " */" + length);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			}
+			start = range[0];
+			end = range[1];
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range", BYTES_UNIT + " " + start + "-" + end + "/" + length);
+		}
+		
 		if (request.getParameter("inline")==null)
 		{
 			response.setContentType(file.getContentType());
@@ -69,26 +138,261 @@ public class DownloadServlet extends HttpServlet
 		}
 		else
 			response.setHeader("Content-Disposition", "inline");
-		response.setHeader("Content-Length", String.valueOf(file.getFile().length()));
-
-		BufferedInputStream input = null;
-		BufferedOutputStream output = null;
+		
+		long count = end - start + 1;
+		if (compress)
+			response.setHeader("Content-Encoding", GZIP);
+		else
+			response.setHeader("Content-Length", String.valueOf(count));
+		
+		//Response to HEAD request has no body, there is no need to read file
+		if ("HEAD".equals(request.getMethod()))
+			return;
+		
+		if (compress)
+			writeCompressed(file.getFile(), response);
+		else
+			writeContent(file.getFile(), start, count, request, response);
+	}
+	
+	
+	protected String buildETag(long length, long lastModified)
+	{
+		return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+	}
+	
+	/**
+	 * @return ETag of compressed content, it differs from ETag of file as compressed content has other bytes
+	 */
+	protected String toCompressedETag(String eTag)
+	{
+		return eTag.substring(0, eTag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+	}
+	
+	protected boolean isTextFile(FileDataSource file)
+	{
+		String contentType = file.getContentType();
+		return (contentType != null && contentType.startsWith("text/")) 
+				|| TEXT_EXTENSIONS.contains(FilenameUtils.getExtension(file.getName()).toLowerCase());
+	}
+	
+	protected boolean acceptsGzip(HttpServletRequest request)
+	{
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (acceptEncoding == null)
+			return false;
+		
+		for (String encoding : acceptEncoding.split(","))
+		{
+			String[] parts = encoding.trim().split(";");
+			if (!GZIP.equalsIgnoreCase(parts[0].trim()))
+				continue;
+			
+			for (int i = 1; i < parts.length; i++)
+			{
+				String param = parts[i].trim();
+				if (param.startsWith("q=") && isZeroQuality(param.substring(2)))
+					return false;
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	protected boolean isNotModified(HttpServletRequest request, boolean compress, String eTag, long lastModified)
+	{
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null)
+		{
+			for (String tag : ifNoneMatch.split(","))
+			{
+				tag = tag.trim();
+				if (tag.startsWith("W/"))
+					tag = tag.substring(2);
+				if (tag.equals("*") || tag.equals(eTag) || (compress && tag.equals(toCompressedETag(eTag))))
+					return true;
+			}
+			//If-Modified-Since is ignored when If-None-Match is present
+			return false;
+		}
+		
+		long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+		return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+	}
+	
+	/**
+	 * @return null if whole file should be sent, empty array if requested range is not satisfiable, 
+	 * else array with first and last byte positions of range
+	 */
+	protected long[] getRange(HttpServletRequest request, long length, String eTag, long lastModified)
+	{
+		String range = request.getHeader("Range");
+		if (range == null || !range.startsWith(BYTES_UNIT + "="))
+			return null;
+		
+		//Range is applied only if file is the same as client has part of
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange != null)
+		{
+			if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+			{
+				if (!ifRange.equals(eTag))
+					return null;
+			}
+			else if (getDateHeader(request, "If-Range") != lastModified)
+				return null;
+		}
+		
+		String spec = range.substring(BYTES_UNIT.length() + 1).trim();
+		//Multiple ranges are not supported, whole file is sent instead, as allowed by HTTP
+		if (spec.contains(","))
+			return null;
+		
+		int dash = spec.indexOf('-');
+		if (dash < 0)
+			return null;
+		
 		try
 		{
-			input = new BufferedInputStream(file.getInputStream(), BUFFER_SIZE);
-			output = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
-
+			String first = spec.substring(0, dash).trim(),
+					last = spec.substring(dash + 1).trim();
+			long start, end;
+			if (first.isEmpty())
+			{
+				//Suffix range: last N bytes
+				long suffix = Long.parseLong(last);
+				if (suffix <= 0)
+					return new long[0];
+				start = Math.max(length - suffix, 0);
+				end = length - 1;
+			}
+			else
+			{
+				start = Long.parseLong(first);
+				end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+				if (end < start)
+					return null;  //Syntactically invalid range is ignored
+				if (start >= length)
+					return new long[0];
+				end = Math.min(end, length - 1);
+			}
+			return new long[] {start, end};
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+	
+	protected void writeCompressed(File file, HttpServletResponse response) throws IOException
+	{
+		try (InputStream input = new FileInputStream(file);
+				OutputStream output = new GZIPOutputStream(response.getOutputStream(), BUFFER_SIZE))
+		{
 			byte[] buffer = new byte[BUFFER_SIZE];
 			int length;
 			while ((length = input.read(buffer)) > 0)
 				output.write(buffer, 0, length);
 		}
-		finally
+	}
+	
+	/**
+	 * Sends part of file avoiding copies through application memory if container supports that
+	 */
+	protected void writeContent(File file, long start, long count, HttpServletRequest request, HttpServletResponse response) throws IOException
+	{
+		if (count <= 0)
+			return;
+		
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)))
+		{
+			request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, start + count);
+			return;
+		}
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			OutputStream output = response.getOutputStream();
+			if (count <= Integer.MAX_VALUE && sendMapped(output, channel, start, count))
+				return;
+			
+			try (WritableByteChannel outChannel = Channels.newChannel(output))
+			{
+				long position = start,
+						remaining = count;
+				while (remaining > 0)
+				{
+					long sent = channel.transferTo(position, remaining, outChannel);
+					if (sent <= 0)
+						break;
+					position += sent;
+					remaining -= sent;
+				}
+			}
+		}
+	}
+	
+	
+	private boolean sendMapped(OutputStream output, FileChannel channel, long start, long count) throws IOException
+	{
+		Optional<Method> sendContent = SEND_CONTENT_METHODS.computeIfAbsent(output.getClass(), this::findSendContentMethod);
+		if (!sendContent.isPresent())
+			return false;
+		
+		try
+		{
+			sendContent.get().invoke(output, channel.map(FileChannel.MapMode.READ_ONLY, start, count));
+			return true;
+		}
+		catch (InvocationTargetException e)
+		{
+			if (e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IOException("Could not send file content", e.getCause());
+		}
+		catch (IllegalAccessException e)
+		{
+			logger.debug("Could not send mapped file content", e);
+			SEND_CONTENT_METHODS.put(output.getClass(), Optional.empty());
+			return false;
+		}
+	}
+	
+	private Optional<Method> findSendContentMethod(Class<?> outputClass)
+	{
+		try
+		{
+			return Optional.of(outputClass.getMethod(SEND_CONTENT_METHOD, ByteBuffer.class));
+		}
+		catch (NoSuchMethodException e)
+		{
+			return Optional.empty();
+		}
+	}
+	
+	private long getDateHeader(HttpServletRequest request, String name)
+	{
+		try
+		{
+			return request.getDateHeader(name);
+		}
+		catch (IllegalArgumentException e)
+		{
+			return -1;
+		}
+	}
+	
+	private boolean isZeroQuality(String value)
+	{
+		try
+		{
+			return Double.parseDouble(value.trim()) == 0;
+		}
+		catch (NumberFormatException e)
 		{
-			if (output!=null)
-				output.close();
-			if (input!=null)
-				input.close();
+			return false;
 		}
 	}
 }
@@ -100,6 +100,25 @@ public class WebDeploymentConfig extends DeploymentConfig {
 		System.out.println("Logs directory: "+logsDir);
 	}
 
+	@Override
+	protected void configureActionReports()
+	{
+		super.configureActionReports();
+		String flushInterval = FacesContext.getCurrentInstance().getExternalContext().getInitParameter("ActionReportsFlushInterval");
+		if (flushInterval == null)
+			return;
+		
+		try
+		{
+			actionReportsFlushInterval = Long.parseLong(flushInterval.trim());
+			System.out.println("Action reports flush interval overridden in web.xml to "+actionReportsFlushInterval+" ms");
+		}
+		catch (NumberFormatException e)
+		{
+			System.err.println("Invalid action reports flush interval in web.xml: '"+flushInterval+"', using default one");
+		}
+	}
+
 	@Override
 	protected void additionalInit() {
 		configureAppContextPath();
@@ -686,6 +686,11 @@ public class ConnectivityBean extends ClearThBean
 		setOneSelectedXConnection(selectedCon, MQ);
 	}
 
+	public QueueOverflowPolicy[] getQueueOverflowPolicies()
+	{
+		return QueueOverflowPolicy.values();
+	}
+
 	public void downloadMqConnections()
 	{
 		downloadXConnections(MQ);
@@ -718,5 +723,8 @@ public class ConnectivityBean extends ClearThBean
 		connectionToEdit.setReadDelay(propsToEdit.isReadDelay() ? changes.getReadDelay() : original.getReadDelay());
 		connectionToEdit.setAutoConnect(propsToEdit.isAutoConnect() ? changes.isAutoConnect() : original.isAutoConnect());
 		connectionToEdit.setAutoReconnect(propsToEdit.isAutoReconnect() ? changes.isAutoReconnect() : original.isAutoReconnect());
+		connectionToEdit.setQueueCapacity(propsToEdit.isQueue() ? changes.getQueueCapacity() : original.getQueueCapacity());
+		connectionToEdit.setQueueLowWatermark(propsToEdit.isQueue() ? changes.getQueueLowWatermark() : original.getQueueLowWatermark());
+		connectionToEdit.setQueueOverflowPolicy(propsToEdit.isQueue() ? changes.getQueueOverflowPolicy() : original.getQueueOverflowPolicy());
 	}
 }
@@ -47,7 +47,8 @@ import java.util.regex.Pattern;
 
 public class LogsBean extends ClearThBean
 {
-	private static final String USER_LOG = "User activity log";
+	private static final String USER_LOG = "User activity log",
+			LOGS_ZIP_NAME = "logs.zip";
 	
 	private final File logsDir, outputDir;
 	private List<String> selectedLogsList = new ArrayList<String>();
@@ -127,16 +128,12 @@ public class LogsBean extends ClearThBean
 		
 		try
 		{
-			if (!outputDir.exists())
-				outputDir.mkdir();
-			
 			List<File> filesToZip = new ArrayList<File>();
 			for (String logName : selectedLogsList)
 				filesToZip.add(new File(logsDir, logName));
-			File result = new File(outputDir, UserInfoUtils.getUserName()+"_logs.zip");
-			FileOperationUtils.zipFiles(result, filesToZip);
-			result.deleteOnExit();
-			StreamedContent file = new DefaultStreamedContent(new FileInputStream(result), new MimetypesFileTypeMap().getContentType(result), "logs.zip");
+			//Archive is sent to client while being created, without storing it on disk
+			StreamedContent file = new DefaultStreamedContent(FileOperationUtils.zipFilesAsStream(filesToZip), 
+					new MimetypesFileTypeMap().getContentType(LOGS_ZIP_NAME), LOGS_ZIP_NAME);
 			//selectedLogsList.clear();
 			return file;
 		}
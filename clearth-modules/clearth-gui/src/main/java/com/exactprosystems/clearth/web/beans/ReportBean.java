@@ -32,6 +32,7 @@ import com.exactprosystems.clearth.utils.TagUtils;
 import com.exactprosystems.clearth.web.misc.MessageUtils;
 import com.exactprosystems.clearth.web.misc.UserInfoUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 
 import javax.annotation.PostConstruct;
 import javax.faces.context.FacesContext;
@@ -46,6 +47,7 @@ public class ReportBean
 {
 	private String userName;
 	private String reportHead, reportBody;
+	private long reportRevision;
 	
 	@PostConstruct
 	private void init()
@@ -68,11 +70,19 @@ public class ReportBean
 		Map<String, List<String>> matricesSteps = Executor.getStepsByMatricesMap(actionsReports);
 		changeNamesForLinkedMatrices(matricesSteps, scheduler);
 		
+		//Client that already has the report can request only steps changed since revision it got
+		String sinceRevision = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("sinceRevision");
+		boolean changedOnly = NumberUtils.isDigits(sinceRevision);
 		RealTimeReport report;
 		try
 		{
 			report = createReportWriter(matrix, userName, scheduler);
-			report.writeReport(scheduler.getSteps(), matricesSteps.get(matrixName), actionsReports, false);
+			//Revision is taken before rendering: steps changed meanwhile will be sent again on next request rather than missed
+			reportRevision = report.getStepsRevision();
+			if (changedOnly)
+				report.writeChangedSteps(scheduler.getSteps(), matricesSteps.get(matrixName), actionsReports, Long.parseLong(sinceRevision));
+			else
+				report.writeReport(scheduler.getSteps(), matricesSteps.get(matrixName), actionsReports, false);
 		}
 		catch (Exception e)
 		{
@@ -81,6 +91,13 @@ public class ReportBean
 		}
 		
 		String reportHtml = report.getHtmlContent().getBuffer().toString();
+		if (changedOnly)
+		{
+			setReportHead(null);
+			setReportBody(replaceLinksToFiles(reportHtml, scheduler, matrix));
+			return;
+		}
+		
 		setReportHead(TagUtils.getTagValue("head", reportHtml));
 		String body = TagUtils.getTagValue("body", reportHtml);
 		setReportBody(body != null ? replaceLinksToFiles(body, scheduler, matrix) : null);
@@ -208,6 +225,23 @@ public class ReportBean
 		return reportBody;
 	}
 	
+	/**
+	 * @return sections of steps changed since revision given in request, to be put into report page already loaded by client
+	 */
+	public String getChangedSteps()
+	{
+		buildReport();
+		return reportBody;
+	}
+	
+	/**
+	 * @return revision of report steps, client passes it in the next request to get only steps changed after it
+	 */
+	public long getReportRevision()
+	{
+		return reportRevision;
+	}
+	
 	public void setReportBody(String reportBody)
 	{
 		this.reportBody = reportBody;
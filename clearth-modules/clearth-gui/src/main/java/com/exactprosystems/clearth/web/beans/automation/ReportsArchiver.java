@@ -25,7 +25,6 @@ import com.exactprosystems.clearth.automation.report.ActionReportWriter;
 import com.exactprosystems.clearth.utils.ExceptionUtils;
 import com.exactprosystems.clearth.utils.FileOperationUtils;
 import com.exactprosystems.clearth.web.misc.MessageUtils;
-import com.exactprosystems.clearth.web.misc.UserInfoUtils;
 import com.exactprosystems.clearth.xmldata.XmlMatrixInfo;
 import org.primefaces.model.DefaultStreamedContent;
 import org.primefaces.model.StreamedContent;
@@ -35,7 +34,6 @@ import org.slf4j.LoggerFactory;
 import javax.activation.MimetypesFileTypeMap;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -174,10 +172,14 @@ public class ReportsArchiver {
 		return filteredReports;
 	}
 
-	protected void zipFiles(File result, List<File> filesToZip, List<String> names) throws IOException
+	/**
+	 * Creates content with ZIP archive that is sent to client while being created, without storing it on disk.
+	 * All archives with reports are created by this method
+	 */
+	protected StreamedContent createZipContent(List<File> filesToZip, List<String> names, String zipName) throws IOException
 	{
-		//Utils.zipDirectories(result, filesToZip);
-		FileOperationUtils.zipFiles(result, filesToZip, names);
+		return new DefaultStreamedContent(FileOperationUtils.zipFilesAsStream(filesToZip, names), 
+				new MimetypesFileTypeMap().getContentType(zipName), zipName);
 	}
 
 	public StreamedContent getZipSelectedReports(boolean realtimeSnapshot, ReportsInfo reportInfoPath)
@@ -193,10 +195,7 @@ public class ReportsArchiver {
 				return null;
 			}
 
-			File result = new File(ClearThCore.tempPath() + UserInfoUtils.getUserName() + "_reports.zip");
-			zipFiles(result, filesToZip, names);
-
-			return new DefaultStreamedContent(new FileInputStream(result), new MimetypesFileTypeMap().getContentType(result), "reports.zip");
+			return createZipContent(filesToZip, names, "reports.zip");
 
 		} catch (IOException e)
 		{
@@ -215,10 +214,7 @@ public class ReportsArchiver {
 		names.add(null);
 		
 		getFilesForZipReports(filesToZip, names, getFilteredReports(false), reportPath);
-		File result = new File(ClearThCore.tempPath() + UserInfoUtils.getUserName() + "_reports_logs.zip");
-		zipFiles(result, filesToZip, names);
-
-		return new DefaultStreamedContent(new FileInputStream(result), new MimetypesFileTypeMap().getContentType(result), "reports_logs.zip");
+		return createZipContent(filesToZip, names, "reports_logs.zip");
 		
 	}
 	
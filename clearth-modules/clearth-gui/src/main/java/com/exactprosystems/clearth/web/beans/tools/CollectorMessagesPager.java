@@ -0,0 +1,96 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.web.beans.tools;
+
+import com.exactprosystems.clearth.connectivity.CollectorMessage;
+import com.exactprosystems.clearth.tools.CollectorMessagesPage;
+import com.exactprosystems.clearth.tools.CollectorScannerTool;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Keeps current page of collector messages shown in 'Collector scanner' tool and cursors of pages shown before it
+ */
+public class CollectorMessagesPager
+{
+	private final Deque<Long> previousCursors = new ArrayDeque<Long>();
+	private CollectorMessagesPage page;
+	
+	public void loadFirst(LongFunction<CollectorMessagesPage> loader)
+	{
+		previousCursors.clear();
+		page = loader.apply(CollectorScannerTool.FIRST_CURSOR);
+	}
+	
+	public void loadNext(LongFunction<CollectorMessagesPage> loader)
+	{
+		if (!isHasNext())
+			return;
+		
+		CollectorMessagesPage current = page;
+		page = loader.apply(current.getNextCursor());
+		previousCursors.push(current.getStartCursor());
+	}
+	
+	public void loadPrevious(LongFunction<CollectorMessagesPage> loader)
+	{
+		if (previousCursors.isEmpty())
+			return;
+		
+		page = loader.apply(previousCursors.pop());
+	}
+	
+	public void clear()
+	{
+		previousCursors.clear();
+		page = null;
+	}
+	
+	
+	public boolean isHasNext()
+	{
+		return page != null && page.isHasMore();
+	}
+	
+	public boolean isHasPrevious()
+	{
+		return !previousCursors.isEmpty();
+	}
+	
+	/**
+	 * @return true if neither current page nor other pages have messages
+	 */
+	public boolean isNoMessages()
+	{
+		return (page == null || page.isEmpty()) && !isHasNext() && !isHasPrevious();
+	}
+	
+	public List<CollectorMessage> getMessages()
+	{
+		return page == null ? null : page.getMessages();
+	}
+	
+	public int getPageNumber()
+	{
+		return previousCursors.size() + 1;
+	}
+}
@@ -21,8 +21,10 @@ package com.exactprosystems.clearth.web.beans.tools;
 import com.exactprosystems.clearth.ClearThCore;
 import com.exactprosystems.clearth.connectivity.CollectorMessage;
 import com.exactprosystems.clearth.connectivity.connections.ClearThMessageConnection;
+import com.exactprosystems.clearth.tools.CollectorMessagesPage;
 import com.exactprosystems.clearth.tools.CollectorScannerTool;
 import com.exactprosystems.clearth.web.beans.ClearThBean;
+import com.exactprosystems.clearth.web.misc.MessageUtils;
 
 import javax.annotation.PostConstruct;
 import javax.faces.event.AjaxBehaviorEvent;
@@ -38,7 +40,9 @@ public class CollectorScannerToolBean extends ClearThBean
 {
 	protected static final List<String> noCollector = new ArrayList<String>();
 	protected static final List<CollectorMessage> noMessages;
-	protected List<CollectorMessage> correctMessages = null, failedMessages = null;
+	protected static final int PAGE_SIZE = CollectorScannerTool.DEFAULT_PAGE_SIZE;
+	protected final CollectorMessagesPager correctPager = new CollectorMessagesPager(),
+			failedPager = new CollectorMessagesPager();
 	protected ClearThMessageConnection<?, ?> selectedConnection;
 	protected boolean collectorVerticalAlignment = false;
 	protected int collectorScannerMessagesTab = 0;
@@ -105,35 +109,88 @@ public class CollectorScannerToolBean extends ClearThBean
 	
 	public void loadCorrectMessages()
 	{
-		if (selectedConnection != null && selectedConnection.isRunning())
-		{
-			correctMessages = collectorScannerTool.getCollectorMessages(selectedConnection);
-			if (correctMessages == null)
-				correctMessages = noMessages;
-		}
+		if (isConnectionRunning())
+			correctPager.loadFirst(this::loadCorrectPage);
 		else
-		{
-			correctMessages = noMessages;
-		}
+			correctPager.clear();
 	}
 
 	public void loadFailedMessages()
 	{
-		if (selectedConnection != null && selectedConnection.isRunning())
-			failedMessages = collectorScannerTool.getCollectorMessagesFailed(selectedConnection);
+		if (isConnectionRunning())
+			failedPager.loadFirst(this::loadFailedPage);
 		else
-			failedMessages = null;
+			failedPager.clear();
+	}
+	
+	public void nextCorrectMessages()
+	{
+		if (isConnectionRunning())
+			correctPager.loadNext(this::loadCorrectPage);
+	}
+	
+	public void previousCorrectMessages()
+	{
+		if (isConnectionRunning())
+			correctPager.loadPrevious(this::loadCorrectPage);
+	}
+	
+	public void nextFailedMessages()
+	{
+		if (isConnectionRunning())
+			failedPager.loadNext(this::loadFailedPage);
+	}
+	
+	public void previousFailedMessages()
+	{
+		if (isConnectionRunning())
+			failedPager.loadPrevious(this::loadFailedPage);
+	}
+	
+	protected boolean isConnectionRunning()
+	{
+		return selectedConnection != null && selectedConnection.isRunning();
+	}
+	
+	protected CollectorMessagesPage loadCorrectPage(long cursor)
+	{
+		return collectorScannerTool.getCollectorMessagesPage(selectedConnection, cursor, PAGE_SIZE);
+	}
+	
+	protected CollectorMessagesPage loadFailedPage(long cursor)
+	{
+		return collectorScannerTool.getCollectorMessagesFailedPage(selectedConnection, cursor, PAGE_SIZE);
 	}
 
 
 	public List<CollectorMessage> getCollectorMessages()
 	{
-		return correctMessages;
+		List<CollectorMessage> messages = correctPager.getMessages();
+		return messages == null || messages.isEmpty() ? noMessages : messages;
 	}
 
 	public List<CollectorMessage> getCollectorMessagesFailed()
 	{
-		return failedMessages;
+		if (failedPager.isNoMessages())
+			return null;
+		
+		List<CollectorMessage> messages = failedPager.getMessages();
+		return messages.isEmpty() ? noMessages : messages;
+	}
+	
+	public CollectorMessagesPager getCorrectPager()
+	{
+		return correctPager;
+	}
+	
+	public CollectorMessagesPager getFailedPager()
+	{
+		return failedPager;
+	}
+	
+	public int getPageSize()
+	{
+		return PAGE_SIZE;
 	}
 	
 	public List<String> getCollectingConnections()
@@ -160,8 +217,14 @@ public class CollectorScannerToolBean extends ClearThBean
 	
 	public void setCollectorFilter(String collectorFilter)
 	{
-		collectorScannerTool.setCollectorFilter(collectorFilter);
-	
+		try
+		{
+			collectorScannerTool.setCollectorFilter(collectorFilter);
+		}
+		catch (IllegalArgumentException e)
+		{
+			MessageUtils.addErrorMessage("Invalid filter", e.getMessage());
+		}
 	}
 	
 	public int getCollectorScannerMessagesTab()
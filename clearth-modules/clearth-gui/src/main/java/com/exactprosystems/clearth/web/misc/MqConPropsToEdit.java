@@ -24,7 +24,7 @@ package com.exactprosystems.clearth.web.misc;
 
 public class MqConPropsToEdit
 {
-	private boolean host, port, queueManager, channel, receiveQueue, sendQueue, readDelay, autoConnect, autoReconnect;
+	private boolean host, port, queueManager, channel, receiveQueue, sendQueue, readDelay, autoConnect, autoReconnect, queue;
 
 	
 	public MqConPropsToEdit()
@@ -38,6 +38,7 @@ public class MqConPropsToEdit
 		readDelay = false;
 		autoConnect = false;
 		autoReconnect = false;
+		queue = false;
 	}
 	
 	
@@ -138,4 +139,15 @@ public class MqConPropsToEdit
 	{
 		this.autoReconnect = autoReconnect;
 	}
+
+	
+	public boolean isQueue()
+	{
+		return queue;
+	}
+
+	public void setQueue(boolean queue)
+	{
+		this.queue = queue;
+	}
 }
@@ -0,0 +1,285 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+
+package com.exactprosystems.clearth.web;
+
+import com.exactprosystems.clearth.ClearThCore;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DownloadServletTest
+{
+	private static final String FILE_NAME = "data.txt";
+	
+	private File root;
+	private byte[] content;
+	private long lastModified;
+	private DownloadServlet servlet;
+	
+	private Map<String, String> requestHeaders;
+	private Map<String, Long> requestDates;
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private ByteArrayOutputStream responseBody;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		root = Files.createTempDirectory("DownloadServletTest").toFile();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 200; i++)
+			sb.append("Line ").append(i).append('\n');
+		content = sb.toString().getBytes(StandardCharsets.UTF_8);
+		File file = new File(root, FILE_NAME);
+		Files.write(file.toPath(), content);
+		lastModified = file.lastModified() / 1000 * 1000;
+		
+		ClearThCore application = mock(ClearThCore.class, CALLS_REAL_METHODS);
+		doReturn(root.getAbsolutePath()).when(application).getFilesRoot();
+		setInstance(application);
+		
+		servlet = new DownloadServlet();
+		requestHeaders = new HashMap<String, String>();
+		requestDates = new HashMap<String, Long>();
+		request = mock(HttpServletRequest.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getParameter("file")).thenReturn(FILE_NAME);
+		when(request.getHeader(anyString())).thenAnswer(i -> requestHeaders.get(i.getArguments()[0]));
+		when(request.getDateHeader(anyString())).thenAnswer(i -> requestDates.getOrDefault(i.getArguments()[0], -1L));
+		
+		responseBody = new ByteArrayOutputStream();
+		response = mock(HttpServletResponse.class);
+		when(response.getOutputStream()).thenReturn(new ServletOutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				responseBody.write(b);
+			}
+		});
+	}
+	
+	@After
+	public void tearDown() throws Exception
+	{
+		setInstance(null);
+		FileUtils.deleteDirectory(root);
+	}
+	
+	
+	@Test
+	public void wholeFile() throws Exception
+	{
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setStatus(anyInt());
+		verify(response).setHeader("Content-Length", String.valueOf(content.length));
+		verify(response).setHeader("ETag", eTag());
+		verify(response).setDateHeader("Last-Modified", lastModified);
+		assertArrayEquals(content, responseBody.toByteArray());
+	}
+	
+	@Test
+	public void byteRange() throws Exception
+	{
+		requestHeaders.put("Range", "bytes=10-19");
+		servlet.doGet(request, response);
+		
+		verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		verify(response).setHeader("Content-Range", "bytes 10-19/" + content.length);
+		verify(response).setHeader("Content-Length", "10");
+		assertArrayEquals(part(10, 10), responseBody.toByteArray());
+	}
+	
+	@Test
+	public void openAndSuffixRanges() throws Exception
+	{
+		requestHeaders.put("Range", "bytes=" + (content.length - 5) + "-");
+		servlet.doGet(request, response);
+		assertArrayEquals(part(content.length - 5, 5), responseBody.toByteArray());
+		
+		responseBody.reset();
+		requestHeaders.put("Range", "bytes=-7");
+		servlet.doGet(request, response);
+		verify(response).setHeader("Content-Range", "bytes " + (content.length - 7) + "-" + (content.length - 1) + "/" + content.length);
+		assertArrayEquals(part(content.length - 7, 7), responseBody.toByteArray());
+	}
+	
+	@Test
+	public void unsatisfiableRange() throws Exception
+	{
+		requestHeaders.put("Range", "bytes=" + content.length + "-");
+		servlet.doGet(request, response);
+		
+		verify(response).setHeader("Content-Range", "bytes */" + content.length);
+		verify(response).sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		assertEquals(0, responseBody.size());
+	}
+	
+	@Test
+	public void rangeOfChangedFileIgnored() throws Exception
+	{
+		requestHeaders.put("Range", "bytes=0-9");
+		requestHeaders.put("If-Range", "\"other\"");
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		assertArrayEquals(content, responseBody.toByteArray());
+	}
+	
+	@Test
+	public void notModifiedByETag() throws Exception
+	{
+		requestHeaders.put("If-None-Match", "\"other\", " + eTag());
+		servlet.doGet(request, response);
+		
+		verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		assertEquals(0, responseBody.size());
+	}
+	
+	@Test
+	public void modifiedByETag() throws Exception
+	{
+		requestHeaders.put("If-None-Match", "\"other\"");
+		//If-Modified-Since is ignored when If-None-Match is present
+		requestHeaders.put("If-Modified-Since", "date");
+		requestDates.put("If-Modified-Since", lastModified);
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		assertArrayEquals(content, responseBody.toByteArray());
+	}
+	
+	@Test
+	public void notModifiedSinceDate() throws Exception
+	{
+		requestHeaders.put("If-Modified-Since", "date");
+		requestDates.put("If-Modified-Since", lastModified);
+		servlet.doGet(request, response);
+		
+		verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		assertEquals(0, responseBody.size());
+	}
+	
+	@Test
+	public void modifiedSinceDate() throws Exception
+	{
+		requestHeaders.put("If-Modified-Since", "date");
+		requestDates.put("If-Modified-Since", lastModified - 1000);
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		assertArrayEquals(content, responseBody.toByteArray());
+	}
+	
+	@Test
+	public void gzipCompression() throws Exception
+	{
+		requestHeaders.put("Accept-Encoding", "deflate, gzip;q=0.8");
+		servlet.doGet(request, response);
+		
+		String compressedETag = eTag().replaceAll("\"$", "-gzip\"");
+		verify(response).setHeader("Content-Encoding", "gzip");
+		verify(response).setHeader("ETag", compressedETag);
+		verify(response).setHeader("Vary", "Accept-Encoding");
+		verify(response, never()).setHeader(eq("Content-Length"), anyString());
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(responseBody.toByteArray())))
+		{
+			assertArrayEquals(content, IOUtils.toByteArray(input));
+		}
+		
+		//Client having compressed content doesn't need it again
+		responseBody.reset();
+		requestHeaders.put("If-None-Match", compressedETag);
+		servlet.doGet(request, response);
+		verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		assertEquals(0, responseBody.size());
+	}
+	
+	@Test
+	public void noCompressionIfNotAccepted() throws Exception
+	{
+		requestHeaders.put("Accept-Encoding", "gzip;q=0");
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+		assertArrayEquals(content, responseBody.toByteArray());
+	}
+	
+	@Test
+	public void noCompressionForRange() throws Exception
+	{
+		requestHeaders.put("Accept-Encoding", "gzip");
+		requestHeaders.put("Range", "bytes=0-4");
+		servlet.doGet(request, response);
+		
+		verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+		assertArrayEquals(part(0, 5), responseBody.toByteArray());
+	}
+	
+	@Test
+	public void headRequest() throws Exception
+	{
+		when(request.getMethod()).thenReturn("HEAD");
+		servlet.doGet(request, response);
+		
+		verify(response).setHeader("Content-Length", String.valueOf(content.length));
+		assertEquals(0, responseBody.size());
+	}
+	
+	
+	private String eTag()
+	{
+		return "\"" + Long.toHexString(content.length) + "-" + Long.toHexString(lastModified) + "\"";
+	}
+	
+	private byte[] part(int start, int length)
+	{
+		byte[] result = new byte[length];
+		System.arraycopy(content, start, result, 0, length);
+		return result;
+	}
+	
+	private void setInstance(ClearThCore application) throws ReflectiveOperationException
+	{
+		Field field = ClearThCore.class.getDeclaredField("instance");
+		field.setAccessible(true);
+		field.set(null, application);
+	}
+}
@@ -42,10 +42,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -68,6 +68,8 @@ public class SwiftCodec implements ICodec
 {
 	private static final Logger logger = LoggerFactory.getLogger(SwiftCodec.class);
 	private static final String DEFAULT_SEPARATOR = "//";
+	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyMMdd"),
+			TIME_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
 	
 	public static final String DEFAULT_CODEC_NAME = "Swift";
 	public static final String MSG_DESC_DOES_NOT_FIT = "Message definition, founded by %s (type = %s), does not fit by %s.";
@@ -77,6 +79,10 @@ public class SwiftCodec implements ICodec
 	protected final MessageValidator messageValidator;
 	
 	protected static final SwiftMetaData emptySwiftMetaData = new SwiftMetaData(Collections.emptyMap());
+	
+	//Parser and conversion service are not thread-safe, but can be reused for many messages within one thread
+	protected static final ThreadLocal<SwiftParser> parserHolder = ThreadLocal.withInitial(SwiftParser::new);
+	protected static final ThreadLocal<IConversionService> conversionServiceHolder = ThreadLocal.withInitial(ConversionService::new);
 
 	public SwiftCodec(SwiftDictionary swiftDictionary)
 	{
@@ -113,11 +119,9 @@ public class SwiftCodec implements ICodec
 	
 	protected SwiftBlock2 encodeSwiftBlock2(ClearThMessage message)
 	{
-		SimpleDateFormat formatter = new SimpleDateFormat("yyMMdd");
-		String curDate = formatter.format(Calendar.getInstance().getTime());
-
-		SimpleDateFormat timeFormatter = new SimpleDateFormat("HHmm");
-		String curTime = timeFormatter.format(Calendar.getInstance().getTime());
+		LocalDateTime now = LocalDateTime.now();
+		String curDate = DATE_FORMATTER.format(now),
+				curTime = TIME_FORMATTER.format(now);
 
 		SwiftMetaData metaData = (message instanceof ClearThSwiftMessage) ? 
 				((ClearThSwiftMessage)message).getMetaData() : emptySwiftMetaData;
@@ -191,7 +195,7 @@ public class SwiftCodec implements ICodec
 	{
 		logger.trace("Message encoding started");
 
-		IConversionService srv = new ConversionService();
+		IConversionService srv = conversionServiceHolder.get();
 
 		logger.trace("Getting message parameters");
 		
@@ -449,7 +453,8 @@ public class SwiftCodec implements ICodec
 		}
 		else
 		{
-			for(SwiftMessageDesc smd : dictionary.getMessageDescMap().values())
+			//Index narrows down descriptions to check by SWIFT type and qualifiers of message, type conditions are checked only for them
+			for(SwiftMessageDesc smd : dictionary.getTypeIndex().getCandidates(swiftMetaData.getMsgType(), block4))
 			{
 				if (messageValidator.isValid(msg.getEncodedMessage(), dictionary.getTypeConditions(smd.getType())))
 				{
@@ -567,7 +572,7 @@ public class SwiftCodec implements ICodec
 		SwiftMessage swiftMessage;
 		try
 		{
-			swiftMessage = new SwiftParser().parse(message);
+			swiftMessage = parserHolder.get().parse(message);
 		}
 		catch (IOException e)
 		{
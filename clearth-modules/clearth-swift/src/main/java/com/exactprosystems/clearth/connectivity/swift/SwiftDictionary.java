@@ -22,9 +22,13 @@ import java.io.Reader;
 import java.util.List;
 
 import com.exactprosystems.clearth.connectivity.Dictionary;
+import com.exactprosystems.clearth.utils.DictionaryLoadException;
 
 public class SwiftDictionary extends Dictionary<SwiftMessageDesc, SwiftDictionaryDesc>
 {
+	//Assigned in processDictionary() called from parent constructor, thus shouldn't be initialized here
+	protected SwiftTypeIndex typeIndex;
+	
 	public SwiftDictionary(String fileName) throws Exception
 	{
 		super(fileName);
@@ -35,6 +39,21 @@ public class SwiftDictionary extends Dictionary<SwiftMessageDesc, SwiftDictionar
 		super(reader);
 	}
 	
+	@Override
+	protected void processDictionary(SwiftDictionaryDesc dictionary) throws DictionaryLoadException
+	{
+		super.processDictionary(dictionary);
+		typeIndex = new SwiftTypeIndex(messageDescMap.values());
+	}
+	
+	/**
+	 * @return index to find message descriptions that may fit message of particular SWIFT type
+	 */
+	public SwiftTypeIndex getTypeIndex()
+	{
+		return typeIndex;
+	}
+	
 	@Override
 	protected Class[] getClassesToBeBound()
 	{
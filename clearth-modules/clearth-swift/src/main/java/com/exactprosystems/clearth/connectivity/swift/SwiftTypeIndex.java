@@ -0,0 +1,223 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.swift;
+
+import com.exactprosystems.clearth.connectivity.message.MessageCondition;
+import com.prowidesoftware.swift.model.SwiftBlock4;
+import com.prowidesoftware.swift.model.Tag;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of message descriptions by SWIFT message type (like 540) and qualifiers of block 4 (like 23G:NEWM), 
+ * used to find description of message to decode when it can't be found by type directly.
+ * Type and qualifier of description are taken from its type conditions: 
+ * condition like "\{2:[IO]540" means that description fits only messages of type 540, 
+ * condition like ":23G:NEWM" means that message must contain tag 23G with value starting with NEWM.
+ * Descriptions without such conditions are returned for any message.
+ * Candidates are returned in the same order as they are defined in dictionary, thus the first matching description is the same as without index
+ */
+public class SwiftTypeIndex
+{
+	private static final int QUALIFIER_LENGTH = 4;
+	private static final Pattern BLOCK2_TYPE = Pattern.compile("2:(?:\\[[IO]{1,2}\\]|[IO.])(\\d{3})(?!\\d)"),
+			QUALIFIER = Pattern.compile(":(\\d{2}[A-Z]?)::?([A-Z0-9]{" + QUALIFIER_LENGTH + "})"),
+			ESCAPED_OR_CLASS = Pattern.compile("\\\\.|\\[[^\\]]*\\]");
+	
+	private final Map<String, List<Candidate>> byMsgType = new HashMap<String, List<Candidate>>();
+	private final List<Candidate> unindexed = new ArrayList<Candidate>();
+	private final Map<String, List<SwiftMessageDesc>> descsByMsgType = new HashMap<String, List<SwiftMessageDesc>>();
+	private final List<SwiftMessageDesc> unindexedDescs;
+	private int withQualifier = 0;
+	
+	public SwiftTypeIndex(Collection<SwiftMessageDesc> messageDescs)
+	{
+		if (messageDescs != null)
+		{
+			for (SwiftMessageDesc md : messageDescs)
+				add(new Candidate(md, getQualifier(md)), getMsgType(md));
+		}
+		
+		for (Map.Entry<String, List<Candidate>> e : byMsgType.entrySet())
+			descsByMsgType.put(e.getKey(), toDescs(e.getValue()));
+		unindexedDescs = toDescs(unindexed);
+	}
+	
+	
+	/**
+	 * @param msgType SWIFT type of message to decode, taken from block 2
+	 * @return message descriptions that may match message of given type, in dictionary order
+	 */
+	public List<SwiftMessageDesc> getCandidates(String msgType)
+	{
+		List<SwiftMessageDesc> result = msgType != null ? descsByMsgType.get(msgType) : null;
+		return result != null ? result : unindexedDescs;
+	}
+	
+	/**
+	 * @param msgType SWIFT type of message to decode, taken from block 2
+	 * @param block4 block 4 of message to decode, its tags are used to skip descriptions that require other qualifiers
+	 * @return message descriptions that may match message of given type with given tags, in dictionary order
+	 */
+	public List<SwiftMessageDesc> getCandidates(String msgType, SwiftBlock4 block4)
+	{
+		List<Candidate> candidates = msgType != null ? byMsgType.get(msgType) : null;
+		if (candidates == null)
+			candidates = unindexed;
+		if (withQualifier == 0 || block4 == null)
+			return getCandidates(msgType);
+		
+		Set<String> qualifiers = getQualifiers(block4);
+		List<SwiftMessageDesc> result = new ArrayList<SwiftMessageDesc>();
+		for (Candidate c : candidates)
+		{
+			if (c.qualifier == null || qualifiers.contains(c.qualifier))
+				result.add(c.desc);
+		}
+		return Collections.unmodifiableList(result);
+	}
+	
+	public int getIndexedTypesCount()
+	{
+		return byMsgType.size();
+	}
+	
+	public int getUnindexedCount()
+	{
+		return unindexed.size();
+	}
+	
+	public int getWithQualifierCount()
+	{
+		return withQualifier;
+	}
+	
+	
+	private void add(Candidate candidate, String msgType)
+	{
+		if (candidate.qualifier != null)
+			withQualifier++;
+		
+		if (msgType == null)
+		{
+			unindexed.add(candidate);
+			//Descriptions without type should be checked for messages of all types in dictionary order
+			for (List<Candidate> list : byMsgType.values())
+				list.add(candidate);
+		}
+		else
+			byMsgType.computeIfAbsent(msgType, t -> new ArrayList<Candidate>(unindexed)).add(candidate);
+	}
+	
+	private List<SwiftMessageDesc> toDescs(List<Candidate> candidates)
+	{
+		List<SwiftMessageDesc> result = new ArrayList<SwiftMessageDesc>(candidates.size());
+		for (Candidate c : candidates)
+			result.add(c.desc);
+		return Collections.unmodifiableList(result);
+	}
+	
+	/**
+	 * @return SWIFT type required by type conditions of description, null if conditions don't require particular type
+	 */
+	protected String getMsgType(SwiftMessageDesc md)
+	{
+		String result = null;
+		for (String condition : getRequiredConditions(md))
+		{
+			Matcher m = BLOCK2_TYPE.matcher(condition);
+			if (!m.find())
+				continue;
+			
+			if (result != null && !result.equals(m.group(1)))
+				return null;  //Contradicting conditions, description won't match anything, leaving it as is
+			result = m.group(1);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return qualifier of block 4 tag required by type conditions of description, null if conditions don't require any
+	 */
+	protected String getQualifier(SwiftMessageDesc md)
+	{
+		for (String condition : getRequiredConditions(md))
+		{
+			Matcher m = QUALIFIER.matcher(condition);
+			if (m.find())
+				return m.group(1) + ":" + m.group(2);
+		}
+		return null;
+	}
+	
+	/**
+	 * @return type conditions that must be found in message and don't contain alternatives or optional parts, 
+	 * thus all their literal text is present in matching message
+	 */
+	private List<String> getRequiredConditions(SwiftMessageDesc md)
+	{
+		List<String> result = new ArrayList<String>();
+		for (MessageCondition c : md.getTypeCondition())
+		{
+			if (c.isInvert() || c.getValue() == null)
+				continue;
+			
+			String value = c.getValue().pattern();
+			String unescaped = ESCAPED_OR_CLASS.matcher(value).replaceAll("_");
+			if (unescaped.indexOf('|') < 0 && unescaped.indexOf('?') < 0 && unescaped.indexOf('*') < 0 
+					&& unescaped.indexOf('(') < 0 && unescaped.indexOf('{') < 0)
+				result.add(value);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return qualifiers of block 4 tags in the same form as used in index, i.e. tag name and the first characters of value like "22F:SETR"
+	 */
+	private Set<String> getQualifiers(SwiftBlock4 block4)
+	{
+		Set<String> result = new HashSet<String>();
+		for (Tag tag : block4.getTags())
+		{
+			String value = tag.getValue();
+			if (value == null)
+				continue;
+			
+			int start = value.startsWith(":") ? 1 : 0;
+			if (value.length() >= start + QUALIFIER_LENGTH)
+				result.add(tag.getName() + ":" + value.substring(start, start + QUALIFIER_LENGTH));
+		}
+		return result;
+	}
+	
+	
+	private static class Candidate
+	{
+		private final SwiftMessageDesc desc;
+		private final String qualifier;
+		
+		public Candidate(SwiftMessageDesc desc, String qualifier)
+		{
+			this.desc = desc;
+			this.qualifier = qualifier;
+		}
+	}
+}
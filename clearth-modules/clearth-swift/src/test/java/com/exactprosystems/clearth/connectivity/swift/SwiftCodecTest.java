@@ -0,0 +1,72 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.swift;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+
+import static com.exactprosystems.clearth.connectivity.swift.SwiftTypeIndexTest.DICTIONARY;
+import static com.exactprosystems.clearth.connectivity.swift.SwiftTypeIndexTest.message;
+import static org.junit.Assert.*;
+
+public class SwiftCodecTest
+{
+	private static final Logger logger = LoggerFactory.getLogger(SwiftCodecTest.class);
+	private static final int DECODES_COUNT = 20000;
+	
+	private SwiftCodec codec;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		codec = new SwiftCodec(new SwiftDictionary(new StringReader(DICTIONARY)), null);
+	}
+	
+	@Test
+	public void descriptionByQualifier() throws Exception
+	{
+		ClearThSwiftMessage message = codec.decode(message("540", "CANC"));
+		assertEquals("REF1", message.getField("CancReference"));
+		assertNull(message.getField("NewReference"));
+		
+		message = codec.decode(message("540", "NEWM"));
+		assertEquals("REF1", message.getField("NewReference"));
+		assertEquals("540", message.getMetaData().getMsgType());
+	}
+	
+	@Test
+	public void decodeThroughput() throws Exception
+	{
+		String[] messages = {message("540", "NEWM"), message("540", "CANC"), message("541", "NEWM")};
+		//Warming up parser and regular expressions
+		for (String m : messages)
+			codec.decode(m);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < DECODES_COUNT; i++)
+			assertEquals("REF1", codec.decode(messages[i % messages.length]).getField(i % 3 == 0 ? "NewReference" : i % 3 == 1 ? "CancReference" : "Reference"));
+		long duration = System.nanoTime() - start;
+		logger.info("Decoded {} SWIFT messages in {} ms, {} messages/s", DECODES_COUNT, duration / 1000000, 
+				DECODES_COUNT * 1000000000L / Math.max(duration, 1));
+	}
+}
@@ -0,0 +1,104 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.swift;
+
+import com.prowidesoftware.swift.io.parser.SwiftParser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SwiftTypeIndexTest
+{
+	static final String DICTIONARY = "<SwiftDictionaryDesc>"
+			+ "<messageDesc type=\"MT540_NEWM\"><typeCondition value=\"\\{2:[IO]540\"/><typeCondition value=\":23G:NEWM\"/>"
+			+ "<fieldDesc name=\"NewReference\" tag=\"20C\" qualifier=\"SEME\"/><fieldDesc name=\"Function\" tag=\"23G\"/></messageDesc>"
+			+ "<messageDesc type=\"MT541\"><typeCondition value=\"\\{2:I541\"/>"
+			+ "<fieldDesc name=\"Reference\" tag=\"20C\" qualifier=\"SEME\"/></messageDesc>"
+			+ "<messageDesc type=\"MT540_CANC\"><typeCondition value=\"\\{2:[IO]540\"/><typeCondition value=\":23G:CANC\"/>"
+			+ "<fieldDesc name=\"CancReference\" tag=\"20C\" qualifier=\"SEME\"/><fieldDesc name=\"Function\" tag=\"23G\"/></messageDesc>"
+			+ "<messageDesc type=\"Alternatives\"><typeCondition value=\"\\{2:I542|\\{2:I543\"/>"
+			+ "<fieldDesc name=\"Reference\" tag=\"20C\" qualifier=\"SEME\"/></messageDesc>"
+			+ "<messageDesc type=\"Optional\"><typeCondition value=\"\\{2:I544\"/><typeCondition value=\"(:23G:PREA)?\"/>"
+			+ "<fieldDesc name=\"Reference\" tag=\"20C\" qualifier=\"SEME\"/></messageDesc>"
+			+ "</SwiftDictionaryDesc>";
+	
+	private SwiftTypeIndex index;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		index = new SwiftDictionary(new StringReader(DICTIONARY)).getTypeIndex();
+	}
+	
+	
+	static String message(String msgType, String function)
+	{
+		return "{1:F01BANKBEBBAXXX0000000000}{2:I" + msgType + "BANKDEFFXXXXN}{4:\r\n"
+				+ ":20C::SEME//REF1\r\n"
+				+ ":23G:" + function + "\r\n"
+				+ "-}";
+	}
+	
+	@Test
+	public void typesFromConditions()
+	{
+		assertEquals(3, index.getIndexedTypesCount());
+		assertEquals(1, index.getUnindexedCount());
+		assertEquals(2, index.getWithQualifierCount());
+		
+		assertEquals("[MT540_NEWM, MT540_CANC, Alternatives]", types(index.getCandidates("540")));
+		assertEquals("[MT541, Alternatives]", types(index.getCandidates("541")));
+		assertEquals("[Alternatives, Optional]", types(index.getCandidates("544")));
+		assertEquals("[Alternatives]", types(index.getCandidates("542")));
+	}
+	
+	@Test
+	public void candidatesByQualifier() throws Exception
+	{
+		assertEquals("[MT540_CANC, Alternatives]", types(index.getCandidates("540", parseBlock4(message("540", "CANC")))));
+		assertEquals("[MT540_NEWM, Alternatives]", types(index.getCandidates("540", parseBlock4(message("540", "NEWM/DUPL")))));
+		assertEquals("[Alternatives]", types(index.getCandidates("540", parseBlock4(message("540", "PREA")))));
+		assertEquals("[Alternatives, Optional]", types(index.getCandidates("544", parseBlock4(message("544", "NEWM")))));
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void candidatesNotModifiable()
+	{
+		index.getCandidates("540").clear();
+	}
+	
+	
+	private com.prowidesoftware.swift.model.SwiftBlock4 parseBlock4(String message) throws Exception
+	{
+		return new SwiftParser().parse(message).getBlock4();
+	}
+	
+	private String types(List<SwiftMessageDesc> descs)
+	{
+		List<String> result = new ArrayList<String>();
+		for (SwiftMessageDesc md : descs)
+			result.add(md.getType());
+		return result.toString();
+	}
+}
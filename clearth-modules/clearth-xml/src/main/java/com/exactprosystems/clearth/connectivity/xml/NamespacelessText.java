@@ -0,0 +1,175 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import java.util.Arrays;
+
+/**
+ * View of XML text with namespace prefixes removed from tag names, i.e. text equal to 
+ * {@code text.replaceAll("(</?)[\\w\\d]+:", "$1")}. Only positions of removed prefixes are stored, 
+ * the text itself is not copied until {@link #toString()} is called
+ */
+public class NamespacelessText implements CharSequence
+{
+	private final String source;
+	//For each removed prefix: its start in source text, its start in resulting text and length of all prefixes removed up to its end
+	private final int[] sourceStarts,
+			resultStarts,
+			removedTotals;
+	private final int length;
+	private String text;
+	
+	private NamespacelessText(String source, int[] sourceStarts, int[] prefixEnds, int count)
+	{
+		this.source = source;
+		this.sourceStarts = Arrays.copyOf(sourceStarts, count);
+		this.resultStarts = new int[count];
+		this.removedTotals = new int[count];
+		
+		int removed = 0;
+		for (int i = 0; i < count; i++)
+		{
+			resultStarts[i] = sourceStarts[i] - removed;
+			removed += prefixEnds[i] - sourceStarts[i];
+			removedTotals[i] = removed;
+		}
+		this.length = source.length() - removed;
+	}
+	
+	/**
+	 * @return view of given text with namespace prefixes removed from tag names or the text itself if it has no such prefixes
+	 */
+	public static CharSequence of(String text)
+	{
+		if (text.indexOf(':') < 0)
+			return text;
+		
+		int length = text.length(),
+				count = 0;
+		int[] starts = null,
+				ends = null;
+		for (int i = text.indexOf('<'); i > -1; i = text.indexOf('<', i + 1))
+		{
+			int start = i + 1;
+			if (start < length && text.charAt(start) == '/')
+				start++;
+			
+			int end = start;
+			while (end < length && isWordChar(text.charAt(end)))
+				end++;
+			
+			if (end == start || end >= length || text.charAt(end) != ':')
+				continue;
+			
+			if (starts == null)
+			{
+				starts = new int[8];
+				ends = new int[8];
+			}
+			else if (count == starts.length)
+			{
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			starts[count] = start;
+			ends[count] = end + 1;
+			count++;
+			i = end;
+		}
+		
+		return count > 0 ? new NamespacelessText(text, starts, ends, count) : text;
+	}
+	
+	/**
+	 * @return true if given character can be a part of namespace prefix
+	 */
+	public static boolean isWordChar(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+	
+	
+	@Override
+	public int length()
+	{
+		return length;
+	}
+	
+	@Override
+	public char charAt(int index)
+	{
+		if (index < 0 || index >= length)
+			throw new StringIndexOutOfBoundsException(index);
+		if (text != null)
+			return text.charAt(index);
+		return source.charAt(toSourceIndex(index));
+	}
+	
+	@Override
+	public CharSequence subSequence(int start, int end)
+	{
+		if (start < 0 || end > length || start > end)
+			throw new StringIndexOutOfBoundsException("start "+start+", end "+end+", length "+length);
+		if (text != null)
+			return text.substring(start, end);
+		
+		StringBuilder result = new StringBuilder(end - start);
+		for (int i = start; i < end; i++)
+			result.append(source.charAt(toSourceIndex(i)));
+		return result.toString();
+	}
+	
+	/**
+	 * @return text with prefixes removed. The text is built on first call
+	 */
+	@Override
+	public String toString()
+	{
+		if (text == null)
+		{
+			StringBuilder result = new StringBuilder(length);
+			int copied = 0;
+			for (int i = 0; i < sourceStarts.length; i++)
+			{
+				result.append(source, copied, sourceStarts[i]);
+				copied = sourceStarts[i] + removedTotals[i] - (i > 0 ? removedTotals[i - 1] : 0);
+			}
+			text = result.append(source, copied, source.length()).toString();
+		}
+		return text;
+	}
+	
+	/**
+	 * @return original text, with namespace prefixes
+	 */
+	public String getSource()
+	{
+		return source;
+	}
+	
+	
+	private int toSourceIndex(int index)
+	{
+		//Finding the last prefix removed before given position in resulting text
+		int found = Arrays.binarySearch(resultStarts, index);
+		if (found < 0)
+			found = -found - 2;
+		return found < 0 ? index : index + removedTotals[found];
+	}
+}
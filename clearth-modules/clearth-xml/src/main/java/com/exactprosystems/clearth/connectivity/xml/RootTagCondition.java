@@ -42,6 +42,12 @@ public class RootTagCondition implements MessageValidatorCondition
 
 	@Override
 	public boolean check(String message)
+	{
+		return check((CharSequence)message);
+	}
+
+	@Override
+	public boolean check(CharSequence message)
 	{
 		return pattern.matcher(message).find();
 	}
@@ -0,0 +1,84 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.*;
+
+/**
+ * Keeps compiled XPath expressions used by message descriptions. 
+ * XPath objects and compiled expressions are not thread-safe, so each thread gets its own copies, compiled once per thread
+ */
+public class XPathCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(XPathCache.class);
+	
+	private final Set<String> knownExpressions;
+	private final ThreadLocal<XPath> xPathHolder = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+	private final ThreadLocal<Map<String, XPathExpression>> compiledHolder;
+	
+	/**
+	 * @param expressions XPath expressions to compile. Each of them is checked to be compilable right away
+	 */
+	public XPathCache(Collection<String> expressions)
+	{
+		knownExpressions = Collections.unmodifiableSet(new LinkedHashSet<String>(expressions));
+		for (String expr : knownExpressions)
+		{
+			try
+			{
+				xPathHolder.get().compile(expr);
+			}
+			catch (XPathExpressionException e)
+			{
+				//Not failing dictionary load: error will be raised when the expression is used for decoding
+				logger.warn("Invalid XPath expression '{}' in dictionary", expr, e);
+			}
+		}
+		compiledHolder = ThreadLocal.withInitial(() -> new HashMap<String, XPathExpression>(knownExpressions.size() * 2));
+	}
+	
+	/**
+	 * @param expression XPath expression
+	 * @return compiled expression that can be used only by current thread
+	 * @throws XPathExpressionException if expression cannot be compiled
+	 */
+	public XPathExpression get(String expression) throws XPathExpressionException
+	{
+		Map<String, XPathExpression> compiled = compiledHolder.get();
+		XPathExpression result = compiled.get(expression);
+		if (result == null)
+		{
+			result = xPathHolder.get().compile(expression);
+			compiled.put(expression, result);
+		}
+		return result;
+	}
+	
+	public Set<String> getKnownExpressions()
+	{
+		return knownExpressions;
+	}
+}
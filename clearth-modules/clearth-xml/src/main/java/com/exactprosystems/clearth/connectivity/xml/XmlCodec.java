@@ -35,6 +35,7 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
@@ -43,6 +44,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -56,6 +58,10 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 public class XmlCodec implements ICodec
 {
 	private static final Logger logger = LoggerFactory.getLogger(XmlCodec.class);
+	/**
+	 * @deprecated XPath object is not thread-safe. Use compiled expressions from {@link XmlDictionary#getXPathCache()} instead
+	 */
+	@Deprecated
 	protected static final XPath xPath = XPathFactory.newInstance().newXPath();
 
 	private static final Pattern ROOT_TAG_PATTERN = Pattern.compile("\\A(?:<\\?(?i)xml(?-i).*>\\s*)?<(\\w+).*>");
@@ -63,10 +69,16 @@ public class XmlCodec implements ICodec
 	protected static final String FORMAT_NOMSGTYPE = "No message description with type '%s' in dictionary.";
 	
 	public static final String DEFAULT_CODEC_NAME = "Xml";
+	//Streaming decoding doesn't call these methods, so it is not used if subclass overrides any of them
+	private static final Set<String> DOM_DECODING_METHODS = new HashSet<String>(Arrays.asList("removeNamespaces", "beforeDecode",
+			"parseMessage", "parseDom", "parseField", "findNodes", "parseSimpleField", "parseAttributes"));
 
 	protected final XmlDictionary dictionary;
 	protected final boolean trimValues;
 	protected final MessageValidator messageValidator;
+	protected final XmlStreamDecoder streamDecoder;
+	private final boolean streamingAllowed,
+			afterDecodeOverridden;
 
 	protected static final ThreadLocal<DocumentBuilder> documentBuilderHolder = ThreadLocal.withInitial(() ->
 	{
@@ -93,6 +105,22 @@ public class XmlCodec implements ICodec
 		this.dictionary = dictionary;
 		this.trimValues = trimValues;
 		this.messageValidator = createMessageValidator();
+		this.streamDecoder = createStreamDecoder();
+		this.streamingAllowed = !overridesAny(DOM_DECODING_METHODS);
+		this.afterDecodeOverridden = overridesAny(Collections.singleton("afterDecode"));
+	}
+	
+	private boolean overridesAny(Set<String> methodNames)
+	{
+		for (Class<?> c = getClass(); c != XmlCodec.class; c = c.getSuperclass())
+		{
+			for (Method m : c.getDeclaredMethods())
+			{
+				if (methodNames.contains(m.getName()))
+					return true;
+			}
+		}
+		return false;
 	}
 
 	public boolean isEmptyValue(String value)
@@ -106,6 +134,11 @@ public class XmlCodec implements ICodec
 		return new MessageValidator();
 	}
 
+	protected XmlStreamDecoder createStreamDecoder()
+	{
+		return new XmlStreamDecoder(this);
+	}
+
 	////////////////// DECODING /////////////////
 
 	@Override
@@ -119,16 +152,24 @@ public class XmlCodec implements ICodec
 	{
 		try
 		{
-			String sourceMessage = encodedMessage;
-			encodedMessage = removeNamespaces(encodedMessage);
+			//Type detection and validation work with text view, so that text without namespaces is built only for DOM-based decoding
+			CharSequence messageText = streamingAllowed ? NamespacelessText.of(encodedMessage) : removeNamespaces(encodedMessage);
 
-			XmlMessageDesc messageDesc = findMessageDesc(encodedMessage, messageType);
+			XmlMessageDesc messageDesc = findMessageDesc(messageText, messageType);
 
-			messageValidator.validate(encodedMessage, dictionary.getConditions(messageDesc.getType()));
+			messageValidator.validate(messageText, dictionary.getConditions(messageDesc.getType()));
 			ClearThXmlMessage parsedMessage = new ClearThXmlMessage();
-			parsedMessage.setEncodedMessage(sourceMessage);
+			parsedMessage.setEncodedMessage(encodedMessage);
+
+			//StAX-based decoding doesn't build DOM tree, but not all constructs are supported by it
+			if (streamingAllowed && isStreamingDecode(messageDesc))
+			{
+				parsedMessage.addField(MSGTYPE, messageDesc.getType());
+				if (streamDecoder.decode(encodedMessage, parsedMessage, messageDesc))
+					return afterDecodeOverridden ? afterDecode(messageText.toString(), parsedMessage, messageDesc) : parsedMessage;
+			}
 
-			encodedMessage = beforeDecode(encodedMessage, parsedMessage, messageDesc);
+			encodedMessage = beforeDecode(messageText.toString(), parsedMessage, messageDesc);
 			parseMessage(encodedMessage, parsedMessage, messageDesc);
 			return afterDecode(encodedMessage, parsedMessage, messageDesc);
 		}
@@ -159,12 +200,12 @@ public class XmlCodec implements ICodec
 	}
 
 
-	protected XmlMessageDesc findMessageDesc(String messageText, String type) throws DecodeException
+	protected XmlMessageDesc findMessageDesc(CharSequence messageText, String type) throws DecodeException
 	{
 		return (type != null) ? findMessageDescByType(messageText, type) : findMessageDescByText(messageText);
 	}
 
-	protected XmlMessageDesc findMessageDescByType(String messageText, String type) throws DecodeException
+	protected XmlMessageDesc findMessageDescByType(CharSequence messageText, String type) throws DecodeException
 	{
 		XmlMessageDesc md = dictionary.getMessageDesc(type);
 		if (md == null)
@@ -176,9 +217,10 @@ public class XmlCodec implements ICodec
 			throw new DecodeException(format("Message doesn't match conditions of type '%s'.", type));
 	}
 
-	protected XmlMessageDesc findMessageDescByText(String messageText) throws DecodeException
+	protected XmlMessageDesc findMessageDescByText(CharSequence messageText) throws DecodeException
 	{
-		for (XmlMessageDesc md : dictionary.getMessageDescs())
+		//Index narrows down descriptions to check by root tag, type conditions are checked only for them
+		for (XmlMessageDesc md : dictionary.getTypeIndex().getCandidates(messageText))
 		{
 			String messageType = md.getType();
 			List<MessageValidatorCondition> conditions = dictionary.getTypeConditions(messageType);
@@ -189,7 +231,7 @@ public class XmlCodec implements ICodec
 		throw new DecodeException(format("Unknown message with root tag '%s'.", findRootTag(messageText)));
 	}
 
-	private String findRootTag(String message)
+	private String findRootTag(CharSequence message)
 	{
 		Matcher matcher = ROOT_TAG_PATTERN.matcher(message);
 		if (matcher.find())
@@ -199,12 +241,13 @@ public class XmlCodec implements ICodec
 	}
 
 
+	/**
+	 * Removes namespace prefixes from tag names, i.e. does the same as 
+	 * {@code encodedMessage.replaceAll("(</?)[\\w\\d]+:", "$1")}, but without regular expression
+	 */
 	protected String removeNamespaces(String encodedMessage)
 	{
-		if (encodedMessage.contains(":"))
-			return encodedMessage.replaceAll("(</?)[\\w\\d]+:", "$1");
-		else
-			return encodedMessage;
+		return NamespacelessText.of(encodedMessage).toString();
 	}
 
 	protected Element parseDom(String message) throws ParserConfigurationException, IOException, SAXException
@@ -220,7 +263,7 @@ public class XmlCodec implements ICodec
 	}
 
 	protected void parseMessage(String encodedMessage, ClearThXmlMessage parsedMessage, XmlMessageDesc messageDesc)
-			throws DecodeException, IOException, SAXException, ParserConfigurationException
+			throws DecodeException, IOException, SAXException, ParserConfigurationException, XMLStreamException
 	{
 		parsedMessage.addField(MSGTYPE, messageDesc.getType());
 
@@ -234,6 +277,16 @@ public class XmlCodec implements ICodec
 			parseField(field, documentElement, parsedMessage, usedNodes);
 	}
 
+	/**
+	 * Override to return false if DOM-based decoding must be always used for messages of some types. 
+	 * DOM-based decoding is always used if methods called only by it, e.g. parseField() or parseSimpleField(), are overridden
+	 * @return true if message of given type should be decoded by {@link XmlStreamDecoder}
+	 */
+	protected boolean isStreamingDecode(XmlMessageDesc messageDesc)
+	{
+		return dictionary.isStreamable(messageDesc.getType());
+	}
+
 	protected void parseField(XmlFieldDesc fieldDesc, Node parentNode, ClearThXmlMessage parsedMessage, Set<Node> usedNodes) throws DecodeException
 	{
 		//For constant fields, no value parsing is needed.
@@ -288,7 +341,7 @@ public class XmlCodec implements ICodec
 		{
 			try
 			{
-				NodeList nodes = (NodeList) xPath.evaluate(relativePath, parentNode, XPathConstants.NODESET);
+				NodeList nodes = (NodeList) dictionary.getXPathCache().get(relativePath).evaluate(parentNode, XPathConstants.NODESET);
 				if (nodes == null || nodes.getLength() == 0)
 					return result;
 
@@ -323,12 +376,17 @@ public class XmlCodec implements ICodec
 	protected void parseSimpleField(XmlFieldDesc fieldDesc, Node node, ClearThXmlMessage message)
 	{
 		String value = node.getFirstChild() != null ? node.getFirstChild().getNodeValue() : "";  //No first child in node usually means empty tag value
+		addSimpleField(fieldDesc, node.getNodeName(), value, message);
+	}
+
+	protected void addSimpleField(XmlFieldDesc fieldDesc, String nodeName, String value, ClearThXmlMessage message)
+	{
 		if (trimValues && !value.isEmpty())
 			value = value.trim();
 
 		String name = fieldDesc.getName();
 		if (name == null)
-			name = node.getNodeName();
+			name = nodeName;
 		message.addXMLField(name, new XmlField(value, fieldDesc.isNumeric()));
 	}
 
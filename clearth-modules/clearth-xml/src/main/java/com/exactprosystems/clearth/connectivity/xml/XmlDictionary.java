@@ -21,8 +21,11 @@ package com.exactprosystems.clearth.connectivity.xml;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.exactprosystems.clearth.connectivity.Dictionary;
 import com.exactprosystems.clearth.connectivity.iface.MessageValidatorCondition;
@@ -39,6 +42,11 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 
 public class XmlDictionary extends Dictionary<XmlMessageDesc, XmlDictionaryDesc>
 {
+	//Assigned in processDictionary() called from parent constructor, thus shouldn't be initialized here
+	protected XmlTypeIndex typeIndex;
+	protected XPathCache xPathCache;
+	protected Set<String> streamableTypes;
+	
 	public XmlDictionary(String fileName) throws DictionaryLoadException
 	{
 		super(fileName);
@@ -49,6 +57,99 @@ public class XmlDictionary extends Dictionary<XmlMessageDesc, XmlDictionaryDesc>
 		super(reader);
 	}
 	
+	@Override
+	protected void processDictionary(XmlDictionaryDesc dictionary) throws DictionaryLoadException
+	{
+		super.processDictionary(dictionary);
+		typeIndex = createTypeIndex();
+		xPathCache = new XPathCache(collectXPathExpressions());
+		streamableTypes = collectStreamableTypes();
+	}
+	
+	protected Set<String> collectStreamableTypes()
+	{
+		Set<String> result = new HashSet<String>();
+		if (messageDescList != null)
+		{
+			for (XmlMessageDesc md : messageDescList)
+			{
+				if (!hasXPathFields(md.getFieldDesc()))
+					result.add(md.getType());
+			}
+		}
+		return result;
+	}
+	
+	private boolean hasXPathFields(List<XmlFieldDesc> fields)
+	{
+		if (isEmpty(fields))
+			return false;
+		
+		for (XmlFieldDesc field : fields)
+		{
+			if (field.isXpath() || hasXPathFields(field.getFieldDesc()))
+				return true;
+		}
+		return false;
+	}
+	
+	protected Set<String> collectXPathExpressions()
+	{
+		Set<String> result = new LinkedHashSet<String>();
+		if (messageDescList != null)
+		{
+			for (XmlMessageDesc md : messageDescList)
+				collectXPathExpressions(md.getFieldDesc(), result);
+		}
+		return result;
+	}
+	
+	private void collectXPathExpressions(List<XmlFieldDesc> fields, Set<String> result)
+	{
+		if (isEmpty(fields))
+			return;
+		
+		for (XmlFieldDesc field : fields)
+		{
+			if (field.isXpath())
+			{
+				String source = field.getSource() != null ? field.getSource() : field.getName();
+				if (source != null)
+					result.add(source);
+			}
+			collectXPathExpressions(field.getFieldDesc(), result);
+		}
+	}
+	
+	protected XmlTypeIndex createTypeIndex()
+	{
+		return new XmlTypeIndex(messageDescList, typeConditionsMap);
+	}
+	
+	/**
+	 * @return index to find message descriptions that may fit message to decode
+	 */
+	public XmlTypeIndex getTypeIndex()
+	{
+		return typeIndex;
+	}
+	
+	/**
+	 * @return compiled XPath expressions used by fields of message descriptions
+	 */
+	public XPathCache getXPathCache()
+	{
+		return xPathCache;
+	}
+	
+	/**
+	 * @return true if messages of given type can be decoded by {@link XmlStreamDecoder}, i.e. its description has no XPath fields
+	 */
+	public boolean isStreamable(String type)
+	{
+		return streamableTypes.contains(type);
+	}
+	
 	@Override
 	protected Class[] getClassesToBeBound()
 	{
@@ -0,0 +1,303 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import com.exactprosystems.clearth.connectivity.DecodeException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static javax.xml.stream.XMLStreamConstants.*;
+import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+import static org.apache.commons.lang.StringUtils.isEmpty;
+
+/**
+ * Decodes XML messages in one pass over StAX events instead of building full DOM tree.
+ * Only elements and attributes mentioned in message description are kept while reading, unknown elements are skipped.
+ * Collected values are then put into {@link ClearThXmlMessage} in order of field descriptions, 
+ * so that result is the same as one of DOM-based decoding in {@link XmlCodec}.
+ * Message descriptions with XPath fields can't be decoded this way, see {@link XmlDictionary#isStreamable(String)}.
+ */
+public class XmlStreamDecoder
+{
+	protected static final ThreadLocal<XMLInputFactory> inputFactoryHolder = ThreadLocal.withInitial(() ->
+	{
+		//Namespace prefixes of tags are removed while reading, other prefixes are kept in names as DOM parser does
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		return factory;
+	});
+	
+	protected final XmlCodec codec;
+	
+	public XmlStreamDecoder(XmlCodec codec)
+	{
+		this.codec = codec;
+	}
+	
+	
+	/**
+	 * Checks if message has no constructs for which StAX parser gives result different from DOM one. 
+	 * StAX parser reports CDATA sections as ordinary text, while DOM keeps them as separate nodes. DTD is not supported
+	 */
+	public boolean canDecode(String message)
+	{
+		return !message.contains("<![CDATA[") && !message.contains("<!DOCTYPE");
+	}
+	
+	/**
+	 * Parses message and fills given object with fields of message description. 
+	 * Message text may contain namespace prefixes in tag names, they are removed as {@link XmlCodec#removeNamespaces(String)} does
+	 * @return false if message contains constructs that can't be decoded by this class. 
+	 * In this case parsed message remains untouched and DOM-based decoding should be used
+	 */
+	public boolean decode(String message, ClearThXmlMessage parsedMessage, XmlMessageDesc messageDesc) 
+			throws DecodeException, XMLStreamException
+	{
+		if (!canDecode(message))
+			return false;
+		
+		StreamNode root = read(message, messageDesc);
+		if (root == null)
+			return false;
+		
+		if (isNotEmpty(messageDesc.getAttrDesc()))
+			addAttributes(messageDesc.getAttrDesc(), root, parsedMessage);
+		fillFields(messageDesc.getFieldDesc(), root, parsedMessage);
+		return true;
+	}
+	
+	
+	protected StreamNode read(String message, XmlMessageDesc messageDesc) throws XMLStreamException
+	{
+		//Parsing bytes, not characters, to apply encoding from XML declaration as DOM parser does
+		XMLStreamReader reader = inputFactoryHolder.get()
+				.createXMLStreamReader(new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)));
+		try
+		{
+			Deque<StreamNode> path = new ArrayDeque<StreamNode>();
+			StreamNode root = null,
+					leaf = null;  //Element whose value is expected in next events
+			StringBuilder leafText = null;
+			int skippedDepth = 0;
+			
+			while (reader.hasNext())
+			{
+				int event = reader.next();
+				if (leaf != null)
+				{
+					if (event == CHARACTERS || event == SPACE)
+					{
+						//Text can be reported by several events, DOM joins such parts into one node on normalization
+						if (leafText == null)
+							leafText = new StringBuilder();
+						leafText.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						continue;
+					}
+					
+					//Field value is taken from first child node only
+					if (leafText != null)
+						leaf.value = leafText.toString();
+					else if (event == END_ELEMENT)
+						leaf.value = "";
+					else if (event == COMMENT)
+						leaf.value = NamespacelessText.of(reader.getText()).toString();
+					else
+						return null;
+					leaf = null;
+					leafText = null;
+				}
+				
+				if (event == START_ELEMENT)
+				{
+					if (skippedDepth > 0)
+					{
+						skippedDepth++;
+						continue;
+					}
+					
+					String name = removeNamespace(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+					if (root == null)
+					{
+						root = new StreamNode(name, messageDesc.getFieldDesc());
+						readAttributes(reader, root, messageDesc.getAttrDesc());
+						path.push(root);
+						continue;
+					}
+					
+					XmlFieldDesc fieldDesc = path.peek().claim(name);
+					if (fieldDesc == null)
+					{
+						skippedDepth = 1;
+						continue;
+					}
+					
+					StreamNode node = new StreamNode(name, fieldDesc.getFieldDesc());
+					path.peek().addChild(fieldDesc, node);
+					readAttributes(reader, node, fieldDesc.getAttrDesc());
+					path.push(node);
+					if (fieldDesc.getFieldDesc().isEmpty())
+						leaf = node;
+				}
+				else if (event == END_ELEMENT)
+				{
+					if (skippedDepth > 0)
+						skippedDepth--;
+					else
+						path.pop();
+				}
+			}
+			return root;
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+	
+	protected void readAttributes(XMLStreamReader reader, StreamNode node, List<XmlAttributeDesc> attributeDescs)
+	{
+		int count = reader.getAttributeCount();
+		if (count == 0 || attributeDescs.isEmpty())
+			return;
+		
+		node.attributes = new HashMap<String, String>(count);
+		for (int i = 0; i < count; i++)
+			node.attributes.put(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+	}
+	
+	protected String getQualifiedName(String prefix, String localName)
+	{
+		return isEmpty(prefix) ? localName : prefix + ':' + localName;
+	}
+	
+	protected String removeNamespace(String tagName)
+	{
+		int end = 0;
+		while (end < tagName.length() && NamespacelessText.isWordChar(tagName.charAt(end)))
+			end++;
+		return end > 0 && end < tagName.length() && tagName.charAt(end) == ':' ? tagName.substring(end + 1) : tagName;
+	}
+	
+	
+	protected void fillFields(List<XmlFieldDesc> fieldDescs, StreamNode node, ClearThXmlMessage message) throws DecodeException
+	{
+		for (XmlFieldDesc fieldDesc : fieldDescs)
+		{
+			if (fieldDesc.getAlways() != null)
+				continue;
+			
+			List<StreamNode> children = node.getChildren(fieldDesc);
+			if (children.isEmpty())
+			{
+				if (fieldDesc.isMandatory())
+					throw new DecodeException(codec.createNodeNotFoundMessage(fieldDesc));
+				continue;
+			}
+			
+			for (StreamNode child : children)
+			{
+				ClearThXmlMessage target = fieldDesc.isRepeat() ? codec.createSubMessage(message, fieldDesc) : message;
+				
+				if (isNotEmpty(fieldDesc.getAttrDesc()))
+					addAttributes(fieldDesc.getAttrDesc(), child, target);
+				
+				List<XmlFieldDesc> subFieldDescs = fieldDesc.getFieldDesc();
+				if (subFieldDescs.isEmpty())
+				{
+					if (codec.shouldBePresentInObject(fieldDesc))
+						codec.addSimpleField(fieldDesc, child.name, child.value, target);
+				}
+				else
+					fillFields(subFieldDescs, child, target);
+			}
+		}
+	}
+	
+	protected void addAttributes(List<XmlAttributeDesc> attributeDescs, StreamNode node, ClearThXmlMessage message)
+	{
+		if (node.attributes == null)
+			return;
+		
+		for (XmlAttributeDesc attrDesc : attributeDescs)
+		{
+			String value = node.attributes.get(codec.getSource(attrDesc));
+			if (value != null)
+				message.addXMLField(attrDesc.getName(), new XmlField(value, attrDesc.isNumeric()));
+		}
+	}
+	
+	
+	/**
+	 * Element that matches field description, with its attributes, value and child elements matching sub-fields
+	 */
+	protected class StreamNode
+	{
+		protected final String name;
+		protected final List<XmlFieldDesc> fieldDescs;
+		protected Map<String, String> attributes;
+		protected String value;
+		protected Map<XmlFieldDesc, List<StreamNode>> children;
+		
+		public StreamNode(String name, List<XmlFieldDesc> fieldDescs)
+		{
+			this.name = name;
+			this.fieldDescs = fieldDescs;
+		}
+		
+		/**
+		 * Finds field description for child element with given name. 
+		 * Like in DOM-based decoding, each non-repeating field takes one element, first repeating field takes all the rest
+		 * @return null if element doesn't match any field and should be skipped
+		 */
+		public XmlFieldDesc claim(String childName)
+		{
+			for (XmlFieldDesc fieldDesc : fieldDescs)
+			{
+				if (fieldDesc.getAlways() != null || !childName.equals(codec.getSource(fieldDesc)))
+					continue;
+				
+				if (fieldDesc.isRepeat() || getChildren(fieldDesc).isEmpty())
+					return fieldDesc;
+			}
+			return null;
+		}
+		
+		public void addChild(XmlFieldDesc fieldDesc, StreamNode child)
+		{
+			if (children == null)
+				children = new IdentityHashMap<XmlFieldDesc, List<StreamNode>>();
+			children.computeIfAbsent(fieldDesc, fd -> new ArrayList<StreamNode>()).add(child);
+		}
+		
+		public List<StreamNode> getChildren(XmlFieldDesc fieldDesc)
+		{
+			if (children == null)
+				return Collections.emptyList();
+			List<StreamNode> result = children.get(fieldDesc);
+			return result != null ? result : Collections.<StreamNode>emptyList();
+		}
+	}
+}
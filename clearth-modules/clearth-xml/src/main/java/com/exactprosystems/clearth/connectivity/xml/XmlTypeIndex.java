@@ -0,0 +1,207 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import com.exactprosystems.clearth.connectivity.iface.MessageValidatorCondition;
+
+import java.util.*;
+
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+import static org.apache.commons.lang.StringUtils.isEmpty;
+
+/**
+ * Index of message descriptions by root tag, used to find type of message to decode.
+ * For given message text it returns message descriptions whose root tag condition can be met, 
+ * so that only these descriptions need to be checked with type conditions.
+ * Candidates are returned in the same order as they are defined in dictionary, thus the first matching description is the same as without index
+ */
+public class XmlTypeIndex
+{
+	private static final String XML_DECLARATION_START = "<?xml";
+	
+	private final Map<String, List<Candidate>> byRootTag = new HashMap<String, List<Candidate>>();
+	//Descriptions without root tag can't be indexed, they are always checked
+	private final List<Candidate> unindexed = new ArrayList<Candidate>();
+	private final int maxRootTagLength;
+	
+	public XmlTypeIndex(List<XmlMessageDesc> messageDescs, Map<String, List<MessageValidatorCondition>> typeConditions)
+	{
+		int maxLength = 0;
+		if (messageDescs != null)
+		{
+			for (int i = 0; i < messageDescs.size(); i++)
+			{
+				XmlMessageDesc md = messageDescs.get(i);
+				//Description without type conditions can't be found by message text
+				if (isEmpty(typeConditions.get(md.getType())))
+					continue;
+				
+				Candidate candidate = new Candidate(i, md);
+				String rootTag = md.getRootTag();
+				if (isIndexable(rootTag))
+				{
+					byRootTag.computeIfAbsent(rootTag, t -> new ArrayList<Candidate>()).add(candidate);
+					maxLength = Math.max(maxLength, rootTag.length());
+				}
+				else
+					unindexed.add(candidate);
+			}
+		}
+		maxRootTagLength = maxLength;
+	}
+	
+	/**
+	 * @param messageText text of message with namespaces removed
+	 * @return message descriptions that may match given message, in dictionary order
+	 */
+	public List<XmlMessageDesc> getCandidates(CharSequence messageText)
+	{
+		if (byRootTag.isEmpty())
+			return toDescs(unindexed);
+		
+		List<Candidate> found = new ArrayList<Candidate>(unindexed);
+		for (int tagStart : getPossibleRootTagPositions(messageText))
+			addByTagName(messageText, tagStart, found);
+		
+		if (found.size() > unindexed.size())
+			found.sort(Comparator.comparingInt(c -> c.index));
+		return toDescs(found);
+	}
+	
+	public int getIndexedCount()
+	{
+		int result = 0;
+		for (List<Candidate> list : byRootTag.values())
+			result += list.size();
+		return result;
+	}
+	
+	public int getUnindexedCount()
+	{
+		return unindexed.size();
+	}
+	
+	
+	/**
+	 * Root tag condition matches '&lt;rootTag' either at the very beginning of message 
+	 * or after '&gt;' found in the first line, if message starts with XML declaration
+	 */
+	protected List<Integer> getPossibleRootTagPositions(CharSequence text)
+	{
+		if (!startsWithIgnoreCase(text, XML_DECLARATION_START))
+			return text.length() > 0 && text.charAt(0) == '<' ? Collections.singletonList(0) : Collections.<Integer>emptyList();
+		
+		List<Integer> result = new ArrayList<Integer>();
+		for (int i = XML_DECLARATION_START.length(); i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			//Declaration is matched by '.*', which doesn't match line terminators
+			if (isLineTerminator(c))
+				break;
+			if (c != '>')
+				continue;
+			
+			int next = i + 1;
+			while (next < text.length() && Character.isWhitespace(text.charAt(next)))
+				next++;
+			if (next < text.length() && text.charAt(next) == '<')
+				result.add(next);
+		}
+		return result;
+	}
+	
+	private void addByTagName(CharSequence text, int tagStart, List<Candidate> found)
+	{
+		int start = tagStart + 1,
+				end = start;
+		while (end < text.length() && end - start < maxRootTagLength && isNameChar(text.charAt(end)))
+			end++;
+		
+		//Root tag condition requires message to start with root tag, so descriptions with root tag being prefix of tag name fit as well
+		for (int i = end; i > start; i--)
+		{
+			List<Candidate> candidates = byRootTag.get(text.subSequence(start, i).toString());
+			if (candidates == null)
+				continue;
+			
+			for (Candidate c : candidates)
+			{
+				if (!found.contains(c))
+					found.add(c);
+			}
+		}
+	}
+	
+	private boolean isIndexable(String rootTag)
+	{
+		if (isEmpty(rootTag))
+			return false;
+		
+		//Root tag is used in regular expression, so only names without special characters can be indexed
+		for (int i = 0; i < rootTag.length(); i++)
+		{
+			if (!isNameChar(rootTag.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+	
+	private boolean startsWithIgnoreCase(CharSequence text, String prefix)
+	{
+		if (text.length() < prefix.length())
+			return false;
+		for (int i = 0; i < prefix.length(); i++)
+		{
+			if (Character.toLowerCase(text.charAt(i)) != Character.toLowerCase(prefix.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+	
+	private boolean isLineTerminator(char c)
+	{
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+	
+	private boolean isNameChar(char c)
+	{
+		return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':';
+	}
+	
+	private List<XmlMessageDesc> toDescs(List<Candidate> candidates)
+	{
+		List<XmlMessageDesc> result = new ArrayList<XmlMessageDesc>(candidates.size());
+		for (Candidate c : candidates)
+			result.add(c.messageDesc);
+		return result;
+	}
+	
+	
+	private static class Candidate
+	{
+		private final int index;
+		private final XmlMessageDesc messageDesc;
+		
+		public Candidate(int index, XmlMessageDesc messageDesc)
+		{
+			this.index = index;
+			this.messageDesc = messageDesc;
+		}
+	}
+}
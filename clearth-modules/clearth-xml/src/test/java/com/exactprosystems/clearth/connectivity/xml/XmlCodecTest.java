@@ -28,8 +28,13 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.exactprosystems.clearth.utils.CollectionUtils.map;
 import static com.exactprosystems.clearth.utils.FileOperationUtils.resourceToAbsoluteFilePath;
@@ -213,6 +218,39 @@ public class XmlCodecTest
 		decode(resourceToAbsoluteFilePath("messages/nameAndSource.xml"), NAME_AND_SOURCE);
 	}
 	
+	@Test(timeout = 30000)
+	public void decodeConcurrently() throws Exception
+	{
+		String repeating = new String(Files.readAllBytes(Paths.get(resourceToAbsoluteFilePath("messages/repeatingGroups.xml")))),
+				nameAndSource = new String(Files.readAllBytes(Paths.get(resourceToAbsoluteFilePath("messages/nameAndSource.xml"))));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++)
+			{
+				//Each thread uses its own codec instance with shared dictionary, as collectors do
+				XmlCodec threadCodec = new XmlCodec(codec.dictionary);
+				results.add(executor.submit(() -> 
+				{
+					for (int j = 0; j < 100; j++)
+					{
+						assertEquals(REPEATING_GROUP, threadCodec.decode(repeating));
+						assertEquals(NAME_AND_SOURCE, threadCodec.decode(nameAndSource));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results)
+				result.get();
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
 	protected void decode(String messagePath, ClearThXmlMessage expected) throws Exception
 	{
 		String encodedMessage = new String(Files.readAllBytes(Paths.get(messagePath)));
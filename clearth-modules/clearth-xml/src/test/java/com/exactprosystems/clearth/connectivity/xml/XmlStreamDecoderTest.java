@@ -0,0 +1,174 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import com.exactprosystems.clearth.connectivity.DecodeException;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static com.exactprosystems.clearth.connectivity.xml.XmlCodecTest.DICTIONARY_PATH;
+import static com.exactprosystems.clearth.utils.FileOperationUtils.resourceToAbsoluteFilePath;
+import static org.junit.Assert.*;
+
+public class XmlStreamDecoderTest
+{
+	private static final String TRICKY_MESSAGE = "<?xml version=\"1.0\"?>\n" +
+			"<x:commonFieldsGroup xmlns:x=\"urn:x\">\n" +
+			"  <!--comment-->\n" +
+			"  <unknown><a>0</a></unknown>\n" +
+			"  <x:group><a><!--first-->12</a><b>3&amp;4</b><a>99</a></x:group>\n" +
+			"  <c>  56  </c>\n" +
+			"  <c>65</c>\n" +
+			"  <d/>\n" +
+			"</x:commonFieldsGroup>";
+	
+	private XmlCodec codec,
+			domCodec;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		XmlDictionary dictionary = new XmlDictionary(resourceToAbsoluteFilePath(DICTIONARY_PATH));
+		codec = new XmlCodec(dictionary);
+		domCodec = new XmlCodec(dictionary)
+		{
+			@Override
+			protected boolean isStreamingDecode(XmlMessageDesc messageDesc)
+			{
+				return false;
+			}
+		};
+	}
+	
+	@Test
+	public void decodeSameAsDom() throws Exception
+	{
+		File[] files = new File(resourceToAbsoluteFilePath("messages")).listFiles();
+		assertNotNull(files);
+		for (File file : files)
+		{
+			String text = new String(Files.readAllBytes(file.toPath()));
+			try
+			{
+				assertEquals(file.getName(), domCodec.decode(text), codec.decode(text));
+			}
+			catch (DecodeException e)
+			{
+				//Some messages are for encoding tests only
+				assertDomFails(text);
+			}
+		}
+	}
+	
+	@Test
+	public void decodeTricky() throws Exception
+	{
+		XmlMessageDesc messageDesc = codec.getDictionary().getMessageDesc("commonFieldsGroup");
+		ClearThXmlMessage streamed = new ClearThXmlMessage();
+		assertTrue(codec.streamDecoder.decode(TRICKY_MESSAGE, streamed, messageDesc));
+		
+		ClearThXmlMessage decoded = codec.decode(TRICKY_MESSAGE);
+		assertEquals(domCodec.decode(TRICKY_MESSAGE), decoded);
+		assertEquals("first", decoded.getField("a"));
+		assertEquals("3&4", decoded.getField("b"));
+		assertEquals("56", decoded.getField("c"));
+		assertEquals("", decoded.getField("d"));
+	}
+	
+	@Test
+	public void fallbackToDom() throws Exception
+	{
+		String message = "<commonFieldsGroup><c><![CDATA[<56>]]></c><d>78</d></commonFieldsGroup>";
+		XmlMessageDesc messageDesc = codec.getDictionary().getMessageDesc("commonFieldsGroup");
+		assertFalse(codec.streamDecoder.decode(message, new ClearThXmlMessage(), messageDesc));
+		assertEquals(domCodec.decode(message), codec.decode(message));
+		
+		//Value of field is taken from first child node, for element it is handled by DOM-based decoding
+		message = "<commonFieldsGroup><c>56</c><d><x/>78</d></commonFieldsGroup>";
+		assertFalse(codec.streamDecoder.decode(message, new ClearThXmlMessage(), messageDesc));
+	}
+	
+	@Test(expected = DecodeException.class)
+	public void decodeMalformed() throws Exception
+	{
+		codec.decode("<commonFieldsGroup><c>56</c></commonFieldsGroup><d>");
+	}
+	
+	@Test
+	public void removeNamespaces()
+	{
+		String[] messages = {"<a:b:c>1</a:b:c>", "< a:b>", "</x:y><z:>", "<_1:t attr=\"q:r\">s:t</_1:t>", "<:a>", "text<", "<a:"};
+		for (String message : messages)
+			assertEquals(message, message.replaceAll("(</?)[\\w\\d]+:", "$1"), codec.removeNamespaces(message));
+	}
+	
+	@Test
+	public void namespacelessTextView()
+	{
+		String[] messages = {"<a:b:c>1</a:b:c>", "</x:y><z:>", "<_1:t attr=\"q:r\">s:t</_1:t>", TRICKY_MESSAGE};
+		for (String message : messages)
+		{
+			String expected = message.replaceAll("(</?)[\\w\\d]+:", "$1");
+			CharSequence view = NamespacelessText.of(message);
+			assertEquals(message, expected.length(), view.length());
+			for (int i = 0; i < expected.length(); i++)
+				assertEquals(message + " at " + i, expected.charAt(i), view.charAt(i));
+			assertEquals(message, expected.substring(1, expected.length() - 1), view.subSequence(1, view.length() - 1).toString());
+			assertEquals(message, expected, view.toString());
+		}
+		
+		String plain = "<a attr=\"b:c\">d:e</a>";
+		assertSame(plain, NamespacelessText.of(plain));
+	}
+	
+	@Test
+	public void overriddenDomMethodsUsed() throws Exception
+	{
+		XmlCodec customCodec = new XmlCodec(codec.getDictionary())
+		{
+			@Override
+			protected void parseSimpleField(XmlFieldDesc fieldDesc, Node node, ClearThXmlMessage message)
+			{
+				message.addField(fieldDesc.getName(), "custom");
+			}
+		};
+		
+		ClearThXmlMessage decoded = customCodec.decode(TRICKY_MESSAGE);
+		assertEquals("custom", decoded.getField("c"));
+		assertEquals("custom", decoded.getField("d"));
+	}
+	
+	
+	private void assertDomFails(String text)
+	{
+		try
+		{
+			domCodec.decode(text);
+			fail("DOM-based decoding should fail too");
+		}
+		catch (DecodeException e)
+		{
+			//Expected
+		}
+	}
+}
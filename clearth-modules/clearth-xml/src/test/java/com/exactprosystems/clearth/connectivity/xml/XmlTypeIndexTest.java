@@ -0,0 +1,81 @@
+/******************************************************************************
+ * Copyright 2009-2019 Exactpro Systems Limited
+ * https://www.exactpro.com
+ * Build Software to Test Software
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.exactprosystems.clearth.connectivity.xml;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class XmlTypeIndexTest
+{
+	private static final String DICTIONARY = "<XmlDictionaryDesc>"
+			+ "<messageDesc rootTag=\"Order\" type=\"order\"/>"
+			+ "<messageDesc rootTag=\"OrderCancel\" type=\"orderCancel\"/>"
+			+ "<messageDesc rootTag=\"Trade\" type=\"trade\"/>"
+			+ "<messageDesc type=\"byCondition\"><typeCondition value=\"Status\"/></messageDesc>"
+			+ "<messageDesc type=\"noConditions\"/>"
+			+ "</XmlDictionaryDesc>";
+	
+	private XmlTypeIndex index;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		index = new XmlDictionary(new StringReader(DICTIONARY)).getTypeIndex();
+	}
+	
+	@Test
+	public void indexedDescriptions()
+	{
+		assertEquals(3, index.getIndexedCount());
+		assertEquals(1, index.getUnindexedCount());
+	}
+	
+	@Test
+	public void candidatesByRootTag()
+	{
+		assertEquals("[trade, byCondition]", types("<Trade id=\"1\"/>"));
+		//Root tag condition checks message start only, so shorter root tag fits too
+		assertEquals("[order, orderCancel, byCondition]", types("<OrderCancel><Status/></OrderCancel>"));
+		assertEquals("[byCondition]", types("<Unknown/>"));
+	}
+	
+	@Test
+	public void candidatesAfterDeclaration()
+	{
+		assertEquals("[trade, byCondition]", types("<?xml version=\"1.0\"?>\n<Trade/>"));
+		//Declaration and tags on the same line: any of these tags can match root tag condition
+		assertEquals("[order, trade, byCondition]", types("<?XML version=\"1.0\"?><Trade><Order/></Trade>"));
+		assertEquals("[trade, byCondition]", types("<?xml version=\"1.0\"?>\r\n<Trade>\n<Order/>\n</Trade>"));
+	}
+	
+	
+	private String types(String message)
+	{
+		List<String> result = new ArrayList<String>();
+		for (XmlMessageDesc md : index.getCandidates(message))
+			result.add(md.getType());
+		return result.toString();
+	}
+}